@@ -424,6 +424,7 @@ public class AttrImpl
             value = newvalue;
             hasStringValue(true);
             changed();
+            ownerDocument.contentChanged(this);
         }
         if (isIdAttribute() && ownerElement != null) {
             ownerDocument.putIdentifier(newvalue, ownerElement);
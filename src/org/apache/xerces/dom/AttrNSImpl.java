@@ -251,6 +251,7 @@ public class AttrNSImpl
         else {
             name = localName;
         }
+        ownerDocument().contentChanged(this);
     }
                                         
     /** 
@@ -183,6 +183,20 @@ extends ParentNode implements Document  {
      */
     protected int changes = 0;
 
+    /**
+     * Number of modifications made to this document outside of its document
+     * element, such as changes to the document type or to the XML version.
+     * Modifications inside the document element are tracked by element, see
+     * contentChanged(NodeImpl).
+     */
+    transient int contentChanges = 0;
+
+    /**
+     * Whether normalizeDocument recorded the content of any elements,
+     * which then needs to be discarded when the content is modified.
+     */
+    transient boolean normalizedContentRecorded = false;
+
     // experimental
 
     /** Allow grammar access. */
@@ -862,6 +876,7 @@ extends ParentNode implements Document  {
                 xmlVersionChanged = true ;
                 //change the normalization value back to false
                 isNormalized(false);
+                contentChanged();
                 version = value;
             }
         }
@@ -920,6 +935,7 @@ extends ParentNode implements Document  {
     public void setXmlStandalone(boolean value)
                                   throws DOMException {
             standalone = value;
+            contentChanged();
     }
     
     /**
@@ -1202,6 +1218,7 @@ extends ParentNode implements Document  {
      */
     public void setDocumentURI(String documentURI){
         fDocumentURI = documentURI;
+        contentChanged();
     }
 
 
@@ -2280,6 +2297,63 @@ extends ParentNode implements Document  {
         return changes;
     }
 
+    /**
+     * Denotes that this document has been modified outside of its
+     * document element.
+     */
+    final void contentChanged() {
+        contentChanges++;
+    }
+
+    /**
+     * Denotes that the given node has been modified: discards what
+     * normalizeDocument recorded about the content of the elements
+     * containing it, or about the whole document if it is outside
+     * of the document element.
+     */
+    final void contentChanged(NodeImpl node) {
+        if (!normalizedContentRecorded) {
+            return;
+        }
+        boolean inElement = false;
+        while (node != null) {
+            switch (node.getNodeType()) {
+                case Node.ELEMENT_NODE: {
+                    ((ElementImpl) node).normalizedContent = null;
+                    inElement = true;
+                    node = node.parentNode();
+                    break;
+                }
+                case Node.ATTRIBUTE_NODE: {
+                    node = (NodeImpl) ((AttrImpl) node).getOwnerElement();
+                    break;
+                }
+                case Node.DOCUMENT_NODE:
+                    if (inElement) {
+                        return;
+                    }
+                    // fall through
+                case Node.DOCUMENT_TYPE_NODE:
+                case Node.ENTITY_NODE:
+                case Node.NOTATION_NODE: {
+                    contentChanges++;
+                    return;
+                }
+                default: {
+                    node = node.parentNode();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of modifications made to the content
+     * of this document.
+     */
+    final int contentChanges() {
+        return contentChanges;
+    }
+
     //  NodeListCache pool
 
     /**
@@ -2692,6 +2766,7 @@ extends ParentNode implements Document  {
      * A method to be called when a character data node has been modified
      */
     void modifiedCharacterData(NodeImpl node, String oldvalue, String value, boolean replace) {
+        contentChanged(node);
     }
 
     /**
@@ -2704,6 +2779,7 @@ extends ParentNode implements Document  {
      * A method to be called when a node has been inserted in the tree.
      */
     void insertedNode(NodeImpl node, NodeImpl newInternal, boolean replace) {
+        contentChanged(node);
     }
 
     /**
@@ -2716,6 +2792,7 @@ extends ParentNode implements Document  {
      * A method to be called when a node has been removed from the tree.
      */
     void removedNode(NodeImpl node, boolean replace) {
+        contentChanged(node);
     }
 
     /**
@@ -2728,6 +2805,7 @@ extends ParentNode implements Document  {
      * A method to be called when a node has been replaced in the tree.
      */
     void replacedNode(NodeImpl node) {
+        contentChanged(node);
     }
 
     /**
@@ -2740,6 +2818,7 @@ extends ParentNode implements Document  {
      *  method to be called when a character data node has been replaced.
      */
     void replacedCharacterData(NodeImpl node, String oldvalue, String value) {
+        contentChanged(node);
     }
 
     
@@ -2747,30 +2826,35 @@ extends ParentNode implements Document  {
      * A method to be called when an attribute value has been modified
      */
     void modifiedAttrValue(AttrImpl attr, String oldvalue) {
+        contentChanged(attr);
     }
 
     /**
      * A method to be called when an attribute node has been set
      */
     void setAttrNode(AttrImpl attr, AttrImpl previous) {
+        contentChanged(attr);
     }
 
     /**
      * A method to be called when an attribute node has been removed
      */
     void removedAttrNode(AttrImpl attr, NodeImpl oldOwner, String name) {
+        contentChanged(oldOwner);
     }
 
     /**
      * A method to be called when an attribute node has been renamed
      */
     void renamedAttrNode(Attr oldAt, Attr newAt) {
+        contentChanged((NodeImpl) newAt);
     }
 
     /**
      * A method to be called when an element has been renamed
      */
     void renamedElement(Element oldEl, Element newEl) {
+        contentChanged((NodeImpl) newEl);
     }
     
     /**
@@ -135,6 +135,9 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
     
     protected static final String TOLERATE_DUPLICATES = 
         Constants.XERCES_FEATURE_PREFIX + Constants.TOLERATE_DUPLICATES_FEATURE;    
+    
+    protected static final String COMPACT_GRAMMARS = 
+        Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_COMPACT_GRAMMARS_FEATURE;
     // property identifiers
 
     /** Property identifier: entity manager. */
@@ -199,6 +202,18 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
     /** Property identifier: Schema DV Factory */
     protected static final String SCHEMA_DV_FACTORY =
         Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_DV_FACTORY_PROPERTY;
+
+    /** Property identifier: schema full checking threads */
+    protected static final String SCHEMA_FULL_CHECKING_THREADS =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_FULL_CHECKING_THREADS_PROPERTY;
+
+    /** Property identifier: schema content model policy */
+    protected static final String SCHEMA_CONTENT_MODEL_POLICY =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_CONTENT_MODEL_POLICY_PROPERTY;
+
+    /** Property identifier: schema location cache */
+    protected static final String SCHEMA_LOCATION_CACHE =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_LOCATION_CACHE_PROPERTY;
     
     //
     // Data
@@ -255,6 +270,9 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
 
     private String fSchemaLocation = null;
     private DOMStringList fRecognizedParameters;
+    
+    /** Number of times the parameters of this configuration have been set. */
+    private int fParameterChanges = 0;
 
     //
     // Constructors
@@ -312,7 +330,8 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
             WARN_ON_DUPLICATE_ATTDEF,
             PARSER_SETTINGS,
             NAMESPACE_GROWTH,
-            TOLERATE_DUPLICATES
+            TOLERATE_DUPLICATES,
+            COMPACT_GRAMMARS
         };
         addRecognizedFeatures(recognizedFeatures);
 
@@ -335,6 +354,7 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
         setFeature(PARSER_SETTINGS, true);
         setFeature(NAMESPACE_GROWTH, false);
         setFeature(TOLERATE_DUPLICATES, false);
+        setFeature(COMPACT_GRAMMARS, false);
 
         // add default recognized properties
         final String[] recognizedProperties = {
@@ -353,7 +373,10 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
             SCHEMA_NONS_LOCATION,
             DTD_VALIDATOR_PROPERTY,
             DTD_VALIDATOR_FACTORY_PROPERTY,
-            SCHEMA_DV_FACTORY
+            SCHEMA_DV_FACTORY,
+            SCHEMA_FULL_CHECKING_THREADS,
+            SCHEMA_CONTENT_MODEL_POLICY,
+            SCHEMA_LOCATION_CACHE
         };
         addRecognizedProperties(recognizedProperties);
 
@@ -514,6 +537,7 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
      *                 uninstall the currently installed resolver.
      */
     public void setEntityResolver(XMLEntityResolver resolver) {
+        fParameterChanges++;
         fProperties.put(ENTITY_RESOLVER, resolver);
     } // setEntityResolver(XMLEntityResolver)
 
@@ -547,6 +571,7 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
      * @see #getErrorHandler
      */
     public void setErrorHandler(XMLErrorHandler errorHandler) {
+        fParameterChanges++;
         if (errorHandler != null) {
             fProperties.put(ERROR_HANDLER, errorHandler);
         }
@@ -600,6 +625,7 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
         throws XMLConfigurationException {
 
         // save state if noone "objects"
+        fParameterChanges++;
         super.setFeature(featureId, state);
 
     } // setFeature(String,boolean)
@@ -614,6 +640,7 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
         throws XMLConfigurationException {
 
         // store value if noone "objects"
+        fParameterChanges++;
         super.setProperty(propertyId, value);
 
     } // setProperty(String,Object)
@@ -627,6 +654,7 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
      *                         specified locale.
      */
     public void setLocale(Locale locale) throws XNIException {
+        fParameterChanges++;
         fLocale = locale;
         fErrorReporter.setLocale(locale);
 
@@ -643,6 +671,7 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
      */
     public void setParameter(String name, Object value) throws DOMException {
     	boolean found = true;
+        fParameterChanges++;
 
         // REVISIT: Recognizes DOM L3 default features only.
         //          Does not yet recognize Xerces features.
@@ -1097,6 +1126,14 @@ public class DOMConfigurationImpl extends ParserConfigurationSettings
     // Protected methods
     //
 
+    /**
+     * Returns the number of times the parameters, features and 
+     * properties of this configuration have been set.
+     */
+    final int parameterChanges() {
+        return fParameterChanges;
+    }
+
     /**
      * reset all components before parsing
      */
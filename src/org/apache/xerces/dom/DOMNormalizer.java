@@ -19,10 +19,12 @@ package org.apache.xerces.dom;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Vector;
 
 import org.apache.xerces.impl.Constants;
 import org.apache.xerces.impl.RevalidationHandler;
+import org.apache.xerces.impl.SubtreeRevalidationHandler;
 import org.apache.xerces.impl.dtd.XMLDTDLoader;
 import org.apache.xerces.impl.dtd.XMLDTDValidator;
 import org.apache.xerces.impl.dv.XSSimpleType;
@@ -80,6 +82,18 @@ import org.w3c.dom.Text;
  * The tree might not be validated correctly if entityReferences, CDATA sections are
  * present in the tree. The PSVI information is not exposed, normalized data (including element
  * default content is not available).
+ * 
+ * When revalidating with XML Schema and an error handler, the content of each element is
+ * recorded: the state the validator was in when the content started, the changes the content
+ * made to that state, including the IDs and identity constraint values it added, and the IDs
+ * it registered in the document. Modifying a node discards the records of the elements which
+ * contain it. The next pass skips the content of an element which still has a record, if it
+ * starts in the same validator state and namespace context, applying the recorded changes
+ * instead. Simple content, and content which caused errors or warnings, or whose validation
+ * looked up a grammar (xsi:type, wildcards, substitution groups), read schema location hints,
+ * declared identity constraints or matched identity constraint fields of an enclosing element,
+ * is not recorded. Modifying nodes outside of the document element, or the configuration,
+ * discards all records.
  *
  * @xerces.experimental
  * 
@@ -131,7 +145,7 @@ public class DOMNormalizer implements XMLDocumentHandler {
     protected boolean fPSVI = false;
 
     /** The namespace context of this document: stores namespaces in scope */
-    protected final NamespaceContext fNamespaceContext = new NamespaceSupport();
+    protected final NamespaceContext fNamespaceContext = new NamespaceBindings();
 
     /** Stores all namespace bindings on the current element */
     protected final NamespaceContext fLocalNSBinder = new NamespaceSupport();
@@ -165,6 +179,38 @@ public class DOMNormalizer implements XMLDocumentHandler {
     // Check if element content is all "ignorable whitespace"
     private boolean fAllWhitespace = false;
     
+    /** Counts the errors reported to the application's error handler. */
+    private final ErrorCounter fErrorCounter = new ErrorCounter();
+    
+    /** The validator, if the content of elements is recorded in this pass. */
+    private SubtreeRevalidationHandler fContentHandler = null;
+    
+    /** The IDs registered in this pass, each followed by its element. */
+    private ArrayList fIdLog = null;
+    
+    /** 
+     * Identifies the passes whose records of element content apply to the
+     * current pass: those that normalized the same document with the same
+     * configuration, neither being modified in between other than inside
+     * the document element.
+     */
+    private Object fGeneration = null;
+    
+    /** The document last normalized while recording element content. */
+    private CoreDocumentImpl fNormalizedDocument = null;
+    
+    /** The configuration that document was normalized with. */
+    private DOMConfigurationImpl fNormalizedConfiguration = null;
+    
+    /** The content change count of the document when it was normalized. */
+    private int fNormalizedContentChanges;
+    
+    /** The parameter change count of the configuration when the document was normalized. */
+    private int fNormalizedParameterChanges;
+    
+    /** Whether error checking was enabled when the document was normalized. */
+    private boolean fNormalizedErrorChecking;
+    
     // Constructor
     // 
 
@@ -178,10 +224,20 @@ public class DOMNormalizer implements XMLDocumentHandler {
      */
     protected void normalizeDocument(CoreDocumentImpl document, DOMConfigurationImpl config) {
         
+        // check whether the element content recorded by the last pass applies
+        // before the configuration is modified below
+        boolean sameGeneration = document == fNormalizedDocument &&
+            config == fNormalizedConfiguration &&
+            document.contentChanges() == fNormalizedContentChanges &&
+            config.parameterChanges() == fNormalizedParameterChanges &&
+            document.errorChecking == fNormalizedErrorChecking;
+        
         fDocument = document;
         fConfiguration = config;
         fAllWhitespace = false;
         fNamespaceValidation = false;
+        fNormalizedDocument = null;
+        fNormalizedConfiguration = null;
         
         String xmlVersion = fDocument.getXmlVersion();
         String schemaType = null;
@@ -233,6 +289,23 @@ public class DOMNormalizer implements XMLDocumentHandler {
         }
         
         fErrorHandler = (DOMErrorHandler) fConfiguration.getParameter(Constants.DOM_ERROR_HANDLER);
+        fErrorCounter.reset(fErrorHandler);
+        if (fErrorHandler != null) {
+            fErrorHandler = fErrorCounter;
+            fConfiguration.fErrorHandlerWrapper.setErrorHandler(fErrorCounter);
+        }
+        
+        // record element content if the validator can skip it in later passes
+        if (schemaType == XMLGrammarDescription.XML_SCHEMA && !fPSVI && fErrorHandler != null &&
+            fValidationHandler instanceof SubtreeRevalidationHandler) {
+            fContentHandler = (SubtreeRevalidationHandler) fValidationHandler;
+            fIdLog = new ArrayList();
+            fDocument.normalizedContentRecorded = true;
+            if (!sameGeneration || fGeneration == null) {
+                fGeneration = new Object();
+            }
+        }
+        
         if (fValidationHandler != null) {
             fValidationHandler.setDocumentHandler(this);
             fValidationHandler.startDocument(
@@ -262,6 +335,15 @@ public class DOMNormalizer implements XMLDocumentHandler {
                 CoreDOMImplementationImpl.singleton.releaseValidator(schemaType, xmlVersion, fValidationHandler);
                 fValidationHandler = null;
             }
+            
+            // the next pass may use the element content recorded by this one
+            if (fContentHandler != null) {
+                fNormalizedDocument = fDocument;
+                fNormalizedConfiguration = fConfiguration;
+                fNormalizedContentChanges = fDocument.contentChanges();
+                fNormalizedParameterChanges = fConfiguration.parameterChanges();
+                fNormalizedErrorChecking = fDocument.errorChecking;
+            }
         }
         catch (RuntimeException e) {
             // release resources
@@ -275,6 +357,14 @@ public class DOMNormalizer implements XMLDocumentHandler {
             }
             throw e; // otherwise re-throw.
         }
+        finally {
+            fContentHandler = null;
+            fIdLog = null;
+            if (fErrorHandler == fErrorCounter) {
+                fErrorHandler = fErrorCounter.getErrorHandler();
+                fConfiguration.fErrorHandlerWrapper.setErrorHandler(fErrorHandler);
+            }
+        }
     }
 
     /**
@@ -413,23 +503,56 @@ public class DOMNormalizer implements XMLDocumentHandler {
                     fValidationHandler.startElement(fQName, fAttrProxy, null);
                 }
 
-                // normalize children
-                Node kid, next;
-                for (kid = elem.getFirstChild(); kid != null; kid = next) {
-                    next = kid.getNextSibling();
-                    kid = normalizeNode(kid);
-                    if (kid != null) {
-                        next = kid;  // don't advance
+                // skip the children if they were not modified since they were 
+                // last normalized, and the recorded changes can be applied instead
+                NormalizedContent content = null;
+                int errorCount = 0;
+                int idCount = 0;
+                if (fContentHandler != null) {
+                    content = elem.normalizedContent;
+                    if (content != null && !skipContent(content)) {
+                        content = null;
                     }
-                } 
-                if (DEBUG_ND) {
-                    // normalized subtree
-                    System.out.println("***The children of {"+node.getNodeName()+"} are normalized");
+                    if (content == null) {
+                        fContentHandler.startContent();
+                        errorCount = fErrorCounter.getErrorCount();
+                        idCount = fIdLog.size();
+                    }
+                }
+
+                if (content == null) {
+                    // normalize children
+                    Node kid, next;
                     for (kid = elem.getFirstChild(); kid != null; kid = next) {
                         next = kid.getNextSibling();
-                        System.out.println(kid.getNodeName() +"["+kid.getNodeValue()+"]");
+                        kid = normalizeNode(kid);
+                        if (kid != null) {
+                            next = kid;  // don't advance
+                        }
+                    } 
+                    if (DEBUG_ND) {
+                        // normalized subtree
+                        System.out.println("***The children of {"+node.getNodeName()+"} are normalized");
+                        for (kid = elem.getFirstChild(); kid != null; kid = next) {
+                            next = kid.getNextSibling();
+                            System.out.println(kid.getNodeName() +"["+kid.getNodeValue()+"]");
+                        }
+
                     }
 
+                    // record the children, unless errors or warnings were 
+                    // reported for them
+                    if (fContentHandler != null) {
+                        Object validatorContent = fContentHandler.endContent();
+                        if (validatorContent != null && errorCount == fErrorCounter.getErrorCount()) {
+                            elem.normalizedContent = new NormalizedContent(fGeneration, 
+                                    ((NamespaceBindings) fNamespaceContext).getBindings(), 
+                                    validatorContent, fIdLog, idCount, fIdLog.size());
+                        }
+                        else {
+                            elem.normalizedContent = null;
+                        }
+                    }
                 }
 
                 if (fValidationHandler != null) {
@@ -1843,7 +1966,9 @@ public class DOMNormalizer implements XMLDocumentHandler {
                     }
                 }
                 if (id) {
-                    ((ElementImpl)currentElement).setIdAttributeNode(attr, true);
+                    // not setIdAttributeNode(), which counts as a modification
+                    ((AttrImpl) attr).isIdAttribute(true);
+                    fDocument.putIdentifier(attr.getValue(), currentElement);
                 }
 
                 if (fPSVI) {
@@ -1868,6 +1993,11 @@ public class DOMNormalizer implements XMLDocumentHandler {
                         }
                     }
                 }
+                
+                if (id && fIdLog != null) {
+                    fIdLog.add(attr.getValue());
+                    fIdLog.add(currentElement);
+                }
             }
             else { // DTD
                 String type = null;
@@ -2096,6 +2226,128 @@ public class DOMNormalizer implements XMLDocumentHandler {
     public XMLDocumentSource getDocumentSource(){
         return null;
     }
-
+    
+    /**
+     * Applies the recorded content of the current element in place of its
+     * children, registering the IDs it contains again. Returns false if the
+     * record doesn't apply, in which case nothing was changed.
+     */
+    private boolean skipContent(NormalizedContent content) {
+        if (content.fGeneration != fGeneration) {
+            return false;
+        }
+        String[] bindings = ((NamespaceBindings) fNamespaceContext).getBindings();
+        if (content.fBindings != bindings && !Arrays.equals(content.fBindings, bindings)) {
+            return false;
+        }
+        if (!fContentHandler.skipContent(content.fValidatorContent)) {
+            return false;
+        }
+        for (int i = content.fIdStart; i < content.fIdEnd; i += 2) {
+            String id = (String) content.fIds.get(i);
+            Element element = (Element) content.fIds.get(i + 1);
+            fDocument.putIdentifier(id, element);
+            fIdLog.add(id);
+            fIdLog.add(element);
+        }
+        return true;
+    }
+    
+    /**
+     * The content of an element as last normalized.
+     */
+    static final class NormalizedContent {
+        
+        /** The pass generation the content was normalized in. */
+        final Object fGeneration;
+        
+        /** The namespace bindings in scope for the content. */
+        final String[] fBindings;
+        
+        /** The effect of the content on the validator. */
+        final Object fValidatorContent;
+        
+        /** The IDs registered in the pass, each followed by its element. */
+        final ArrayList fIds;
+        
+        /** The range of fIds registered by the content. */
+        final int fIdStart;
+        final int fIdEnd;
+        
+        NormalizedContent(Object generation, String[] bindings, Object validatorContent,
+                ArrayList ids, int idStart, int idEnd) {
+            fGeneration = generation;
+            fBindings = bindings;
+            fValidatorContent = validatorContent;
+            fIds = ids;
+            fIdStart = idStart;
+            fIdEnd = idEnd;
+        }
+        
+    } // NormalizedContent
+    
+    /**
+     * A namespace context which can return the bindings in scope as
+     * an array, shared until the bindings change.
+     */
+    private static final class NamespaceBindings extends NamespaceSupport {
+        
+        private String[] fBindings;
+        
+        public void reset() {
+            super.reset();
+            fBindings = null;
+        }
+        
+        public void popContext() {
+            if (fNamespaceSize != fContext[fCurrentContext]) {
+                fBindings = null;
+            }
+            super.popContext();
+        }
+        
+        public boolean declarePrefix(String prefix, String uri) {
+            fBindings = null;
+            return super.declarePrefix(prefix, uri);
+        }
+        
+        String[] getBindings() {
+            if (fBindings == null) {
+                fBindings = new String[fNamespaceSize];
+                System.arraycopy(fNamespace, 0, fBindings, 0, fNamespaceSize);
+            }
+            return fBindings;
+        }
+        
+    } // NamespaceBindings
+    
+    /**
+     * Passes errors on to the application's error handler, counting them.
+     */
+    private static final class ErrorCounter implements DOMErrorHandler {
+        
+        private DOMErrorHandler fErrorHandler;
+        
+        private int fErrorCount;
+        
+        public boolean handleError(DOMError error) {
+            ++fErrorCount;
+            return fErrorHandler.handleError(error);
+        }
+        
+        DOMErrorHandler getErrorHandler() {
+            return fErrorHandler;
+        }
+        
+        int getErrorCount() {
+            return fErrorCount;
+        }
+        
+        void reset(DOMErrorHandler errorHandler) {
+            fErrorHandler = errorHandler;
+            fErrorCount = 0;
+        }
+        
+    } // ErrorCounter
     
 }  // DOMNormalizer class
@@ -19,6 +19,7 @@ package org.apache.xerces.dom;
 
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 
 import org.w3c.dom.ls.LSOutput;
 
@@ -40,7 +41,8 @@ import org.w3c.dom.ls.LSOutput;
  * to output to, the first one that data can be output to will be used:
  * 1.LSOutput.characterStream
  * 2.LSOutput.byteStream
- * 3.LSOutput.systemId
+ * 3.byteChannel (Xerces specific, see {@link #setByteChannel})
+ * 4.LSOutput.systemId
  * LSOutput objects belong to the application. The DOM implementation will
  * never modify them (though it may make copies and modify the copies,
  * if necessary).
@@ -55,6 +57,7 @@ public class DOMOutputImpl implements LSOutput {
 
         protected Writer fCharStream = null;
         protected OutputStream fByteStream = null;
+        protected WritableByteChannel fByteChannel = null;
         protected String fSystemId = null;
         protected String fEncoding = null;
 
@@ -111,6 +114,30 @@ public class DOMOutputImpl implements LSOutput {
         fByteStream = byteStream;
     };
 
+   /**
+    * NON-DOM: A channel to which the serialized bytes are written. The
+    * serializer writes to the channel incrementally as its buffers fill
+    * up, using gathering writes if the channel is a
+    * <code>GatheringByteChannel</code>. The channel must be in blocking
+    * mode and is not closed by the serializer.
+    */
+
+    public WritableByteChannel getByteChannel(){
+        return fByteChannel;
+    }
+
+   /**
+    * NON-DOM: A channel to which the serialized bytes are written. The
+    * serializer writes to the channel incrementally as its buffers fill
+    * up, using gathering writes if the channel is a
+    * <code>GatheringByteChannel</code>. The channel must be in blocking
+    * mode and is not closed by the serializer.
+    */
+
+    public void setByteChannel(WritableByteChannel byteChannel){
+        fByteChannel = byteChannel;
+    }
+
    /**
     * The system identifier, a URI reference [IETF RFC 2396], for this output
     *  destination. If the application knows the character encoding of the
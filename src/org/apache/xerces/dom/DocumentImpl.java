@@ -17,15 +17,18 @@
 
 package org.apache.xerces.dom;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import org.apache.xerces.dom.events.EventImpl;
@@ -115,6 +118,9 @@ public class DocumentImpl
     /** Table for event listeners registered to this document nodes. */
     protected Hashtable eventListeners;
 
+    /** Listener counts by event type for this document. */
+    protected transient Hashtable eventListenerCounts;
+
     /** Bypass mutation events firing. */
     protected boolean mutationEvents = false;
 
@@ -568,8 +574,11 @@ public class DocumentImpl
      * This is another place where we could use weak references! Indeed, the
      * node here won't be GC'ed as long as some listener is registered on it,
      * since the eventsListeners table will have a reference to the node.
+     * <p>
+     * The listener array is treated as copy-on-write: once stored it is
+     * never modified, so dispatch can iterate it without taking a copy.
      */
-    protected void setEventListeners(NodeImpl n, Vector listeners) {
+    protected void setEventListeners(NodeImpl n, LEntry[] listeners) {
         if (eventListeners == null) {
             eventListeners = new Hashtable();
         }
@@ -589,11 +598,27 @@ public class DocumentImpl
     /**
      * Retreive event listener registered on a given node
      */
-    protected Vector getEventListeners(NodeImpl n) {
+    protected LEntry[] getEventListeners(NodeImpl n) {
         if (eventListeners == null) {
             return null;
         }
-        return (Vector) eventListeners.get(n);
+        return (LEntry[]) eventListeners.get(n);
+    }
+
+    /**
+     * NON-DOM INTERNAL: Returns the listener counts for the given
+     * event type on this document, creating them if necessary.
+     */
+    LCount lookupListenerCount(String type) {
+        if (eventListenerCounts == null) {
+            eventListenerCounts = new Hashtable();
+        }
+        LCount lc = (LCount) eventListenerCounts.get(type);
+        if (lc == null) {
+            lc = new LCount();
+            eventListenerCounts.put(type, lc);
+        }
+        return lc;
     }
 
     //
@@ -607,7 +632,7 @@ public class DocumentImpl
     /*
      * NON-DOM INTERNAL: Class LEntry is just a struct used to represent
      * event listeners registered with this node. Copies of this object
-     * are hung from the nodeListeners Vector.
+     * are hung from the node's listener array.
      * <p>
      * I considered using two vectors -- one for capture,
      * one for bubble -- but decided that since the list of listeners 
@@ -620,6 +645,9 @@ public class DocumentImpl
         String type;
         EventListener listener;
         boolean useCapture;
+        /** Set once the entry has been deregistered, so that a dispatch
+         * already iterating over an older listener array skips it. */
+        transient boolean removed;
 	    
         /** NON-DOM INTERNAL: Constructor for Listener list Entry 
          * @param type Event name (NOT event group!) to listen for.
@@ -659,15 +687,20 @@ public class DocumentImpl
         // Simplest way to code that is to zap the previous entry, if any.
         removeEventListener(node, type, listener, useCapture);
 	    
-        Vector nodeListeners = getEventListeners(node);
-        if(nodeListeners == null) {
-            nodeListeners = new Vector();
-            setEventListeners(node, nodeListeners);
+        LEntry[] nodeListeners = getEventListeners(node);
+        LEntry[] newListeners;
+        if (nodeListeners == null) {
+            newListeners = new LEntry[1];
+        }
+        else {
+            newListeners = new LEntry[nodeListeners.length + 1];
+            System.arraycopy(nodeListeners, 0, newListeners, 0, nodeListeners.length);
         }
-        nodeListeners.addElement(new LEntry(type, listener, useCapture));
+        newListeners[newListeners.length - 1] = new LEntry(type, listener, useCapture);
+        setEventListeners(node, newListeners);
 	    
         // Record active listener
-        LCount lc = LCount.lookup(type);
+        LCount lc = lookupListenerCount(type);
         if (useCapture) {
             ++lc.captures;
             ++lc.total;
@@ -697,24 +730,34 @@ public class DocumentImpl
         // If this couldn't be a valid listener registration, ignore request
         if (type == null || type.length() == 0 || listener == null)
             return;
-        Vector nodeListeners = getEventListeners(node);
+        LEntry[] nodeListeners = getEventListeners(node);
         if (nodeListeners == null)
             return;
 
         // Note that addListener has previously ensured that 
         // each listener may be registered only once per type per phase.
         // count-down is OK for deletions!
-        for (int i = nodeListeners.size() - 1; i >= 0; --i) {
-            LEntry le = (LEntry) nodeListeners.elementAt(i);
+        for (int i = nodeListeners.length - 1; i >= 0; --i) {
+            LEntry le = nodeListeners[i];
             if (le.useCapture == useCapture && le.listener == listener && 
                 le.type.equals(type)) {
-                nodeListeners.removeElementAt(i);
+                // Removals take effect immediately, even for a dispatch
+                // which is currently iterating over the old array.
+                le.removed = true;
                 // Storage management: Discard empty listener lists
-                if (nodeListeners.size() == 0)
+                if (nodeListeners.length == 1) {
                     setEventListeners(node, null);
+                }
+                else {
+                    LEntry[] newListeners = new LEntry[nodeListeners.length - 1];
+                    System.arraycopy(nodeListeners, 0, newListeners, 0, i);
+                    System.arraycopy(nodeListeners, i + 1, newListeners, i, 
+                            newListeners.length - i);
+                    setEventListeners(node, newListeners);
+                }
 
                 // Remove active listener
-                LCount lc = LCount.lookup(type);
+                LCount lc = lookupListenerCount(type);
                 if (useCapture) {
                     --lc.captures;
                     --lc.total;
@@ -730,11 +773,25 @@ public class DocumentImpl
     } // removeEventListener(NodeImpl,String,EventListener,boolean) :void
 
     protected void copyEventListeners(NodeImpl src, NodeImpl tgt) {
-        Vector nodeListeners = getEventListeners(src);
+        LEntry[] nodeListeners = getEventListeners(src);
         if (nodeListeners == null) {
             return;
         }
-        setEventListeners(tgt, (Vector) nodeListeners.clone());
+        // Entries carry per-registration state so they are not shared.
+        LEntry[] newListeners = new LEntry[nodeListeners.length];
+        for (int i = 0; i < nodeListeners.length; ++i) {
+            LEntry le = nodeListeners[i];
+            newListeners[i] = new LEntry(le.type, le.listener, le.useCapture);
+            LCount lc = lookupListenerCount(le.type);
+            if (le.useCapture) {
+                ++lc.captures;
+            }
+            else {
+                ++lc.bubbles;
+            }
+            ++lc.total;
+        }
+        setEventListeners(tgt, newListeners);
     }
 
     /**
@@ -802,7 +859,7 @@ public class DocumentImpl
         }
         
         // If nobody is listening for this event, discard immediately
-        LCount lc = LCount.lookup(evt.getType());
+        LCount lc = lookupListenerCount(evt.getType());
         if (lc.total == 0)
             return evt.preventDefault;
 
@@ -823,13 +880,21 @@ public class DocumentImpl
         // is issued to the Element rather than the Attr
         // and causes a _second_ DOMSubtreeModified in the Element's
         // tree.
-        ArrayList pv = new ArrayList(10);
-        Node p = node;
-        Node n = p.getParentNode();
-        while (n != null) {
-            pv.add(n);
-            p = n;
-            n = n.getParentNode();
+        // The chain is only needed if some ancestor could be listening,
+        // that is if there are capturing listeners for this event type
+        // or if the event bubbles and there are non-capturing ones.
+        NodeImpl[] pv = null;
+        int pvsize = 0;
+        if (lc.captures > 0 || (lc.bubbles > 0 && evt.bubbles)) {
+            pv = new NodeImpl[8];
+            for (Node n = node.getParentNode(); n != null; n = n.getParentNode()) {
+                if (pvsize == pv.length) {
+                    NodeImpl[] newpv = new NodeImpl[pvsize << 1];
+                    System.arraycopy(pv, 0, newpv, 0, pvsize);
+                    pv = newpv;
+                }
+                pv[pvsize++] = (NodeImpl) n;
+            }
         }
         
         // CAPTURING_PHASE:
@@ -837,30 +902,16 @@ public class DocumentImpl
             evt.eventPhase = Event.CAPTURING_PHASE;
             // Ancestors are scanned, root to target, for 
             // Capturing listeners.
-            for (int j = pv.size() - 1; j >= 0; --j) {
+            for (int j = pvsize - 1; j >= 0; --j) {
                 if (evt.stopPropagation)
                     break;  // Someone set the flag. Phase ends.
 
                 // Handle all capturing listeners on this node
-                NodeImpl nn = (NodeImpl) pv.get(j);
+                NodeImpl nn = pv[j];
                 evt.currentTarget = nn;
-                Vector nodeListeners = getEventListeners(nn);
+                LEntry[] nodeListeners = getEventListeners(nn);
                 if (nodeListeners != null) {
-                    Vector nl = (Vector) nodeListeners.clone();
-                    // call listeners in the order in which they got registered
-                    int nlsize = nl.size();
-                    for (int i = 0; i < nlsize; i++) {
-                        LEntry le = (LEntry) nl.elementAt(i);
-                        if (le.useCapture && le.type.equals(evt.type) &&
-                            nodeListeners.contains(le)) {
-                            try {
-                                le.listener.handleEvent(evt);
-                            }
-                            catch (Exception e) {
-                                // All exceptions are ignored.
-                            }
-                        }
-                    }
+                    handleEvent(nodeListeners, evt, true);
                 }
             }
         }
@@ -873,23 +924,9 @@ public class DocumentImpl
             // node are _not_ invoked, even during the capture phase.
             evt.eventPhase = Event.AT_TARGET;
             evt.currentTarget = node;
-            Vector nodeListeners = getEventListeners(node);
+            LEntry[] nodeListeners = getEventListeners(node);
             if (!evt.stopPropagation && nodeListeners != null) {
-                Vector nl = (Vector) nodeListeners.clone();
-                // call listeners in the order in which they got registered
-                int nlsize = nl.size();
-                for (int i = 0; i < nlsize; i++) {
-                    LEntry le = (LEntry) nl.elementAt(i);
-                    if (!le.useCapture && le.type.equals(evt.type) &&
-                        nodeListeners.contains(le)) {
-                        try {
-                            le.listener.handleEvent(evt);
-                        }
-                        catch (Exception e) {
-                            // All exceptions are ignored.
-                        }
-                    }
-                }
+                handleEvent(nodeListeners, evt, false);
             }
             // BUBBLING_PHASE: Ancestors are scanned, target to root, for
             // non-capturing listeners. If the event's preventBubbling flag
@@ -898,32 +935,16 @@ public class DocumentImpl
             // Note that not all events bubble.
             if (evt.bubbles) {
                 evt.eventPhase = Event.BUBBLING_PHASE;
-                int pvsize = pv.size();
                 for (int j = 0; j < pvsize; j++) {
                     if (evt.stopPropagation)
                         break;  // Someone set the flag. Phase ends.
 
                     // Handle all bubbling listeners on this node
-                    NodeImpl nn = (NodeImpl) pv.get(j);
+                    NodeImpl nn = pv[j];
                     evt.currentTarget = nn;
                     nodeListeners = getEventListeners(nn);
                     if (nodeListeners != null) {
-                        Vector nl = (Vector) nodeListeners.clone();
-                        // call listeners in the order in which they got
-                        // registered
-                        int nlsize = nl.size();
-                        for (int i = 0; i < nlsize; i++) {
-                            LEntry le = (LEntry) nl.elementAt(i);
-                            if (!le.useCapture && le.type.equals(evt.type) &&
-                                nodeListeners.contains(le)) {
-                                try {
-                                    le.listener.handleEvent(evt);
-                                }
-                                catch (Exception e) {
-                                    // All exceptions are ignored.
-                                }
-                            }
-                        }
+                        handleEvent(nodeListeners, evt, false);
                     }
                 }
             }
@@ -943,6 +964,32 @@ public class DocumentImpl
         return evt.preventDefault;        
     } // dispatchEvent(NodeImpl,Event) :boolean
 
+    /**
+     * NON-DOM INTERNAL: Invokes the listeners of one node for the
+     * current phase of an event. The array is a snapshot of the
+     * registrations at the time the node was reached; entries removed
+     * since are skipped.
+     * @param nodeListeners listeners registered on the current node
+     * @param evt the event being dispatched
+     * @param useCapture true to invoke capturing listeners, false
+     *  for at-target and bubbling listeners
+     */
+    private void handleEvent(LEntry[] nodeListeners, EventImpl evt, boolean useCapture) {
+        // call listeners in the order in which they got registered
+        for (int i = 0; i < nodeListeners.length; i++) {
+            LEntry le = nodeListeners[i];
+            if (le.useCapture == useCapture && !le.removed &&
+                le.type.equals(evt.type)) {
+                try {
+                    le.listener.handleEvent(evt);
+                }
+                catch (Exception e) {
+                    // All exceptions are ignored.
+                }
+            }
+        }
+    } // handleEvent(LEntry[],EventImpl,boolean) :void
+
     /**
      * NON-DOM INTERNAL: DOMNodeInsertedIntoDocument and ...RemovedFrom...
      * are dispatched to an entire subtree. This is the distribution code
@@ -1053,7 +1100,7 @@ public class DocumentImpl
         // We have to send DOMAttrModified.
         NodeImpl owner = null;
         if (enclosingAttr != null) {
-            LCount lc = LCount.lookup(MutationEventImpl.DOM_ATTR_MODIFIED);
+            LCount lc = lookupListenerCount(MutationEventImpl.DOM_ATTR_MODIFIED);
             owner = (NodeImpl) enclosingAttr.getOwnerElement();
             if (lc.total > 0) {
                 if (owner != null) {
@@ -1072,7 +1119,7 @@ public class DocumentImpl
         // set of changes. 
         // "This event is dispatched after all other events caused by the
         // mutation have been fired."
-        LCount lc = LCount.lookup(MutationEventImpl.DOM_SUBTREE_MODIFIED);
+        LCount lc = lookupListenerCount(MutationEventImpl.DOM_SUBTREE_MODIFIED);
         if (lc.total > 0) {
             MutationEvent me =  new MutationEventImpl();
             me.initMutationEvent(MutationEventImpl.DOM_SUBTREE_MODIFIED,
@@ -1104,7 +1151,7 @@ public class DocumentImpl
         // If we're within the scope of an Attr and DOMAttrModified 
         // was requested, we need to preserve its previous value for
         // that event.
-        LCount lc = LCount.lookup(MutationEventImpl.DOM_ATTR_MODIFIED);
+        LCount lc = lookupListenerCount(MutationEventImpl.DOM_ATTR_MODIFIED);
         if (lc.total > 0) {
             NodeImpl eventAncestor = node;
             while (true) {
@@ -1144,6 +1191,7 @@ public class DocumentImpl
      * A method to be called when a character data node has been modified
      */
     void modifiedCharacterData(NodeImpl node, String oldvalue, String value, boolean replace) {
+        contentChanged(node);
         if (mutationEvents) {
             mutationEventsModifiedCharacterData(node, oldvalue, value, replace);
         }
@@ -1153,7 +1201,7 @@ public class DocumentImpl
         if (!replace) {
             // MUTATION POST-EVENTS:
             LCount lc =
-                LCount.lookup(MutationEventImpl.DOM_CHARACTER_DATA_MODIFIED);
+                lookupListenerCount(MutationEventImpl.DOM_CHARACTER_DATA_MODIFIED);
             if (lc.total > 0) {
                 MutationEvent me = new MutationEventImpl();
                 me.initMutationEvent(
@@ -1173,6 +1221,7 @@ public class DocumentImpl
      * A method to be called when a character data node has been replaced
      */
     void replacedCharacterData(NodeImpl node, String oldvalue, String value) {
+        contentChanged(node);
     	//now that we have finished replacing data, we need to perform the same actions
     	//that are required after a character data node has been modified
     	//send the value of false for replace parameter so that mutation
@@ -1195,6 +1244,7 @@ public class DocumentImpl
      * A method to be called when a node has been inserted in the tree.
      */
     void insertedNode(NodeImpl node, NodeImpl newInternal, boolean replace) {
+        contentChanged(node);
         if (mutationEvents) {
             mutationEventsInsertedNode(node, newInternal, replace);
         }
@@ -1209,7 +1259,7 @@ public class DocumentImpl
         // MUTATION POST-EVENTS:
         // "Local" events (non-aggregated)
         // New child is told it was inserted, and where
-        LCount lc = LCount.lookup(MutationEventImpl.DOM_NODE_INSERTED);
+        LCount lc = lookupListenerCount(MutationEventImpl.DOM_NODE_INSERTED);
         if (lc.total > 0) {
             MutationEventImpl me = new MutationEventImpl();
             me.initMutationEvent(MutationEventImpl.DOM_NODE_INSERTED,
@@ -1220,7 +1270,7 @@ public class DocumentImpl
 
         // If within the Document, tell the subtree it's been added
         // to the Doc.
-        lc = LCount.lookup(
+        lc = lookupListenerCount(
                         MutationEventImpl.DOM_NODE_INSERTED_INTO_DOCUMENT);
         if (lc.total > 0) {
             NodeImpl eventAncestor = node;
@@ -1332,7 +1382,7 @@ public class DocumentImpl
             saveEnclosingAttr(node);
         }
         // Child is told that it is about to be removed
-        LCount lc = LCount.lookup(MutationEventImpl.DOM_NODE_REMOVED);
+        LCount lc = lookupListenerCount(MutationEventImpl.DOM_NODE_REMOVED);
         if (lc.total > 0) {
             MutationEventImpl me= new MutationEventImpl();
             me.initMutationEvent(MutationEventImpl.DOM_NODE_REMOVED,
@@ -1343,7 +1393,7 @@ public class DocumentImpl
 
         // If within Document, child's subtree is informed that it's
         // losing that status
-        lc = LCount.lookup(
+        lc = lookupListenerCount(
                          MutationEventImpl.DOM_NODE_REMOVED_FROM_DOCUMENT);
         if (lc.total > 0) {
             NodeImpl eventAncestor = this;
@@ -1372,6 +1422,7 @@ public class DocumentImpl
      * A method to be called when a node has been removed from the tree.
      */
     void removedNode(NodeImpl node, boolean replace) {
+        contentChanged(node);
         if (mutationEvents) {
             // MUTATION POST-EVENTS:
             // Subroutine: Transmit DOMAttrModified and DOMSubtreeModified,
@@ -1404,6 +1455,7 @@ public class DocumentImpl
      * A method to be called when a node has been replaced in the tree.
      */
     void replacedNode(NodeImpl node) {
+        contentChanged(node);
         if (mutationEvents) {
             dispatchAggregateEvents(node, savedEnclosingAttr);
         }
@@ -1413,6 +1465,7 @@ public class DocumentImpl
      * A method to be called when an attribute value has been modified
      */
     void modifiedAttrValue(AttrImpl attr, String oldvalue) {
+        contentChanged(attr);
         if (mutationEvents) {
             // MUTATION POST-EVENTS:
             dispatchAggregateEvents(attr, attr, oldvalue,
@@ -1424,6 +1477,7 @@ public class DocumentImpl
      * A method to be called when an attribute node has been set
      */
     void setAttrNode(AttrImpl attr, AttrImpl previous) {
+        contentChanged(attr);
         if (mutationEvents) {
             // MUTATION POST-EVENTS:
             if (previous == null) {
@@ -1442,6 +1496,7 @@ public class DocumentImpl
      * A method to be called when an attribute node has been removed
      */
     void removedAttrNode(AttrImpl attr, NodeImpl oldOwner, String name) {
+        contentChanged(oldOwner);
         // We can't use the standard dispatchAggregate, since it assumes
         // that the Attr is still attached to an owner. This code is
         // similar but dispatches to the previous owner, "element".
@@ -1453,7 +1508,7 @@ public class DocumentImpl
     private void mutationEventsRemovedAttrNode(AttrImpl attr, NodeImpl oldOwner, String name) {
         // If we have to send DOMAttrModified (determined earlier),
         // do so.
-        LCount lc = LCount.lookup(MutationEventImpl.DOM_ATTR_MODIFIED);
+        LCount lc = lookupListenerCount(MutationEventImpl.DOM_ATTR_MODIFIED);
         if (lc.total > 0) {
             MutationEventImpl me= new MutationEventImpl();
             me.initMutationEvent(MutationEventImpl.DOM_ATTR_MODIFIED,
@@ -1473,6 +1528,7 @@ public class DocumentImpl
      * A method to be called when an attribute node has been renamed
      */
     void renamedAttrNode(Attr oldAt, Attr newAt) {
+        contentChanged((NodeImpl) newAt);
 	// REVISIT: To be implemented!!!
     }
 
@@ -1480,7 +1536,70 @@ public class DocumentImpl
      * A method to be called when an element has been renamed
      */
     void renamedElement(Element oldEl, Element newEl) {
+        contentChanged((NodeImpl) newEl);
 	// REVISIT: To be implemented!!!
     }
 
+    /**
+     * The serialized form of the event listener table holds
+     * Vectors. Convert them into listener arrays on load and
+     * recompute the listener counts.
+     */
+    private void readObject(ObjectInputStream in)
+        throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (eventListeners != null) {
+            Iterator i = eventListeners.entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry entry = (Map.Entry) i.next();
+                Vector nodeListeners = (Vector) entry.getValue();
+                LEntry[] listeners = new LEntry[nodeListeners.size()];
+                nodeListeners.copyInto(listeners);
+                entry.setValue(listeners);
+                for (int j = 0; j < listeners.length; ++j) {
+                    LCount lc = lookupListenerCount(listeners[j].type);
+                    if (listeners[j].useCapture) {
+                        ++lc.captures;
+                    }
+                    else {
+                        ++lc.bubbles;
+                    }
+                    ++lc.total;
+                }
+            }
+        }
+    }
+
+    /**
+     * To allow DOM trees serialized by newer versions of Xerces
+     * to be read by older versions briefly move the event listener
+     * arrays into Vectors.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // Keep a reference to the original table for restoration after serialization
+        final Hashtable oldEventListeners = this.eventListeners;
+        try {
+            if (oldEventListeners != null) {
+                Hashtable listenerVectors = new Hashtable();
+                Iterator i = oldEventListeners.entrySet().iterator();
+                while (i.hasNext()) {
+                    Map.Entry entry = (Map.Entry) i.next();
+                    LEntry[] listeners = (LEntry[]) entry.getValue();
+                    Vector nodeListeners = new Vector(listeners.length);
+                    for (int j = 0; j < listeners.length; ++j) {
+                        nodeListeners.addElement(listeners[j]);
+                    }
+                    listenerVectors.put(entry.getKey(), nodeListeners);
+                }
+                this.eventListeners = listenerVectors;
+            }
+            out.defaultWriteObject();
+        }
+        // If the write fails for some reason ensure 
+        // that we restore the original table.
+        finally {
+            this.eventListeners = oldEventListeners;
+        }
+    }
+
 } // class DocumentImpl
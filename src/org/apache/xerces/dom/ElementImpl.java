@@ -76,6 +76,12 @@ public class ElementImpl
     /** Attributes. */
     protected AttributeMap attributes;
 
+    /**
+     * What the last normalizeDocument pass recorded about the content of
+     * this element, or null if the content was modified since.
+     */
+    transient DOMNormalizer.NormalizedContent normalizedContent;
+
     //
     // Constructors
     //
@@ -174,6 +180,7 @@ public class ElementImpl
         if (attributes != null) {
             newnode.attributes = (AttributeMap) attributes.cloneMap(newnode);
         }
+        newnode.normalizedContent = null;
     	return newnode;
 
     } // cloneNode(boolean):Node
@@ -956,6 +963,7 @@ public class ElementImpl
             }
         }
         ((AttrImpl) at).isIdAttribute(makeId);
+        ownerDocument.contentChanged(this);
         if (!makeId) {
             ownerDocument.removeIdentifier(at.getValue());
         }
@@ -995,6 +1003,7 @@ public class ElementImpl
         }
 
         ((AttrImpl) at).isIdAttribute(makeId);
+        ownerDocument.contentChanged(this);
         if (!makeId) {
             ownerDocument.removeIdentifier(at.getValue());
         }
@@ -1034,6 +1043,7 @@ public class ElementImpl
             }
         }
         ((AttrImpl) at).isIdAttribute(makeId);
+        ownerDocument.contentChanged(this);
         if (!makeId) {
             ownerDocument.removeIdentifier(at.getValue());
         }
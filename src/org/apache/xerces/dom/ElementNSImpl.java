@@ -288,6 +288,7 @@ public class ElementNSImpl
         else {
             name = localName;
         }
+        ownerDocument.contentChanged(this);
     }
 
     /**
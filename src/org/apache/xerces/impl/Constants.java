@@ -329,6 +329,12 @@ public final class Constants {
     /** Feature to ignore errors caused by identity constraints ("validation/identity-constraint-checking") */
     public static final String IDC_CHECKING_FEATURE = "validation/identity-constraint-checking";
     
+    /** Feature to stop validation at the first schema validity error ("validation/schema/fail-fast") */
+    public static final String SCHEMA_FAIL_FAST_FEATURE = "validation/schema/fail-fast";
+    
+    /** Feature to keep schema grammars in a compact form once loaded ("validation/schema/compact-grammars") */
+    public static final String SCHEMA_COMPACT_GRAMMARS_FEATURE = "validation/schema/compact-grammars";
+    
     /** Feature to ignore errors caused by unparsed entities ("validation/unparsed-entity-checking") */
     public static final String UNPARSED_ENTITY_CHECKING_FEATURE = "validation/unparsed-entity-checking";
     
@@ -374,9 +380,18 @@ public final class Constants {
     /** Entity manager property ("internal/entity-manager"). */
     public static final String ENTITY_MANAGER_PROPERTY = "internal/entity-manager";
     
+    /** XInclude cache property ("xinclude/cache"). */
+    public static final String XINCLUDE_CACHE_PROPERTY = "xinclude/cache";
+    
+    /** Entity content cache property ("entity-content-cache"). */
+    public static final String ENTITY_CONTENT_CACHE_PROPERTY = "entity-content-cache";
+    
     /** Input buffer size property ("input-buffer-size"). */
     public static final String BUFFER_SIZE_PROPERTY = "input-buffer-size";
     
+    /** Maximum error count property ("max-error-count"). */
+    public static final String MAX_ERROR_COUNT_PROPERTY = "max-error-count";
+    
     /** Security manager property ("security-manager"). */
     public static final String SECURITY_MANAGER_PROPERTY = "security-manager";
     
@@ -434,6 +449,26 @@ public final class Constants {
     /** Schema element declaration for the root element in a document ("internal/validation/schema/dv-factory"). */
     public static final String SCHEMA_DV_FACTORY_PROPERTY = "internal/validation/schema/dv-factory";
     
+    /** Number of threads used to check schema constraints when full checking is enabled ("validation/schema/full-checking-threads"). */
+    public static final String SCHEMA_FULL_CHECKING_THREADS_PROPERTY = "validation/schema/full-checking-threads";
+    
+    /** When the content models of the complex types of a schema are built ("validation/schema/content-model-policy"). */
+    public static final String SCHEMA_CONTENT_MODEL_POLICY_PROPERTY = "validation/schema/content-model-policy";
+    
+    /** Cache of the grammars loaded from schema location hints ("validation/schema/location-cache"). */
+    public static final String SCHEMA_LOCATION_CACHE_PROPERTY = "validation/schema/location-cache";
+    
+    // content model policies
+    
+    /** Content models are built when the schema is loaded ("eager"). */
+    public static final String CONTENT_MODEL_POLICY_EAGER = "eager";
+    
+    /** Content models are built when first needed ("lazy"). */
+    public static final String CONTENT_MODEL_POLICY_LAZY = "lazy";
+    
+    /** Content models are built when first needed and may be discarded when memory is low ("soft"). */
+    public static final String CONTENT_MODEL_POLICY_SOFT = "soft";
+    
     // general constants
     
     /** Element PSVI is stored in augmentations using string "ELEMENT_PSVI" */
@@ -528,6 +563,8 @@ public final class Constants {
             IGNORE_XSI_TYPE_FEATURE,
             ID_IDREF_CHECKING_FEATURE,
             IDC_CHECKING_FEATURE,
+            SCHEMA_FAIL_FAST_FEATURE,
+            SCHEMA_COMPACT_GRAMMARS_FEATURE,
             UNPARSED_ENTITY_CHECKING_FEATURE,
             NAMESPACE_GROWTH_FEATURE,
             TOLERATE_DUPLICATES_FEATURE,
@@ -552,11 +589,15 @@ public final class Constants {
             SCHEMA_NONS_LOCATION,
             VALIDATION_MANAGER_PROPERTY,
             BUFFER_SIZE_PROPERTY,
+            MAX_ERROR_COUNT_PROPERTY,
             SECURITY_MANAGER_PROPERTY,
             LOCALE_PROPERTY,
             ROOT_TYPE_DEFINITION_PROPERTY,
             ROOT_ELEMENT_DECLARATION_PROPERTY,
             SCHEMA_DV_FACTORY_PROPERTY,
+            SCHEMA_FULL_CHECKING_THREADS_PROPERTY,
+            SCHEMA_CONTENT_MODEL_POLICY_PROPERTY,
+            SCHEMA_LOCATION_CACHE_PROPERTY,
     };
     
     /** Empty enumeration. */
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl;
+
+import java.io.CharArrayReader;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A cache of the decoded content of external parameter entities and
+ * external DTD subsets, which may be shared across parsers and parses.
+ * Setting an instance of this class as the value of the
+ * <code>http://apache.org/xml/properties/entity-content-cache</code>
+ * property allows the entity manager to read an entity which has
+ * been read before from memory, instead of opening and decoding the
+ * resource again. This pays off for DTDs which are split into modules
+ * or which include shared entity sets, when the grammar itself is not
+ * cached.
+ * <p>
+ * Entries are keyed by the expanded system identifier of the entity.
+ * Entities are only cached when they are located by their system
+ * identifier rather than provided as a stream or with an explicit
+ * encoding by an entity resolver, and once they have been read to the
+ * end. The cache holds at most a configurable number of characters,
+ * discarding the least recently used entries when full. The cache does
+ * not notice when a resource changes; applications which need this
+ * should remove the entry or clear the cache.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @version $Id$
+ */
+public class EntityContentCache {
+
+    //
+    // Constants
+    //
+
+    /** Default maximum number of characters held (1M). */
+    public static final int DEFAULT_MAX_SIZE = 1 << 20;
+
+    //
+    // Data
+    //
+
+    /** Cached entries, in least recently used order. */
+    private final LinkedHashMap fEntries = new LinkedHashMap(16, 0.75f, true);
+
+    /** Maximum number of characters held. */
+    private int fMaxSize;
+
+    /** Number of characters held. */
+    private int fSize;
+
+    /** Number of lookups which found an entry. */
+    private long fHits;
+
+    /** Number of lookups which did not find an entry. */
+    private long fMisses;
+
+    //
+    // Constructors
+    //
+
+    /** Constructs a cache with the default maximum size. */
+    public EntityContentCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructs a cache with the given maximum size.
+     *
+     * @param maxSize the maximum number of characters held
+     */
+    public EntityContentCache(int maxSize) {
+        fMaxSize = maxSize;
+    }
+
+    //
+    // Public methods
+    //
+
+    /** Returns the maximum number of characters held. */
+    public synchronized int getMaxSize() {
+        return fMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of characters held. If the cache holds
+     * more characters than the new maximum, the least recently used
+     * entries are removed.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        fMaxSize = maxSize;
+        evict();
+    }
+
+    /** Returns the number of characters held. */
+    public synchronized int getSize() {
+        return fSize;
+    }
+
+    /** Returns the number of entries in the cache. */
+    public synchronized int size() {
+        return fEntries.size();
+    }
+
+    /** Returns the number of lookups which found an entry. */
+    public synchronized long getHitCount() {
+        return fHits;
+    }
+
+    /** Returns the number of lookups which did not find an entry. */
+    public synchronized long getMissCount() {
+        return fMisses;
+    }
+
+    /**
+     * Removes the entry for the entity with the given expanded
+     * system identifier, if there is one.
+     */
+    public synchronized void remove(String expandedSystemId) {
+        Entry entry = (Entry) fEntries.remove(expandedSystemId);
+        if (entry != null) {
+            fSize -= entry.fContent.length;
+        }
+    }
+
+    /** Removes all entries and resets the statistics. */
+    public synchronized void clear() {
+        fEntries.clear();
+        fSize = 0;
+        fHits = 0;
+        fMisses = 0;
+    }
+
+    //
+    // Package methods
+    //
+
+    /**
+     * Returns the entry for the entity with the given expanded
+     * system identifier, or null if there is none.
+     */
+    synchronized Entry get(String expandedSystemId) {
+        Entry entry = (Entry) fEntries.get(expandedSystemId);
+        if (entry != null) {
+            ++fHits;
+        }
+        else {
+            ++fMisses;
+        }
+        return entry;
+    }
+
+    /**
+     * Adds the content of an entity which has been read to the end.
+     *
+     * @param expandedSystemId the expanded system identifier of the entity
+     * @param encoding the auto-detected encoding of the entity
+     * @param declaredEncoding the encoding of the entity after its
+     * text declaration was read
+     * @param ch the characters read from the entity
+     * @param length the number of characters read
+     */
+    synchronized void put(String expandedSystemId, String encoding,
+            String declaredEncoding, char[] ch, int length) {
+        if (length > fMaxSize) {
+            return;
+        }
+        char[] content = new char[length];
+        System.arraycopy(ch, 0, content, 0, length);
+        Entry entry = (Entry) fEntries.put(expandedSystemId, new Entry(content, encoding, declaredEncoding));
+        if (entry != null) {
+            fSize -= entry.fContent.length;
+        }
+        fSize += length;
+        evict();
+    }
+
+    //
+    // Private methods
+    //
+
+    /** Removes the least recently used entries until the cache fits. */
+    private void evict() {
+        Iterator entries = fEntries.values().iterator();
+        while (fSize > fMaxSize && entries.hasNext()) {
+            fSize -= ((Entry) entries.next()).fContent.length;
+            entries.remove();
+        }
+    }
+
+    //
+    // Classes
+    //
+
+    /**
+     * The decoded content of an entity.
+     */
+    static final class Entry {
+
+        /** The characters of the entity. */
+        private final char[] fContent;
+
+        /** The auto-detected encoding of the entity. */
+        final String fEncoding;
+
+        /** The encoding of the entity after its text declaration. */
+        final String fDeclaredEncoding;
+
+        Entry(char[] content, String encoding, String declaredEncoding) {
+            fContent = content;
+            fEncoding = encoding;
+            fDeclaredEncoding = declaredEncoding;
+        }
+
+        /** Returns a reader of the content of the entity. */
+        Reader getReader() {
+            return new CharArrayReader(fContent);
+        }
+
+    } // class Entry
+
+} // class EntityContentCache
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Locale;
+
+import org.apache.xerces.util.MessageFormatter;
+import org.apache.xerces.xni.XMLLocator;
+import org.apache.xerces.xni.parser.XMLParseException;
+
+/**
+ * A parse exception reported by the {@link XMLErrorReporter} which
+ * carries the error domain, message key, replacement arguments and
+ * severity of the error in addition to its location. The message
+ * is only formatted when it is first requested, so error handlers
+ * which work with the key and arguments, or which only count errors,
+ * never pay for formatting it.
+ *
+ * @version $Id$
+ */
+public class StructuredParseException
+    extends XMLParseException {
+
+    /** Serialization version. */
+    static final long serialVersionUID = -4427375627151236117L;
+
+    //
+    // Data
+    //
+
+    /** Error domain. */
+    private final String fDomain;
+
+    /** Message key. */
+    private final String fKey;
+
+    /** Replacement arguments, which are not serialized. */
+    private transient Object[] fArguments;
+
+    /** Severity. */
+    private final short fSeverity;
+
+    /** Message formatter for the domain, if any. */
+    private transient MessageFormatter fMessageFormatter;
+
+    /** Locale used to format the message. */
+    private transient Locale fLocale;
+
+    /** Formatted message. */
+    private String fMessage;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a structured parse exception.
+     *
+     * @param location         The error location.
+     * @param domain           The error domain.
+     * @param key              The key of the error message.
+     * @param arguments        The replacement arguments for the error message,
+     *                         if needed.
+     * @param severity         The severity of the error.
+     * @param messageFormatter The message formatter for the domain, or null.
+     * @param locale           The locale to format the message for.
+     * @param exception        The exception to wrap, or null.
+     */
+    public StructuredParseException(XMLLocator location, String domain,
+            String key, Object[] arguments, short severity,
+            MessageFormatter messageFormatter, Locale locale, Exception exception) {
+        super(location, null);
+        if (exception != null) {
+            initCause(exception);
+        }
+        fDomain = domain;
+        fKey = key;
+        fArguments = arguments;
+        fSeverity = severity;
+        fMessageFormatter = messageFormatter;
+        fLocale = locale;
+    } // <init>(XMLLocator,String,String,Object[],short,MessageFormatter,Locale,Exception)
+
+    //
+    // Public methods
+    //
+
+    /** Returns the error domain. */
+    public String getDomain() {
+        return fDomain;
+    } // getDomain():String
+
+    /** Returns the key of the error message. */
+    public String getKey() {
+        return fKey;
+    } // getKey():String
+
+    /** Returns the replacement arguments of the error message, or null. */
+    public Object[] getArguments() {
+        return fArguments;
+    } // getArguments():Object[]
+
+    /**
+     * Returns the severity of the error.
+     *
+     * @see XMLErrorReporter#SEVERITY_WARNING
+     * @see XMLErrorReporter#SEVERITY_ERROR
+     * @see XMLErrorReporter#SEVERITY_FATAL_ERROR
+     */
+    public short getSeverity() {
+        return fSeverity;
+    } // getSeverity():short
+
+    /**
+     * Returns the error message, formatting it on first use with the
+     * message formatter installed for the error domain. In the absence
+     * of a message formatter the message is composed of the domain, key
+     * and arguments.
+     */
+    public synchronized String getMessage() {
+        if (fMessage == null) {
+            if (fMessageFormatter != null) {
+                fMessage = fMessageFormatter.formatMessage(fLocale, fKey, fArguments);
+            }
+            else {
+                StringBuffer str = new StringBuffer();
+                str.append(fDomain);
+                str.append('#');
+                str.append(fKey);
+                int argCount = fArguments != null ? fArguments.length : 0;
+                if (argCount > 0) {
+                    str.append('?');
+                    for (int i = 0; i < argCount; i++) {
+                        str.append(fArguments[i]);
+                        if (i < argCount -1) {
+                            str.append('&');
+                        }
+                    }
+                }
+                fMessage = str.toString();
+            }
+            // the formatter is no longer needed
+            fMessageFormatter = null;
+            fLocale = null;
+        }
+        return fMessage;
+    } // getMessage():String
+
+    //
+    // Private methods
+    //
+
+    /** Formats the message before the exception is serialized. */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getMessage();
+        out.defaultWriteObject();
+    } // writeObject(ObjectOutputStream)
+
+} // class StructuredParseException
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl;
+
+/**
+ * A revalidation handler which can record the effect the content of an
+ * element has on its state, and later apply a recorded effect in place
+ * of the same content. This allows DOM revalidation to skip subtrees
+ * which were not modified since they were last validated.
+ *
+ * @xerces.internal
+ *
+ * @version $Id$
+ */
+public interface SubtreeRevalidationHandler extends RevalidationHandler {
+
+    /**
+     * Notifies that the content of the current element follows. Called
+     * after <code>startElement</code> for each element whose content
+     * is sent.
+     */
+    public void startContent();
+
+    /**
+     * Returns the effect of the content of the current element, or null
+     * if it can't be recorded. Called after the content was sent, before
+     * <code>endElement</code>.
+     */
+    public Object endContent();
+
+    /**
+     * Applies the recorded effect of the content of the current element
+     * in place of the content. Called after <code>startElement</code>,
+     * before <code>endElement</code>.
+     *
+     * @param content The effect returned by <code>endContent</code> when
+     *                the same content was last sent.
+     * @return False if the effect does not apply in the current state,
+     *         in which case the state was not changed and the content
+     *         has to be sent.
+     */
+    public boolean skipContent(Object content);
+
+} // interface SubtreeRevalidationHandler
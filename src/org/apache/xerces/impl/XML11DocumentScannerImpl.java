@@ -98,6 +98,7 @@ public class XML11DocumentScannerImpl
             content = fStringBuffer;
             c = -1;
         }
+        checkTextBudget(content.length);
         if (fDocumentHandler != null && content.length > 0) {
             fDocumentHandler.characters(content, null);
         }
@@ -122,6 +123,7 @@ public class XML11DocumentScannerImpl
                     reportFatalError("CDEndInContent", null);
                 }
             }
+            checkTextBudget(fStringBuffer.length);
             if (fDocumentHandler != null && fStringBuffer.length != 0) {
                 fDocumentHandler.characters(fStringBuffer, null);
             }
@@ -281,10 +283,10 @@ public class XML11DocumentScannerImpl
                                     //WFC & VC: Entity Declared
                                     if (checkEntities) {
                                         if (fValidation) {
-                                            fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                                       "EntityNotDeclared",
-                                                                       new Object[]{entityName},
-                                                                       XMLErrorReporter.SEVERITY_ERROR);
+                                            fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                                                  "EntityNotDeclared",
+                                                                  new Object[]{entityName},
+                                                                  XMLErrorReporter.SEVERITY_ERROR);
                                         }
                                     }
                                     else {
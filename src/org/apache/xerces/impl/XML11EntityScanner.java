@@ -693,10 +693,10 @@ public class XML11EntityScanner
                 if (!XML11Char.isXML11NCNameStart(fCurrentEntity.ch[startLocal]) &&
                     (!XML11Char.isXML11NameHighSurrogate(fCurrentEntity.ch[startLocal]) ||
                     sawIncompleteSurrogatePair)){
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "IllegalQName",
-                                               new Object[]{rawname},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "IllegalQName",
+                                          new Object[]{rawname},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
                 localpart = fSymbolTable.addSymbol(fCurrentEntity.ch,
                                                    index + 1, len);
@@ -136,7 +136,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
             fNamespaceContext.pushContext();
             if (fScannerState == SCANNER_STATE_ROOT_ELEMENT) {
                 if (fPerformValidation) {
-                    fErrorReporter.reportError(
+                    fErrorReporter.report(
                         XMLMessageFormatter.XML_DOMAIN,
                         "MSG_GRAMMAR_NOT_FOUND",
                         new Object[] { rawname },
@@ -144,7 +144,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
 
                     if (fDoctypeName == null
                         || !fDoctypeName.equals(rawname)) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XML_DOMAIN,
                             "RootElementTypeMustMatchDoctypedecl",
                             new Object[] { fDoctypeName, rawname },
@@ -156,6 +156,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
 
         // push element stack
         fCurrentElement = fElementStack.pushElement(fElementQName);
+        checkElementBudgets();
 
         // attributes
         boolean empty = false;
@@ -196,7 +197,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
         if (fBindNamespaces) {
             // REVISIT: is it required? forbit xmlns prefix for element
             if (fElementQName.prefix == XMLSymbols.PREFIX_XMLNS) {
-                fErrorReporter.reportError(
+                fErrorReporter.report(
                     XMLMessageFormatter.XMLNS_DOMAIN,
                     "ElementXMLNSPrefix",
                     new Object[] { fElementQName.rawname },
@@ -219,7 +220,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                 fCurrentElement.prefix = XMLSymbols.EMPTY_STRING;
             }
             if (fElementQName.prefix != null && fElementQName.uri == null) {
-                fErrorReporter.reportError(
+                fErrorReporter.report(
                     XMLMessageFormatter.XMLNS_DOMAIN,
                     "ElementPrefixUnbound",
                     new Object[] {
@@ -247,7 +248,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                 if (aprefix != XMLSymbols.EMPTY_STRING) {
                     fAttributeQName.uri = uri;
                     if (uri == null) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "AttributePrefixUnbound",
                             new Object[] {
@@ -264,7 +265,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                 QName name = fAttributes.checkDuplicatesNS();
                 if (name != null) {
                     if (name.uri != null) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "AttributeNSNotUnique",
                             new Object[] {
@@ -273,7 +274,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                                 name.uri },
                             XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     } else {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "AttributeNotUnique",
                             new Object[] {
@@ -346,7 +347,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
             fNamespaceContext.pushContext();
             if (fScannerState == SCANNER_STATE_ROOT_ELEMENT) {
                 if (fPerformValidation) {
-                    fErrorReporter.reportError(
+                    fErrorReporter.report(
                         XMLMessageFormatter.XML_DOMAIN,
                         "MSG_GRAMMAR_NOT_FOUND",
                         new Object[] { rawname },
@@ -354,7 +355,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
 
                     if (fDoctypeName == null
                         || !fDoctypeName.equals(rawname)) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XML_DOMAIN,
                             "RootElementTypeMustMatchDoctypedecl",
                             new Object[] { fDoctypeName, rawname },
@@ -366,6 +367,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
 
         // push element stack
         fCurrentElement = fElementStack.pushElement(fElementQName);
+        checkElementBudgets();
 
         // attributes
         boolean empty = false;
@@ -407,7 +409,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
         if (fBindNamespaces) {
             // REVISIT: is it required? forbit xmlns prefix for element
             if (fElementQName.prefix == XMLSymbols.PREFIX_XMLNS) {
-                fErrorReporter.reportError(
+                fErrorReporter.report(
                     XMLMessageFormatter.XMLNS_DOMAIN,
                     "ElementXMLNSPrefix",
                     new Object[] { fElementQName.rawname },
@@ -430,7 +432,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                 fCurrentElement.prefix = XMLSymbols.EMPTY_STRING;
             }
             if (fElementQName.prefix != null && fElementQName.uri == null) {
-                fErrorReporter.reportError(
+                fErrorReporter.report(
                     XMLMessageFormatter.XMLNS_DOMAIN,
                     "ElementPrefixUnbound",
                     new Object[] {
@@ -458,7 +460,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                 if (aprefix != XMLSymbols.EMPTY_STRING) {
                     fAttributeQName.uri = uri;
                     if (uri == null) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "AttributePrefixUnbound",
                             new Object[] {
@@ -475,7 +477,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                 QName name = fAttributes.checkDuplicatesNS();
                 if (name != null) {
                     if (name.uri != null) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "AttributeNSNotUnique",
                             new Object[] {
@@ -484,7 +486,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                                 name.uri },
                             XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     } else {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "AttributeNotUnique",
                             new Object[] {
@@ -590,6 +592,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                         fAttributeQName.rawname });
             }
         }
+        checkAttributeBudget(attributes.getLength());
 
         // Scan attribute value and return true if the non-normalized and normalized value are the same
         boolean isSameNormalizedAttr = scanAttributeValue(this.fTempString, fTempString2, 
@@ -616,6 +619,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
             if (prefix == XMLSymbols.PREFIX_XMLNS
                 || prefix == XMLSymbols.EMPTY_STRING
                 && localpart == XMLSymbols.PREFIX_XMLNS) {
+                countNamespaceDeclaration();
 
                 // get the internalized value of this attribute
                 String uri = fSymbolTable.addSymbol(value);
@@ -623,7 +627,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                 // 1. "xmlns" can't be bound to any namespace
                 if (prefix == XMLSymbols.PREFIX_XMLNS
                     && localpart == XMLSymbols.PREFIX_XMLNS) {
-                    fErrorReporter.reportError(
+                    fErrorReporter.report(
                         XMLMessageFormatter.XMLNS_DOMAIN,
                         "CantBindXMLNS",
                         new Object[] { fAttributeQName },
@@ -632,7 +636,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
 
                 // 2. the namespace for "xmlns" can't be bound to any prefix
                 if (uri == NamespaceContext.XMLNS_URI) {
-                    fErrorReporter.reportError(
+                    fErrorReporter.report(
                         XMLMessageFormatter.XMLNS_DOMAIN,
                         "CantBindXMLNS",
                         new Object[] { fAttributeQName },
@@ -642,7 +646,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                 // 3. "xml" can't be bound to any other namespace than it's own
                 if (localpart == XMLSymbols.PREFIX_XML) {
                     if (uri != NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "CantBindXML",
                             new Object[] { fAttributeQName },
@@ -652,7 +656,7 @@ public class XML11NSDocumentScannerImpl extends XML11DocumentScannerImpl {
                 // 4. the namespace for "xml" can't be bound to any other prefix
                 else {
                     if (uri == NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "CantBindXML",
                             new Object[] { fAttributeQName },
@@ -543,7 +543,7 @@ public class XMLDTDScannerImpl
             // throw fatalError if this entity was incomplete and
             // was a freestanding decl
             if (startMarkUpDepth == 0 && startMarkUpDepth < fMarkUpDepth) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                                    "ILL_FORMED_PARAMETER_ENTITY_WHEN_USED_IN_DECL",
                                    new Object[]{ fEntityManager.fCurrentEntity.name},
                                    XMLErrorReporter.SEVERITY_FATAL_ERROR);
@@ -553,10 +553,10 @@ public class XMLDTDScannerImpl
                 if (fValidation) {
                 // Proper nesting of parameter entities is a Validity Constraint
                 // and must not be enforced when validation is off
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                           "ImproperDeclarationNesting",
-                                           new Object[]{ name },
-                                           XMLErrorReporter.SEVERITY_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                      "ImproperDeclarationNesting",
+                                      new Object[]{ name },
+                                      XMLErrorReporter.SEVERITY_ERROR);
                 }
             }
             if (fEntityScanner.isExternal()) {
@@ -644,8 +644,8 @@ public class XMLDTDScannerImpl
             fEntityManager.notifyHasPEReferences();
         }
         if (fValidation && !fEntityManager.isDeclaredEntity(pName)) {
-            fErrorReporter.reportError( XMLMessageFormatter.XML_DOMAIN,"EntityNotDeclared", 
-                                        new Object[]{name}, XMLErrorReporter.SEVERITY_ERROR);
+            fErrorReporter.report( XMLMessageFormatter.XML_DOMAIN,"EntityNotDeclared", 
+                                   new Object[]{name}, XMLErrorReporter.SEVERITY_ERROR);
         }
         fEntityManager.startEntity(fSymbolTable.addSymbol(pName),
                                    literal);
@@ -1797,10 +1797,10 @@ public class XMLDTDScannerImpl
         if (fEntityScanner.skipString("INCLUDE")) {
             skipSeparator(false, !scanningInternalSubset());
             if(currPEDepth != fPEDepth && fValidation) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                           "INVALID_PE_IN_CONDITIONAL",
-                                           new Object[]{ fEntityManager.fCurrentEntity.name},
-                                           XMLErrorReporter.SEVERITY_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                      "INVALID_PE_IN_CONDITIONAL",
+                                      new Object[]{ fEntityManager.fCurrentEntity.name},
+                                      XMLErrorReporter.SEVERITY_ERROR);
             }
             // call handler
             if (!fEntityScanner.skipChar('[')) {
@@ -1818,10 +1818,10 @@ public class XMLDTDScannerImpl
         else if (fEntityScanner.skipString("IGNORE")) {
             skipSeparator(false, !scanningInternalSubset());
             if(currPEDepth != fPEDepth && fValidation) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                           "INVALID_PE_IN_CONDITIONAL",
-                                           new Object[]{ fEntityManager.fCurrentEntity.name},
-                                           XMLErrorReporter.SEVERITY_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                      "INVALID_PE_IN_CONDITIONAL",
+                                      new Object[]{ fEntityManager.fCurrentEntity.name},
+                                      XMLErrorReporter.SEVERITY_ERROR);
             }
             // call handler
             if (fDTDHandler != null) {
@@ -24,6 +24,7 @@ import java.io.IOException;
 import org.apache.xerces.impl.io.MalformedByteSequenceException;
 import org.apache.xerces.impl.msg.XMLMessageFormatter;
 import org.apache.xerces.util.AugmentationsImpl;
+import org.apache.xerces.util.SecurityManager;
 import org.apache.xerces.util.XMLAttributesImpl;
 import org.apache.xerces.util.XMLChar;
 import org.apache.xerces.util.XMLStringBuffer;
@@ -125,6 +126,10 @@ public class XMLDocumentFragmentScannerImpl
     protected static final String ENTITY_RESOLVER =
         Constants.XERCES_PROPERTY_PREFIX + Constants.ENTITY_RESOLVER_PROPERTY;
     
+    /** Property identifier: security manager. */
+    protected static final String SECURITY_MANAGER =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SECURITY_MANAGER_PROPERTY;
+    
     // recognized features and properties
 
     /** Recognized features. */
@@ -149,6 +154,7 @@ public class XMLDocumentFragmentScannerImpl
         ERROR_REPORTER,
         ENTITY_MANAGER,
         ENTITY_RESOLVER,
+        SECURITY_MANAGER,
     };
 
     /** Property defaults. */
@@ -157,6 +163,7 @@ public class XMLDocumentFragmentScannerImpl
         null,
         null,
         null,
+        null,
     };
 
     // debugging
@@ -223,6 +230,35 @@ public class XMLDocumentFragmentScannerImpl
     /** Notify built-in references. */
     protected boolean fNotifyBuiltInRefs = false;
 
+    // resource budgets from the security manager; zero if there is no limit
+
+    /** Security manager the resource budgets are read from. */
+    protected SecurityManager fSecurityManager;
+
+    /** Limit on the depth of nested elements. */
+    protected int fElementDepthLimit;
+
+    /** Limit on the number of elements. */
+    protected int fElementCountLimit;
+
+    /** Limit on the number of attributes of an element. */
+    protected int fElementAttributeLimit;
+
+    /** Limit on the number of namespace declarations of an element. */
+    protected int fNamespaceDeclarationLimit;
+
+    /** Limit on the length of character data between markup. */
+    protected int fTextLengthLimit;
+
+    /** Number of elements scanned. */
+    protected int fElementCount;
+
+    /** Number of namespace declarations of the current element. */
+    protected int fNamespaceDeclarationCount;
+
+    /** Length of the character data since the last markup. */
+    protected int fTextLength;
+
     // dispatchers
 
     /** Active dispatcher. */
@@ -368,6 +404,9 @@ public class XMLDocumentFragmentScannerImpl
         fStandalone = false;
         fIsEntityDeclaredVC = false;
         fInScanContent = false;
+        fElementCount = 0;
+        fNamespaceDeclarationCount = 0;
+        fTextLength = 0;
 
 		// setup dispatcher
 		setScannerState(SCANNER_STATE_CONTENT);
@@ -393,8 +432,17 @@ public class XMLDocumentFragmentScannerImpl
             catch (XMLConfigurationException e) {
                 fExternalSubsetResolver = null;
             }
+            try {
+                fSecurityManager = (SecurityManager) componentManager.getProperty(SECURITY_MANAGER);
+            }
+            catch (XMLConfigurationException e) {
+                fSecurityManager = null;
+            }
         }
 
+        // the limits of the security manager may have changed since the last parse
+        setSecurityManager(fSecurityManager);
+
     } // reset(XMLComponentManager)
 
     /**
@@ -480,6 +528,11 @@ public class XMLDocumentFragmentScannerImpl
                     (ExternalSubsetResolver) value : null;
                 return;
             }
+            if (suffixLength == Constants.SECURITY_MANAGER_PROPERTY.length() && 
+                propertyId.endsWith(Constants.SECURITY_MANAGER_PROPERTY)) {
+                setSecurityManager((SecurityManager) value);
+                return;
+            }
         }
         
     } // setProperty(String,Object)
@@ -769,6 +822,7 @@ public class XMLDocumentFragmentScannerImpl
 
         // push element stack
         fCurrentElement = fElementStack.pushElement(fElementQName);
+        checkElementBudgets();
 
         // attributes
         boolean empty = false;
@@ -865,6 +919,7 @@ public class XMLDocumentFragmentScannerImpl
 
         // push element stack
         fCurrentElement = fElementStack.pushElement(fElementQName);
+        checkElementBudgets();
 
         // attributes
         boolean empty = false;
@@ -976,7 +1031,12 @@ public class XMLDocumentFragmentScannerImpl
             reportFatalError("AttributeNotUnique",
                              new Object[]{fCurrentElement.rawname,
                                           fAttributeQName.rawname});
-        }      
+        }
+        checkAttributeBudget(attributes.getLength());
+        if (fNamespaces && (fAttributeQName.prefix == XMLSymbols.PREFIX_XMLNS ||
+            fAttributeQName.rawname == XMLSymbols.PREFIX_XMLNS)) {
+            countNamespaceDeclaration();
+        }
         
         // Scan attribute value and return true if the un-normalized and normalized value are the same
         boolean isSameNormalizedAttr =  scanAttributeValue(fTempString, fTempString2,
@@ -1010,6 +1070,7 @@ public class XMLDocumentFragmentScannerImpl
             content = fStringBuffer;
             c = -1;
         }
+        checkTextBudget(content.length);
         if (fDocumentHandler != null && content.length > 0) {
             fDocumentHandler.characters(content, null);
         }
@@ -1034,6 +1095,7 @@ public class XMLDocumentFragmentScannerImpl
                     reportFatalError("CDEndInContent", null);
                 }
             }
+            checkTextBudget(fStringBuffer.length);
             if (fDocumentHandler != null && fStringBuffer.length != 0) {
                 fDocumentHandler.characters(fStringBuffer, null);
             }
@@ -1067,6 +1129,7 @@ public class XMLDocumentFragmentScannerImpl
         while (true) {
             fStringBuffer.clear();
             if (!fEntityScanner.scanData("]]", fStringBuffer)) {
+                checkTextBudget(fStringBuffer.length);
                 if (fDocumentHandler != null && fStringBuffer.length > 0) {
                     fDocumentHandler.characters(fStringBuffer, null);
                 }
@@ -1074,6 +1137,7 @@ public class XMLDocumentFragmentScannerImpl
                 while (fEntityScanner.skipChar(']')) {
                     brackets++;
                 }
+                checkTextBudget(brackets);
                 if (fDocumentHandler != null && brackets > 0) {
                     fStringBuffer.clear();
                     if (brackets > XMLEntityManager.DEFAULT_BUFFER_SIZE) {
@@ -1108,6 +1172,7 @@ public class XMLDocumentFragmentScannerImpl
                 }
             }
             else {
+                checkTextBudget(fStringBuffer.length);
                 if (fDocumentHandler != null) {
                     fDocumentHandler.characters(fStringBuffer, null);
                 }
@@ -1197,6 +1262,87 @@ public class XMLDocumentFragmentScannerImpl
  
     } // scanEndElement():int
 
+    //
+    // Resource budgets
+    //
+
+    /** Sets the security manager and reads the resource budgets from it. */
+    protected void setSecurityManager(SecurityManager securityManager) {
+        fSecurityManager = securityManager;
+        if (securityManager != null) {
+            fElementDepthLimit = securityManager.getElementDepthLimit();
+            fElementCountLimit = securityManager.getElementCountLimit();
+            fElementAttributeLimit = securityManager.getElementAttributeLimit();
+            fNamespaceDeclarationLimit = securityManager.getNamespaceDeclarationLimit();
+            fTextLengthLimit = securityManager.getTextLengthLimit();
+        }
+        else {
+            fElementDepthLimit = 0;
+            fElementCountLimit = 0;
+            fElementAttributeLimit = 0;
+            fNamespaceDeclarationLimit = 0;
+            fTextLengthLimit = 0;
+        }
+    } // setSecurityManager(SecurityManager)
+
+    /** 
+     * Checks the element depth and element count budgets. Called after
+     * the start tag of an element has been pushed onto the element stack.
+     */
+    protected final void checkElementBudgets() {
+        fTextLength = 0;
+        fNamespaceDeclarationCount = 0;
+        if (fElementDepthLimit > 0 && fElementStack.fSize > fElementDepthLimit) {
+            reportFatalError("ElementDepthLimitExceeded",
+                    new Object[]{ fCurrentElement.rawname, new Integer(fElementDepthLimit) });
+        }
+        if (fElementCountLimit > 0 && ++fElementCount > fElementCountLimit) {
+            reportFatalError("ElementCountLimitExceeded",
+                    new Object[]{ new Integer(fElementCountLimit) });
+            fElementCount = 0;
+        }
+    } // checkElementBudgets()
+
+    /** 
+     * Checks the number of attributes of the current element against 
+     * its budget. Called after an attribute has been added.
+     */
+    protected final void checkAttributeBudget(int length) {
+        // report once, when the attribute which exceeds the limit is added
+        if (fElementAttributeLimit > 0 && length == fElementAttributeLimit + 1) {
+            reportFatalError("ElementAttributeLimitExceeded",
+                    new Object[]{ fCurrentElement.rawname, new Integer(fElementAttributeLimit) });
+        }
+    } // checkAttributeBudget(int)
+
+    /** 
+     * Counts a namespace declaration of the current element against 
+     * its budget.
+     */
+    protected final void countNamespaceDeclaration() {
+        if (fNamespaceDeclarationLimit > 0 && 
+            ++fNamespaceDeclarationCount == fNamespaceDeclarationLimit + 1) {
+            reportFatalError("NamespaceDeclarationLimitExceeded",
+                    new Object[]{ fCurrentElement.rawname, new Integer(fNamespaceDeclarationLimit) });
+        }
+    } // countNamespaceDeclaration()
+
+    /** 
+     * Counts characters of character data against the budget for the
+     * length of character data between markup.
+     */
+    protected final void checkTextBudget(int length) {
+        if (fTextLengthLimit > 0) {
+            if (length > fTextLengthLimit - fTextLength) {
+                reportFatalError("TextLengthLimitExceeded",
+                        new Object[]{ new Integer(fTextLengthLimit) });
+                fTextLength = 0;
+                return;
+            }
+            fTextLength += length;
+        }
+    } // checkTextBudget(int)
+
     /**
      * Scans a character reference.
      * <p>
@@ -1211,6 +1357,7 @@ public class XMLDocumentFragmentScannerImpl
         int ch = scanCharReferenceValue(fStringBuffer2, null);
         fMarkupDepth--;
         if (ch != -1) {
+            checkTextBudget(fStringBuffer2.length);
             // call handler
             if (fDocumentHandler != null) {
                 if (fNotifyCharRefs) {
@@ -1282,8 +1429,8 @@ public class XMLDocumentFragmentScannerImpl
             if (!fEntityManager.isDeclaredEntity(name)) {
                 if (fIsEntityDeclaredVC) {
                     if (fValidation)
-                        fErrorReporter.reportError( XMLMessageFormatter.XML_DOMAIN,"EntityNotDeclared", 
-                                                    new Object[]{name}, XMLErrorReporter.SEVERITY_ERROR);
+                        fErrorReporter.report( XMLMessageFormatter.XML_DOMAIN,"EntityNotDeclared", 
+                                               new Object[]{name}, XMLErrorReporter.SEVERITY_ERROR);
                 }
                 else {
                     reportFatalError("EntityNotDeclared", new Object[]{name});
@@ -1642,6 +1789,7 @@ public class XMLDocumentFragmentScannerImpl
                         case SCANNER_STATE_START_OF_MARKUP: {
                             fMarkupDepth++;
                             if (fEntityScanner.skipChar('/')) {
+                                fTextLength = 0;
                                 if (scanEndElement() == 0) {
                                     if (elementDepthIsZeroHook()) {
                                         return true;
@@ -1687,11 +1835,13 @@ public class XMLDocumentFragmentScannerImpl
                             break;
                         }
                         case SCANNER_STATE_COMMENT: {
+                            fTextLength = 0;
                             scanComment();
                             setScannerState(SCANNER_STATE_CONTENT);
                             break;  
                         }
                         case SCANNER_STATE_PI: {
+                            fTextLength = 0;
                             scanPI();
                             setScannerState(SCANNER_STATE_CONTENT);
                             break;  
@@ -1767,12 +1917,12 @@ public class XMLDocumentFragmentScannerImpl
             }
             // encoding errors
             catch (MalformedByteSequenceException e) {
-                fErrorReporter.reportError(e.getDomain(), e.getKey(), 
+                fErrorReporter.report(e.getDomain(), e.getKey(), 
                     e.getArguments(), XMLErrorReporter.SEVERITY_FATAL_ERROR, e);
                 return false;
             }
             catch (CharConversionException e) {
-                fErrorReporter.reportError(
+                fErrorReporter.report(
                         XMLMessageFormatter.XML_DOMAIN,
                         "CharConversionFailure",
                         null,
@@ -25,7 +25,7 @@ import org.apache.xerces.impl.dtd.XMLDTDDescription;
 import org.apache.xerces.impl.io.MalformedByteSequenceException;
 import org.apache.xerces.impl.msg.XMLMessageFormatter;
 import org.apache.xerces.impl.validation.ValidationManager;
-import org.apache.xerces.util.NamespaceSupport;
+import org.apache.xerces.util.IndexedNamespaceSupport;
 import org.apache.xerces.util.XMLChar;
 import org.apache.xerces.util.XMLStringBuffer;
 import org.apache.xerces.xni.Augmentations;
@@ -175,7 +175,7 @@ public class XMLDocumentScannerImpl
     protected String fDoctypeSystemId;
 
     /** Namespace support. */
-    protected NamespaceContext fNamespaceContext = new NamespaceSupport();
+    protected NamespaceContext fNamespaceContext = new IndexedNamespaceSupport();
 
     // features
 
@@ -313,7 +313,7 @@ public class XMLDocumentScannerImpl
         }
         catch (XMLConfigurationException e) { }
         if (fNamespaceContext == null) {
-            fNamespaceContext = new NamespaceSupport();
+            fNamespaceContext = new IndexedNamespaceSupport();
         }
         fNamespaceContext.reset();
         
@@ -693,12 +693,12 @@ public class XMLDocumentScannerImpl
             }
             // encoding errors
             catch (MalformedByteSequenceException e) {
-                fErrorReporter.reportError(e.getDomain(), e.getKey(), 
+                fErrorReporter.report(e.getDomain(), e.getKey(), 
                     e.getArguments(), XMLErrorReporter.SEVERITY_FATAL_ERROR, e);
                 return false;
             }
             catch (CharConversionException e) {
-                fErrorReporter.reportError(
+                fErrorReporter.report(
                         XMLMessageFormatter.XML_DOMAIN,
                         "CharConversionFailure",
                         null,
@@ -886,12 +886,12 @@ public class XMLDocumentScannerImpl
             }
             // encoding errors
             catch (MalformedByteSequenceException e) {
-                fErrorReporter.reportError(e.getDomain(), e.getKey(), 
+                fErrorReporter.report(e.getDomain(), e.getKey(), 
                     e.getArguments(), XMLErrorReporter.SEVERITY_FATAL_ERROR, e);
                 return false;
             }
             catch (CharConversionException e) {
-                fErrorReporter.reportError(
+                fErrorReporter.report(
                         XMLMessageFormatter.XML_DOMAIN,
                         "CharConversionFailure",
                         null,
@@ -1024,12 +1024,12 @@ public class XMLDocumentScannerImpl
             }
             // encoding errors
             catch (MalformedByteSequenceException e) {
-                fErrorReporter.reportError(e.getDomain(), e.getKey(), 
+                fErrorReporter.report(e.getDomain(), e.getKey(), 
                     e.getArguments(), XMLErrorReporter.SEVERITY_FATAL_ERROR, e);
                 return false;
             }
             catch (CharConversionException e) {
-                fErrorReporter.reportError(
+                fErrorReporter.report(
                         XMLMessageFormatter.XML_DOMAIN,
                         "CharConversionFailure",
                         null,
@@ -1319,12 +1319,12 @@ public class XMLDocumentScannerImpl
             }
             // encoding errors
             catch (MalformedByteSequenceException e) {
-                fErrorReporter.reportError(e.getDomain(), e.getKey(), 
+                fErrorReporter.report(e.getDomain(), e.getKey(), 
                     e.getArguments(), XMLErrorReporter.SEVERITY_FATAL_ERROR, e);
                 return false;
             }
             catch (CharConversionException e) {
-                fErrorReporter.reportError(
+                fErrorReporter.report(
                         XMLMessageFormatter.XML_DOMAIN,
                         "CharConversionFailure",
                         null,
@@ -159,6 +159,10 @@ public class XMLEntityManager
     protected static final String SECURITY_MANAGER =
         Constants.XERCES_PROPERTY_PREFIX + Constants.SECURITY_MANAGER_PROPERTY;
 
+    /** property identifier: entity content cache. */
+    protected static final String ENTITY_CONTENT_CACHE =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.ENTITY_CONTENT_CACHE_PROPERTY;
+
     // recognized features and properties
 
     /** Recognized features. */
@@ -189,6 +193,7 @@ public class XMLEntityManager
         VALIDATION_MANAGER,
         BUFFER_SIZE,
         SECURITY_MANAGER,
+        ENTITY_CONTENT_CACHE,
     };
 
     /** Property defaults. */
@@ -199,6 +204,7 @@ public class XMLEntityManager
         null,
         new Integer(DEFAULT_BUFFER_SIZE),
         null,
+        null,
     };
 
     private static final String XMLEntity = "[xml]".intern();
@@ -302,6 +308,12 @@ public class XMLEntityManager
     // been set on the configuration.
     protected SecurityManager fSecurityManager = null;
 
+    /**
+     * Cache of the content of external parameter entities and
+     * external DTD subsets shared across parses, or null.
+     */
+    protected EntityContentCache fEntityContentCache = null;
+
     /**
      * True if the document entity is standalone. This should really
      * only be set by the document source (e.g. XMLDocumentScanner).
@@ -338,6 +350,11 @@ public class XMLEntityManager
     protected int fEntityExpansionLimit = 0;
     // entity currently being expanded:
     protected int fEntityExpansionCount = 0;
+    
+    // limit on the number of characters read for the document (zero
+    // if there is no limit) and the number of characters read so far
+    protected int fTotalCharacterLimit = 0;
+    protected int fTotalCharacterCount = 0;
 
     // entities
 
@@ -484,10 +501,10 @@ public class XMLEntityManager
         }
         else{
             if(fWarnDuplicateEntityDef){
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                             "MSG_DUPLICATE_ENTITY_DEFINITION",
-                                             new Object[]{ name },
-                                             XMLErrorReporter.SEVERITY_WARNING );
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                        "MSG_DUPLICATE_ENTITY_DEFINITION",
+                                        new Object[]{ name },
+                                        XMLErrorReporter.SEVERITY_WARNING );
             }
         }
 
@@ -579,10 +596,10 @@ public class XMLEntityManager
         }
         else{
             if(fWarnDuplicateEntityDef){
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                             "MSG_DUPLICATE_ENTITY_DEFINITION",
-                                             new Object[]{ name },
-                                             XMLErrorReporter.SEVERITY_WARNING );
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                        "MSG_DUPLICATE_ENTITY_DEFINITION",
+                                        new Object[]{ name },
+                                        XMLErrorReporter.SEVERITY_WARNING );
             }
         }
 
@@ -648,10 +665,10 @@ public class XMLEntityManager
         }
         else{
             if(fWarnDuplicateEntityDef){
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                             "MSG_DUPLICATE_ENTITY_DEFINITION",
-                                             new Object[]{ name },
-                                             XMLErrorReporter.SEVERITY_WARNING );
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                        "MSG_DUPLICATE_ENTITY_DEFINITION",
+                                        new Object[]{ name },
+                                        XMLErrorReporter.SEVERITY_WARNING );
             }
         }
     } // addUnparsedEntity(String,String,String,String)
@@ -833,10 +850,10 @@ public class XMLEntityManager
                 path.append(fCurrentEntity.name);
                 path.append(" -> ");
                 path.append(entityName);
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                           "RecursiveReference",
-                                           new Object[] { entityName, path.toString() },
-                                           XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                      "RecursiveReference",
+                                      new Object[] { entityName, path.toString() },
+                                      XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 if (fEntityHandler != null) {
                     fResourceIdentifier.clear();
                     final String encoding = null;
@@ -948,7 +965,7 @@ public class XMLEntityManager
         if (fSecurityManager != null) {
             fEntityExpansionCount += getParamEntityRefCount(name);
             if (fEntityExpansionCount++ > fEntityExpansionLimit) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                         "EntityExpansionLimitExceeded",
                         new Object[]{new Integer(fEntityExpansionLimit) },
                         XMLErrorReporter.SEVERITY_FATAL_ERROR );
@@ -1000,6 +1017,26 @@ public class XMLEntityManager
         if (baseSystemId == null) {
             baseSystemId = expandedSystemId;
         }
+        // the content of external parameter entities and external
+        // subsets which are located by their system identifier may
+        // be read from the cache or added to it
+        String cacheKey = null;
+        String declaredEncoding = null;
+        if (fEntityContentCache != null && isExternal && reader == null &&
+            encoding == null && expandedSystemId != null &&
+            xmlInputSource.getByteStream() == null &&
+            !(xmlInputSource instanceof HTTPInputSource) &&
+            (name == DTDEntity || name.startsWith("%"))) {
+            EntityContentCache.Entry entry = fEntityContentCache.get(expandedSystemId);
+            if (entry != null) {
+                reader = entry.getReader();
+                encoding = entry.fEncoding;
+                declaredEncoding = entry.fDeclaredEncoding;
+            }
+            else {
+                cacheKey = expandedSystemId;
+            }
+        }
         if (reader == null) {
             stream = xmlInputSource.getByteStream();
             if (stream == null) {
@@ -1227,6 +1264,11 @@ public class XMLEntityManager
                 new XMLResourceIdentifierImpl(publicId, literalSystemId, baseSystemId, expandedSystemId),
                 stream, reader, fTempByteBuffer, encoding, literal, false, isExternal);
 		fCurrentEntity.setEncodingExternallySpecified(encodingExternallySpecified);
+        fCurrentEntity.fDeclaredEncoding = declaredEncoding;
+        // don't cache entities which were redirected
+        if (cacheKey != null && cacheKey == expandedSystemId) {
+            fCurrentEntity.startRecording(cacheKey, fEntityContentCache);
+        }
         fEntityScanner.setCurrentEntity(fCurrentEntity);
         fResourceIdentifier.setValues(publicId, literalSystemId, baseSystemId, expandedSystemId);
         return encoding;
@@ -1251,6 +1293,25 @@ public class XMLEntityManager
         }
     } // setScannerVersion(short)
 
+    /**
+     * Counts characters read by the entity scanner against the 
+     * limit on the number of characters read for the document.
+     * Only called if there is a limit.
+     */
+    final void countCharacters(int count) {
+        if (count > fTotalCharacterLimit - fTotalCharacterCount) {
+            fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                    "TotalCharacterLimitExceeded",
+                    new Object[]{ new Integer(fTotalCharacterLimit) },
+                    XMLErrorReporter.SEVERITY_FATAL_ERROR);
+            // as with the entity expansion limit, start counting again
+            // if the application chose to continue after the error
+            fTotalCharacterCount = 0;
+            return;
+        }
+        fTotalCharacterCount += count;
+    } // countCharacters(int)
+
     /** Returns the entity scanner. */
     public XMLEntityScanner getEntityScanner() {
         if(fEntityScanner == null) {
@@ -1378,6 +1439,12 @@ public class XMLEntityManager
         catch (XMLConfigurationException e) {
             fSecurityManager = null;
         }
+        try {
+            fEntityContentCache = (EntityContentCache)componentManager.getProperty(ENTITY_CONTENT_CACHE);
+        }
+        catch (XMLConfigurationException e) {
+            fEntityContentCache = null;
+        }
 
         // reset general state
         reset();
@@ -1389,6 +1456,7 @@ public class XMLEntityManager
     // implementing that interface for whatever reason.
     public void reset() {
         fEntityExpansionLimit = (fSecurityManager != null)?fSecurityManager.getEntityExpansionLimit():0;
+        fTotalCharacterLimit = (fSecurityManager != null)?fSecurityManager.getTotalCharacterLimit():0;
 
         // initialize state
         fStandalone = false;
@@ -1396,6 +1464,7 @@ public class XMLEntityManager
         fEntities.clear();
         fEntityStack.removeAllElements();
         fEntityExpansionCount = 0;
+        fTotalCharacterCount = 0;
 
         fCurrentEntity = null;
         // reset scanner
@@ -1542,6 +1611,11 @@ public class XMLEntityManager
                 propertyId.endsWith(Constants.SECURITY_MANAGER_PROPERTY)) {
                 fSecurityManager = (SecurityManager)value; 
                 fEntityExpansionLimit = (fSecurityManager != null)?fSecurityManager.getEntityExpansionLimit():0;
+                fTotalCharacterLimit = (fSecurityManager != null)?fSecurityManager.getTotalCharacterLimit():0;
+            }
+            if (suffixLength == Constants.ENTITY_CONTENT_CACHE_PROPERTY.length() && 
+                propertyId.endsWith(Constants.ENTITY_CONTENT_CACHE_PROPERTY)) {
+                fEntityContentCache = (EntityContentCache)value;
             }
         }
 
@@ -1981,6 +2055,14 @@ public class XMLEntityManager
             fEntityHandler.endEntity(fCurrentEntity.name, null);
         }
         
+        // The entity has been read to the end so its content
+        // can be added to the cache.
+        if (fCurrentEntity.fRecordingCache != null) {
+            fCurrentEntity.fRecordingCache.put(fCurrentEntity.fRecordingKey,
+                    fCurrentEntity.fRecordingEncoding, fCurrentEntity.encoding,
+                    fCurrentEntity.fRecording, fCurrentEntity.fRecordingLength);
+        }
+        
         // Close the reader for the current entity once we're 
         // done with it, and remove it from our stack. If parsing
         // is halted at some point, the rest of the readers on
@@ -2158,7 +2240,7 @@ public class XMLEntityManager
                     return new UCSReader(inputStream, UCSReader.UCS4LE);
                 }
             } else {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                                        "EncodingByteOrderUnsupported",
                                        new Object[] { encoding },
                                        XMLErrorReporter.SEVERITY_FATAL_ERROR);
@@ -2173,7 +2255,7 @@ public class XMLEntityManager
                     return new UCSReader(inputStream, UCSReader.UCS2LE);
                 }
             } else {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                                        "EncodingByteOrderUnsupported",
                                        new Object[] { encoding },
                                        XMLErrorReporter.SEVERITY_FATAL_ERROR);
@@ -2184,10 +2266,10 @@ public class XMLEntityManager
         boolean validIANA = XMLChar.isValidIANAEncoding(encoding);
         boolean validJava = XMLChar.isValidJavaEncoding(encoding);
         if (!validIANA || (fAllowJavaEncodings && !validJava)) {
-            fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                       "EncodingDeclInvalid",
-                                       new Object[] { encoding },
-                                       XMLErrorReporter.SEVERITY_FATAL_ERROR);
+            fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                  "EncodingDeclInvalid",
+                                  new Object[] { encoding },
+                                  XMLErrorReporter.SEVERITY_FATAL_ERROR);
             // NOTE: AndyH suggested that, on failure, we use ISO Latin 1
             //       because every byte is a valid ISO Latin 1 character.
             //       It may not translate correctly but if we failed on
@@ -2206,7 +2288,7 @@ public class XMLEntityManager
                 javaEncoding = encoding;
             } 
             else {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                                        "EncodingDeclInvalid",
                                        new Object[] { encoding },
                                        XMLErrorReporter.SEVERITY_FATAL_ERROR);
@@ -2731,6 +2813,32 @@ public class XMLEntityManager
         /** Byte buffer. */
         private byte [] fByteBuffer;
         
+        // recording of the content for the entity content cache
+        
+        /** Cache the content is recorded for, or null if not recording. */
+        EntityContentCache fRecordingCache;
+        
+        /** Cache key of the entity. */
+        String fRecordingKey;
+        
+        /** Auto-detected encoding of the entity. */
+        String fRecordingEncoding;
+        
+        /** Characters read from the entity. */
+        char[] fRecording;
+        
+        /** Number of characters read from the entity. */
+        int fRecordingLength;
+        
+        /** Maximum number of characters recorded. */
+        int fRecordingLimit;
+        
+        /** 
+         * Encoding of the entity after its text declaration, if the
+         * entity is read from the entity content cache.
+         */
+        String fDeclaredEncoding;
+        
         //
         // Constructors
         //
@@ -2767,6 +2875,37 @@ public class XMLEntityManager
             return false;
         } // isUnparsed():boolean
 
+        /** Starts recording the characters read from this entity. */
+        void startRecording(String key, EntityContentCache cache) {
+            fRecordingCache = cache;
+            fRecordingKey = key;
+            fRecordingEncoding = encoding;
+            fRecording = new char[ch.length];
+            fRecordingLength = 0;
+            fRecordingLimit = cache.getMaxSize();
+        }
+
+        /**
+         * Records the given characters of the character buffer, which
+         * have just been read. Recording stops if the content becomes
+         * too large for the cache.
+         */
+        void record(int offset, int length) {
+            int newLength = fRecordingLength + length;
+            if (newLength > fRecordingLimit) {
+                fRecordingCache = null;
+                fRecording = null;
+                return;
+            }
+            if (newLength > fRecording.length) {
+                char[] recording = new char[Math.max(newLength, fRecording.length << 1)];
+                System.arraycopy(fRecording, 0, recording, 0, fRecordingLength);
+                fRecording = recording;
+            }
+            System.arraycopy(ch, offset, fRecording, fRecordingLength, length);
+            fRecordingLength = newLength;
+        }
+
         public void setReader(InputStream stream, String encoding, Boolean isBigEndian) throws IOException {
             fTempByteBuffer = fByteBuffer;
             reader = createReader(stream, encoding, isBigEndian);
@@ -174,6 +174,12 @@ public class XMLEntityScanner implements XMLLocator {
                     System.out.println("$$$ reusing old reader on stream");
             }
         }
+        // the characters of an entity read from the entity content
+        // cache have already been decoded; only report the encoding
+        // the entity was decoded with
+        else if (fCurrentEntity.fDeclaredEncoding != null) {
+            fCurrentEntity.encoding = fCurrentEntity.fDeclaredEncoding;
+        }
 
     } // setEncoding(String)
     
@@ -607,7 +613,7 @@ public class XMLEntityScanner implements XMLLocator {
                     int len = length - prefixLength - 1;
                     int startLocal = index +1;
                     if (!XMLChar.isNCNameStart(fCurrentEntity.ch[startLocal])){
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                                                  "IllegalQName",
                                                   new Object[]{rawname},
                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
@@ -1539,6 +1545,12 @@ public class XMLEntityScanner implements XMLLocator {
         boolean entityChanged = false;
         if (count != -1) {
             if (count != 0) {
+                if (fEntityManager.fTotalCharacterLimit > 0) {
+                    fEntityManager.countCharacters(count);
+                }
+                if (fCurrentEntity.fRecordingCache != null) {
+                    fCurrentEntity.record(offset, count);
+                }
                 fCurrentEntity.count = count + offset;
                 fCurrentEntity.position = offset;
                 fCurrentEntity.startPosition = offset;
@@ -29,7 +29,6 @@ import org.apache.xerces.xni.parser.XMLComponent;
 import org.apache.xerces.xni.parser.XMLComponentManager;
 import org.apache.xerces.xni.parser.XMLConfigurationException;
 import org.apache.xerces.xni.parser.XMLErrorHandler;
-import org.apache.xerces.xni.parser.XMLParseException;
 import org.xml.sax.ErrorHandler;
 
 /**
@@ -116,6 +115,10 @@ public class XMLErrorReporter
     protected static final String ERROR_HANDLER =
         Constants.XERCES_PROPERTY_PREFIX + Constants.ERROR_HANDLER_PROPERTY;
 
+    /** Property identifier: maximum error count. */
+    protected static final String MAX_ERROR_COUNT =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.MAX_ERROR_COUNT_PROPERTY;
+
     // recognized features and properties
 
     /** Recognized features. */
@@ -131,11 +134,13 @@ public class XMLErrorReporter
     /** Recognized properties. */
     private static final String[] RECOGNIZED_PROPERTIES = {
         ERROR_HANDLER,
+        MAX_ERROR_COUNT,
     };
 
     /** Property defaults. */
     private static final Object[] PROPERTY_DEFAULTS = {
         null,
+        null,
     };
 
     //
@@ -157,6 +162,15 @@ public class XMLErrorReporter
     /** Continue after fatal error feature. */
     protected boolean fContinueAfterFatalError;
 
+    /** 
+     * Maximum number of errors to report before the parse is stopped,
+     * or zero if there is no limit.
+     */
+    protected int fMaxErrorCount;
+
+    /** Number of errors reported since the last reset. */
+    protected int fErrorCount;
+
     /** 
      * Default error handler. This error handler is only used in the
      * absence of a registered error handler so that errors are not
@@ -225,6 +239,14 @@ public class XMLErrorReporter
         fLocator = locator;
     } // setDocumentLocator(XMLLocator)
 
+    /**
+     * Returns the document locator used to locate errors reported
+     * without a location.
+     */
+    public XMLLocator getDocumentLocator() {
+        return fLocator;
+    } // getDocumentLocator():XMLLocator
+
     /**
      * Registers a message formatter for the specified domain.
      * <p>
@@ -276,10 +298,13 @@ public class XMLErrorReporter
      * @see #SEVERITY_WARNING
      * @see #SEVERITY_ERROR
      * @see #SEVERITY_FATAL_ERROR
+     * 
+     * @deprecated Formats the message even if no one reads it; use
+     * {@link #report(String,String,Object[],short)} instead.
      */
     public String reportError(String domain, String key, Object[] arguments, 
                             short severity) throws XNIException {
-        return reportError(fLocator, domain, key, arguments, severity);
+        return report(fLocator, domain, key, arguments, severity, null).getMessage();
     } // reportError(String,String,Object[],short):String
     
     /**
@@ -298,10 +323,13 @@ public class XMLErrorReporter
      * @see #SEVERITY_WARNING
      * @see #SEVERITY_ERROR
      * @see #SEVERITY_FATAL_ERROR
+     * 
+     * @deprecated Formats the message even if no one reads it; use
+     * {@link #report(String,String,Object[],short,Exception)} instead.
      */
     public String reportError(String domain, String key, Object[] arguments, 
             short severity, Exception exception) throws XNIException {
-        return reportError(fLocator, domain, key, arguments, severity, exception);
+        return report(fLocator, domain, key, arguments, severity, exception).getMessage();
     } // reportError(String,String,Object[],short,Exception):String
     
     /**
@@ -318,11 +346,14 @@ public class XMLErrorReporter
      * @see #SEVERITY_WARNING
      * @see #SEVERITY_ERROR
      * @see #SEVERITY_FATAL_ERROR
+     * 
+     * @deprecated Formats the message even if no one reads it; use
+     * {@link #report(XMLLocator,String,String,Object[],short)} instead.
      */
     public String reportError(XMLLocator location,
             String domain, String key, Object[] arguments, 
             short severity) throws XNIException {
-        return reportError(location, domain, key, arguments, severity, null);
+        return report(location, domain, key, arguments, severity, null).getMessage();
     } // reportError(XMLLocator,String,String,Object[],short):String
 
     /**
@@ -340,40 +371,108 @@ public class XMLErrorReporter
      * @see #SEVERITY_WARNING
      * @see #SEVERITY_ERROR
      * @see #SEVERITY_FATAL_ERROR
+     * 
+     * @deprecated Formats the message even if no one reads it; use
+     * {@link #report(XMLLocator,String,String,Object[],short,Exception)} instead.
      */
     public String reportError(XMLLocator location,
                             String domain, String key, Object[] arguments, 
                             short severity, Exception exception) throws XNIException {
+        return report(location, domain, key, arguments, severity, exception).getMessage();
+    } // reportError(XMLLocator,String,String,Object[],short,Exception):String
+
+    /**
+     * Reports an error and returns the exception passed to the error
+     * handler, whose message is formatted when it is first requested.
+     * 
+     * @param domain    The error domain.
+     * @param key       The key of the error message.
+     * @param arguments The replacement arguments for the error message,
+     *                  if needed.
+     * @param severity  The severity of the error.
+     * @return          The exception passed to the error handler.
+     *
+     * @see #report(XMLLocator,String,String,Object[],short,Exception)
+     */
+    public StructuredParseException report(String domain, String key, Object[] arguments, 
+                            short severity) throws XNIException {
+        return report(fLocator, domain, key, arguments, severity, null);
+    } // report(String,String,Object[],short):StructuredParseException
+
+    /**
+     * Reports an error and returns the exception passed to the error
+     * handler, whose message is formatted when it is first requested.
+     * 
+     * @param domain    The error domain.
+     * @param key       The key of the error message.
+     * @param arguments The replacement arguments for the error message,
+     *                  if needed.
+     * @param severity  The severity of the error.
+     * @param exception The exception to wrap.
+     * @return          The exception passed to the error handler.
+     *
+     * @see #report(XMLLocator,String,String,Object[],short,Exception)
+     */
+    public StructuredParseException report(String domain, String key, Object[] arguments, 
+            short severity, Exception exception) throws XNIException {
+        return report(fLocator, domain, key, arguments, severity, exception);
+    } // report(String,String,Object[],short,Exception):StructuredParseException
+
+    /**
+     * Reports an error at a specific location and returns the exception
+     * passed to the error handler, whose message is formatted when it is
+     * first requested.
+     * 
+     * @param location  The error location.
+     * @param domain    The error domain.
+     * @param key       The key of the error message.
+     * @param arguments The replacement arguments for the error message,
+     *                  if needed.
+     * @param severity  The severity of the error.
+     * @return          The exception passed to the error handler.
+     *
+     * @see #report(XMLLocator,String,String,Object[],short,Exception)
+     */
+    public StructuredParseException report(XMLLocator location,
+            String domain, String key, Object[] arguments, 
+            short severity) throws XNIException {
+        return report(location, domain, key, arguments, severity, null);
+    } // report(XMLLocator,String,String,Object[],short):StructuredParseException
+
+    /**
+     * Reports an error at a specific location and returns the exception
+     * passed to the error handler. The message of the exception is
+     * formatted for the locale by the message formatter installed for
+     * the specified error domain when it is first requested.
+     * <p>
+     * Once the number of errors reported reaches the limit set with
+     * the maximum error count property the exception is thrown to
+     * stop the parse.
+     * 
+     * @param location  The error location.
+     * @param domain    The error domain.
+     * @param key       The key of the error message.
+     * @param arguments The replacement arguments for the error message,
+     *                  if needed.
+     * @param severity  The severity of the error.
+     * @param exception The exception to wrap, or null.
+     * @return          The exception passed to the error handler.
+     *
+     * @see #SEVERITY_WARNING
+     * @see #SEVERITY_ERROR
+     * @see #SEVERITY_FATAL_ERROR
+     */
+    public StructuredParseException report(XMLLocator location,
+                            String domain, String key, Object[] arguments, 
+                            short severity, Exception exception) throws XNIException {
 
         // REVISIT: [Q] Should we do anything about invalid severity
         //              parameter? -Ac
         
-        // format error message and create parse exception
-        MessageFormatter messageFormatter = getMessageFormatter(domain);
-        String message;
-        if (messageFormatter != null) {
-            message = messageFormatter.formatMessage(fLocale, key, arguments);
-        }
-        else {
-            StringBuffer str = new StringBuffer();
-            str.append(domain);
-            str.append('#');
-            str.append(key);
-            int argCount = arguments != null ? arguments.length : 0;
-            if (argCount > 0) {
-                str.append('?');
-                for (int i = 0; i < argCount; i++) {
-                    str.append(arguments[i]);
-                    if (i < argCount -1) {
-                        str.append('&');
-                    }
-                }
-            }
-            message = str.toString();
-        }
-        XMLParseException parseException = (exception != null) ?
-            new XMLParseException(location, message, exception) :
-            new XMLParseException(location, message);
+        // create parse exception; the message is formatted on demand
+        StructuredParseException parseException = 
+            new StructuredParseException(location, domain, key, arguments,
+                    severity, getMessageFormatter(domain), fLocale, exception);
 
         // get error handler
         XMLErrorHandler errorHandler = fErrorHandler;
@@ -392,19 +491,22 @@ public class XMLErrorReporter
             }
             case SEVERITY_ERROR: {
                 errorHandler.error(domain, key, parseException);
+                if (++fErrorCount == fMaxErrorCount) {
+                    throw parseException;
+                }
                 break;
             }
             case SEVERITY_FATAL_ERROR: {
                 errorHandler.fatalError(domain, key, parseException);
-                if (!fContinueAfterFatalError) {
+                if (++fErrorCount == fMaxErrorCount || !fContinueAfterFatalError) {
                     throw parseException;
                 }
                 break;
             }
         }
-        return message;
+        return parseException;
 
-    } // reportError(XMLLocator,String,String,Object[],short,Exception):String
+    } // report(XMLLocator,String,String,Object[],short,Exception):StructuredParseException
 
     //
     // XMLComponent methods
@@ -437,6 +539,13 @@ public class XMLErrorReporter
 
         // properties
         fErrorHandler = (XMLErrorHandler)componentManager.getProperty(ERROR_HANDLER);
+        try {
+            setMaxErrorCount(componentManager.getProperty(MAX_ERROR_COUNT));
+        }
+        catch (XMLConfigurationException e) {
+            fMaxErrorCount = 0;
+        }
+        fErrorCount = 0;
 
     } // reset(XMLComponentManager)
 
@@ -550,6 +659,10 @@ public class XMLErrorReporter
                 propertyId.endsWith(Constants.ERROR_HANDLER_PROPERTY)) {
                 fErrorHandler = (XMLErrorHandler)value;
             }
+            else if (suffixLength == Constants.MAX_ERROR_COUNT_PROPERTY.length() && 
+                propertyId.endsWith(Constants.MAX_ERROR_COUNT_PROPERTY)) {
+                setMaxErrorCount(value);
+            }
         }
 
     } // setProperty(String,Object)
@@ -590,6 +703,14 @@ public class XMLErrorReporter
         return null;
     } // getPropertyDefault(String):Object
 
+    /**
+     * Returns the number of errors and fatal errors reported since
+     * the last reset.
+     */
+    public int getErrorCount() {
+        return fErrorCount;
+    } // getErrorCount():int
+
     /**
      * Get the internal XMLErrrorHandler.
      */
@@ -612,4 +733,13 @@ public class XMLErrorReporter
         return fSaxProxy;
     }
     
+    //
+    // Private methods
+    //
+
+    /** Sets the maximum error count from the value of the property. */
+    private void setMaxErrorCount(Object value) {
+        fMaxErrorCount = (value instanceof Integer) ? ((Integer) value).intValue() : 0;
+    } // setMaxErrorCount(Object)
+    
 } // class XMLErrorReporter
@@ -133,16 +133,16 @@ extends XMLDocumentScannerImpl {
             fNamespaceContext.pushContext();
             if (fScannerState == SCANNER_STATE_ROOT_ELEMENT) {
                 if (fPerformValidation) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "MSG_GRAMMAR_NOT_FOUND",
-                                               new Object[]{ rawname},
-                                               XMLErrorReporter.SEVERITY_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "MSG_GRAMMAR_NOT_FOUND",
+                                          new Object[]{ rawname},
+                                          XMLErrorReporter.SEVERITY_ERROR);
 
                     if (fDoctypeName == null || !fDoctypeName.equals(rawname)) {
-                        fErrorReporter.reportError( XMLMessageFormatter.XML_DOMAIN,
-                                                    "RootElementTypeMustMatchDoctypedecl",
-                                                    new Object[]{fDoctypeName, rawname},
-                                                    XMLErrorReporter.SEVERITY_ERROR);
+                        fErrorReporter.report( XMLMessageFormatter.XML_DOMAIN,
+                                               "RootElementTypeMustMatchDoctypedecl",
+                                               new Object[]{fDoctypeName, rawname},
+                                               XMLErrorReporter.SEVERITY_ERROR);
                     }
                 }
             }
@@ -150,6 +150,7 @@ extends XMLDocumentScannerImpl {
 
         // push element stack
         fCurrentElement = fElementStack.pushElement(fElementQName);
+        checkElementBudgets();
 
         // attributes
         boolean empty = false;
@@ -185,10 +186,10 @@ extends XMLDocumentScannerImpl {
         if (fBindNamespaces) {
             // REVISIT: is it required? forbit xmlns prefix for element
             if (fElementQName.prefix == XMLSymbols.PREFIX_XMLNS) {
-                fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                           "ElementXMLNSPrefix",
-                                           new Object[]{fElementQName.rawname},
-                                           XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                      "ElementXMLNSPrefix",
+                                      new Object[]{fElementQName.rawname},
+                                      XMLErrorReporter.SEVERITY_FATAL_ERROR);
             }
 
             // bind the element
@@ -205,10 +206,10 @@ extends XMLDocumentScannerImpl {
                 fCurrentElement.prefix = XMLSymbols.EMPTY_STRING;
             }
             if (fElementQName.prefix != null && fElementQName.uri == null) {
-                fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                           "ElementPrefixUnbound",
-                                           new Object[]{fElementQName.prefix, fElementQName.rawname},
-                                           XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                      "ElementPrefixUnbound",
+                                      new Object[]{fElementQName.prefix, fElementQName.rawname},
+                                      XMLErrorReporter.SEVERITY_FATAL_ERROR);
             }
 
             // bind attributes (xmlns are already bound bellow)
@@ -229,10 +230,10 @@ extends XMLDocumentScannerImpl {
                 if (aprefix != XMLSymbols.EMPTY_STRING) {
                     fAttributeQName.uri = uri;
                     if (uri == null) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "AttributePrefixUnbound",
-                                                   new Object[]{fElementQName.rawname,fAttributeQName.rawname,aprefix},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "AttributePrefixUnbound",
+                                              new Object[]{fElementQName.rawname,fAttributeQName.rawname,aprefix},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                     fAttributes.setURI(i, uri);
                     // checkDuplicates(fAttributeQName, fAttributes);
@@ -243,16 +244,16 @@ extends XMLDocumentScannerImpl {
                 QName name = fAttributes.checkDuplicatesNS();
                 if (name != null) {
                     if (name.uri != null) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "AttributeNSNotUnique",
-                                                   new Object[]{fElementQName.rawname, name.localpart, name.uri},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "AttributeNSNotUnique",
+                                              new Object[]{fElementQName.rawname, name.localpart, name.uri},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                     else {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "AttributeNotUnique",
-                                                   new Object[]{fElementQName.rawname, name.rawname}, 
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "AttributeNotUnique",
+                                              new Object[]{fElementQName.rawname, name.rawname}, 
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                 }
             }
@@ -318,16 +319,16 @@ extends XMLDocumentScannerImpl {
             fNamespaceContext.pushContext();
             if (fScannerState == SCANNER_STATE_ROOT_ELEMENT) {
                 if (fPerformValidation) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "MSG_GRAMMAR_NOT_FOUND",
-                                               new Object[]{ rawname},
-                                               XMLErrorReporter.SEVERITY_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "MSG_GRAMMAR_NOT_FOUND",
+                                          new Object[]{ rawname},
+                                          XMLErrorReporter.SEVERITY_ERROR);
 
                     if (fDoctypeName == null || !fDoctypeName.equals(rawname)) {
-                        fErrorReporter.reportError( XMLMessageFormatter.XML_DOMAIN,
-                                                    "RootElementTypeMustMatchDoctypedecl",
-                                                    new Object[]{fDoctypeName, rawname},
-                                                    XMLErrorReporter.SEVERITY_ERROR);
+                        fErrorReporter.report( XMLMessageFormatter.XML_DOMAIN,
+                                               "RootElementTypeMustMatchDoctypedecl",
+                                               new Object[]{fDoctypeName, rawname},
+                                               XMLErrorReporter.SEVERITY_ERROR);
                     }
                 }
             }
@@ -335,6 +336,7 @@ extends XMLDocumentScannerImpl {
 
         // push element stack
         fCurrentElement = fElementStack.pushElement(fElementQName);
+        checkElementBudgets();
 
         // attributes
         boolean empty = false;
@@ -371,10 +373,10 @@ extends XMLDocumentScannerImpl {
         if (fBindNamespaces) {
             // REVISIT: is it required? forbit xmlns prefix for element
             if (fElementQName.prefix == XMLSymbols.PREFIX_XMLNS) {
-                fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                           "ElementXMLNSPrefix",
-                                           new Object[]{fElementQName.rawname},
-                                           XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                      "ElementXMLNSPrefix",
+                                      new Object[]{fElementQName.rawname},
+                                      XMLErrorReporter.SEVERITY_FATAL_ERROR);
             }
 
             // bind the element
@@ -391,10 +393,10 @@ extends XMLDocumentScannerImpl {
                 fCurrentElement.prefix = XMLSymbols.EMPTY_STRING;
             }
             if (fElementQName.prefix != null && fElementQName.uri == null) {
-                fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                           "ElementPrefixUnbound",
-                                           new Object[]{fElementQName.prefix, fElementQName.rawname},
-                                           XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                      "ElementPrefixUnbound",
+                                      new Object[]{fElementQName.prefix, fElementQName.rawname},
+                                      XMLErrorReporter.SEVERITY_FATAL_ERROR);
             }
 
             // bind attributes (xmlns are already bound bellow)
@@ -415,10 +417,10 @@ extends XMLDocumentScannerImpl {
                 if (aprefix != XMLSymbols.EMPTY_STRING) {
                     fAttributeQName.uri = uri;
                     if (uri == null) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "AttributePrefixUnbound",
-                                                   new Object[]{fElementQName.rawname,fAttributeQName.rawname,aprefix},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "AttributePrefixUnbound",
+                                              new Object[]{fElementQName.rawname,fAttributeQName.rawname,aprefix},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                     fAttributes.setURI(i, uri);
                     // checkDuplicates(fAttributeQName, fAttributes);
@@ -429,16 +431,16 @@ extends XMLDocumentScannerImpl {
                 QName name = fAttributes.checkDuplicatesNS();
                 if (name != null) {
                     if (name.uri != null) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "AttributeNSNotUnique",
-                                                   new Object[]{fElementQName.rawname, name.localpart, name.uri},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "AttributeNSNotUnique",
+                                              new Object[]{fElementQName.rawname, name.localpart, name.uri},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                     else {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "AttributeNotUnique",
-                                                   new Object[]{fElementQName.rawname, name.rawname}, 
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "AttributeNotUnique",
+                                              new Object[]{fElementQName.rawname, name.rawname}, 
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                 }
             }
@@ -524,6 +526,7 @@ extends XMLDocumentScannerImpl {
                                  fAttributeQName.rawname});
             }
         }
+        checkAttributeBudget(attributes.getLength());
 
         // Scan attribute value and return true if the non-normalized and normalized value are the same
         boolean isSameNormalizedAttr = scanAttributeValue(this.fTempString, fTempString2,
@@ -547,42 +550,43 @@ extends XMLDocumentScannerImpl {
             // it's a namespace declaration. but prefix:xmlns="..." isn't.
             if (prefix == XMLSymbols.PREFIX_XMLNS ||
                 prefix == XMLSymbols.EMPTY_STRING && localpart == XMLSymbols.PREFIX_XMLNS) {
+                countNamespaceDeclaration();
 
                 // get the internalized value of this attribute
                 String uri = fSymbolTable.addSymbol(value);
 
                 // 1. "xmlns" can't be bound to any namespace
                 if (prefix == XMLSymbols.PREFIX_XMLNS && localpart == XMLSymbols.PREFIX_XMLNS) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "CantBindXMLNS",
-                                               new Object[]{fAttributeQName},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "CantBindXMLNS",
+                                          new Object[]{fAttributeQName},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
 
                 // 2. the namespace for "xmlns" can't be bound to any prefix
                 if (uri == NamespaceContext.XMLNS_URI) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "CantBindXMLNS",
-                                               new Object[]{fAttributeQName},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "CantBindXMLNS",
+                                          new Object[]{fAttributeQName},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
 
                 // 3. "xml" can't be bound to any other namespace than it's own
                 if (localpart == XMLSymbols.PREFIX_XML) {
                     if (uri != NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "CantBindXML",
-                                                   new Object[]{fAttributeQName},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "CantBindXML",
+                                              new Object[]{fAttributeQName},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                 }
                 // 4. the namespace for "xml" can't be bound to any other prefix
                 else {
                     if (uri ==NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "CantBindXML",
-                                                   new Object[]{fAttributeQName},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "CantBindXML",
+                                              new Object[]{fAttributeQName},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                 }
 
@@ -592,10 +596,10 @@ extends XMLDocumentScannerImpl {
                 // We should only report an error if there is a prefix,
                 // that is, the local part is not "xmlns". -SG
                 if (uri == XMLSymbols.EMPTY_STRING && localpart != XMLSymbols.PREFIX_XMLNS) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "EmptyPrefixedAttName",
-                                               new Object[]{fAttributeQName},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "EmptyPrefixedAttName",
+                                          new Object[]{fAttributeQName},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
 
                 // declare prefix in context
@@ -671,10 +671,10 @@ public class XMLNamespaceBinder
         fNamespaceContext.pushContext();
 
         if (element.prefix == XMLSymbols.PREFIX_XMLNS) {
-            fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                       "ElementXMLNSPrefix",
-                                       new Object[]{element.rawname},
-                                       XMLErrorReporter.SEVERITY_FATAL_ERROR);
+            fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                  "ElementXMLNSPrefix",
+                                  new Object[]{element.rawname},
+                                  XMLErrorReporter.SEVERITY_FATAL_ERROR);
         }
         
         // search for new namespace bindings
@@ -692,36 +692,36 @@ public class XMLNamespaceBinder
 
                 // 1. "xmlns" can't be bound to any namespace
                 if (prefix == XMLSymbols.PREFIX_XMLNS && localpart == XMLSymbols.PREFIX_XMLNS) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "CantBindXMLNS",
-                                               new Object[]{attributes.getQName(i)},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "CantBindXMLNS",
+                                          new Object[]{attributes.getQName(i)},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
                 
                 // 2. the namespace for "xmlns" can't be bound to any prefix
                 if (uri == NamespaceContext.XMLNS_URI) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "CantBindXMLNS",
-                                               new Object[]{attributes.getQName(i)},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "CantBindXMLNS",
+                                          new Object[]{attributes.getQName(i)},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
                 
                 // 3. "xml" can't be bound to any other namespace than it's own
                 if (localpart == XMLSymbols.PREFIX_XML) {
                     if (uri != NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "CantBindXML",
-                                                   new Object[]{attributes.getQName(i)},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "CantBindXML",
+                                              new Object[]{attributes.getQName(i)},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                 }
                 // 4. the namespace for "xml" can't be bound to any other prefix
                 else {
                     if (uri ==NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "CantBindXML",
-                                                   new Object[]{attributes.getQName(i)},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "CantBindXML",
+                                              new Object[]{attributes.getQName(i)},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                 }
 
@@ -735,10 +735,10 @@ public class XMLNamespaceBinder
                 // making this test into a method call to reuse code
                 // should be acceptable.  - NG
                 if(prefixBoundToNullURI(uri, localpart)) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "EmptyPrefixedAttName",
-                                               new Object[]{attributes.getQName(i)},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "EmptyPrefixedAttName",
+                                          new Object[]{attributes.getQName(i)},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     continue;
                 }
 
@@ -756,10 +756,10 @@ public class XMLNamespaceBinder
             element.prefix = XMLSymbols.EMPTY_STRING;
         }
         if (element.prefix != null && element.uri == null) {
-            fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                       "ElementPrefixUnbound",
-                                       new Object[]{element.prefix, element.rawname},
-                                       XMLErrorReporter.SEVERITY_FATAL_ERROR);
+            fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                  "ElementPrefixUnbound",
+                                  new Object[]{element.prefix, element.rawname},
+                                  XMLErrorReporter.SEVERITY_FATAL_ERROR);
         }
 
         // bind the attributes
@@ -775,10 +775,10 @@ public class XMLNamespaceBinder
             else if (aprefix != XMLSymbols.EMPTY_STRING) {
                 fAttributeQName.uri = fNamespaceContext.getURI(aprefix);
                 if (fAttributeQName.uri == null) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "AttributePrefixUnbound",
-                                               new Object[]{element.rawname,arawname,aprefix},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "AttributePrefixUnbound",
+                                          new Object[]{element.rawname,arawname,aprefix},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
                 attributes.setName(i, fAttributeQName);
             }
@@ -797,10 +797,10 @@ public class XMLNamespaceBinder
                 String blocalpart = attributes.getLocalName(j);
                 String buri = attributes.getURI(j);
                 if (alocalpart == blocalpart && auri == buri) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "AttributeNSNotUnique",
-                                               new Object[]{element.rawname,alocalpart, auri},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "AttributeNSNotUnique",
+                                          new Object[]{element.rawname,alocalpart, auri},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
             }
         }
@@ -913,10 +913,10 @@ public abstract class XMLScanner
                                     //WFC & VC: Entity Declared
                                     if (checkEntities) {
                                         if (fValidation) {
-                                            fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                                       "EntityNotDeclared",
-                                                                       new Object[]{entityName},
-                                                                       XMLErrorReporter.SEVERITY_ERROR);
+                                            fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                                                  "EntityNotDeclared",
+                                                                  new Object[]{entityName},
+                                                                  XMLErrorReporter.SEVERITY_ERROR);
                                         }
                                     }
                                     else {
@@ -1488,9 +1488,9 @@ public abstract class XMLScanner
      */
     protected void reportFatalError(String msgId, Object[] args)
         throws XNIException {
-        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                   msgId, args,
-                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                              msgId, args,
+                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
     }
 
     // private methods
@@ -187,12 +187,12 @@ public class XMLVersionDetector {
         }
         // encoding errors
         catch (MalformedByteSequenceException e) {
-            fErrorReporter.reportError(e.getDomain(), e.getKey(), 
+            fErrorReporter.report(e.getDomain(), e.getKey(), 
                 e.getArguments(), XMLErrorReporter.SEVERITY_FATAL_ERROR, e);
             return Constants.XML_VERSION_ERROR;
         }
         catch (CharConversionException e) {
-            fErrorReporter.reportError(
+            fErrorReporter.report(
                     XMLMessageFormatter.XML_DOMAIN,
                     "CharConversionFailure",
                     null,
@@ -201,7 +201,7 @@ public class XMLVersionDetector {
         }
         // premature end of file
         catch (EOFException e) {
-            fErrorReporter.reportError(
+            fErrorReporter.report(
                 XMLMessageFormatter.XML_DOMAIN,
                 "PrematureEOF",
                 null,
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl.dtd;
+
+import org.apache.xerces.util.SymbolTable;
+import org.apache.xerces.util.XMLSymbols;
+
+/**
+ * The attribute declarations of an element declaration, compiled into
+ * the form the DTD validator needs for each start tag: the declarations
+ * in declaration order with their reported type names, the positions
+ * of the declarations which supply a default value or are required, and
+ * a hash table from attribute name to position.
+ * <p>
+ * A table is never modified once it has been created, so that it can
+ * be shared by all of the validators which use a grammar.
+ *
+ * @xerces.internal
+ *
+ * @version $Id$
+ */
+final class AttributeDeclTable {
+
+    //
+    // Data
+    //
+
+    /** The attribute declarations, in the order they were declared. */
+    final XMLAttributeDecl[] decls;
+
+    /**
+     * The type name of each attribute. The names of enumerated types
+     * are not symbols, since the table may be shared by parsers which
+     * use different symbol tables; see <code>getTypeName</code>.
+     */
+    private final String[] fTypeNames;
+
+    /** Whether the type of each attribute is an enumeration. */
+    private final boolean[] fEnumerated;
+
+    /** Whether each attribute was declared in an external entity. */
+    final boolean[] external;
+
+    /**
+     * Positions of the attributes which are required or have a default
+     * value, in the order they were declared.
+     */
+    final int[] defaulted;
+
+    /** Attribute names, hashed by open addressing with linear probing. */
+    private final String[] fNames;
+
+    /** Position of each attribute in the names table. */
+    private final int[] fPositions;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Compiles the attribute declarations of an element declaration.
+     *
+     * @param grammar the grammar which contains the element declaration
+     * @param elementDeclIndex the index of the element declaration
+     */
+    AttributeDeclTable(DTDGrammar grammar, int elementDeclIndex) {
+        int count = 0;
+        for (int i = grammar.getFirstAttributeDeclIndex(elementDeclIndex);
+             i != -1; i = grammar.getNextAttributeDeclIndex(i)) {
+            ++count;
+        }
+        decls = new XMLAttributeDecl[count];
+        fTypeNames = new String[count];
+        fEnumerated = new boolean[count];
+        external = new boolean[count];
+        int defaultedCount = 0;
+        int position = 0;
+        for (int i = grammar.getFirstAttributeDeclIndex(elementDeclIndex);
+             i != -1; i = grammar.getNextAttributeDeclIndex(i)) {
+            XMLAttributeDecl decl = new XMLAttributeDecl();
+            grammar.getAttributeDecl(i, decl);
+            decls[position] = decl;
+            fTypeNames[position] = getTypeName(decl);
+            fEnumerated[position] = decl.simpleType.type == XMLSimpleType.TYPE_ENUMERATION;
+            external[position] = grammar.getAttributeDeclIsExternal(i);
+            if (decl.simpleType.defaultType == XMLSimpleType.DEFAULT_TYPE_REQUIRED ||
+                decl.simpleType.defaultValue != null) {
+                ++defaultedCount;
+            }
+            ++position;
+        }
+        defaulted = new int[defaultedCount];
+        defaultedCount = 0;
+        for (int i = 0; i < count; ++i) {
+            if (decls[i].simpleType.defaultType == XMLSimpleType.DEFAULT_TYPE_REQUIRED ||
+                decls[i].simpleType.defaultValue != null) {
+                defaulted[defaultedCount++] = i;
+            }
+        }
+
+        // build the name table; the grammar ignores redeclared
+        // attributes so the names are unique
+        int size = 1;
+        while (size < count << 1) {
+            size <<= 1;
+        }
+        fNames = new String[size];
+        fPositions = new int[size];
+        final int mask = size - 1;
+        for (int i = 0; i < count; ++i) {
+            final String name = decls[i].name.rawname;
+            int slot = hash(name) & mask;
+            while (fNames[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            fNames[slot] = name;
+            fPositions[slot] = i;
+        }
+    } // <init>(DTDGrammar,int)
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the position of the declaration of the attribute with the
+     * given name, or -1 if the attribute is not declared. The name must
+     * be a symbol.
+     */
+    int indexOf(String rawname) {
+        if (rawname == null) {
+            return -1;
+        }
+        final String[] names = fNames;
+        final int mask = names.length - 1;
+        int slot = hash(rawname) & mask;
+        String name;
+        while ((name = names[slot]) != null) {
+            if (name == rawname) {
+                return fPositions[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    } // indexOf(String):int
+
+    /**
+     * Returns the type name of the attribute at the given position, as
+     * reported to the application. The name is a symbol of the given
+     * symbol table.
+     */
+    String getTypeName(int position, SymbolTable symbolTable) {
+        return fEnumerated[position] 
+            ? symbolTable.addSymbol(fTypeNames[position]) : fTypeNames[position];
+    } // getTypeName(int,SymbolTable):String
+
+    /**
+     * Returns the type name of an attribute declaration. Enumerated
+     * types are named by their values in parentheses, separated by
+     * vertical bars; their names are not symbols.
+     */
+    static String getTypeName(XMLAttributeDecl attrDecl) {
+
+        switch (attrDecl.simpleType.type) {
+        case XMLSimpleType.TYPE_ENTITY: {
+                return attrDecl.simpleType.list ? XMLSymbols.fENTITIESSymbol : XMLSymbols.fENTITYSymbol;
+            }
+        case XMLSimpleType.TYPE_ENUMERATION: {
+                StringBuffer buffer = new StringBuffer();
+                buffer.append('(');
+                for (int i=0; i<attrDecl.simpleType.enumeration.length ; i++) {
+                    if (i > 0) {
+                        buffer.append('|');
+                    }
+                    buffer.append(attrDecl.simpleType.enumeration[i]);
+                }
+                buffer.append(')');
+                return buffer.toString();
+            }
+        case XMLSimpleType.TYPE_ID: {
+                return XMLSymbols.fIDSymbol;
+            }
+        case XMLSimpleType.TYPE_IDREF: {
+                return attrDecl.simpleType.list ? XMLSymbols.fIDREFSSymbol : XMLSymbols.fIDREFSymbol;
+            }
+        case XMLSimpleType.TYPE_NMTOKEN: {
+                return attrDecl.simpleType.list ? XMLSymbols.fNMTOKENSSymbol : XMLSymbols.fNMTOKENSymbol;
+            }
+        case XMLSimpleType.TYPE_NOTATION: {
+                return XMLSymbols.fNOTATIONSymbol;
+            }
+        }
+        return XMLSymbols.fCDATASymbol;
+
+    } // getTypeName(XMLAttributeDecl):String
+
+    private static int hash(String name) {
+        final int code = name.hashCode();
+        return code ^ (code >>> 16);
+    } // hash(String):int
+
+} // class AttributeDeclTable
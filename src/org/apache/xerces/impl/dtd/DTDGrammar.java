@@ -50,6 +50,13 @@ import org.apache.xerces.xni.parser.XMLDTDSource;
  * A DTD grammar. This class implements the XNI handler interfaces
  * for DTD information so that it can build the appropriate validation
  * structures automatically from the callbacks.
+ * <p>
+ * Once the end of the DTD has been seen the grammar is locked and the
+ * state used to build it is released. The content models and attribute
+ * declarations of the elements of a locked grammar are compiled on first
+ * use and published as snapshots, so any number of validators may share
+ * it, for instance through a grammar pool, without synchronizing on the
+ * common path; parses which never validate never compile them.
  * 
  * @xerces.internal
  *
@@ -149,6 +156,19 @@ public class DTDGrammar
     /** Last attribute declaration of an element declaration. */
     private int fElementDeclLastAttributeDeclIndex[][] = new int[INITIAL_CHUNK_COUNT][];
 
+    /** 
+     * Compiled attribute declarations of each element declaration of
+     * a grammar which is still being built, created on first use.
+     */
+    private AttributeDeclTable fElementDeclAttributeDeclTable[];
+
+    /** 
+     * Compiled element declarations of a locked grammar, created on
+     * first use. The slots are read without synchronization and are
+     * written under the grammar's lock.
+     */
+    private CompiledElementDecl fCompiledElementDecl[][];
+
     // attribute declarations
 
     /** Number of attribute declarations. */
@@ -793,6 +813,10 @@ public class DTDGrammar
      */
     public void endDTD(Augmentations augs) throws XNIException {
         fIsImmutable = true;
+        fCompiledElementDecl = new CompiledElementDecl[(fElementDeclCount + CHUNK_MASK) >> CHUNK_SHIFT][];
+        for (int i = 0; i < fCompiledElementDecl.length; ++i) {
+            fCompiledElementDecl[i] = new CompiledElementDecl[CHUNK_SIZE];
+        }
         // make sure our description contains useful stuff...
         if (fGrammarDescription.getRootName() == null) {
             // we don't know what the root is; so use possibleRoots...
@@ -808,6 +832,7 @@ public class DTDGrammar
             }
             fGrammarDescription.setPossibleRoots(elements);
         }
+        releaseBuilderState();
     } // endDTD()
 
     // sets the source of this handler
@@ -1338,8 +1363,9 @@ public class DTDGrammar
      */
     public boolean isCDATAAttribute(QName elName, QName atName) {
         int elDeclIdx = getElementDeclIndex(elName);
-        if (getAttributeDecl(elDeclIdx, fAttributeDecl)
-            && fAttributeDecl.simpleType.type != XMLSimpleType.TYPE_CDATA){
+        XMLAttributeDecl attributeDecl = new XMLAttributeDecl();
+        if (getAttributeDecl(elDeclIdx, attributeDecl)
+            && attributeDecl.simpleType.type != XMLSimpleType.TYPE_CDATA){
             return false;
         }
         return true;
@@ -1692,15 +1718,32 @@ public class DTDGrammar
      */
     protected ContentModelValidator getElementContentModelValidator(int elementDeclIndex) {
 
+        if (fIsImmutable) {
+            return getCompiledElementDecl(elementDeclIndex).contentModel;
+        }
+
         int chunk = elementDeclIndex >> CHUNK_SHIFT;
         int index = elementDeclIndex & CHUNK_MASK;
 
         ContentModelValidator contentModel    =  fElementDeclContentModelValidator[chunk][index];
 
         // If we have one, just return that. Otherwise, gotta create one
-        if (contentModel != null) {
-            return contentModel;
+        if (contentModel == null) {
+            contentModel = buildContentModel(elementDeclIndex);
+            // Add the new model to the content model for this element
+            fElementDeclContentModelValidator[chunk][index] = contentModel;
         }
+        return contentModel;
+
+    } // getElementContentModelValidator(int):ContentModelValidator
+
+    /** Builds the content model of an element declaration. */
+    private ContentModelValidator buildContentModel(int elementDeclIndex) {
+
+        int chunk = elementDeclIndex >> CHUNK_SHIFT;
+        int index = elementDeclIndex & CHUNK_MASK;
+
+        ContentModelValidator contentModel;
 
         int contentType = fElementDeclType[chunk][index];
         if (contentType == XMLElementDecl.TYPE_SIMPLE) {
@@ -1743,12 +1786,9 @@ public class DTDGrammar
                                      + "in getElementContentModelValidator() in AbstractDTDGrammar class");
         }
 
-        // Add the new model to the content model for this element
-        fElementDeclContentModelValidator[chunk][index] = contentModel;
-
         return contentModel;
 
-    } // getElementContentModelValidator(int):ContentModelValidator
+    } // buildContentModel(int):ContentModelValidator
 
    protected int createElementDecl() {
       int chunk = fElementDeclCount >> CHUNK_SHIFT;
@@ -1869,6 +1909,8 @@ public class DTDGrammar
          }
          fElementDeclLastAttributeDeclIndex[elemChunk][elemIndex] = attributeDeclIndex;
       }
+      // the compiled attribute declarations are out of date
+      fElementDeclAttributeDeclTable = null;
    }
 
    protected int createContentSpec() {
@@ -2036,10 +2078,79 @@ public class DTDGrammar
         return fIsImmutable;
     }
 
+    /**
+     * Returns the compiled attribute declarations of an element
+     * declaration, compiling them on first use. The tables are
+     * shared by all users of the grammar.
+     *
+     * @param elementDeclIndex the index of the element declaration
+     */
+    AttributeDeclTable getAttributeDeclTable(int elementDeclIndex) {
+        if (fIsImmutable) {
+            return getCompiledElementDecl(elementDeclIndex).attributeDeclTable;
+        }
+        AttributeDeclTable[] tables = fElementDeclAttributeDeclTable;
+        if (tables == null || tables.length < fElementDeclCount) {
+            tables = new AttributeDeclTable[fElementDeclCount];
+            fElementDeclAttributeDeclTable = tables;
+        }
+        AttributeDeclTable table = tables[elementDeclIndex];
+        if (table == null) {
+            table = new AttributeDeclTable(this, elementDeclIndex);
+            tables[elementDeclIndex] = table;
+        }
+        return table;
+    } // getAttributeDeclTable(int):AttributeDeclTable
+
     //
     // Private methods
     //
 
+    /**
+     * Returns the compiled declaration of an element declaration of
+     * a locked grammar, compiling it on first use.
+     */
+    private CompiledElementDecl getCompiledElementDecl(int elementDeclIndex) {
+        CompiledElementDecl decl = 
+            fCompiledElementDecl[elementDeclIndex >> CHUNK_SHIFT][elementDeclIndex & CHUNK_MASK];
+        if (decl != null) {
+            return decl;
+        }
+        return compileElementDecl(elementDeclIndex);
+    } // getCompiledElementDecl(int):CompiledElementDecl
+
+    /**
+     * Compiles the content model and attribute declarations of an
+     * element declaration of a locked grammar and stores them in the
+     * element declaration's slot.
+     */
+    private synchronized CompiledElementDecl compileElementDecl(int elementDeclIndex) {
+        final int chunk = elementDeclIndex >> CHUNK_SHIFT;
+        final int index = elementDeclIndex & CHUNK_MASK;
+        CompiledElementDecl decl = fCompiledElementDecl[chunk][index];
+        if (decl == null) {
+            ContentModelValidator contentModel = fElementDeclContentModelValidator[chunk][index];
+            final int contentType = fElementDeclType[chunk][index];
+            if (contentModel == null && (contentType == XMLElementDecl.TYPE_CHILDREN || 
+                    contentType == XMLElementDecl.TYPE_MIXED)) {
+                contentModel = buildContentModel(elementDeclIndex);
+            }
+            decl = new CompiledElementDecl(contentModel, 
+                    new AttributeDeclTable(this, elementDeclIndex));
+            fCompiledElementDecl[chunk][index] = decl;
+        }
+        return decl;
+    } // compileElementDecl(int):CompiledElementDecl
+
+    /** Releases the state which is only needed to build the grammar. */
+    private void releaseBuilderState() {
+        fElementDeclTab.clear();
+        fOpStack = null;
+        fNodeIndexStack = null;
+        fPrevNodeIndexStack = null;
+        fDepth = 0;
+    } // releaseBuilderState()
+
     private void appendContentSpec(XMLContentSpec contentSpec, 
                                    StringBuffer str, boolean parens,
                                    int parentContentSpecType ) {
@@ -2602,6 +2713,26 @@ public class DTDGrammar
      *
      * @author Eric Ye, IBM
      */
+    /**
+     * The content model and attribute declarations of an element
+     * declaration of a locked grammar. Since the fields are final, a 
+     * thread which reads a holder from the shared table without 
+     * synchronization sees the objects it refers to fully built.
+     */
+    private static final class CompiledElementDecl {
+
+        final ContentModelValidator contentModel;
+
+        final AttributeDeclTable attributeDeclTable;
+
+        CompiledElementDecl(ContentModelValidator contentModel, 
+                AttributeDeclTable attributeDeclTable) {
+            this.contentModel = contentModel;
+            this.attributeDeclTable = attributeDeclTable;
+        }
+
+    } // class CompiledElementDecl
+
     private static class ChildrenList {
        
         //
@@ -70,7 +70,7 @@ public class XML11NSDTDValidator extends XML11DTDValidator {
         fNamespaceContext.pushContext();
 
         if (element.prefix == XMLSymbols.PREFIX_XMLNS) {
-            fErrorReporter.reportError(
+            fErrorReporter.report(
                 XMLMessageFormatter.XMLNS_DOMAIN,
                 "ElementXMLNSPrefix",
                 new Object[] { element.rawname },
@@ -92,7 +92,7 @@ public class XML11NSDTDValidator extends XML11DTDValidator {
 
                 // 1. "xmlns" can't be bound to any namespace
                 if (prefix == XMLSymbols.PREFIX_XMLNS && localpart == XMLSymbols.PREFIX_XMLNS) {
-                    fErrorReporter.reportError(
+                    fErrorReporter.report(
                         XMLMessageFormatter.XMLNS_DOMAIN,
                         "CantBindXMLNS",
                         new Object[] { attributes.getQName(i)},
@@ -101,7 +101,7 @@ public class XML11NSDTDValidator extends XML11DTDValidator {
 
                 // 2. the namespace for "xmlns" can't be bound to any prefix
                 if (uri == NamespaceContext.XMLNS_URI) {
-                    fErrorReporter.reportError(
+                    fErrorReporter.report(
                         XMLMessageFormatter.XMLNS_DOMAIN,
                         "CantBindXMLNS",
                         new Object[] { attributes.getQName(i)},
@@ -111,7 +111,7 @@ public class XML11NSDTDValidator extends XML11DTDValidator {
                 // 3. "xml" can't be bound to any other namespace than it's own
                 if (localpart == XMLSymbols.PREFIX_XML) {
                     if (uri != NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "CantBindXML",
                             new Object[] { attributes.getQName(i)},
@@ -121,7 +121,7 @@ public class XML11NSDTDValidator extends XML11DTDValidator {
                 // 4. the namespace for "xml" can't be bound to any other prefix
                 else {
                     if (uri == NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(
+                        fErrorReporter.report(
                             XMLMessageFormatter.XMLNS_DOMAIN,
                             "CantBindXML",
                             new Object[] { attributes.getQName(i)},
@@ -145,7 +145,7 @@ public class XML11NSDTDValidator extends XML11DTDValidator {
             element.prefix = XMLSymbols.EMPTY_STRING;
         }
         if (element.prefix != null && element.uri == null) {
-            fErrorReporter.reportError(
+            fErrorReporter.report(
                 XMLMessageFormatter.XMLNS_DOMAIN,
                 "ElementPrefixUnbound",
                 new Object[] { element.prefix, element.rawname },
@@ -163,7 +163,7 @@ public class XML11NSDTDValidator extends XML11DTDValidator {
             } else if (aprefix != XMLSymbols.EMPTY_STRING) {
                 fAttributeQName.uri = fNamespaceContext.getURI(aprefix);
                 if (fAttributeQName.uri == null) {
-                    fErrorReporter.reportError(
+                    fErrorReporter.report(
                         XMLMessageFormatter.XMLNS_DOMAIN,
                         "AttributePrefixUnbound",
                         new Object[] { element.rawname, arawname, aprefix },
@@ -186,7 +186,7 @@ public class XML11NSDTDValidator extends XML11DTDValidator {
                 String blocalpart = attributes.getLocalName(j);
                 String buri = attributes.getURI(j);
                 if (alocalpart == blocalpart && auri == buri) {
-                    fErrorReporter.reportError(
+                    fErrorReporter.report(
                         XMLMessageFormatter.XMLNS_DOMAIN,
                         "AttributeNSNotUnique",
                         new Object[] { element.rawname, alocalpart, auri },
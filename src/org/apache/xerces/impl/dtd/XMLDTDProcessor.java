@@ -575,9 +575,9 @@ public class XMLDTDProcessor
         if (entIndex > -1) {
             grammar.getEntityDecl(entIndex, tempEntityDecl);
             if (tempEntityDecl.inExternal) {
-                errorReporter.reportError( XMLMessageFormatter.XML_DOMAIN,
-                                            "MSG_REFERENCE_TO_EXTERNALLY_DECLARED_ENTITY_WHEN_STANDALONE",
-                                            new Object[]{name}, XMLErrorReporter.SEVERITY_ERROR);
+                errorReporter.report( XMLMessageFormatter.XML_DOMAIN,
+                                       "MSG_REFERENCE_TO_EXTERNALLY_DECLARED_ENTITY_WHEN_STANDALONE",
+                                       new Object[]{name}, XMLErrorReporter.SEVERITY_ERROR);
             }
         }
     }
@@ -783,10 +783,10 @@ public class XMLDTDProcessor
         //check VC: Unique Element Declaration
         if (fValidation) {
             if (fDTDElementDecls.contains(name)) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                           "MSG_ELEMENT_ALREADY_DECLARED",
-                                           new Object[]{ name},
-                                           XMLErrorReporter.SEVERITY_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                      "MSG_ELEMENT_ALREADY_DECLARED",
+                                      new Object[]{ name},
+                                      XMLErrorReporter.SEVERITY_ERROR);
             }
             else {
                 fDTDElementDecls.add(name);
@@ -871,7 +871,7 @@ public class XMLDTDProcessor
 
                     //this feature works only when validation is true.
                     if(fWarnDuplicateAttdef){
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                                                  "MSG_DUPLICATE_ATTRIBUTE_DEFINITION",
                                                  new Object[]{ elementName, attributeName },
                                                  XMLErrorReporter.SEVERITY_WARNING );
@@ -888,10 +888,10 @@ public class XMLDTDProcessor
                     if (defaultType == null || 
                         !(defaultType == XMLSymbols.fIMPLIEDSymbol ||
                           defaultType == XMLSymbols.fREQUIREDSymbol)) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                   "IDDefaultTypeInvalid",
-                                                   new Object[]{ attributeName},
-                                                   XMLErrorReporter.SEVERITY_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                              "IDDefaultTypeInvalid",
+                                              new Object[]{ attributeName},
+                                              XMLErrorReporter.SEVERITY_ERROR);
                     }
                 }
 
@@ -913,7 +913,7 @@ public class XMLDTDProcessor
 
                         if(!duplicateAttributeDef){
                                 String previousIDAttributeName = (String)fTableOfIDAttributeNames.get( elementName );//rule a)
-                                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                                                "MSG_MORE_THAN_ONE_ID_ATTRIBUTE",
                                                new Object[]{ elementName, previousIDAttributeName, attributeName},
                                                XMLErrorReporter.SEVERITY_ERROR);
@@ -946,7 +946,7 @@ public class XMLDTDProcessor
                         if(!duplicateAttributeDef){
                 
                                 String previousNOTATIONAttributeName = (String) fTableOfNOTATIONAttributeNames.get( elementName );
-                                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                                                "MSG_MORE_THAN_ONE_NOTATION_ATTRIBUTE",
                                                new Object[]{ elementName, previousNOTATIONAttributeName, attributeName},
                                                XMLErrorReporter.SEVERITY_ERROR);
@@ -964,7 +964,7 @@ public class XMLDTDProcessor
                                 // Only report the first uniqueness violation. There could be others,
                                 // but additional overhead would be incurred tracking unique tokens
                                 // that have already been encountered. -- mrglavas
-                                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                                                type == XMLSymbols.fENUMERATIONSymbol 
                                                    ? "MSG_DISTINCT_TOKENS_IN_ENUMERATION" 
                                                    : "MSG_DISTINCT_NOTATION_IN_ENUMERATION",
@@ -1042,10 +1042,10 @@ public class XMLDTDProcessor
 
                 }
                 if (!ok) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "MSG_ATT_DEFAULT_INVALID",
-                                               new Object[]{attributeName, value},
-                                               XMLErrorReporter.SEVERITY_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "MSG_ATT_DEFAULT_INVALID",
+                                          new Object[]{attributeName, value},
+                                          XMLErrorReporter.SEVERITY_ERROR);
                 }
             }
         }
@@ -1213,10 +1213,10 @@ public class XMLDTDProcessor
         if (fValidation) {
             DTDGrammar grammar = (fDTDGrammar != null ? fDTDGrammar : fGrammarBucket.getActiveGrammar());
             if (grammar.getNotationDeclIndex(name) != -1) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                           "UniqueNotationName",
-                                           new Object[]{name},
-                                           XMLErrorReporter.SEVERITY_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                      "UniqueNotationName",
+                                      new Object[]{name},
+                                      XMLErrorReporter.SEVERITY_ERROR);
             }
         }
         
@@ -1305,10 +1305,10 @@ public class XMLDTDProcessor
                 String notation = (String) entry.getValue();
                 if (grammar.getNotationDeclIndex(notation) == -1) {
                     String entity = (String) entry.getKey();
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "MSG_NOTATION_NOT_DECLARED_FOR_UNPARSED_ENTITYDECL",
-                                               new Object[]{entity, notation},
-                                               XMLErrorReporter.SEVERITY_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "MSG_NOTATION_NOT_DECLARED_FOR_UNPARSED_ENTITYDECL",
+                                          new Object[]{entity, notation},
+                                          XMLErrorReporter.SEVERITY_ERROR);
                 }
             }
 
@@ -1320,10 +1320,10 @@ public class XMLDTDProcessor
                 String notation = (String) entry.getKey();
                 if (grammar.getNotationDeclIndex(notation) == -1) {
                     String attributeName = (String) entry.getValue();
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "MSG_NOTATION_NOT_DECLARED_FOR_NOTATIONTYPE_ATTRIBUTE",
-                                               new Object[]{attributeName, notation},
-                                               XMLErrorReporter.SEVERITY_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "MSG_NOTATION_NOT_DECLARED_FOR_NOTATIONTYPE_ATTRIBUTE",
+                                          new Object[]{attributeName, notation},
+                                          XMLErrorReporter.SEVERITY_ERROR);
                 }
             }
             
@@ -1336,10 +1336,10 @@ public class XMLDTDProcessor
                 int elementIndex = grammar.getElementDeclIndex(elementName);
                 if (grammar.getContentSpecType(elementIndex) == XMLElementDecl.TYPE_EMPTY) {
                     String attributeName = (String) entry.getValue();
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "NoNotationOnEmptyElement",
-                                               new Object[]{elementName, attributeName},
-                                               XMLErrorReporter.SEVERITY_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "NoNotationOnEmptyElement",
+                                          new Object[]{elementName, attributeName},
+                                          XMLErrorReporter.SEVERITY_ERROR);
                 }
             }
             
@@ -1512,10 +1512,10 @@ public class XMLDTDProcessor
         // check VC: No duplicate Types, in a single mixed-content declaration
         if (fMixed && fValidation) {
             if (fMixedElementTypes.contains(elementName)) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                           "DuplicateTypeInMixedContent",
-                                           new Object[]{fDTDElementDeclName, elementName},
-                                           XMLErrorReporter.SEVERITY_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                      "DuplicateTypeInMixedContent",
+                                      new Object[]{fDTDElementDeclName, elementName},
+                                      XMLErrorReporter.SEVERITY_ERROR);
             }
             else {
                 fMixedElementTypes.add(elementName);
@@ -1708,7 +1708,7 @@ public class XMLDTDProcessor
         if (contentSpec.type == XMLContentSpec.CONTENTSPECNODE_LEAF) {
             String value = (String) contentSpec.value;
             if (value != null && grammar.getElementDeclIndex(value) == -1) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                         "UndeclaredElementInContentSpec",
                         new Object[]{grammar.getElementDeclName(elementIndex).rawname, value},
                         XMLErrorReporter.SEVERITY_WARNING);
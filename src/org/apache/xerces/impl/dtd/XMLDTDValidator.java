@@ -336,8 +336,14 @@ public class XMLDTDValidator
     /** Temporary element declaration. */
     private final XMLElementDecl fTempElementDecl = new XMLElementDecl();
 
-    /** Temporary atribute declaration. */
-    private final XMLAttributeDecl fTempAttDecl = new XMLAttributeDecl();
+    /** Declaration position of each attribute of the current element. */
+    private int[] fAttributeDeclPositions = new int[8];
+
+    /** Stamps of the attribute declarations specified on the current element. */
+    private int[] fSpecifiedStamps = new int[8];
+
+    /** Current stamp for attribute declarations which are specified. */
+    private int fSpecifiedStamp = 0;
 
     /** Temporary entity declaration. */
     private final XMLEntityDecl fEntityDecl = new XMLEntityDecl();
@@ -857,9 +863,9 @@ public class XMLDTDValidator
                 if (fGrammarBucket.getStandalone() &&
                     fDTDGrammar.getElementDeclIsExternal(fCurrentElementIndex)) {
                     if (allWhiteSpace) {
-                        fErrorReporter.reportError( XMLMessageFormatter.XML_DOMAIN,
-                                                    "MSG_WHITE_SPACE_IN_ELEMENT_CONTENT_WHEN_STANDALONE",
-                                                    null, XMLErrorReporter.SEVERITY_ERROR);
+                        fErrorReporter.report( XMLMessageFormatter.XML_DOMAIN,
+                                               "MSG_WHITE_SPACE_IN_ELEMENT_CONTENT_WHEN_STANDALONE",
+                                               null, XMLErrorReporter.SEVERITY_ERROR);
                     }
                 }
                 if (!allWhiteSpace) {
@@ -868,12 +874,12 @@ public class XMLDTDValidator
                 
                 // For E15.2
                 if (augs != null && augs.getItem(Constants.CHAR_REF_PROBABLE_WS) == Boolean.TRUE) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN, 
-                                               "MSG_CONTENT_INVALID_SPECIFIED",
-                                               new Object[]{ fCurrentElement.rawname, 
-                                                   fDTDGrammar.getContentSpecAsString(fElementDepth),
-                                                   "character reference"},
-                                               XMLErrorReporter.SEVERITY_ERROR);                
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN, 
+                                          "MSG_CONTENT_INVALID_SPECIFIED",
+                                          new Object[]{ fCurrentElement.rawname, 
+                                              fDTDGrammar.getContentSpecAsString(fElementDepth),
+                                              "character reference"},
+                                          XMLErrorReporter.SEVERITY_ERROR);                
                 }
             }
 
@@ -990,12 +996,12 @@ public class XMLDTDValidator
         if (fPerformValidation && fElementDepth >= 0 && fDTDGrammar != null) {
             fDTDGrammar.getElementDecl(fCurrentElementIndex, fTempElementDecl);
             if (fTempElementDecl.type == XMLElementDecl.TYPE_EMPTY) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN, 
-                                               "MSG_CONTENT_INVALID_SPECIFIED",
-                                               new Object[]{ fCurrentElement.rawname,
-                                                             "EMPTY",
-                                                             "comment"},
-                                               XMLErrorReporter.SEVERITY_ERROR);                
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN, 
+                                          "MSG_CONTENT_INVALID_SPECIFIED",
+                                          new Object[]{ fCurrentElement.rawname,
+                                                        "EMPTY",
+                                                        "comment"},
+                                          XMLErrorReporter.SEVERITY_ERROR);                
             }
         }
         // call handlers
@@ -1030,12 +1036,12 @@ public class XMLDTDValidator
         if (fPerformValidation && fElementDepth >= 0 && fDTDGrammar != null) {
             fDTDGrammar.getElementDecl(fCurrentElementIndex, fTempElementDecl);
             if (fTempElementDecl.type == XMLElementDecl.TYPE_EMPTY) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN, 
-                                               "MSG_CONTENT_INVALID_SPECIFIED",
-                                               new Object[]{ fCurrentElement.rawname,
-                                                             "EMPTY",
-                                                             "processing instruction"},
-                                               XMLErrorReporter.SEVERITY_ERROR);                
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN, 
+                                          "MSG_CONTENT_INVALID_SPECIFIED",
+                                          new Object[]{ fCurrentElement.rawname,
+                                                        "EMPTY",
+                                                        "processing instruction"},
+                                          XMLErrorReporter.SEVERITY_ERROR);                
             }
         }
         // call handlers
@@ -1069,11 +1075,11 @@ public class XMLDTDValidator
             fDTDGrammar.getElementDecl(fCurrentElementIndex, fTempElementDecl);
             // fixes E15.1
             if (fTempElementDecl.type == XMLElementDecl.TYPE_EMPTY) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN, 
-                                           "MSG_CONTENT_INVALID_SPECIFIED",
-                                           new Object[]{ fCurrentElement.rawname,
-                                                         "EMPTY", "ENTITY"},
-                                           XMLErrorReporter.SEVERITY_ERROR);                
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN, 
+                                      "MSG_CONTENT_INVALID_SPECIFIED",
+                                      new Object[]{ fCurrentElement.rawname,
+                                                    "EMPTY", "ENTITY"},
+                                      XMLErrorReporter.SEVERITY_ERROR);                
             }
             if (fGrammarBucket.getStandalone()) {
                 XMLDTDLoader.checkStandaloneEntityRef(name, fDTDGrammar, fEntityDecl, fErrorReporter);
@@ -1161,104 +1167,105 @@ public class XMLDTDValidator
             return;
         }
 
+        AttributeDeclTable attDecls = fDTDGrammar.getAttributeDeclTable(elementIndex);
+
+        // find the declarations of the specified attrs
+        int attrCount = attributes.getLength();
+        int[] declPositions = ensureAttributeDeclCapacity(attrCount, attDecls.decls.length);
+        final int[] specifiedStamps = fSpecifiedStamps;
+        if (++fSpecifiedStamp < 0) {
+            for (int i = specifiedStamps.length - 1; i >= 0; --i) {
+                specifiedStamps[i] = 0;
+            }
+            fSpecifiedStamp = 1;
+        }
+        final int specifiedStamp = fSpecifiedStamp;
+        for (int i = 0; i < attrCount; i++) {
+            int position = attDecls.indexOf(attributes.getQName(i));
+            declPositions[i] = position;
+            if (position != -1) {
+                specifiedStamps[position] = specifiedStamp;
+            }
+        }
+
         //
         // Check after all specified attrs are scanned
         // (1) report error for REQUIRED attrs that are missing (V_TAGc)
         // (2) add default attrs (FIXED and NOT_FIXED)
         //
-        int attlistIndex = fDTDGrammar.getFirstAttributeDeclIndex(elementIndex);
+        final int[] defaulted = attDecls.defaulted;
+        for (int d = 0; d < defaulted.length; d++) {
 
-        while (attlistIndex != -1) {
-
-            fDTDGrammar.getAttributeDecl(attlistIndex, fTempAttDecl);
+            final int position = defaulted[d];
+            if (specifiedStamps[position] == specifiedStamp) {
+                continue;
+            }
+            final XMLAttributeDecl attDecl = attDecls.decls[position];
 
             if (DEBUG_ATTRIBUTES) {
-                if (fTempAttDecl != null) {
-                    XMLElementDecl elementDecl = new XMLElementDecl();
-                    fDTDGrammar.getElementDecl(elementIndex, elementDecl);
-                    System.out.println("element: "+(elementDecl.name.localpart));
-                    System.out.println("attlistIndex " + attlistIndex + "\n"+
-                                       "attName : '"+(fTempAttDecl.name.localpart) + "'\n"
-                                       + "attType : "+fTempAttDecl.simpleType.type + "\n"
-                                       + "attDefaultType : "+fTempAttDecl.simpleType.defaultType + "\n"
-                                       + "attDefaultValue : '"+fTempAttDecl.simpleType.defaultValue + "'\n"
-                                       + attributes.getLength() +"\n"
-                                      );
-                }
-            }
-            String attPrefix = fTempAttDecl.name.prefix;
-            String attLocalpart = fTempAttDecl.name.localpart;
-            String attRawName = fTempAttDecl.name.rawname;
-            String attType = getAttributeTypeName(fTempAttDecl);
-            int attDefaultType =fTempAttDecl.simpleType.defaultType;
-            String attValue = null;
-                            
-            if (fTempAttDecl.simpleType.defaultValue != null) {
-                attValue = fTempAttDecl.simpleType.defaultValue;
+                XMLElementDecl elementDecl = new XMLElementDecl();
+                fDTDGrammar.getElementDecl(elementIndex, elementDecl);
+                System.out.println("element: "+(elementDecl.name.localpart));
+                System.out.println("attribute " + position + "\n"+
+                                   "attName : '"+(attDecl.name.localpart) + "'\n"
+                                   + "attType : "+attDecl.simpleType.type + "\n"
+                                   + "attDefaultType : "+attDecl.simpleType.defaultType + "\n"
+                                   + "attDefaultValue : '"+attDecl.simpleType.defaultValue + "'\n"
+                                   + attributes.getLength() +"\n"
+                                  );
             }
-            
-            boolean specified = false;
-            boolean required = attDefaultType == XMLSimpleType.DEFAULT_TYPE_REQUIRED;
-            boolean cdata = attType == XMLSymbols.fCDATASymbol;
-
-            if (!cdata || required || attValue != null) {
-                int attrCount = attributes.getLength();
-                for (int i = 0; i < attrCount; i++) {
-                    if (attributes.getQName(i) == attRawName) {
-                        specified = true;
-                        break;
-                    }
+            String attPrefix = attDecl.name.prefix;
+            String attLocalpart = attDecl.name.localpart;
+            String attRawName = attDecl.name.rawname;
+            String attValue = attDecl.simpleType.defaultValue;
+
+            if (attDecl.simpleType.defaultType == XMLSimpleType.DEFAULT_TYPE_REQUIRED) {
+                if (fPerformValidation) {
+                    Object[] args = {elementName.localpart, attRawName};
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "MSG_REQUIRED_ATTRIBUTE_NOT_SPECIFIED", args,
+                                          XMLErrorReporter.SEVERITY_ERROR);
                 }
             }
+            else {
+                if (fPerformValidation && fGrammarBucket.getStandalone()) {
+                    if (attDecls.external[position]) {
 
-            if (!specified) {
-                if (required) {
-                    if (fPerformValidation) {
-                        Object[] args = {elementName.localpart, attRawName};
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                   "MSG_REQUIRED_ATTRIBUTE_NOT_SPECIFIED", args,
-                                                   XMLErrorReporter.SEVERITY_ERROR);
+                        Object[] args = { elementName.localpart, attRawName};
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                              "MSG_DEFAULTED_ATTRIBUTE_NOT_SPECIFIED", args,
+                                              XMLErrorReporter.SEVERITY_ERROR);
                     }
                 }
-                else if (attValue != null) {
-                    if (fPerformValidation && fGrammarBucket.getStandalone()) {
-                        if (fDTDGrammar.getAttributeDeclIsExternal(attlistIndex)) {
-
-                            Object[] args = { elementName.localpart, attRawName};
-                            fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                       "MSG_DEFAULTED_ATTRIBUTE_NOT_SPECIFIED", args,
-                                                       XMLErrorReporter.SEVERITY_ERROR);
-                        }
-                    }
 
-                    // add namespace information
-                    if (fNamespaces) {
-                        int index = attRawName.indexOf(':');
-                        if (index != -1) {
-                            attPrefix = attRawName.substring(0, index);
-                            attPrefix = fSymbolTable.addSymbol(attPrefix);
-                            attLocalpart = attRawName.substring(index + 1);
-                            attLocalpart = fSymbolTable.addSymbol(attLocalpart);
-                        }
+                // add namespace information
+                if (fNamespaces) {
+                    int index = attRawName.indexOf(':');
+                    if (index != -1) {
+                        attPrefix = attRawName.substring(0, index);
+                        attPrefix = fSymbolTable.addSymbol(attPrefix);
+                        attLocalpart = attRawName.substring(index + 1);
+                        attLocalpart = fSymbolTable.addSymbol(attLocalpart);
                     }
+                }
 
-                    // add attribute
-                    fTempQName.setValues(attPrefix, attLocalpart, attRawName, fTempAttDecl.name.uri);
-                    int newAttr = attributes.addAttribute(fTempQName, attType, attValue);
+                // add attribute
+                fTempQName.setValues(attPrefix, attLocalpart, attRawName, attDecl.name.uri);
+                int newAttr = attributes.addAttribute(fTempQName, attDecls.getTypeName(position, fSymbolTable), attValue);
+                if (newAttr >= attrCount) {
+                    declPositions = ensureAttributeDeclCapacity(newAttr + 1, 0);
+                    attrCount = newAttr + 1;
                 }
+                declPositions[newAttr] = position;
             }
-            // get next att decl in the Grammar for this element
-            attlistIndex = fDTDGrammar.getNextAttributeDeclIndex(attlistIndex);
         }
 
         // now iterate through the expanded attributes for
         // 1. if every attribute seen is declared in the DTD
         // 2. check if the VC: default_fixed holds
         // 3. validate every attribute.
-        int attrCount = attributes.getLength();
         for (int i = 0; i < attrCount; i++) {
             String attrRawName = attributes.getQName(i);
-            boolean declared = false;
             if (fPerformValidation) {
                 if (fGrammarBucket.getStandalone()) {
                     // check VC: Standalone Document Declaration, entities
@@ -1270,46 +1277,31 @@ public class XMLDTDValidator
                     if (nonNormalizedValue != null) {
                         String entityName = getExternalEntityRefInAttrValue(nonNormalizedValue);
                         if (entityName != null) {
-                            fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                       "MSG_REFERENCE_TO_EXTERNALLY_DECLARED_ENTITY_WHEN_STANDALONE",
-                                                       new Object[]{entityName},
-                                                       XMLErrorReporter.SEVERITY_ERROR);
+                            fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                                  "MSG_REFERENCE_TO_EXTERNALLY_DECLARED_ENTITY_WHEN_STANDALONE",
+                                                  new Object[]{entityName},
+                                                  XMLErrorReporter.SEVERITY_ERROR);
                         }
                     }
                 }
             }
-            int attDefIndex = -1;
-            int position =
-            fDTDGrammar.getFirstAttributeDeclIndex(elementIndex);
-            while (position != -1) {
-                fDTDGrammar.getAttributeDecl(position, fTempAttDecl);
-                if (fTempAttDecl.name.rawname == attrRawName) {
-                    // found the match att decl, 
-                    attDefIndex = position;
-                    declared = true;
-                    break;
-                }
-                position = fDTDGrammar.getNextAttributeDeclIndex(position);
-            }
-            if (!declared) {
+            final int position = declPositions[i];
+            if (position == -1) {
                 if (fPerformValidation) {
                     // REVISIT - cache the elem/attr tuple so that we only
                     // give this error once for each unique occurrence
                     Object[] args = { elementName.rawname, attrRawName};
 
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "MSG_ATTRIBUTE_NOT_DECLARED",
-                                               args,XMLErrorReporter.SEVERITY_ERROR);   
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "MSG_ATTRIBUTE_NOT_DECLARED",
+                                          args,XMLErrorReporter.SEVERITY_ERROR);   
                 }
                 continue;
             }
             // attribute is declared
+            final XMLAttributeDecl attDecl = attDecls.decls[position];
 
-            // fTempAttDecl should have the right value set now, so
-            // the following is not needed
-            // fGrammar.getAttributeDecl(attDefIndex,fTempAttDecl);
-
-            String type = getAttributeTypeName(fTempAttDecl);
+            String type = attDecls.getTypeName(position, fSymbolTable);
             attributes.setType(i, type);
             attributes.getAugmentations(i).putItem(Constants.ATTRIBUTE_DECLARED, Boolean.TRUE);
 
@@ -1321,46 +1313,66 @@ public class XMLDTDValidator
                 attrValue = attributes.getValue(i);
                 if (fPerformValidation && fGrammarBucket.getStandalone()
                     && changedByNormalization 
-                    && fDTDGrammar.getAttributeDeclIsExternal(position)
+                    && attDecls.external[position]
                    ) {
                     // check VC: Standalone Document Declaration
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "MSG_ATTVALUE_CHANGED_DURING_NORMALIZATION_WHEN_STANDALONE",
-                                               new Object[]{attrRawName, oldValue, attrValue},
-                                               XMLErrorReporter.SEVERITY_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "MSG_ATTVALUE_CHANGED_DURING_NORMALIZATION_WHEN_STANDALONE",
+                                          new Object[]{attrRawName, oldValue, attrValue},
+                                          XMLErrorReporter.SEVERITY_ERROR);
                 }
             }
             if (!fPerformValidation) {
                 continue;
             }
-            if (fTempAttDecl.simpleType.defaultType ==
+            if (attDecl.simpleType.defaultType ==
                 XMLSimpleType.DEFAULT_TYPE_FIXED) {
-                String defaultValue = fTempAttDecl.simpleType.defaultValue;
+                String defaultValue = attDecl.simpleType.defaultValue;
 
                 if (!attrValue.equals(defaultValue)) {
                     Object[] args = {elementName.localpart,
                         attrRawName,
                         attrValue,
                         defaultValue};
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               "MSG_FIXED_ATTVALUE_INVALID",
-                                               args, XMLErrorReporter.SEVERITY_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          "MSG_FIXED_ATTVALUE_INVALID",
+                                          args, XMLErrorReporter.SEVERITY_ERROR);
                 }
             }
 
-            if (fTempAttDecl.simpleType.type == XMLSimpleType.TYPE_ENTITY ||
-                fTempAttDecl.simpleType.type == XMLSimpleType.TYPE_ENUMERATION ||
-                fTempAttDecl.simpleType.type == XMLSimpleType.TYPE_ID ||
-                fTempAttDecl.simpleType.type == XMLSimpleType.TYPE_IDREF ||
-                fTempAttDecl.simpleType.type == XMLSimpleType.TYPE_NMTOKEN ||
-                fTempAttDecl.simpleType.type == XMLSimpleType.TYPE_NOTATION
+            if (attDecl.simpleType.type == XMLSimpleType.TYPE_ENTITY ||
+                attDecl.simpleType.type == XMLSimpleType.TYPE_ENUMERATION ||
+                attDecl.simpleType.type == XMLSimpleType.TYPE_ID ||
+                attDecl.simpleType.type == XMLSimpleType.TYPE_IDREF ||
+                attDecl.simpleType.type == XMLSimpleType.TYPE_NMTOKEN ||
+                attDecl.simpleType.type == XMLSimpleType.TYPE_NOTATION
                ) {
-                validateDTDattribute(elementName, attrValue, fTempAttDecl);
+                validateDTDattribute(elementName, attrValue, attDecl);
             }
         } // for all attributes
 
     } // addDTDDefaultAttrsAndValidate(int,XMLAttrList)
 
+    /**
+     * Makes sure there is room to record the declarations of the given
+     * number of attributes and to mark the given number of attribute
+     * declarations as specified.
+     * 
+     * @return the array of attribute declaration positions
+     */
+    private int[] ensureAttributeDeclCapacity(int attrCount, int declCount) {
+        if (fAttributeDeclPositions.length < attrCount) {
+            int[] positions = new int[Math.max(attrCount, fAttributeDeclPositions.length << 1)];
+            System.arraycopy(fAttributeDeclPositions, 0, positions, 0, fAttributeDeclPositions.length);
+            fAttributeDeclPositions = positions;
+        }
+        if (fSpecifiedStamps.length < declCount) {
+            fSpecifiedStamps = new int[Math.max(declCount, fSpecifiedStamps.length << 1)];
+            fSpecifiedStamp = 0;
+        }
+        return fAttributeDeclPositions;
+    } // ensureAttributeDeclCapacity(int,int):int[]
+
     /** Checks entities in attribute values for standalone VC. */
     protected String getExternalEntityRefInAttrValue(String nonNormalizedValue) {
         int valLength = nonNormalizedValue.length();
@@ -1406,10 +1418,10 @@ public class XMLDTDValidator
                     }
                 }
                 catch (InvalidDatatypeValueException ex) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               ex.getKey(),
-                                               ex.getArgs(),
-                                               XMLErrorReporter.SEVERITY_ERROR );
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          ex.getKey(),
+                                          ex.getArgs(),
+                                          XMLErrorReporter.SEVERITY_ERROR );
 
                 }
                 break;
@@ -1436,10 +1448,10 @@ public class XMLDTDValidator
                         for (int i = 0; i < enumVals.length; i++) {
                             enumValueString.append(enumVals[i]+" ");
                         }
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN, 
-                                               "MSG_ATTRIBUTE_VALUE_NOT_IN_LIST",
-                                               new Object[]{attributeDecl.name.rawname, attValue, enumValueString},
-                                               XMLErrorReporter.SEVERITY_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN, 
+                                          "MSG_ATTRIBUTE_VALUE_NOT_IN_LIST",
+                                          new Object[]{attributeDecl.name.rawname, attValue, enumValueString},
+                                          XMLErrorReporter.SEVERITY_ERROR);
                 }
                 break;
             }
@@ -1449,10 +1461,10 @@ public class XMLDTDValidator
                     fValID.validate(attValue, fValidationState);
                 }
                 catch (InvalidDatatypeValueException ex) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                               ex.getKey(),
-                                               ex.getArgs(),
-                                               XMLErrorReporter.SEVERITY_ERROR );
+                    fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                          ex.getKey(),
+                                          ex.getArgs(),
+                                          XMLErrorReporter.SEVERITY_ERROR );
                 }
                 break;
             }
@@ -1470,16 +1482,16 @@ public class XMLDTDValidator
                 }
                 catch (InvalidDatatypeValueException ex) {
                     if (isAlistAttribute) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                   "IDREFSInvalid",
-                                                   new Object[]{attValue},
-                                                   XMLErrorReporter.SEVERITY_ERROR );
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                              "IDREFSInvalid",
+                                              new Object[]{attValue},
+                                              XMLErrorReporter.SEVERITY_ERROR );
                     }
                     else {
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                   ex.getKey(),
-                                                   ex.getArgs(),
-                                                   XMLErrorReporter.SEVERITY_ERROR );
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                              ex.getKey(),
+                                              ex.getArgs(),
+                                              XMLErrorReporter.SEVERITY_ERROR );
                     }
 
                 }
@@ -1499,16 +1511,16 @@ public class XMLDTDValidator
                 }
                 catch (InvalidDatatypeValueException ex) {
                     if (isAlistAttribute) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                   "NMTOKENSInvalid",
-                                                   new Object[] { attValue},
-                                                   XMLErrorReporter.SEVERITY_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                              "NMTOKENSInvalid",
+                                              new Object[] { attValue},
+                                              XMLErrorReporter.SEVERITY_ERROR);
                     }
                     else {
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                   "NMTOKENInvalid",
-                                                   new Object[] { attValue},
-                                                   XMLErrorReporter.SEVERITY_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                              "NMTOKENInvalid",
+                                              new Object[] { attValue},
+                                              XMLErrorReporter.SEVERITY_ERROR);
                     }
                 }
                 break;
@@ -1643,10 +1655,10 @@ public class XMLDTDValidator
             String root1 = fRootElement.rawname;
             String root2 = rootElement.rawname;
             if (root1 == null || !root1.equals(root2)) {
-                fErrorReporter.reportError( XMLMessageFormatter.XML_DOMAIN, 
-                                            "RootElementTypeMustMatchDoctypedecl", 
-                                            new Object[]{root1, root2}, 
-                                            XMLErrorReporter.SEVERITY_ERROR);
+                fErrorReporter.report( XMLMessageFormatter.XML_DOMAIN, 
+                                       "RootElementTypeMustMatchDoctypedecl", 
+                                       new Object[]{root1, root2}, 
+                                       XMLErrorReporter.SEVERITY_ERROR);
             }
         }
     } // rootElementSpecified(QName)
@@ -1792,42 +1804,6 @@ public class XMLDTDValidator
 
     } // charDataInCount()
 
-    /** convert attribute type from ints to strings */
-    private String getAttributeTypeName(XMLAttributeDecl attrDecl) {
-
-        switch (attrDecl.simpleType.type) {
-        case XMLSimpleType.TYPE_ENTITY: {
-                return attrDecl.simpleType.list ? XMLSymbols.fENTITIESSymbol : XMLSymbols.fENTITYSymbol;
-            }
-        case XMLSimpleType.TYPE_ENUMERATION: {
-                StringBuffer buffer = new StringBuffer();
-                buffer.append('(');
-                for (int i=0; i<attrDecl.simpleType.enumeration.length ; i++) {
-                    if (i > 0) {
-                        buffer.append('|');
-                    }
-                    buffer.append(attrDecl.simpleType.enumeration[i]);
-                }
-                buffer.append(')');
-                return fSymbolTable.addSymbol(buffer.toString());
-            }
-        case XMLSimpleType.TYPE_ID: {
-                return XMLSymbols.fIDSymbol;
-            }
-        case XMLSimpleType.TYPE_IDREF: {
-                return attrDecl.simpleType.list ? XMLSymbols.fIDREFSSymbol : XMLSymbols.fIDREFSymbol;
-            }
-        case XMLSimpleType.TYPE_NMTOKEN: {
-                return attrDecl.simpleType.list ? XMLSymbols.fNMTOKENSSymbol : XMLSymbols.fNMTOKENSymbol;
-            }
-        case XMLSimpleType.TYPE_NOTATION: {
-                return XMLSymbols.fNOTATIONSymbol;
-            }
-        }
-        return XMLSymbols.fCDATASymbol;
-
-    } // getAttributeTypeName(XMLAttributeDecl):String
-
     /** initialization */
     protected void init() {
 
@@ -1931,10 +1907,10 @@ public class XMLDTDValidator
                 fInElementContent = false;
             }
             if (fPerformValidation) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN, 
-                                           "MSG_GRAMMAR_NOT_FOUND",
-                                           new Object[]{ element.rawname},
-                                           XMLErrorReporter.SEVERITY_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN, 
+                                      "MSG_GRAMMAR_NOT_FOUND",
+                                      new Object[]{ element.rawname},
+                                      XMLErrorReporter.SEVERITY_ERROR);
             }
             // modify pipeline
             if (fDocumentSource !=null ) {
@@ -1950,10 +1926,10 @@ public class XMLDTDValidator
             //changed here.. new function for getContentSpecType
             fCurrentContentSpecType = fDTDGrammar.getContentSpecType(fCurrentElementIndex);
             if (fCurrentContentSpecType == -1 && fPerformValidation) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN, 
-                                           "MSG_ELEMENT_NOT_DECLARED",
-                                           new Object[]{ element.rawname},
-                                           XMLErrorReporter.SEVERITY_ERROR);
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN, 
+                                      "MSG_ELEMENT_NOT_DECLARED",
+                                      new Object[]{ element.rawname},
+                                      XMLErrorReporter.SEVERITY_ERROR);
             }
             
             //  0. insert default attributes
@@ -2030,19 +2006,19 @@ public class XMLDTDValidator
                 if (result != -1) {
                     fDTDGrammar.getElementDecl(elementIndex, fTempElementDecl);
                     if (fTempElementDecl.type == XMLElementDecl.TYPE_EMPTY) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN, 
-                                                   "MSG_CONTENT_INVALID",
-                                                   new Object[]{ element.rawname, "EMPTY"},
-                                                   XMLErrorReporter.SEVERITY_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN, 
+                                              "MSG_CONTENT_INVALID",
+                                              new Object[]{ element.rawname, "EMPTY"},
+                                              XMLErrorReporter.SEVERITY_ERROR);
                     }
                     else {
                         String messageKey = result != childrenLength ? 
                                             "MSG_CONTENT_INVALID" : "MSG_CONTENT_INCOMPLETE";
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN, 
-                                                   messageKey,
-                                                   new Object[]{ element.rawname, 
-                                                       fDTDGrammar.getContentSpecAsString(elementIndex)},
-                                                   XMLErrorReporter.SEVERITY_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN, 
+                                              messageKey,
+                                              new Object[]{ element.rawname, 
+                                                  fDTDGrammar.getContentSpecAsString(elementIndex)},
+                                              XMLErrorReporter.SEVERITY_ERROR);
                     }
                 }
             }
@@ -2071,7 +2047,7 @@ public class XMLDTDValidator
                 Iterator invIdRefs = fValidationState.checkIDRefID();
                 if (invIdRefs != null) {
                     while (invIdRefs.hasNext()) {
-                        fErrorReporter.reportError( XMLMessageFormatter.XML_DOMAIN,
+                        fErrorReporter.report( XMLMessageFormatter.XML_DOMAIN,
                                 "MSG_ELEMENT_WITH_ID_REQUIRED",
                                 new Object[]{invIdRefs.next()},
                                 XMLErrorReporter.SEVERITY_ERROR );
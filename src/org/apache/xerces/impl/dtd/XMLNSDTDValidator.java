@@ -71,10 +71,10 @@ public class XMLNSDTDValidator
         fNamespaceContext.pushContext();
 
         if (element.prefix == XMLSymbols.PREFIX_XMLNS) {
-            fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                       "ElementXMLNSPrefix",
-                                       new Object[]{element.rawname},
-                                       XMLErrorReporter.SEVERITY_FATAL_ERROR);
+            fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                  "ElementXMLNSPrefix",
+                                  new Object[]{element.rawname},
+                                  XMLErrorReporter.SEVERITY_FATAL_ERROR);
         }
         
         // search for new namespace bindings
@@ -92,36 +92,36 @@ public class XMLNSDTDValidator
 
                 // 1. "xmlns" can't be bound to any namespace
                 if (prefix == XMLSymbols.PREFIX_XMLNS && localpart == XMLSymbols.PREFIX_XMLNS) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "CantBindXMLNS",
-                                               new Object[]{attributes.getQName(i)},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "CantBindXMLNS",
+                                          new Object[]{attributes.getQName(i)},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
                 
                 // 2. the namespace for "xmlns" can't be bound to any prefix
                 if (uri == NamespaceContext.XMLNS_URI) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "CantBindXMLNS",
-                                               new Object[]{attributes.getQName(i)},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "CantBindXMLNS",
+                                          new Object[]{attributes.getQName(i)},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
                 
                 // 3. "xml" can't be bound to any other namespace than it's own
                 if (localpart == XMLSymbols.PREFIX_XML) {
                     if (uri != NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "CantBindXML",
-                                                   new Object[]{attributes.getQName(i)},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "CantBindXML",
+                                              new Object[]{attributes.getQName(i)},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                 }
                 // 4. the namespace for "xml" can't be bound to any other prefix
                 else {
                     if (uri ==NamespaceContext.XML_URI) {
-                        fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                                   "CantBindXML",
-                                                   new Object[]{attributes.getQName(i)},
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                              "CantBindXML",
+                                              new Object[]{attributes.getQName(i)},
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                 }
 
@@ -131,10 +131,10 @@ public class XMLNSDTDValidator
                 // We should only report an error if there is a prefix,
                 // that is, the local part is not "xmlns". -SG
                 if (uri == XMLSymbols.EMPTY_STRING && localpart != XMLSymbols.PREFIX_XMLNS) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "EmptyPrefixedAttName",
-                                               new Object[]{attributes.getQName(i)},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "EmptyPrefixedAttName",
+                                          new Object[]{attributes.getQName(i)},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     continue;
                 }
 
@@ -151,10 +151,10 @@ public class XMLNSDTDValidator
             element.prefix = XMLSymbols.EMPTY_STRING;
         }
         if (element.prefix != null && element.uri == null) {
-            fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                       "ElementPrefixUnbound",
-                                       new Object[]{element.prefix, element.rawname},
-                                       XMLErrorReporter.SEVERITY_FATAL_ERROR);
+            fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                  "ElementPrefixUnbound",
+                                  new Object[]{element.prefix, element.rawname},
+                                  XMLErrorReporter.SEVERITY_FATAL_ERROR);
         }
 
         // bind the attributes
@@ -170,10 +170,10 @@ public class XMLNSDTDValidator
             else if (aprefix != XMLSymbols.EMPTY_STRING) {
                 fAttributeQName.uri = fNamespaceContext.getURI(aprefix);
                 if (fAttributeQName.uri == null) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "AttributePrefixUnbound",
-                                               new Object[]{element.rawname,arawname,aprefix},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "AttributePrefixUnbound",
+                                          new Object[]{element.rawname,arawname,aprefix},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
                 attributes.setName(i, fAttributeQName);
             }
@@ -192,10 +192,10 @@ public class XMLNSDTDValidator
                 String blocalpart = attributes.getLocalName(j);
                 String buri = attributes.getURI(j);
                 if (alocalpart == blocalpart && auri == buri) {
-                    fErrorReporter.reportError(XMLMessageFormatter.XMLNS_DOMAIN,
-                                               "AttributeNSNotUnique",
-                                               new Object[]{element.rawname,alocalpart, auri},
-                                               XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                    fErrorReporter.report(XMLMessageFormatter.XMLNS_DOMAIN,
+                                          "AttributeNSNotUnique",
+                                          new Object[]{element.rawname,alocalpart, auri},
+                                          XMLErrorReporter.SEVERITY_FATAL_ERROR);
                 }
             }
         }
@@ -87,6 +87,9 @@ public class DFAContentModel
     /** The element map size. */
     private int fElemMapSize = 0;
 
+    /** Hash table of the element map, or null if it is searched directly. */
+    private ElementNameIndex fElemMapIndex = null;
+
     /** Boolean to distinguish Schema Mixed Content */
     private boolean fMixed;
 
@@ -299,29 +302,37 @@ public class DFAContentModel
 
             // Look up this child in our element map
             int elemIndex = 0;
-            for (; elemIndex < fElemMapSize; elemIndex++)
-            {
-                int type = fElemMapType[elemIndex] & 0x0f ;
-                if (type == XMLContentSpec.CONTENTSPECNODE_LEAF) {
-                    //System.out.println("fElemMap["+elemIndex+"]: "+fElemMap[elemIndex]);
-                    if (fElemMap[elemIndex].rawname == curElem.rawname) {
-                        break;
-                    }
+            if (fElemMapIndex != null) {
+                elemIndex = fElemMapIndex.indexOf(curElem.rawname);
+                if (elemIndex == -1) {
+                    elemIndex = fElemMapSize;
                 }
-                else if (type == XMLContentSpec.CONTENTSPECNODE_ANY) {
-                    String uri = fElemMap[elemIndex].uri;
-                    if (uri == null || uri == curElem.uri) {
-                        break;
+            }
+            else {
+                for (; elemIndex < fElemMapSize; elemIndex++)
+                {
+                    int type = fElemMapType[elemIndex] & 0x0f ;
+                    if (type == XMLContentSpec.CONTENTSPECNODE_LEAF) {
+                        //System.out.println("fElemMap["+elemIndex+"]: "+fElemMap[elemIndex]);
+                        if (fElemMap[elemIndex].rawname == curElem.rawname) {
+                            break;
+                        }
                     }
-                }
-                else if (type == XMLContentSpec.CONTENTSPECNODE_ANY_LOCAL) {
-                    if (curElem.uri == null) {
-                        break;
+                    else if (type == XMLContentSpec.CONTENTSPECNODE_ANY) {
+                        String uri = fElemMap[elemIndex].uri;
+                        if (uri == null || uri == curElem.uri) {
+                            break;
+                        }
                     }
-                }
-                else if (type == XMLContentSpec.CONTENTSPECNODE_ANY_OTHER) {
-                    if (fElemMap[elemIndex].uri != curElem.uri) {
-                        break;
+                    else if (type == XMLContentSpec.CONTENTSPECNODE_ANY_LOCAL) {
+                        if (curElem.uri == null) {
+                            break;
+                        }
+                    }
+                    else if (type == XMLContentSpec.CONTENTSPECNODE_ANY_OTHER) {
+                        if (fElemMap[elemIndex].uri != curElem.uri) {
+                            break;
+                        }
                     }
                 }
             }
@@ -515,6 +526,7 @@ public class DFAContentModel
                 fElemMapSize++;
             }
         }
+        fElemMapIndex = ElementNameIndex.create(fElemMap, fElemMapType, fElemMapSize);
         // set up the fLeafNameTypeVector object if there is one.
         /*****
         if (fLeafNameTypeVector != null) {
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl.dtd.models;
+
+import org.apache.xerces.impl.dtd.XMLContentSpec;
+import org.apache.xerces.xni.QName;
+
+/**
+ * A hash table from the element names of a content model to their
+ * positions in the content model's list of names, which replaces
+ * searching the list for each child element. Only content models
+ * whose names are all plain element names, and which have enough of
+ * them for hashing to pay off, are indexed.
+ * <p>
+ * An index is never modified once it has been created, so that it
+ * can be shared along with its content model.
+ *
+ * @xerces.internal
+ *
+ * @version $Id$
+ */
+final class ElementNameIndex {
+
+    //
+    // Constants
+    //
+
+    /** Number of names below which a list is searched directly. */
+    private static final int MIN_SIZE = 8;
+
+    //
+    // Data
+    //
+
+    /** Element names, hashed by open addressing with linear probing. */
+    private final String[] fNames;
+
+    /** Position of each element name in the content model. */
+    private final int[] fPositions;
+
+    //
+    // Constructors
+    //
+
+    private ElementNameIndex(QName[] names, int count) {
+        int size = 1;
+        while (size < count << 1) {
+            size <<= 1;
+        }
+        fNames = new String[size];
+        fPositions = new int[size];
+        final int mask = size - 1;
+        for (int i = 0; i < count; ++i) {
+            final String name = names[i].rawname;
+            int slot = hash(name) & mask;
+            String entry;
+            while ((entry = fNames[slot]) != null && entry != name) {
+                slot = (slot + 1) & mask;
+            }
+            // the first occurrence of a name wins, as it does
+            // when the list is searched
+            if (entry == null) {
+                fNames[slot] = name;
+                fPositions[slot] = i;
+            }
+        }
+    } // <init>(QName[],int)
+
+    //
+    // Methods
+    //
+
+    /**
+     * Creates an index of the given element names, or returns null if
+     * the list should be searched directly.
+     *
+     * @param names the element names of a content model
+     * @param types the content spec node types of the names
+     * @param count the number of names
+     */
+    static ElementNameIndex create(QName[] names, int[] types, int count) {
+        if (count < MIN_SIZE) {
+            return null;
+        }
+        for (int i = 0; i < count; ++i) {
+            if ((types[i] & 0x0f) != XMLContentSpec.CONTENTSPECNODE_LEAF ||
+                names[i].rawname == null) {
+                return null;
+            }
+        }
+        return new ElementNameIndex(names, count);
+    } // create(QName[],int[],int):ElementNameIndex
+
+    /**
+     * Returns the position of the given element name in the content
+     * model, or -1 if the content model does not contain the name.
+     * The name must be a symbol.
+     */
+    int indexOf(String rawname) {
+        if (rawname == null) {
+            return -1;
+        }
+        final String[] names = fNames;
+        final int mask = names.length - 1;
+        int slot = hash(rawname) & mask;
+        String name;
+        while ((name = names[slot]) != null) {
+            if (name == rawname) {
+                return fPositions[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    } // indexOf(String):int
+
+    private static int hash(String name) {
+        final int code = name.hashCode();
+        return code ^ (code >>> 16);
+    } // hash(String):int
+
+} // class ElementNameIndex
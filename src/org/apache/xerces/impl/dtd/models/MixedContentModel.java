@@ -62,6 +62,9 @@ public class MixedContentModel
      */
     private final boolean fOrdered;
 
+    /** Hash table of the children, or null if they are searched directly. */
+    private final ElementNameIndex fChildrenIndex;
+
     //
     // Constructors
     //
@@ -85,6 +88,7 @@ public class MixedContentModel
             fChildrenType[i] = type[offset + i];
         }
         fOrdered = ordered;
+        fChildrenIndex = ordered ? null : ElementNameIndex.create(fChildren, fChildrenType, fCount);
 
     }
 
@@ -171,6 +175,12 @@ public class MixedContentModel
     
                 // And try to find it in our list
                 int inIndex = 0;
+                if (fChildrenIndex != null) {
+                    if (fChildrenIndex.indexOf(curChild.rawname) == -1) {
+                        return outIndex;
+                    }
+                    continue;
+                }
                 for (; inIndex < fCount; inIndex++)
                 {
                     int type = fChildrenType[inIndex];
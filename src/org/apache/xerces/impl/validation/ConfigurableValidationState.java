@@ -17,6 +17,7 @@
 
 package org.apache.xerces.impl.validation;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 
 /**
@@ -40,6 +41,18 @@ public final class ConfigurableValidationState extends ValidationState {
      */
     private boolean fUnparsedEntityChecking;
     
+    /**
+     * IDs added since logging was turned on, in order; null if
+     * IDs and IDREFs are not being logged
+     */
+    private ArrayList fIdLog;
+    
+    /**
+     * IDREFs added since logging was turned on, in order; null if
+     * IDs and IDREFs are not being logged
+     */
+    private ArrayList fIdRefLog;
+    
     /**
      * Creates a new ConfigurableValidationState.
      * By default, error checking for both ID/IDREFs 
@@ -69,6 +82,36 @@ public final class ConfigurableValidationState extends ValidationState {
         fUnparsedEntityChecking = setting;
     }
     
+    /**
+     * Turns logging of the IDs and IDREFs added on and off. Each
+     * time logging is turned on, new logs are started; the lists
+     * returned for earlier logs are not modified any further.
+     * @param setting true to turn on logging,
+     *                 false to turn off logging
+     */
+    public void setIdIdrefLogging(boolean setting) {
+        fIdLog = setting ? new ArrayList() : null;
+        fIdRefLog = setting ? new ArrayList() : null;
+    }
+    
+    /**
+     * Returns the IDs added since logging was turned on.
+     * @return null, if logging is turned off
+     *         otherwise, the list of IDs in the order they were added
+     */
+    public ArrayList getIdLog() {
+        return fIdLog;
+    }
+    
+    /**
+     * Returns the IDREFs added since logging was turned on.
+     * @return null, if logging is turned off
+     *         otherwise, the list of IDREFs in the order they were added
+     */
+    public ArrayList getIdRefLog() {
+        return fIdRefLog;
+    }
+    
     /**
      * Checks if all IDREFs have a corresponding ID.
      * @return null, if ID/IDREF checking is turned off
@@ -112,6 +155,9 @@ public final class ConfigurableValidationState extends ValidationState {
     public void addId(String name) {
         if (fIdIdrefChecking) {
             super.addId(name);
+            if (fIdLog != null) {
+                fIdLog.add(name);
+            }
         }
     }
     
@@ -122,6 +168,9 @@ public final class ConfigurableValidationState extends ValidationState {
     public void addIdRef(String name) {
         if (fIdIdrefChecking) {
             super.addIdRef(name);
+            if (fIdRefLog != null) {
+                fIdRefLog.add(name);
+            }
         }
     }
 }
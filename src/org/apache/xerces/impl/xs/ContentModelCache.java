@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl.xs;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+
+import org.apache.xerces.impl.xs.models.XSCMValidator;
+
+/**
+ * Keeps track of the content models built for the complex types of a
+ * grammar, according to the grammar's content model policy. Complex
+ * types hold their content models through this class: directly, or
+ * through a soft reference which the garbage collector may clear
+ * when memory is low, in which case the content model is built again
+ * the next time it is needed. The class also counts the content
+ * models which are resident and estimates the memory they hold.
+ *
+ * @xerces.internal
+ *
+ * @version $Id$
+ */
+final class ContentModelCache {
+
+    //
+    // Data
+    //
+
+    /** The policy applied to content models built from now on. */
+    private volatile short fPolicy = SchemaGrammar.CONTENT_MODEL_LAZY;
+
+    /** Queue of the soft references cleared by the garbage collector. */
+    private final ReferenceQueue fClearedQueue = new ReferenceQueue();
+
+    /** Number of resident content models. */
+    private int fCount;
+
+    /** Estimated number of bytes held by the resident content models. */
+    private long fSize;
+
+    //
+    // Methods
+    //
+
+    short getPolicy() {
+        return fPolicy;
+    }
+
+    void setPolicy(short policy) {
+        fPolicy = policy;
+    }
+
+    /** Returns the number of resident content models. */
+    synchronized int getCount() {
+        expunge();
+        return fCount;
+    }
+
+    /** Returns the estimated number of bytes held by the resident content models. */
+    synchronized long getSize() {
+        expunge();
+        return fSize;
+    }
+
+    /**
+     * Returns the object through which a complex type should hold a
+     * content model which has just been built: the content model
+     * itself, or a soft reference to it.
+     */
+    synchronized Object hold(XSCMValidator cm) {
+        expunge();
+        final int size = cm.getEstimatedSize();
+        ++fCount;
+        fSize += size;
+        if (fPolicy == SchemaGrammar.CONTENT_MODEL_SOFT) {
+            return new CMReference(cm, size, fClearedQueue);
+        }
+        return cm;
+    }
+
+    /**
+     * Accounts for a content model which a complex type no longer
+     * holds on to.
+     */
+    synchronized void release(Object held) {
+        if (held instanceof CMReference) {
+            final CMReference ref = (CMReference) held;
+            ref.clear();
+            expunge(ref);
+        }
+        else if (held != null) {
+            --fCount;
+            fSize -= ((XSCMValidator) held).getEstimatedSize();
+        }
+    }
+
+    /** Returns the content model held through the given object, or null. */
+    static XSCMValidator get(Object held) {
+        if (held instanceof Reference) {
+            return (XSCMValidator) ((Reference) held).get();
+        }
+        return (XSCMValidator) held;
+    }
+
+    /** Accounts for the content models cleared by the garbage collector. */
+    private void expunge() {
+        Reference ref;
+        while ((ref = fClearedQueue.poll()) != null) {
+            expunge((CMReference) ref);
+        }
+    }
+
+    private void expunge(CMReference ref) {
+        if (!ref.fExpunged) {
+            ref.fExpunged = true;
+            --fCount;
+            fSize -= ref.fSize;
+        }
+    }
+
+    //
+    // Classes
+    //
+
+    /** A soft reference to a content model. */
+    private static final class CMReference extends SoftReference {
+
+        /** The estimated size of the content model. */
+        final int fSize;
+
+        /** Whether the content model has been accounted for as released. */
+        boolean fExpunged;
+
+        CMReference(XSCMValidator cm, int size, ReferenceQueue queue) {
+            super(cm, queue);
+            fSize = size;
+        }
+    }
+
+} // class ContentModelCache
@@ -73,9 +73,18 @@ public class ElementPSVImpl implements ElementPSVI {
     /** validity: valid, invalid, unknown */
     protected short fValidity = ElementPSVI.VALIDITY_NOTKNOWN;
 
-    /** error codes and error messages */
+    /** 
+     * error codes and error messages; messages set with setErrors are
+     * only formatted when they are first requested
+     */
     protected String[] fErrors = null;
 
+    /** 
+     * error codes and the exceptions the error messages are formatted
+     * from, or null if the messages have been formatted
+     */
+    Object[] fErrorSources = null;
+
     /** validation context: could be QName or XPath expression*/
     protected String fValidationContext = null;
     
@@ -104,6 +113,7 @@ public class ElementPSVImpl implements ElementPSVI {
             final ElementPSVImpl elementPSVIImpl = (ElementPSVImpl) elementPSVI;
             fErrors = (elementPSVIImpl.fErrors != null) ?
                     (String[]) elementPSVIImpl.fErrors.clone() : null;
+            fErrorSources = elementPSVIImpl.fErrorSources;
             elementPSVIImpl.copySchemaInformationTo(this);
         }
         else {
@@ -218,9 +228,34 @@ public class ElementPSVImpl implements ElementPSVI {
         if (fErrors == null || fErrors.length == 0) {
             return StringListImpl.EMPTY_LIST;
         }
+        if (fErrorSources != null) {
+            for (int i = 1; i < fErrors.length; i += 2) {
+                fErrors[i] = ((Exception) fErrorSources[i]).getMessage();
+            }
+            fErrorSources = null;
+        }
         return new PSVIErrorList(fErrors, false);
     }
 
+    /**
+     * Sets the error codes and the exceptions the error messages are
+     * formatted from when they are first requested.
+     * 
+     * @param errors error codes and exceptions, in pairs, or null
+     */
+    void setErrors(Object[] errors) {
+        if (errors == null) {
+            fErrors = null;
+            fErrorSources = null;
+            return;
+        }
+        fErrors = new String[errors.length];
+        for (int i = 0; i < errors.length; i += 2) {
+            fErrors[i] = (String) errors[i];
+        }
+        fErrorSources = errors;
+    }
+
     // This is the only information we can provide in a pipeline.
     public String getValidationContext() {
         return fValidationContext;
@@ -329,6 +364,7 @@ public class ElementPSVImpl implements ElementPSVI {
         fValidationAttempted = ElementPSVI.VALIDATION_NONE;
         fValidity = ElementPSVI.VALIDITY_NOTKNOWN;
         fErrors = null;
+        fErrorSources = null;
         fValidationContext = null;
         fValue.reset();
     }
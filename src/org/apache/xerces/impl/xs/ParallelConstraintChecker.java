@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl.xs;
+
+import java.util.ArrayList;
+
+import org.apache.xerces.impl.Constants;
+import org.apache.xerces.impl.StructuredParseException;
+import org.apache.xerces.impl.XMLErrorReporter;
+import org.apache.xerces.impl.xs.models.CMBuilder;
+import org.apache.xerces.impl.xs.util.SimpleLocator;
+import org.apache.xerces.util.SymbolHash;
+import org.apache.xerces.xni.XMLLocator;
+import org.apache.xerces.xni.XNIException;
+
+/**
+ * Checks the constraints of the complex types of a set of grammars on
+ * several threads. Each thread has its own content model builder and
+ * records the errors it finds for each type instead of reporting them.
+ * Once all of the types have been checked, the errors are reported in
+ * the order in which a single thread would have reported them, so the
+ * error handler sees the same sequence of errors, on the calling
+ * thread, whatever the number of threads.
+ *
+ * @xerces.internal
+ *
+ * @version $Id$
+ * @see XSConstraints#fullSchemaChecking(XSGrammarBucket, SubstitutionGroupHandler, CMBuilder, XMLErrorReporter, int)
+ */
+final class ParallelConstraintChecker implements Runnable {
+
+    /** Feature identifier: continue after fatal error. */
+    private static final String CONTINUE_AFTER_FATAL_ERROR =
+        Constants.XERCES_FEATURE_PREFIX + Constants.CONTINUE_AFTER_FATAL_ERROR_FEATURE;
+
+    //
+    // Data
+    //
+
+    /** The grammars whose types are checked. */
+    private final SchemaGrammar[] fGrammars;
+
+    private final SubstitutionGroupHandler fSGHandler;
+
+    /** The content model builder of the calling thread. */
+    private final CMBuilder fCMBuilder;
+
+    /** The error reporter errors are finally reported to. */
+    private final XMLErrorReporter fErrorReporter;
+
+    /** Whether to continue checking a type after a fatal error. */
+    private final boolean fContinueAfterFatalError;
+
+    // the types to check, in the order a single thread checks them
+
+    private final XSComplexTypeDecl[] fTypes;
+    private final SimpleLocator[] fLocators;
+    private final boolean[] fFullChecked;
+
+    // the results of checking each type
+
+    /** Whether each type needs to be checked again. */
+    private final boolean[] fFurther;
+
+    /** The errors recorded for each type, or null. */
+    private final RecordedError[][] fErrors;
+
+    /** The unexpected exception thrown checking each type, or null. */
+    private final Throwable[] fFailures;
+
+    /** Index of the next type to check. */
+    private int fNext = 0;
+
+    //
+    // Constructors
+    //
+
+    ParallelConstraintChecker(SchemaGrammar[] grammars,
+            SubstitutionGroupHandler SGHandler, CMBuilder cmBuilder,
+            XMLErrorReporter errorReporter) {
+        fGrammars = grammars;
+        fSGHandler = SGHandler;
+        fCMBuilder = cmBuilder;
+        fErrorReporter = errorReporter;
+        fContinueAfterFatalError = errorReporter.getFeature(CONTINUE_AFTER_FATAL_ERROR);
+
+        int count = 0;
+        for (int i = grammars.length-1; i >= 0; i--) {
+            count += grammars[i].getUncheckedComplexTypeDecls().length;
+        }
+        fTypes = new XSComplexTypeDecl[count];
+        fLocators = new SimpleLocator[count];
+        fFullChecked = new boolean[count];
+        int position = 0;
+        for (int i = grammars.length-1; i >= 0; i--) {
+            XSComplexTypeDecl[] types = grammars[i].getUncheckedComplexTypeDecls();
+            SimpleLocator[] ctLocators = grammars[i].getUncheckedCTLocators();
+            for (int j = 0; j < types.length; j++, position++) {
+                fTypes[position] = types[j];
+                fLocators[position] = ctLocators[j];
+                fFullChecked[position] = grammars[i].fFullChecked;
+            }
+        }
+        fFurther = new boolean[count];
+        fErrors = new RecordedError[count][];
+        fFailures = new Throwable[count];
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Checks all of the types with the given number of threads,
+     * including the calling thread, and reports the errors found.
+     */
+    void check(int threadCount) {
+        if (threadCount > fTypes.length) {
+            threadCount = fTypes.length;
+        }
+        Thread[] threads = new Thread[Math.max(threadCount - 1, 0)];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(this, "Xerces schema checker " + (i + 1));
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        run();
+        boolean interrupted = false;
+        for (int i = 0; i < threads.length; i++) {
+            while (true) {
+                try {
+                    threads[i].join();
+                    break;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        // report the errors and update the grammars in the same
+        // order as when checking on a single thread
+        int position = 0;
+        for (int i = fGrammars.length-1; i >= 0; i--) {
+            XSComplexTypeDecl[] types = fGrammars[i].getUncheckedComplexTypeDecls();
+            boolean fullChecked = fGrammars[i].fFullChecked;
+            int keepType = 0;
+            for (int j = 0; j < types.length; j++, position++) {
+                report(position);
+                if (!fullChecked && fFurther[position])
+                    types[keepType++] = types[j];
+            }
+            if (!fullChecked) {
+                fGrammars[i].setUncheckedTypeNum(keepType);
+                fGrammars[i].fFullChecked = true;
+            }
+        }
+    }
+
+    /** Checks types until there are none left. */
+    public void run() {
+        ErrorRecorder recorder = new ErrorRecorder(fContinueAfterFatalError);
+        CMBuilder cmBuilder = fCMBuilder.newBuilder(recorder);
+        SymbolHash elemTable = new SymbolHash();
+        int position;
+        while ((position = next()) != -1) {
+            try {
+                fFurther[position] = XSConstraints.checkComplexType(
+                        fTypes[position], fLocators[position],
+                        fFullChecked[position], elemTable, fSGHandler,
+                        cmBuilder, recorder);
+            }
+            catch (CheckAbortedException e) {
+                // a fatal error was recorded
+            }
+            catch (RuntimeException e) {
+                fFailures[position] = e;
+            }
+            catch (Error e) {
+                fFailures[position] = e;
+            }
+            fErrors[position] = recorder.drain();
+        }
+    }
+
+    /** Returns the index of the next type to check, or -1. */
+    private synchronized int next() {
+        return (fNext < fTypes.length) ? fNext++ : -1;
+    }
+
+    /**
+     * Reports the errors recorded for a type, and rethrows any
+     * exception thrown checking it.
+     */
+    private void report(int position) {
+        RecordedError[] errors = fErrors[position];
+        if (errors != null) {
+            for (int i = 0; i < errors.length; i++) {
+                RecordedError error = errors[i];
+                if (error.location != null) {
+                    fErrorReporter.report(error.location, error.domain,
+                            error.key, error.arguments, error.severity, error.exception);
+                }
+                else {
+                    fErrorReporter.report(error.domain, error.key,
+                            error.arguments, error.severity, error.exception);
+                }
+            }
+        }
+        Throwable failure = fFailures[position];
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    //
+    // Classes
+    //
+
+    /** An error reported while checking a type. */
+    private static final class RecordedError {
+        final XMLLocator location;
+        final String domain;
+        final String key;
+        final Object[] arguments;
+        final short severity;
+        final Exception exception;
+
+        RecordedError(XMLLocator location, String domain, String key,
+                Object[] arguments, short severity, Exception exception) {
+            this.location = location;
+            this.domain = domain;
+            this.key = key;
+            this.arguments = arguments;
+            this.severity = severity;
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * An error reporter which records errors instead of passing them
+     * to an error handler. Like the error reporter it stands in for,
+     * it stops the check of a type at the first fatal error unless it
+     * is told to continue.
+     */
+    private static final class ErrorRecorder extends XMLErrorReporter {
+
+        private static final RecordedError[] NO_ERRORS = new RecordedError[0];
+
+        private final ArrayList fRecorded = new ArrayList();
+
+        ErrorRecorder(boolean continueAfterFatalError) {
+            fContinueAfterFatalError = continueAfterFatalError;
+        }
+
+        public StructuredParseException report(XMLLocator location,
+                String domain, String key, Object[] arguments,
+                short severity, Exception exception) throws XNIException {
+            fRecorded.add(new RecordedError(location, domain, key,
+                    arguments, severity, exception));
+            if (severity == SEVERITY_FATAL_ERROR && !fContinueAfterFatalError) {
+                throw new CheckAbortedException();
+            }
+            return new StructuredParseException(location, domain, key,
+                    arguments, severity, null, null, exception);
+        }
+
+        /** Returns the errors recorded since the last call. */
+        RecordedError[] drain() {
+            if (fRecorded.isEmpty()) {
+                return NO_ERRORS;
+            }
+            RecordedError[] errors =
+                (RecordedError[]) fRecorded.toArray(new RecordedError[fRecorded.size()]);
+            fRecorded.clear();
+            return errors;
+        }
+    }
+
+    /** Thrown to stop checking a type after a fatal error. */
+    private static final class CheckAbortedException extends RuntimeException {
+        private static final long serialVersionUID = -2710533927604283424L;
+    }
+
+} // class ParallelConstraintChecker
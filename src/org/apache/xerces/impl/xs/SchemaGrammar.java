@@ -18,6 +18,8 @@
 package org.apache.xerces.impl.xs;
 
 import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Vector;
 
 import org.apache.xerces.impl.Constants;
@@ -26,6 +28,7 @@ import org.apache.xerces.impl.dv.ValidatedInfo;
 import org.apache.xerces.impl.dv.XSSimpleType;
 import org.apache.xerces.impl.dv.xs.XSSimpleTypeDecl;
 import org.apache.xerces.impl.xs.identity.IdentityConstraint;
+import org.apache.xerces.impl.xs.models.CMBuilder;
 import org.apache.xerces.impl.xs.util.ObjectListImpl;
 import org.apache.xerces.impl.xs.util.SimpleLocator;
 import org.apache.xerces.impl.xs.util.StringListImpl;
@@ -52,7 +55,9 @@ import org.apache.xerces.xs.XSModelGroupDefinition;
 import org.apache.xerces.xs.XSNamedMap;
 import org.apache.xerces.xs.XSNamespaceItem;
 import org.apache.xerces.xs.XSNotationDeclaration;
+import org.apache.xerces.xs.XSObject;
 import org.apache.xerces.xs.XSObjectList;
+import org.apache.xerces.xs.XSSimpleTypeDefinition;
 import org.apache.xerces.xs.XSTypeDefinition;
 import org.apache.xerces.xs.XSWildcard;
 import org.apache.xerces.xs.datatypes.ObjectList;
@@ -77,6 +82,26 @@ import org.xml.sax.SAXException;
 
 public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
 
+    /**
+     * Content model policy: the content models of all complex types
+     * are built when the grammar is loaded, and kept.
+     */
+    public static final short CONTENT_MODEL_EAGER = 0;
+
+    /**
+     * Content model policy: the content model of a complex type is
+     * built the first time it is needed, and kept. This is the default.
+     */
+    public static final short CONTENT_MODEL_LAZY = 1;
+
+    /**
+     * Content model policy: the content model of a complex type is
+     * built the first time it is needed, and may be discarded when
+     * memory is low if it has not been used recently, in which case
+     * it is built again the next time it is needed.
+     */
+    public static final short CONTENT_MODEL_SOFT = 2;
+
     // the target namespace of grammar
     String fTargetNamespace;
 
@@ -205,6 +230,11 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
         // All global elements table
         fAllGlobalElemDecls = grammar.fAllGlobalElemDecls.makeClone();
 
+        // The complex types are shared, and so are their content models
+        fContentModels = grammar.fContentModels;
+        fCompiledTypeNum = grammar.fCompiledTypeNum;
+        fCompact = grammar.fCompact;
+
         // Annotations associated with the "root" schema of this targetNamespace
         fNumAnnotations = grammar.fNumAnnotations;
         if (fNumAnnotations > 0) {
@@ -857,6 +887,7 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
                if (fSubGroupCount == fSubGroups.length)
                     fSubGroups = resize(fSubGroups, fSubGroupCount+INC_SIZE);
                 fSubGroups[fSubGroupCount++] = decl;
+                fSubGroupIndex = null;
             }
         }
     }
@@ -1075,6 +1106,15 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
     // grammar.
     boolean fFullChecked = false;
 
+    // the content models of the complex types of this grammar
+    private ContentModelCache fContentModels = new ContentModelCache();
+
+    // the number of complex type decls whose content models were built eagerly
+    private int fCompiledTypeNum = 0;
+
+    // whether this grammar is compact
+    private boolean fCompact = false;
+
     /**
      * add one complex type decl: for later constraint checking
      */
@@ -1085,6 +1125,7 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
         }
         fCTLocators[fCTCount] = locator;
         fComplexTypeDecls[fCTCount++] = decl;
+        decl.fContentModels = fContentModels;
     }
 
     /**
@@ -1150,6 +1191,8 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
      * against UPA again. here we trim the array to the proper size.
      */
     final void setUncheckedTypeNum(int newSize) {
+        // the remaining types have been compiled if all of them were
+        fCompiledTypeNum = (fCompiledTypeNum >= fCTCount) ? newSize : 0;
         fCTCount = newSize;
         fComplexTypeDecls = resize(fComplexTypeDecls, fCTCount);
         fCTLocators = resize(fCTLocators, fCTCount);
@@ -1169,6 +1212,33 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
         return fSubGroups;
     }
 
+    // for each element declaration with a substitution group affiliation,
+    // the heads of the substitution groups it may substitute for: built
+    // when first needed, and dropped when such a declaration is added
+    private volatile IdentityHashMap fSubGroupIndex = null;
+
+    /**
+     * Returns the substitution group index of this grammar, which maps
+     * each element declaration with a substitution group affiliation to
+     * the heads of the substitution groups it may substitute for. The
+     * index is built by the given handler the first time it is needed,
+     * and is never modified afterwards, so all the validators using this
+     * grammar can share it.
+     */
+    final IdentityHashMap getSubstitutionGroupIndex(SubstitutionGroupHandler handler) {
+        IdentityHashMap index = fSubGroupIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = fSubGroupIndex;
+                if (index == null) {
+                    index = handler.buildSubstitutionGroupIndex(getSubstitutionGroups());
+                    fSubGroupIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     // anyType and anySimpleType: because there are so many places where
     // we need direct access to these two types
     public final static XSComplexTypeDecl fAnyType = new XSAnyType();
@@ -1678,6 +1748,145 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
         fAnnotations[fNumAnnotations++] = annotation;
     }
     
+    /**
+     * Returns the policy applied to the content models of the complex
+     * types of this grammar.
+     * 
+     * @return one of <code>CONTENT_MODEL_EAGER</code>,
+     * <code>CONTENT_MODEL_LAZY</code> or <code>CONTENT_MODEL_SOFT</code>
+     */
+    public short getContentModelPolicy() {
+        return fContentModels.getPolicy();
+    }
+    
+    /**
+     * Sets the policy applied to the content models of the complex types
+     * of this grammar. The policy applies to the content models built
+     * after it is set.
+     * 
+     * @param policy one of <code>CONTENT_MODEL_EAGER</code>,
+     * <code>CONTENT_MODEL_LAZY</code> or <code>CONTENT_MODEL_SOFT</code>
+     */
+    public void setContentModelPolicy(short policy) {
+        fContentModels.setPolicy(policy);
+    }
+    
+    /**
+     * Builds the content models of the complex types of this grammar which
+     * have not been built yet, if the content model policy is
+     * <code>CONTENT_MODEL_EAGER</code>.
+     * 
+     * @param cmBuilder the content model builder
+     */
+    public synchronized void compileContentModels(CMBuilder cmBuilder) {
+        if (fContentModels.getPolicy() != CONTENT_MODEL_EAGER) {
+            return;
+        }
+        for (; fCompiledTypeNum < fCTCount; ++fCompiledTypeNum) {
+            fComplexTypeDecls[fCompiledTypeNum].getContentModel(cmBuilder);
+        }
+    }
+    
+    /**
+     * Returns the number of content models of the complex types of this
+     * grammar which are in memory. The count includes the content models
+     * built only to check the Unique Particle Attribution constraint.
+     */
+    public int getResidentContentModelCount() {
+        return fContentModels.getCount();
+    }
+    
+    /**
+     * Returns an estimate of the number of bytes of memory held by the
+     * content models of the complex types of this grammar.
+     */
+    public long getResidentContentModelSize() {
+        return fContentModels.getSize();
+    }
+    
+    /**
+     * Returns whether this grammar is compact. The components of a compact
+     * grammar have no annotations, and once the grammar is loaded it no
+     * longer holds the data used only to report errors in its schema
+     * documents.
+     */
+    public boolean isCompact() {
+        return fCompact;
+    }
+    
+    /**
+     * Sets whether this grammar is compact. Annotations are not kept for
+     * the components added to a compact grammar after it is set.
+     */
+    public void setCompact(boolean compact) {
+        fCompact = compact;
+    }
+    
+    /**
+     * Releases, if this grammar is compact, the data it no longer needs
+     * once it has been loaded and, with full checking, checked: the
+     * locators of its complex types and redefined groups, which are only
+     * used to report errors when they are checked, and the symbol table
+     * used to parse annotations. Errors found when the remaining types
+     * are checked again against grammars loaded later are reported
+     * without a location.
+     */
+    synchronized void compact() {
+        if (!fCompact) {
+            return;
+        }
+        Arrays.fill(fCTLocators, null);
+        Arrays.fill(fRGLocators, null);
+        fSymbolTable = null;
+    }
+    
+    /**
+     * Returns a report of the memory footprint of this grammar: the number
+     * of components of each kind it holds, the annotations and error
+     * locators it keeps, and the content models which are in memory.
+     * Components are counted once, whether they are global or local.
+     * Global components of other grammars to which this grammar refers
+     * are not counted.
+     */
+    public String getFootprintReport() {
+        Footprint footprint = new Footprint();
+        int locators = 0;
+        boolean symbolTable;
+        synchronized (this) {
+            footprint.countGlobals(fGlobalAttrDecls);
+            footprint.countGlobals(fGlobalAttrGrpDecls);
+            footprint.countGlobals(fGlobalElemDecls);
+            footprint.countGlobals(fGlobalGroupDecls);
+            footprint.countGlobals(fGlobalNotationDecls);
+            footprint.countGlobals(fGlobalIDConstraintDecls);
+            footprint.countGlobals(fGlobalTypeDecls);
+            for (int i = 0; i < fNumAnnotations; i++) {
+                footprint.countAnnotation(fAnnotations[i]);
+            }
+            for (int i = 0; i < fCTCount; i++) {
+                if (fCTLocators[i] != null) {
+                    ++locators;
+                }
+            }
+            for (int i = 0; i < fRGCount/2; i++) {
+                if (fRGLocators[i] != null) {
+                    ++locators;
+                }
+            }
+            symbolTable = fSymbolTable != null;
+        }
+        
+        StringBuffer report = new StringBuffer();
+        report.append("grammar: ").append(fTargetNamespace != null ? fTargetNamespace : "(no namespace)").append('\n');
+        report.append("compact: ").append(fCompact).append('\n');
+        footprint.report(report);
+        report.append("error locators: ").append(locators).append('\n');
+        report.append("symbol table held: ").append(symbolTable).append('\n');
+        report.append("resident content models: ").append(getResidentContentModelCount());
+        report.append(" (about ").append(getResidentContentModelSize()).append(" bytes)").append('\n');
+        return report.toString();
+    }
+    
     public void setImmutable(boolean isImmutable) {
         fIsImmutable = isImmutable;
     }
@@ -1685,5 +1894,186 @@ public class SchemaGrammar implements XSGrammar, XSNamespaceItem {
     public boolean isImmutable() {
         return fIsImmutable;
     }
+    
+    /**
+     * Counts the components of a grammar for its footprint report. The
+     * count starts from the global components of the grammar and goes
+     * down into their local components; each component is counted once.
+     */
+    private static final class Footprint {
+        
+        private static final int ELEMENTS = 0;
+        private static final int ATTRIBUTES = 1;
+        private static final int ATTRIBUTE_USES = 2;
+        private static final int ATTRIBUTE_GROUPS = 3;
+        private static final int COMPLEX_TYPES = 4;
+        private static final int SIMPLE_TYPES = 5;
+        private static final int GROUPS = 6;
+        private static final int MODEL_GROUPS = 7;
+        private static final int PARTICLES = 8;
+        private static final int WILDCARDS = 9;
+        private static final int IDENTITY_CONSTRAINTS = 10;
+        private static final int NOTATIONS = 11;
+        
+        private static final String[] NAMES = {
+            "element declarations",
+            "attribute declarations",
+            "attribute uses",
+            "attribute group definitions",
+            "complex type definitions",
+            "simple type definitions",
+            "model group definitions",
+            "model groups",
+            "particles",
+            "wildcards",
+            "identity constraint definitions",
+            "notation declarations"
+        };
+        
+        // the components and annotations counted so far
+        private final IdentityHashMap fCounted = new IdentityHashMap();
+        
+        private final int[] fCounts = new int[NAMES.length];
+        private int fAnnotationCount = 0;
+        private long fAnnotationLength = 0;
+        
+        void countGlobals(SymbolHash decls) {
+            Object[] values = new Object[decls.getLength()];
+            decls.getValues(values, 0);
+            for (int i = 0; i < values.length; i++) {
+                count(values[i]);
+            }
+        }
+        
+        void countAnnotation(XSObject annotation) {
+            if (annotation != null && fCounted.put(annotation, annotation) == null) {
+                ++fAnnotationCount;
+                fAnnotationLength += ((XSAnnotation) annotation).getAnnotationString().length();
+            }
+        }
+        
+        private void countAnnotations(XSObjectList annotations) {
+            if (annotations != null) {
+                for (int i = 0; i < annotations.getLength(); i++) {
+                    countAnnotation(annotations.item(i));
+                }
+            }
+        }
+        
+        // count a type which is not counted as a global component
+        private void countLocalType(XSTypeDefinition type) {
+            if (type != null && type.getAnonymous()) {
+                count(type);
+            }
+        }
+        
+        private void count(Object component) {
+            if (component == null || fCounted.put(component, component) != null) {
+                return;
+            }
+            if (component instanceof XSElementDecl) {
+                XSElementDecl element = (XSElementDecl) component;
+                ++fCounts[ELEMENTS];
+                countAnnotations(element.getAnnotations());
+                countLocalType(element.fType);
+                for (int i = 0; i < element.fIDCPos; i++) {
+                    count(element.fIDConstraints[i]);
+                }
+            }
+            else if (component instanceof XSParticleDecl) {
+                XSParticleDecl particle = (XSParticleDecl) component;
+                ++fCounts[PARTICLES];
+                countAnnotations(particle.fAnnotations);
+                if (particle.fType != XSParticleDecl.PARTICLE_ELEMENT ||
+                    ((XSElementDecl) particle.fValue).fScope != XSConstants.SCOPE_GLOBAL) {
+                    count(particle.fValue);
+                }
+            }
+            else if (component instanceof XSModelGroupImpl) {
+                XSModelGroupImpl group = (XSModelGroupImpl) component;
+                ++fCounts[MODEL_GROUPS];
+                countAnnotations(group.fAnnotations);
+                for (int i = 0; i < group.fParticleCount; i++) {
+                    count(group.fParticles[i]);
+                }
+            }
+            else if (component instanceof XSComplexTypeDecl) {
+                XSComplexTypeDecl type = (XSComplexTypeDecl) component;
+                ++fCounts[COMPLEX_TYPES];
+                countAnnotations(type.getAnnotations());
+                countAttributeUses(type.fAttrGrp);
+                countLocalType(type.fXSSimpleType);
+                count(type.fParticle);
+            }
+            else if (component instanceof XSSimpleTypeDefinition) {
+                XSSimpleTypeDefinition type = (XSSimpleTypeDefinition) component;
+                ++fCounts[SIMPLE_TYPES];
+                countAnnotations(type.getAnnotations());
+                countLocalType(type.getBaseType());
+                countLocalType(type.getItemType());
+                XSObjectList members = type.getMemberTypes();
+                for (int i = 0; i < members.getLength(); i++) {
+                    countLocalType((XSTypeDefinition) members.item(i));
+                }
+            }
+            else if (component instanceof XSAttributeUseImpl) {
+                XSAttributeUseImpl use = (XSAttributeUseImpl) component;
+                ++fCounts[ATTRIBUTE_USES];
+                countAnnotations(use.fAnnotations);
+                if (use.fAttrDecl.fScope != XSConstants.SCOPE_GLOBAL) {
+                    count(use.fAttrDecl);
+                }
+            }
+            else if (component instanceof XSAttributeDecl) {
+                XSAttributeDecl attribute = (XSAttributeDecl) component;
+                ++fCounts[ATTRIBUTES];
+                countAnnotations(attribute.getAnnotations());
+                countLocalType(attribute.fType);
+            }
+            else if (component instanceof XSAttributeGroupDecl) {
+                XSAttributeGroupDecl group = (XSAttributeGroupDecl) component;
+                ++fCounts[ATTRIBUTE_GROUPS];
+                countAnnotations(group.fAnnotations);
+                countAttributeUses(group);
+            }
+            else if (component instanceof XSGroupDecl) {
+                XSGroupDecl group = (XSGroupDecl) component;
+                ++fCounts[GROUPS];
+                countAnnotations(group.fAnnotations);
+                count(group.fModelGroup);
+            }
+            else if (component instanceof XSWildcardDecl) {
+                ++fCounts[WILDCARDS];
+                countAnnotations(((XSWildcardDecl) component).fAnnotations);
+            }
+            else if (component instanceof IdentityConstraint) {
+                ++fCounts[IDENTITY_CONSTRAINTS];
+                countAnnotations(((IdentityConstraint) component).getAnnotations());
+            }
+            else if (component instanceof XSNotationDecl) {
+                ++fCounts[NOTATIONS];
+                countAnnotations(((XSNotationDecl) component).getAnnotations());
+            }
+        }
+        
+        // count the attribute uses and the wildcard of an attribute group
+        // or of the attributes of a complex type
+        private void countAttributeUses(XSAttributeGroupDecl attrGrp) {
+            if (attrGrp != null) {
+                for (int i = 0; i < attrGrp.fAttrUseNum; i++) {
+                    count(attrGrp.fAttributeUses[i]);
+                }
+                count(attrGrp.fAttributeWC);
+            }
+        }
+        
+        void report(StringBuffer report) {
+            for (int i = 0; i < NAMES.length; i++) {
+                report.append(NAMES[i]).append(": ").append(fCounts[i]).append('\n');
+            }
+            report.append("annotations: ").append(fAnnotationCount);
+            report.append(" (").append(fAnnotationLength).append(" characters)").append('\n');
+        }
+    }
 
 } // class SchemaGrammar
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl.xs;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Vector;
+
+/**
+ * A cache of the schema grammars loaded from the schema location hints
+ * of instance documents, which may be shared across parsers, threads
+ * and parses. Setting an instance of this class as the value of the
+ * <code>http://apache.org/xml/properties/validation/schema/location-cache</code>
+ * property allows the schema validator to reuse a grammar which has
+ * been loaded before from the same hints, when it is not found in the
+ * grammar pool, instead of loading the schema documents again.
+ * <p>
+ * Entries are keyed by the namespace of the grammar, the expanded
+ * system identifier of the schema document it was loaded from and the
+ * location hints in scope when it was loaded. When several validators
+ * need a grammar which is not in the cache at the same time, only one
+ * of them loads it, and the others wait for it and use the grammar it
+ * loaded. A grammar is only added to the cache if it was loaded from a
+ * schema document located by its system identifier and no errors were
+ * reported while loading it or, when schema full checking is on, while
+ * checking it. Grammars added to the cache, and the grammars they
+ * import, are made immutable.
+ * <p>
+ * As for a grammar pool, the cache should only be shared by parsers
+ * which resolve schema documents in the same way and load schemas with
+ * the same settings. The cache holds at most a configurable number of
+ * grammars, discarding the least recently used entries when full. The
+ * cache does not notice when a schema document changes; applications
+ * which need this should clear the cache.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @version $Id$
+ */
+public class SchemaLocationCache {
+
+    //
+    // Constants
+    //
+
+    /** Default maximum number of grammars held. */
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    //
+    // Data
+    //
+
+    /** Cached grammars, in least recently used order. */
+    private final LinkedHashMap fEntries = new LinkedHashMap(16, 0.75f, true);
+
+    /** The threads loading the grammars which are not cached yet, by key. */
+    private final HashMap fLoading = new HashMap();
+
+    /** Maximum number of grammars held. */
+    private int fMaxSize;
+
+    /** Number of lookups which found a grammar. */
+    private long fHits;
+
+    /** Number of lookups which did not find a grammar. */
+    private long fMisses;
+
+    //
+    // Constructors
+    //
+
+    /** Constructs a cache with the default maximum size. */
+    public SchemaLocationCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructs a cache with the given maximum size.
+     *
+     * @param maxSize the maximum number of grammars held
+     */
+    public SchemaLocationCache(int maxSize) {
+        fMaxSize = maxSize;
+    }
+
+    //
+    // Public methods
+    //
+
+    /** Returns the maximum number of grammars held. */
+    public synchronized int getMaxSize() {
+        return fMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of grammars held. If the cache holds
+     * more grammars than the new maximum, the least recently used
+     * entries are removed.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        fMaxSize = maxSize;
+        evict();
+    }
+
+    /** Returns the number of grammars in the cache. */
+    public synchronized int size() {
+        return fEntries.size();
+    }
+
+    /** Returns the number of lookups which found a grammar. */
+    public synchronized long getHitCount() {
+        return fHits;
+    }
+
+    /** Returns the number of lookups which did not find a grammar. */
+    public synchronized long getMissCount() {
+        return fMisses;
+    }
+
+    /** Removes all grammars and resets the statistics. */
+    public synchronized void clear() {
+        fEntries.clear();
+        fHits = 0;
+        fMisses = 0;
+    }
+
+    //
+    // Package methods
+    //
+
+    /**
+     * Returns the grammar with the given key. If the grammar is being
+     * loaded by another thread, waits until it has been loaded. If
+     * null is returned, the calling thread is expected to load the
+     * grammar and to call <code>loaded</code> when it is done, whether
+     * the grammar could be loaded or not, and other threads looking
+     * for the same grammar wait for it in the meantime.
+     */
+    synchronized SchemaGrammar get(Key key) {
+        final Thread current = Thread.currentThread();
+        while (true) {
+            SchemaGrammar grammar = (SchemaGrammar) fEntries.get(key);
+            if (grammar != null) {
+                ++fHits;
+                return grammar;
+            }
+            Thread loader = (Thread) fLoading.get(key);
+            if (loader == null || loader == current) {
+                break;
+            }
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                // give up waiting, and load the grammar
+                current.interrupt();
+                break;
+            }
+        }
+        ++fMisses;
+        fLoading.put(key, current);
+        return null;
+    }
+
+    /**
+     * Ends the load of the grammar with the given key, adding the grammar
+     * to the cache if it can be shared, and wakes up the threads waiting
+     * for it.
+     *
+     * @param key the key of the grammar
+     * @param grammar the grammar loaded, or null if it can't be cached
+     */
+    synchronized void loaded(Key key, SchemaGrammar grammar) {
+        if (fLoading.get(key) == Thread.currentThread()) {
+            fLoading.remove(key);
+        }
+        if (grammar != null) {
+            setImmutable(grammar);
+            fEntries.put(key, grammar);
+            evict();
+        }
+        notifyAll();
+    }
+
+    //
+    // Private methods
+    //
+
+    /** Makes the given grammar and the grammars it imports immutable. */
+    private static void setImmutable(SchemaGrammar grammar) {
+        if (grammar.isImmutable()) {
+            return;
+        }
+        grammar.setImmutable(true);
+        Vector imported = grammar.getImportedGrammars();
+        if (imported != null) {
+            for (int i = 0; i < imported.size(); i++) {
+                setImmutable((SchemaGrammar) imported.elementAt(i));
+            }
+        }
+    }
+
+    /** Removes the least recently used entries until the cache fits. */
+    private void evict() {
+        Iterator entries = fEntries.values().iterator();
+        while (fEntries.size() > fMaxSize && entries.hasNext()) {
+            entries.next();
+            entries.remove();
+        }
+    }
+
+    //
+    // Classes
+    //
+
+    /**
+     * The key of a grammar: its namespace, the expanded system identifier
+     * of the schema document it is loaded from, and the location hints
+     * in scope.
+     */
+    static final class Key {
+
+        private final String fNamespace;
+
+        private final String fSystemId;
+
+        private final String fLocations;
+
+        private final int fHashCode;
+
+        Key(String namespace, String systemId, String locations) {
+            fNamespace = namespace;
+            fSystemId = systemId;
+            fLocations = locations;
+            fHashCode = ((namespace != null ? namespace.hashCode() : 0) * 31 +
+                    systemId.hashCode()) * 31 + locations.hashCode();
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return fHashCode == key.fHashCode &&
+                (fNamespace == null ? key.fNamespace == null : fNamespace.equals(key.fNamespace)) &&
+                fSystemId.equals(key.fSystemId) &&
+                fLocations.equals(key.fLocations);
+        }
+
+        public int hashCode() {
+            return fHashCode;
+        }
+
+    } // class Key
+
+} // class SchemaLocationCache
@@ -18,10 +18,12 @@
 package org.apache.xerces.impl.xs;
 
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.Vector;
 
 import org.apache.xerces.xni.QName;
 import org.apache.xerces.xs.XSConstants;
+import org.apache.xerces.xs.XSNamespaceItem;
 import org.apache.xerces.xs.XSObjectList;
 import org.apache.xerces.xs.XSSimpleTypeDefinition;
 import org.apache.xerces.xs.XSTypeDefinition;
@@ -75,13 +77,72 @@ public class SubstitutionGroupHandler {
         }
 
         // and check by using substitutionGroup information
-        if (substitutionGroupOK(eDecl, exemplar, exemplar.fBlock)) {
+        if (eDecl == exemplar || canSubstitute(eDecl, exemplar)) {
             return eDecl;
         }
 
         return null;
     }
 
+    // check whether element can substitute exemplar, looking up the heads
+    // element may substitute for in the substitution group index of its
+    // grammar, instead of walking its chain of substitution group
+    // affiliations and the derivation of its type each time
+    private boolean canSubstitute(XSElementDecl element, XSElementDecl exemplar) {
+        if (element.fSubGroup == null) {
+            return false;
+        }
+        XSElementDecl[] heads = null;
+        XSNamespaceItem grammar = element.getNamespaceItem();
+        if (grammar instanceof SchemaGrammar) {
+            heads = (XSElementDecl[])((SchemaGrammar)grammar).getSubstitutionGroupIndex(this).get(element);
+        }
+        // the element is not in the index: check it directly
+        if (heads == null) {
+            return substitutionGroupOK(element, exemplar, exemplar.fBlock);
+        }
+        for (int i = 0; i < heads.length; i++) {
+            if (heads[i] == exemplar) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the index of the given element declarations, which maps each
+     * of them to the heads of the substitution groups it may substitute
+     * for, according to the blocking constraints of these heads.
+     */
+    IdentityHashMap buildSubstitutionGroupIndex(XSElementDecl[] elements) {
+        IdentityHashMap index = new IdentityHashMap(elements.length);
+        XSElementDecl[] heads = new XSElementDecl[4];
+        for (int i = 0; i < elements.length; i++) {
+            XSElementDecl element = elements[i];
+            if (element == null) {
+                continue;
+            }
+            int count = 0;
+            for (XSElementDecl head = element.fSubGroup; head != null; head = head.fSubGroup) {
+                if (substitutionGroupOK(element, head, head.fBlock)) {
+                    if (count == heads.length) {
+                        XSElementDecl[] newHeads = new XSElementDecl[count * 2];
+                        System.arraycopy(heads, 0, newHeads, 0, count);
+                        heads = newHeads;
+                    }
+                    heads[count++] = head;
+                }
+            }
+            XSElementDecl[] elementHeads = EMPTY_GROUP;
+            if (count > 0) {
+                elementHeads = new XSElementDecl[count];
+                System.arraycopy(heads, 0, elementHeads, 0, count);
+            }
+            index.put(element, elementHeads);
+        }
+        return index;
+    }
+
     // 3.3.6 Substitution Group OK (Transitive)
     // check whether element can substitute exemplar
     protected boolean substitutionGroupOK(XSElementDecl element, XSElementDecl exemplar, short blockingConstraint) {
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl.xs;
+
+import java.util.Locale;
+
+import org.apache.xerces.impl.StructuredParseException;
+import org.apache.xerces.util.MessageFormatter;
+import org.apache.xerces.xni.XMLLocator;
+
+/**
+ * The exception thrown by the XML Schema validator to stop the parse at
+ * the first validity error when the fail-fast feature is enabled. It is
+ * thrown without being passed to the error handler and does not record
+ * a stack trace, and its message is only formatted if it is requested.
+ *
+ * @xerces.internal
+ *
+ * @version $Id$
+ */
+final class ValidationAbortedException extends StructuredParseException {
+
+    /** Serialization version. */
+    static final long serialVersionUID = 2906213716460874313L;
+
+    public ValidationAbortedException(XMLLocator location, String domain,
+            String key, Object[] arguments, short severity,
+            MessageFormatter messageFormatter, Locale locale) {
+        super(location, domain, key, arguments, severity, messageFormatter, locale, null);
+    }
+
+    /** The stack trace is of no use to the application, so it is not filled in. */
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+} // class ValidationAbortedException
@@ -146,10 +146,22 @@ XSLoader, DOMConfiguration {
     protected static final String TOLERATE_DUPLICATES = 
         Constants.XERCES_FEATURE_PREFIX + Constants.TOLERATE_DUPLICATES_FEATURE;
     
+    /** Feature identifier: compact grammars */
+    protected static final String COMPACT_GRAMMARS = 
+        Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_COMPACT_GRAMMARS_FEATURE;
+    
     /** Property identifier: Schema DV Factory */
     protected static final String SCHEMA_DV_FACTORY = 
         Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_DV_FACTORY_PROPERTY;
     
+    /** Property identifier: schema full checking threads */
+    protected static final String SCHEMA_FULL_CHECKING_THREADS = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_FULL_CHECKING_THREADS_PROPERTY;
+    
+    /** Property identifier: schema content model policy */
+    protected static final String SCHEMA_CONTENT_MODEL_POLICY = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_CONTENT_MODEL_POLICY_PROPERTY;
+    
     // recognized features:
     private static final String[] RECOGNIZED_FEATURES = {
         SCHEMA_FULL_CHECKING,
@@ -162,7 +174,8 @@ XSLoader, DOMConfiguration {
         VALIDATE_ANNOTATIONS,
         HONOUR_ALL_SCHEMALOCATIONS,
         NAMESPACE_GROWTH,
-        TOLERATE_DUPLICATES
+        TOLERATE_DUPLICATES,
+        COMPACT_GRAMMARS
     };
     
     // property identifiers
@@ -222,7 +235,9 @@ XSLoader, DOMConfiguration {
         JAXP_SCHEMA_SOURCE,
         SECURITY_MANAGER,
         LOCALE,
-        SCHEMA_DV_FACTORY
+        SCHEMA_DV_FACTORY,
+        SCHEMA_FULL_CHECKING_THREADS,
+        SCHEMA_CONTENT_MODEL_POLICY
     };
     
     // Data
@@ -239,6 +254,8 @@ XSLoader, DOMConfiguration {
     private Object fJAXPSource = null;
     // is Schema Full Checking enabled
     private boolean fIsCheckedFully = false;
+    // number of threads used for full checking
+    private int fFullCheckingThreads = 1;
     // boolean that tells whether we've tested the JAXP property.
     private boolean fJAXPProcessed = false;
     // if features/properties has not been changed, the value of this attribute is "false"
@@ -551,7 +568,7 @@ XSLoader, DOMConfiguration {
             // NOTE: we only need to verify full checking in case the schema was not provided via JAXP
             // since full checking already verified for all JAXP schemas
             if(fIsCheckedFully && fJAXPCache.get(grammar) != grammar) {
-                XSConstraints.fullSchemaChecking(fGrammarBucket, fSubGroupHandler, fCMBuilder, fErrorReporter);
+                XSConstraints.fullSchemaChecking(fGrammarBucket, fSubGroupHandler, fCMBuilder, fErrorReporter, fFullCheckingThreads);
             }
         }
         return grammar;
@@ -579,6 +596,17 @@ XSLoader, DOMConfiguration {
         }
         SchemaGrammar grammar = fSchemaHandler.parseSchema(source, desc, locationPairs);
         
+        // build the content models of grammars with the eager policy,
+        // and release what compact grammars no longer need; with full
+        // checking they are compacted once they have been checked
+        SchemaGrammar[] grammars = fGrammarBucket.getGrammars();
+        for (int i = 0; i < grammars.length; i++) {
+            grammars[i].compileContentModels(fCMBuilder);
+            if (!fIsCheckedFully) {
+                grammars[i].compact();
+            }
+        }
+        
         return grammar;
     } // loadSchema(XSDDescription, XMLInputSource):  SchemaGrammar
     
@@ -638,7 +666,7 @@ XSLoader, DOMConfiguration {
                 attrDecl.fType.validate(sl, null, null);
                 if (!tokenizeSchemaLocationStr(sl, locations, null)) {
                     // report warning (odd number of items)
-                    er.reportError(XSMessageFormatter.SCHEMA_DOMAIN,
+                    er.report(XSMessageFormatter.SCHEMA_DOMAIN,
                             "SchemaLocation",
                             new Object[]{sl},
                             XMLErrorReporter.SEVERITY_WARNING);
@@ -646,7 +674,7 @@ XSLoader, DOMConfiguration {
             }
             catch (InvalidDatatypeValueException ex) {
                 // report warning (not list of URI's)
-                er.reportError(XSMessageFormatter.SCHEMA_DOMAIN,
+                er.report(XSMessageFormatter.SCHEMA_DOMAIN,
                         ex.getKey(), ex.getArgs(),
                         XMLErrorReporter.SEVERITY_WARNING);
             }
@@ -666,7 +694,7 @@ XSLoader, DOMConfiguration {
             }
             catch (InvalidDatatypeValueException ex) {
                 // report warning (not a URI)
-                er.reportError(XSMessageFormatter.SCHEMA_DOMAIN,
+                er.report(XSMessageFormatter.SCHEMA_DOMAIN,
                         ex.getKey(), ex.getArgs(),
                         XMLErrorReporter.SEVERITY_WARNING);
             }
@@ -752,7 +780,7 @@ XSLoader, DOMConfiguration {
                         fJAXPSource instanceof InputSource) {
                     fJAXPCache.put(fJAXPSource, g);
                     if (fIsCheckedFully) {
-                        XSConstraints.fullSchemaChecking(fGrammarBucket, fSubGroupHandler, fCMBuilder, fErrorReporter);
+                        XSConstraints.fullSchemaChecking(fGrammarBucket, fSubGroupHandler, fCMBuilder, fErrorReporter, fFullCheckingThreads);
                     }
                 }
                 fGrammarBucket.putGrammar(g);
@@ -806,7 +834,7 @@ XSLoader, DOMConfiguration {
             SchemaGrammar grammar = fSchemaHandler.parseSchema(xis,fXSDDescription, locationPairs);
             
             if (fIsCheckedFully) {
-                XSConstraints.fullSchemaChecking(fGrammarBucket, fSubGroupHandler, fCMBuilder, fErrorReporter);
+                XSConstraints.fullSchemaChecking(fGrammarBucket, fSubGroupHandler, fCMBuilder, fErrorReporter, fFullCheckingThreads);
             }                                   
             if (grammar != null) {
                 targetNamespace = grammar.getTargetNamespace();
@@ -843,7 +871,7 @@ XSLoader, DOMConfiguration {
                 xis = fEntityManager.resolveEntity(fXSDDescription);
             } 
             catch (IOException ex) {
-                fErrorReporter.reportError(XSMessageFormatter.SCHEMA_DOMAIN,
+                fErrorReporter.report(XSMessageFormatter.SCHEMA_DOMAIN,
                         "schema_reference.4",
                         new Object[] { loc }, XMLErrorReporter.SEVERITY_ERROR);
             }
@@ -869,7 +897,7 @@ XSLoader, DOMConfiguration {
                 is = new BufferedInputStream(new FileInputStream(file));
             } 
             catch (FileNotFoundException ex) {
-                fErrorReporter.reportError(XSMessageFormatter.SCHEMA_DOMAIN,
+                fErrorReporter.report(XSMessageFormatter.SCHEMA_DOMAIN,
                         "schema_reference.4", new Object[] { file.toString() },
                         XMLErrorReporter.SEVERITY_ERROR);
             }
@@ -1074,6 +1102,14 @@ XSLoader, DOMConfiguration {
         catch (XMLConfigurationException e){
             fIsCheckedFully = false;
         }
+        // get the number of threads used for full checking
+        try {
+            Integer threads = (Integer) componentManager.getProperty(SCHEMA_FULL_CHECKING_THREADS);
+            fFullCheckingThreads = (threads != null) ? threads.intValue() : 1;
+        }
+        catch (XMLConfigurationException e) {
+            fFullCheckingThreads = 1;
+        }
         // get generate-synthetic-annotations feature
         try {
             fSchemaHandler.setGenerateSyntheticAnnotations(componentManager.getFeature(GENERATE_SYNTHETIC_ANNOTATIONS));
@@ -1107,7 +1143,7 @@ XSLoader, DOMConfiguration {
                 if (!fGrammarBucket.putGrammar((SchemaGrammar)(initialGrammars[i]), true)) {
                     // REVISIT: a conflict between new grammar(s) and grammars
                     // in the bucket. What to do? A warning? An exception?
-                    fErrorReporter.reportError(XSMessageFormatter.SCHEMA_DOMAIN,
+                    fErrorReporter.report(XSMessageFormatter.SCHEMA_DOMAIN,
                             "GrammarConflict", null,
                             XMLErrorReporter.SEVERITY_WARNING);
                 }
@@ -1209,7 +1245,8 @@ XSLoader, DOMConfiguration {
                 name.equals(GENERATE_SYNTHETIC_ANNOTATIONS) ||
                 name.equals(HONOUR_ALL_SCHEMALOCATIONS) ||
                 name.equals(NAMESPACE_GROWTH) ||
-                name.equals(TOLERATE_DUPLICATES)) {
+                name.equals(TOLERATE_DUPLICATES) ||
+                name.equals(COMPACT_GRAMMARS)) {
                 return true;
                 
             }
@@ -1225,7 +1262,9 @@ XSLoader, DOMConfiguration {
             name.equals(SCHEMA_LOCATION) ||
             name.equals(SCHEMA_NONS_LOCATION) ||
             name.equals(JAXP_SCHEMA_SOURCE) ||
-            name.equals(SCHEMA_DV_FACTORY)) {
+            name.equals(SCHEMA_DV_FACTORY) ||
+            name.equals(SCHEMA_FULL_CHECKING_THREADS) ||
+            name.equals(SCHEMA_CONTENT_MODEL_POLICY)) {
             return true;
         }
         return false;
@@ -1288,6 +1327,7 @@ XSLoader, DOMConfiguration {
             v.add(HONOUR_ALL_SCHEMALOCATIONS);
             v.add(NAMESPACE_GROWTH);
             v.add(TOLERATE_DUPLICATES);
+            v.add(COMPACT_GRAMMARS);
             fRecognizedParameters = new DOMStringListImpl(v);      	
         }
         return fRecognizedParameters;
@@ -19,6 +19,7 @@ package org.apache.xerces.impl.xs;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -29,7 +30,7 @@ import java.util.Vector;
 import javax.xml.XMLConstants;
 
 import org.apache.xerces.impl.Constants;
-import org.apache.xerces.impl.RevalidationHandler;
+import org.apache.xerces.impl.SubtreeRevalidationHandler;
 import org.apache.xerces.impl.XMLEntityManager;
 import org.apache.xerces.impl.XMLErrorReporter;
 import org.apache.xerces.impl.dv.DatatypeException;
@@ -77,6 +78,7 @@ import org.apache.xerces.xni.parser.XMLDocumentFilter;
 import org.apache.xerces.xni.parser.XMLDocumentSource;
 import org.apache.xerces.xni.parser.XMLEntityResolver;
 import org.apache.xerces.xni.parser.XMLInputSource;
+import org.apache.xerces.xni.parser.XMLParseException;
 import org.apache.xerces.xs.AttributePSVI;
 import org.apache.xerces.xs.ElementPSVI;
 import org.apache.xerces.xs.ShortList;
@@ -110,7 +112,7 @@ import org.apache.xerces.xs.XSTypeDefinition;
  * @version $Id$
  */
 public class XMLSchemaValidator
-    implements XMLComponent, XMLDocumentFilter, FieldActivator, RevalidationHandler, XSElementDeclHelper {
+    implements XMLComponent, XMLDocumentFilter, FieldActivator, SubtreeRevalidationHandler, XSElementDeclHelper {
 
     //
     // Constants
@@ -202,6 +204,14 @@ public class XMLSchemaValidator
     protected static final String IDENTITY_CONSTRAINT_CHECKING =
         Constants.XERCES_FEATURE_PREFIX + Constants.IDC_CHECKING_FEATURE;
 
+    /** Feature identifier: whether to stop at the first validity error */
+    protected static final String FAIL_FAST =
+        Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_FAIL_FAST_FEATURE;
+
+    /** Feature identifier: whether to keep loaded grammars in a compact form */
+    protected static final String COMPACT_GRAMMARS =
+        Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_COMPACT_GRAMMARS_FEATURE;
+
     // property identifiers
 
     /** Property identifier: symbol table. */
@@ -254,6 +264,18 @@ public class XMLSchemaValidator
     protected static final String SCHEMA_DV_FACTORY = 
         Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_DV_FACTORY_PROPERTY;
     
+    /** Property identifier: schema full checking threads */
+    protected static final String SCHEMA_FULL_CHECKING_THREADS = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_FULL_CHECKING_THREADS_PROPERTY;
+    
+    /** Property identifier: schema content model policy */
+    protected static final String SCHEMA_CONTENT_MODEL_POLICY = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_CONTENT_MODEL_POLICY_PROPERTY;
+    
+    /** Property identifier: schema location cache */
+    protected static final String SCHEMA_LOCATION_CACHE = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_LOCATION_CACHE_PROPERTY;
+    
     // recognized features and properties
 
     /** Recognized features. */
@@ -275,7 +297,9 @@ public class XMLSchemaValidator
             IDENTITY_CONSTRAINT_CHECKING,
             UNPARSED_ENTITY_CHECKING,
             NAMESPACE_GROWTH,
-            TOLERATE_DUPLICATES
+            TOLERATE_DUPLICATES,
+            FAIL_FAST,
+            COMPACT_GRAMMARS
         };
 
 
@@ -306,6 +330,8 @@ public class XMLSchemaValidator
         null,
         null,
         null,
+        null,
+        null,
         null
     };
 
@@ -323,11 +349,14 @@ public class XMLSchemaValidator
             ROOT_TYPE_DEF,
             ROOT_ELEMENT_DECL,
             SCHEMA_DV_FACTORY,
+            SCHEMA_FULL_CHECKING_THREADS,
+            SCHEMA_CONTENT_MODEL_POLICY,
+            SCHEMA_LOCATION_CACHE,
         };
 
     /** Property defaults. */
     private static final Object[] PROPERTY_DEFAULTS =
-        { null, null, null, null, null, null, null, null, null, null, null};
+        { null, null, null, null, null, null, null, null, null, null, null, null, null, null};
 
     // this is the number of valuestores of each kind
     // we expect an element to have.  It's almost
@@ -365,6 +394,7 @@ public class XMLSchemaValidator
     protected boolean fSchemaDynamicValidation = false;
     protected boolean fDoValidation = false;
     protected boolean fFullChecking = false;
+    protected int fFullCheckingThreads = 1;
     protected boolean fNormalizeData = true;
     protected boolean fSchemaElementDefault = true;
     protected boolean fAugPSVI = true;
@@ -401,7 +431,8 @@ public class XMLSchemaValidator
         // the error reporter property
         XMLErrorReporter fErrorReporter;
 
-        // store error codes; starting position of the errors for each element;
+        // store error codes and the exceptions whose messages are the error
+        // messages; starting position of the errors for each element;
         // number of element (depth); and whether to record error
         Vector fErrors = new Vector();
         int[] fContext = new int[INITIAL_STACK_SIZE];
@@ -417,7 +448,7 @@ public class XMLSchemaValidator
         // should be called when starting process an element or an attribute.
         // store the starting position for the current context
         public void pushContext() {
-            if (!fAugPSVI) {
+            if (!fAugPSVI || fFailFast) {
                 return;
             }
             // resize array if necessary
@@ -433,7 +464,20 @@ public class XMLSchemaValidator
 
         // should be called on endElement: get all errors of the current element
         public String[] popContext() {
-            if (!fAugPSVI) {
+            return format(popErrors());
+        }
+
+        // should be called when an attribute is done: get all errors of
+        // this attribute, but leave the errors to the containing element
+        // also called after an element was strictly assessed.
+        public String[] mergeContext() {
+            return format(mergeErrors());
+        }
+
+        // same as popContext, but returns the error codes and the exceptions
+        // whose messages are the error messages, without formatting them
+        Object[] popErrors() {
+            if (!fAugPSVI || fFailFast) {
                 return null;
             }
             // get starting position of the current element
@@ -443,21 +487,20 @@ public class XMLSchemaValidator
             // if no errors, return null
             if (size == 0)
                 return null;
-            // copy errors from the list to an string array
-            String[] errors = new String[size];
+            // copy errors from the list to an array
+            Object[] errors = new Object[size];
             for (int i = 0; i < size; i++) {
-                errors[i] = (String) fErrors.elementAt(contextPos + i);
+                errors[i] = fErrors.elementAt(contextPos + i);
             }
             // remove errors of the current element
             fErrors.setSize(contextPos);
             return errors;
         }
 
-        // should be called when an attribute is done: get all errors of
-        // this attribute, but leave the errors to the containing element
-        // also called after an element was strictly assessed.
-        public String[] mergeContext() {
-            if (!fAugPSVI) {
+        // same as mergeContext, but returns the error codes and the exceptions
+        // whose messages are the error messages, without formatting them
+        Object[] mergeErrors() {
+            if (!fAugPSVI || fFailFast) {
                 return null;
             }
             // get starting position of the current element
@@ -467,22 +510,38 @@ public class XMLSchemaValidator
             // if no errors, return null
             if (size == 0)
                 return null;
-            // copy errors from the list to an string array
-            String[] errors = new String[size];
+            // copy errors from the list to an array
+            Object[] errors = new Object[size];
             for (int i = 0; i < size; i++) {
-                errors[i] = (String) fErrors.elementAt(contextPos + i);
+                errors[i] = fErrors.elementAt(contextPos + i);
             }
             // don't resize the vector: leave the errors for this attribute
             // to the containing element
             return errors;
         }
 
+        // format the messages of errors returned by popErrors or mergeErrors
+        private String[] format(Object[] errors) {
+            if (errors == null) {
+                return null;
+            }
+            String[] formatted = new String[errors.length];
+            for (int i = 0; i < errors.length; i += 2) {
+                formatted[i] = (String) errors[i];
+                formatted[i + 1] = ((Exception) errors[i + 1]).getMessage();
+            }
+            return formatted;
+        }
+
         public void reportError(String domain, String key, Object[] arguments, short severity)
             throws XNIException {
-            String message = fErrorReporter.reportError(domain, key, arguments, severity);
+            failFast(fErrorReporter.getDocumentLocator(), domain, key, arguments, severity);
+            XMLParseException exception = fErrorReporter.report(fErrorReporter.getDocumentLocator(), 
+                    domain, key, arguments, severity, null);
             if (fAugPSVI) {
+                // the message is formatted if it is requested from the PSVI
                 fErrors.addElement(key);
-                fErrors.addElement(message);
+                fErrors.addElement(exception);
             }
         } // reportError(String,String,Object[],short)
 
@@ -493,12 +552,29 @@ public class XMLSchemaValidator
             Object[] arguments,
             short severity)
             throws XNIException {
-            String message = fErrorReporter.reportError(location, domain, key, arguments, severity);
+            failFast(location, domain, key, arguments, severity);
+            XMLParseException exception = fErrorReporter.report(location, 
+                    domain, key, arguments, severity, null);
             if (fAugPSVI) {
                 fErrors.addElement(key);
-                fErrors.addElement(message);
+                fErrors.addElement(exception);
             }
         } // reportError(XMLLocator,String,String,Object[],short)
+
+        // if validation fails fast, stops the parse at a validity error
+        // without reporting it to the error handler or recording it
+        public void failFast(
+            XMLLocator location,
+            String domain,
+            String key,
+            Object[] arguments,
+            short severity)
+            throws XNIException {
+            if (fFailFast && severity == XMLErrorReporter.SEVERITY_ERROR) {
+                throw new ValidationAbortedException(location, domain, key, arguments, 
+                        severity, fErrorReporter.getMessageFormatter(domain), fErrorReporter.getLocale());
+            }
+        } // failFast(XMLLocator,String,String,Object[],short)
     }
 
     /** Error reporter. */
@@ -512,6 +588,9 @@ public class XMLSchemaValidator
     protected ConfigurableValidationState fValidationState = new ConfigurableValidationState();
     protected XMLGrammarPool fGrammarPool;
 
+    /** Cache of the grammars loaded from schema location hints, or null. */
+    protected SchemaLocationCache fSchemaLocationCache;
+
     // schema location property values
     protected String fExternalSchemas = null;
     protected String fExternalNoNamespaceSchema = null;
@@ -1009,6 +1088,126 @@ public class XMLSchemaValidator
         // no-op
     }
 
+    //
+    // SubtreeRevalidationHandler methods
+    //
+
+    public void startContent() {
+        startRecording();
+        if (fElementDepth < 0) {
+            return;
+        }
+        ensureContentStackCapacity();
+        // Only content which is validated, and which need not be kept
+        // in fBuffer for validating the element's value, can be recorded.
+        fContentEvents[fElementDepth] = (fSkipValidationDepth < 0 && !fAppendBuffer) ? fUnrecordableEvents : -1;
+        fContentIds[fElementDepth] = fValidationState.getIdLog().size();
+        fContentIdRefs[fElementDepth] = fValidationState.getIdRefLog().size();
+        fContentValues[fElementDepth] = fValueLog.size();
+        fContentNFullDepths[fElementDepth] = fNFullValidationDepth;
+        fContentNNoneDepths[fElementDepth] = fNNoneValidationDepth;
+    } // startContent()
+
+    public Object endContent() {
+        // the content can't be recorded if it caused any of the
+        // events whose effect isn't recorded
+        if (fElementDepth < 0 || fElementDepth >= fContentEvents.length || 
+            fContentEvents[fElementDepth] < 0 ||
+            fContentEvents[fElementDepth] != fUnrecordableEvents) {
+            return null;
+        }
+        Object[] matcherStates = getMatcherStates();
+        if (matcherStates == null) {
+            return null;
+        }
+        ContentRecord record = new ContentRecord();
+        record.fElementDepth = fElementDepth;
+        record.fElemDecl = fCurrentElemDecl;
+        record.fType = fCurrentType;
+        record.fCM = fCurrentCM;
+        record.fNil = fNil;
+        record.fStrictAssess = fStrictAssess;
+        record.fIgnoreXSITypeDepth = fIgnoreXSITypeDepth;
+        record.fMatcherStates = matcherStates;
+        record.fNFullDepthBefore = fContentNFullDepths[fElementDepth];
+        record.fNNoneDepthBefore = fContentNNoneDepths[fElementDepth];
+        record.fCMState = (fCurrCMState != null) ? (int[]) fCurrCMState.clone() : null;
+        record.fSubElement = fSubElement;
+        record.fSawText = fSawText;
+        record.fSawCharacters = fSawCharacters;
+        record.fNFullDepthAfter = fNFullValidationDepth;
+        record.fNNoneDepthAfter = fNNoneValidationDepth;
+        record.fIds = fValidationState.getIdLog();
+        record.fIdStart = fContentIds[fElementDepth];
+        record.fIdEnd = record.fIds.size();
+        record.fIdRefs = fValidationState.getIdRefLog();
+        record.fIdRefStart = fContentIdRefs[fElementDepth];
+        record.fIdRefEnd = record.fIdRefs.size();
+        record.fValues = fValueLog;
+        record.fValueStart = fContentValues[fElementDepth];
+        record.fValueEnd = fValueLog.size();
+        return record;
+    } // endContent():Object
+
+    public boolean skipContent(Object content) {
+        startRecording();
+        ContentRecord record = (ContentRecord) content;
+        // the content must start in the state it was recorded in
+        if (fSkipValidationDepth >= 0 || fAppendBuffer ||
+            record.fElementDepth != fElementDepth ||
+            record.fElemDecl != fCurrentElemDecl ||
+            record.fType != fCurrentType ||
+            record.fCM != fCurrentCM ||
+            record.fNil != fNil ||
+            record.fStrictAssess != fStrictAssess ||
+            record.fIgnoreXSITypeDepth != fIgnoreXSITypeDepth ||
+            record.fNFullDepthBefore != fNFullValidationDepth ||
+            record.fNNoneDepthBefore != fNNoneValidationDepth ||
+            (fCurrCMState == null ? record.fCMState != null : 
+                record.fCMState == null || record.fCMState.length != fCurrCMState.length) ||
+            !sameMatcherStates(record.fMatcherStates)) {
+            return false;
+        }
+        // none of the IDs and identity constraint values it adds
+        // may have been added already
+        for (int i = record.fIdStart; i < record.fIdEnd; i++) {
+            if (fValidationState.isIdDeclared((String) record.fIds.get(i))) {
+                return false;
+            }
+        }
+        for (int i = record.fValueStart; i < record.fValueEnd; i++) {
+            RecordedValues values = (RecordedValues) record.fValues.get(i);
+            ValueStoreBase valueStore =
+                fValueStoreCache.getValueStoreFor(values.fIdentityConstraint, values.fInitialDepth);
+            if (valueStore == null || 
+                (values.fIdentityConstraint.getCategory() != IdentityConstraint.IC_KEYREF &&
+                valueStore.contains(values.fValues, values.fValueTypes, values.fItemValueTypes))) {
+                return false;
+            }
+        }
+        // apply the changes the content made
+        if (fCurrCMState != null) {
+            System.arraycopy(record.fCMState, 0, fCurrCMState, 0, fCurrCMState.length);
+        }
+        fSubElement = record.fSubElement;
+        fSawText = record.fSawText;
+        fSawCharacters = record.fSawCharacters;
+        fNFullValidationDepth = record.fNFullDepthAfter;
+        fNNoneValidationDepth = record.fNNoneDepthAfter;
+        for (int i = record.fIdStart; i < record.fIdEnd; i++) {
+            fValidationState.addId((String) record.fIds.get(i));
+        }
+        for (int i = record.fIdRefStart; i < record.fIdRefEnd; i++) {
+            fValidationState.addIdRef((String) record.fIdRefs.get(i));
+        }
+        for (int i = record.fValueStart; i < record.fValueEnd; i++) {
+            RecordedValues values = (RecordedValues) record.fValues.get(i);
+            fValueStoreCache.getValueStoreFor(values.fIdentityConstraint, values.fInitialDepth).addValues(values);
+            fValueLog.add(values);
+        }
+        return true;
+    } // skipContent(Object):boolean
+
     //
     // XMLDocumentHandler and XMLDTDHandler methods
     //
@@ -1282,6 +1481,9 @@ public class XMLSchemaValidator
     private int fIgnoreXSITypeDepth;
     
     private boolean fIDCChecking;
+    
+    /** Whether to stop the parse at the first validity error. */
+    private boolean fFailFast;
 
     /** temporary validated info */
     private ValidatedInfo fValidatedInfo = new ValidatedInfo();
@@ -1315,6 +1517,45 @@ public class XMLSchemaValidator
     /** Cache of value stores for identity constraint fields. */
     protected ValueStoreCache fValueStoreCache = new ValueStoreCache();
 
+    // subtree revalidation
+
+    /** Whether the effect of element content is being recorded. */
+    private boolean fRecordContent = false;
+
+    /**
+     * Number of events which make the content of the enclosing elements
+     * impossible to record: looking up a schema grammar, reading schema
+     * location hints, and activating identity constraints.
+     */
+    private int fUnrecordableEvents = 0;
+
+    /**
+     * For each depth, fUnrecordableEvents when the content of the element
+     * at that depth started, or -1 if the content can't be recorded.
+     */
+    private int[] fContentEvents = new int[INITIAL_STACK_SIZE];
+
+    /** For each depth, the number of IDs logged when the content started. */
+    private int[] fContentIds = new int[INITIAL_STACK_SIZE];
+
+    /** For each depth, the number of IDREFs logged when the content started. */
+    private int[] fContentIdRefs = new int[INITIAL_STACK_SIZE];
+
+    /** For each depth, the number of values logged when the content started. */
+    private int[] fContentValues = new int[INITIAL_STACK_SIZE];
+
+    /** For each depth, fNFullValidationDepth when the content started. */
+    private int[] fContentNFullDepths = new int[INITIAL_STACK_SIZE];
+
+    /** For each depth, fNNoneValidationDepth when the content started. */
+    private int[] fContentNNoneDepths = new int[INITIAL_STACK_SIZE];
+
+    /** Identity constraint values stored since recording started, in order. */
+    private ArrayList fValueLog = null;
+
+    /** Matcher states of content which can't change any matcher. */
+    private static final Object[] NO_MATCHER_STATES = new Object[0];
+
     //
     // Constructors
     //
@@ -1351,6 +1592,11 @@ public class XMLSchemaValidator
         // cleanup id table
         fValidationState.resetIDTables();
 
+        // stop recording element content
+        fRecordContent = false;
+        fValidationState.setIdIdrefLogging(false);
+        fValueLog = null;
+
         // reset schema loader
         fSchemaLoader.reset(componentManager);
 
@@ -1440,6 +1686,13 @@ public class XMLSchemaValidator
             fFullChecking = false;
         }
 
+        try {
+            Integer threads = (Integer) componentManager.getProperty(SCHEMA_FULL_CHECKING_THREADS);
+            fFullCheckingThreads = (threads != null) ? threads.intValue() : 1;
+        } catch (XMLConfigurationException e) {
+            fFullCheckingThreads = 1;
+        }
+
         try {
             fNormalizeData = componentManager.getFeature(NORMALIZE_DATA);
         } catch (XMLConfigurationException e) {
@@ -1537,6 +1790,13 @@ public class XMLSchemaValidator
             fIDCChecking = true;
         }
         
+        try {
+            fFailFast = componentManager.getFeature(FAIL_FAST);
+        } 
+        catch (XMLConfigurationException e) {
+            fFailFast = false;
+        }
+        
         try {
             fValidationState.setIdIdrefChecking(componentManager.getFeature(ID_IDREF_CHECKING));
         }
@@ -1585,6 +1845,12 @@ public class XMLSchemaValidator
             fGrammarPool = null;
         }
 
+        try {
+            fSchemaLocationCache = (SchemaLocationCache) componentManager.getProperty(SCHEMA_LOCATION_CACHE);
+        } catch (XMLConfigurationException e) {
+            fSchemaLocationCache = null;
+        }
+
         fState4XsiType.setSymbolTable(symbolTable);
         fState4ApplyDefault.setSymbolTable(symbolTable);
 
@@ -1715,6 +1981,100 @@ public class XMLSchemaValidator
 
     } // ensureStackCapacity
 
+    void ensureContentStackCapacity() {
+
+        if (fElementDepth >= fContentEvents.length) {
+            int newSize = fElementDepth + INC_STACK_SIZE;
+            int[] newArray = new int[newSize];
+            System.arraycopy(fContentEvents, 0, newArray, 0, fContentEvents.length);
+            fContentEvents = newArray;
+
+            newArray = new int[newSize];
+            System.arraycopy(fContentIds, 0, newArray, 0, fContentIds.length);
+            fContentIds = newArray;
+
+            newArray = new int[newSize];
+            System.arraycopy(fContentIdRefs, 0, newArray, 0, fContentIdRefs.length);
+            fContentIdRefs = newArray;
+
+            newArray = new int[newSize];
+            System.arraycopy(fContentValues, 0, newArray, 0, fContentValues.length);
+            fContentValues = newArray;
+
+            newArray = new int[newSize];
+            System.arraycopy(fContentNFullDepths, 0, newArray, 0, fContentNFullDepths.length);
+            fContentNFullDepths = newArray;
+
+            newArray = new int[newSize];
+            System.arraycopy(fContentNNoneDepths, 0, newArray, 0, fContentNNoneDepths.length);
+            fContentNNoneDepths = newArray;
+        }
+
+    } // ensureContentStackCapacity
+
+    /** Starts logging what element content adds to the validation state. */
+    private void startRecording() {
+        if (!fRecordContent) {
+            fRecordContent = true;
+            fValidationState.setIdIdrefLogging(true);
+            fValueLog = new ArrayList();
+        }
+    } // startRecording()
+
+    /**
+     * Returns the identity constraint and initial depth of each matcher 
+     * which the content of the current element may change, followed by
+     * its state; or null if the content may change a matcher which has
+     * matched already, or one for a field.
+     */
+    private Object[] getMatcherStates() {
+        int matcherCount = fMatcherStack.getMatcherCount();
+        int count = 0;
+        for (int i = 0; i < matcherCount; i++) {
+            if (!fMatcherStack.getMatcherAt(i).isIdle()) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return NO_MATCHER_STATES;
+        }
+        Object[] states = new Object[count * 3];
+        int j = 0;
+        for (int i = 0; i < matcherCount; i++) {
+            XPathMatcher matcher = fMatcherStack.getMatcherAt(i);
+            if (matcher.isIdle()) {
+                continue;
+            }
+            if (!(matcher instanceof Selector.Matcher)) {
+                return null;
+            }
+            int[] state = matcher.getUnmatchedState();
+            if (state == null) {
+                return null;
+            }
+            Selector.Matcher selMatcher = (Selector.Matcher) matcher;
+            states[j++] = selMatcher.getIdentityConstraint();
+            states[j++] = new Integer(selMatcher.getInitialDepth());
+            states[j++] = state;
+        }
+        return states;
+    } // getMatcherStates():Object[]
+
+    /** Returns true if the matchers are in the given states. */
+    private boolean sameMatcherStates(Object[] states) {
+        Object[] current = getMatcherStates();
+        if (current == null || current.length != states.length) {
+            return false;
+        }
+        for (int i = 0; i < states.length; i += 3) {
+            if (current[i] != states[i] || !current[i + 1].equals(states[i + 1]) ||
+                !Arrays.equals((int[]) current[i + 2], (int[]) states[i + 2])) {
+                return false;
+            }
+        }
+        return true;
+    } // sameMatcherStates(Object[]):boolean
+
     // handle start document
     void handleStartDocument(XMLLocator locator, String encoding) {
         if (fIDCChecking) {
@@ -2142,7 +2502,13 @@ public class XMLSchemaValidator
                 // reporting it as an error for historical reasons, but in
                 // PSVI, we shouldn't mark this element as invalid because
                 // of this. - SG
-                fXSIErrorReporter.fErrorReporter.reportError(
+                fXSIErrorReporter.failFast(
+                    fXSIErrorReporter.fErrorReporter.getDocumentLocator(),
+                    XSMessageFormatter.SCHEMA_DOMAIN,
+                    "cvc-elt.1.a",
+                    new Object[] { element.rawname },
+                    XMLErrorReporter.SEVERITY_ERROR);
+                fXSIErrorReporter.fErrorReporter.report(
                     XSMessageFormatter.SCHEMA_DOMAIN,
                     "cvc-elt.1.a",
                     new Object[] { element.rawname },
@@ -2288,10 +2654,11 @@ public class XMLSchemaValidator
         if (fIDCChecking) {
             // activate identity constraints
             fValueStoreCache.startElement();
-            fMatcherStack.pushContext();
+            fMatcherStack.pushContext(element);
             //if (fCurrentElemDecl != null && fCurrentElemDecl.fIDCPos > 0 && !fIgnoreIDC) {
             if (fCurrentElemDecl != null && fCurrentElemDecl.fIDCPos > 0) {
                 fIdConstraint = true;
+                fUnrecordableEvents++;
                 // initialize when identity constrains are defined for the elem
                 fValueStoreCache.initValueStoresFor(fCurrentElemDecl, this);
             }
@@ -2304,11 +2671,7 @@ public class XMLSchemaValidator
         }
 
         // call all active identity constraints
-        int count = fMatcherStack.getMatcherCount();
-        for (int i = 0; i < count; i++) {
-            XPathMatcher matcher = fMatcherStack.getMatcherAt(i);
-            matcher.startElement( element, attributes);
-        }
+        fMatcherStack.startElement(element, attributes);
 
         if (fAugPSVI) {
             augs = getEmptyAugs(augs);
@@ -2373,7 +2736,8 @@ public class XMLSchemaValidator
                     fGrammarBucket,
                     fSubGroupHandler,
                     fCMBuilder,
-                    fXSIErrorReporter.fErrorReporter);
+                    fXSIErrorReporter.fErrorReporter,
+                    fFullCheckingThreads);
             }
 
             if (fAugPSVI)
@@ -2390,26 +2754,23 @@ public class XMLSchemaValidator
             
             // call matchers and de-activate context
             int oldCount = fMatcherStack.getMatcherCount();
-            for (int i = oldCount - 1; i >= 0; i--) {
-                XPathMatcher matcher = fMatcherStack.getMatcherAt(i);
-                if (fCurrentElemDecl == null) {
-                    matcher.endElement(element, fCurrentType, false, fValidatedInfo.actualValue, fValidatedInfo.actualValueType, fValidatedInfo.itemValueTypes);
-                }
-                else {
-                    matcher.endElement(
-                            element,
-                            fCurrentType,
-                            fCurrentElemDecl.getNillable(),
-                            fDefaultValue == null
-                                ? fValidatedInfo.actualValue
-                                : fCurrentElemDecl.fDefault.actualValue,
-                            fDefaultValue == null
-                                ? fValidatedInfo.actualValueType
-                                : fCurrentElemDecl.fDefault.actualValueType,
-                            fDefaultValue == null
-                                ? fValidatedInfo.itemValueTypes
-                                : fCurrentElemDecl.fDefault.itemValueTypes);
-                }
+            if (fCurrentElemDecl == null) {
+                fMatcherStack.endElement(element, fCurrentType, false, fValidatedInfo.actualValue, fValidatedInfo.actualValueType, fValidatedInfo.itemValueTypes);
+            }
+            else {
+                fMatcherStack.endElement(
+                        element,
+                        fCurrentType,
+                        fCurrentElemDecl.getNillable(),
+                        fDefaultValue == null
+                            ? fValidatedInfo.actualValue
+                            : fCurrentElemDecl.fDefault.actualValue,
+                        fDefaultValue == null
+                            ? fValidatedInfo.actualValueType
+                            : fCurrentElemDecl.fDefault.actualValueType,
+                        fDefaultValue == null
+                            ? fValidatedInfo.itemValueTypes
+                            : fCurrentElemDecl.fDefault.itemValueTypes);
             }
             
             if (fMatcherStack.size() > 0) {
@@ -2474,7 +2835,8 @@ public class XMLSchemaValidator
                     fGrammarBucket,
                     fSubGroupHandler,
                     fCMBuilder,
-                    fXSIErrorReporter.fErrorReporter);
+                    fXSIErrorReporter.fErrorReporter,
+                    fFullCheckingThreads);
             }
 
             grammars = fGrammarBucket.getGrammars();
@@ -2570,10 +2932,10 @@ public class XMLSchemaValidator
                 // and subelements (if they were strictly assessed).
                 // any error would make this element invalid.
                 // and we merge these errors to the parent element.
-                String[] errors = fXSIErrorReporter.mergeContext();
+                Object[] errors = fXSIErrorReporter.mergeErrors();
 
                 // PSVI: error codes
-                fCurrentPSVI.fErrors = errors;
+                fCurrentPSVI.setErrors(errors);
                 // PSVI: validity
                 fCurrentPSVI.fValidity =
                     (errors == null) ? ElementPSVI.VALIDITY_VALID : ElementPSVI.VALIDITY_INVALID;
@@ -2583,7 +2945,7 @@ public class XMLSchemaValidator
                 // Discard the current context: ignore any error happened within
                 // the sub-elements/attributes of this element, because those
                 // errors won't affect the validity of the parent elements.
-                fXSIErrorReporter.popContext();
+                fXSIErrorReporter.popErrors();
             }
 
             if (root) {
@@ -2609,6 +2971,9 @@ public class XMLSchemaValidator
     }
 
     void storeLocations(String sLocation, String nsLocation) {
+        if (sLocation != null || nsLocation != null) {
+            fUnrecordableEvents++;
+        }
         if (sLocation != null) {
             if (!XMLSchemaLoader.tokenizeSchemaLocationStr(sLocation, fLocationPairs, fLocator == null ? null : fLocator.getExpandedSystemId())) {
                 // error!
@@ -2647,6 +3012,7 @@ public class XMLSchemaValidator
         QName triggeringComponent,
         XMLAttributes attributes) {
         SchemaGrammar grammar = null;
+        fUnrecordableEvents++;
         //get the grammar from local pool...
         grammar = fGrammarBucket.getGrammar(namespace);
         
@@ -2660,7 +3026,7 @@ public class XMLSchemaValidator
                     if (!fGrammarBucket.putGrammar(grammar, true, fNamespaceGrowth)) {
                         // REVISIT: a conflict between new grammar(s) and grammars
                         // in the bucket. What to do? A warning? An exception?
-                        fXSIErrorReporter.fErrorReporter.reportError(
+                        fXSIErrorReporter.fErrorReporter.report(
                             XSMessageFormatter.SCHEMA_DOMAIN,
                             "GrammarConflict",
                             null,
@@ -2719,12 +3085,19 @@ public class XMLSchemaValidator
                         }
                     }
                     if (toParseSchema) {
-                        grammar = fSchemaLoader.loadSchema(fXSDDescription, xis, fLocationPairs);
+                        SchemaLocationCache.Key key =
+                            (grammar == null) ? getLocationCacheKey(namespace, xis) : null;
+                        if (key != null) {
+                            grammar = loadSchema(key, xis);
+                        }
+                        else {
+                            grammar = fSchemaLoader.loadSchema(fXSDDescription, xis, fLocationPairs);
+                        }
                     }
                 } 
                 catch (IOException ex) {
                     final String [] locationHints = fXSDDescription.getLocationHints();
-                    fXSIErrorReporter.fErrorReporter.reportError(
+                    fXSIErrorReporter.fErrorReporter.report(
                         XSMessageFormatter.SCHEMA_DOMAIN,
                         "schema_reference.4",
                         new Object[] { locationHints != null ? locationHints[0] : XMLSymbols.EMPTY_STRING },
@@ -2736,6 +3109,84 @@ public class XMLSchemaValidator
         return grammar;
 
     } //findSchemaGrammar
+
+    // returns the key of the grammar loaded from the given input source in
+    // the schema location cache, or null if the grammar can't be cached:
+    // grammars are only cached if they are loaded from a schema document
+    // located by its system identifier, and if they can't grow.
+    private SchemaLocationCache.Key getLocationCacheKey(String namespace, XMLInputSource xis) {
+        if (fSchemaLocationCache == null || fNamespaceGrowth ||
+            xis.getClass() != XMLInputSource.class ||
+            xis.getByteStream() != null || xis.getCharacterStream() != null ||
+            xis.getSystemId() == null) {
+            return null;
+        }
+        String systemId;
+        try {
+            systemId = XMLEntityManager.expandSystemId(xis.getSystemId(), xis.getBaseSystemId(), false);
+        }
+        catch (MalformedURIException e) {
+            return null;
+        }
+        // the grammar also depends on the location hints for the
+        // namespaces it imports
+        String[] namespaces = new String[fLocationPairs.size()];
+        fLocationPairs.keySet().toArray(namespaces);
+        Arrays.sort(namespaces);
+        StringBuffer locations = new StringBuffer();
+        for (int i = 0; i < namespaces.length; i++) {
+            XMLSchemaLoader.LocationArray la =
+                (XMLSchemaLoader.LocationArray) fLocationPairs.get(namespaces[i]);
+            locations.append(namespaces[i]).append('\n');
+            for (int j = 0; j < la.getLength(); j++) {
+                locations.append(la.locations[j]).append(' ');
+            }
+            locations.append('\n');
+        }
+        return new SchemaLocationCache.Key(namespace, systemId, locations.toString());
+    } //getLocationCacheKey
+
+    // gets the grammar with the given key from the schema location cache,
+    // or loads it and adds it to the cache if no errors are reported while
+    // loading it. If another validator is loading the grammar, waits for it.
+    private SchemaGrammar loadSchema(SchemaLocationCache.Key key, XMLInputSource xis) throws IOException {
+        SchemaGrammar grammar = fSchemaLocationCache.get(key);
+        if (grammar != null) {
+            // put this grammar into the bucket, along with grammars
+            // imported by it (directly or indirectly)
+            if (fGrammarBucket.putGrammar(grammar, true, fNamespaceGrowth)) {
+                return grammar;
+            }
+            fXSIErrorReporter.fErrorReporter.report(
+                XSMessageFormatter.SCHEMA_DOMAIN,
+                "GrammarConflict",
+                null,
+                XMLErrorReporter.SEVERITY_WARNING);
+            return fSchemaLoader.loadSchema(fXSDDescription, xis, fLocationPairs);
+        }
+        SchemaGrammar cachedGrammar = null;
+        try {
+            final int errorCount = fXSIErrorReporter.fErrorReporter.getErrorCount();
+            grammar = fSchemaLoader.loadSchema(fXSDDescription, xis, fLocationPairs);
+            // full checking modifies the grammars, so it has to be done
+            // before they are shared, and its errors keep them out of the cache
+            if (grammar != null && fFullChecking) {
+                XSConstraints.fullSchemaChecking(
+                    fGrammarBucket,
+                    fSubGroupHandler,
+                    fCMBuilder,
+                    fXSIErrorReporter.fErrorReporter,
+                    fFullCheckingThreads);
+            }
+            if (fXSIErrorReporter.fErrorReporter.getErrorCount() == errorCount) {
+                cachedGrammar = grammar;
+            }
+        }
+        finally {
+            fSchemaLocationCache.loaded(key, cachedGrammar);
+        }
+        return grammar;
+    } //loadSchema
     
     private boolean hasSchemaComponent(SchemaGrammar grammar, short contextType, QName triggeringComponent) {
         if (grammar != null && triggeringComponent != null) {
@@ -3174,9 +3625,9 @@ public class XMLSchemaValidator
             // We have seen an attribute that was declared.
             fNNoneValidationDepth = fElementDepth;
             
-            String[] errors = fXSIErrorReporter.mergeContext();
+            Object[] errors = fXSIErrorReporter.mergeErrors();
             // PSVI: error codes
-            attrPSVI.fErrors = errors;
+            attrPSVI.setErrors(errors);
             // PSVI: validity
             attrPSVI.fValidity =
                 (errors == null) ? AttributePSVI.VALIDITY_VALID : AttributePSVI.VALIDITY_INVALID;
@@ -3605,6 +4056,20 @@ public class XMLSchemaValidator
 
     /**
      * Stack of XPath matchers for identity constraints.
+     * <p>
+     * A matcher which is idle when an element starts, because the
+     * element and its descendants can't change its state, is not called
+     * for the element or for any of its descendants. A matcher whose
+     * paths all wait, on a descendant step, for an element with a given
+     * local name (for instance the selector <code>.//item</code>) is
+     * registered under these names, and is only called for the elements
+     * which have one of them, until its state changes. The other matchers
+     * which are not idle are called for every element. For each element,
+     * the stack keeps the indexes of the matchers created for ancestors
+     * of the element which are called for it, so the cost of an element
+     * depends on the number of matchers which may change state in its
+     * context, rather than on the number of identity constraints in
+     * scope.
      *
      * @author Andy Clark, IBM
      */
@@ -3623,6 +4088,39 @@ public class XMLSchemaValidator
         /** Offset stack for contexts. */
         protected IntStack fContextStack = new IntStack();
 
+        /**
+         * For each context, the indexes of the matchers of enclosing
+         * contexts which are called for the element of the context.
+         */
+        private int[] fCalled = new int[8];
+
+        /** Count of matcher indexes in <code>fCalled</code>. */
+        private int fCalledCount;
+
+        /** Offset stack of the contexts in <code>fCalled</code>. */
+        private final IntStack fCalledStack = new IntStack();
+
+        /** Registered matchers, by the local names they wait for. */
+        private final HashMap fWaiting = new HashMap();
+
+        /**
+         * For each active matcher, the local names under which it is
+         * registered, or null.
+         */
+        private String[][] fWaitingNames = new String[4][];
+
+        /** Matchers whose registration changed, in order. */
+        private int[] fLogMatchers = new int[8];
+
+        /** Previous registrations of the matchers in <code>fLogMatchers</code>. */
+        private String[][] fLogNames = new String[8][];
+
+        /** Count of entries in the registration log. */
+        private int fLogCount;
+
+        /** Offset stack of the contexts in the registration log. */
+        private final IntStack fLogStack = new IntStack();
+
         //
         // Constructors
         //
@@ -3638,9 +4136,18 @@ public class XMLSchemaValidator
         public void clear() {
             for (int i = 0; i < fMatchersCount; i++) {
                 fMatchers[i] = null;
+                fWaitingNames[i] = null;
             }
             fMatchersCount = 0;
             fContextStack.clear();
+            fCalledCount = 0;
+            fCalledStack.clear();
+            fWaiting.clear();
+            for (int i = 0; i < fLogCount; i++) {
+                fLogNames[i] = null;
+            }
+            fLogCount = 0;
+            fLogStack.clear();
         } // clear()
 
         /** Returns the size of the stack. */
@@ -3664,29 +4171,245 @@ public class XMLSchemaValidator
             return fMatchers[index];
         } // getMatcherAt(index):XPathMatcher
 
-        /** Pushes a new context onto the stack. */
-        public void pushContext() {
+        /**
+         * Pushes a new context onto the stack, for the given element.
+         * The matchers of enclosing contexts which are idle are not 
+         * called for the element of the new context, nor for the elements
+         * of nested contexts, and the matchers waiting for elements with
+         * other local names are not called for the element.
+         */
+        public void pushContext(QName element) {
+            // the matchers called for the element of the parent context,
+            // and the matchers added in the parent context
+            int calledStart = 0;
+            int calledEnd = 0;
+            int addedStart = 0;
+            if (fContextStack.size() > 0) {
+                calledStart = fCalledStack.peek();
+                calledEnd = fCalledCount;
+                addedStart = fContextStack.peek();
+            }
+            ensureCalledCapacity(calledEnd - calledStart + fMatchersCount - addedStart);
+            fCalledStack.push(fCalledCount);
+            fLogStack.push(fLogCount);
+            for (int i = calledStart; i < calledEnd; i++) {
+                classifyMatcher(fCalled[i]);
+            }
+            for (int i = addedStart; i < fMatchersCount; i++) {
+                classifyMatcher(i);
+            }
+            // add the matchers waiting for this element, keeping the
+            // indexes in ascending order
+            WaitingMatchers waiting = (WaitingMatchers) fWaiting.get(element.localpart);
+            if (waiting != null && waiting.count > 0) {
+                ensureCalledCapacity(waiting.count);
+                final int start = fCalledStack.peek();
+                int i = fCalledCount - 1;
+                int j = waiting.count - 1;
+                int k = fCalledCount + waiting.count - 1;
+                while (j >= 0) {
+                    if (i >= start && fCalled[i] > waiting.matchers[j]) {
+                        fCalled[k--] = fCalled[i--];
+                    }
+                    else {
+                        fCalled[k--] = waiting.matchers[j--];
+                    }
+                }
+                fCalledCount += waiting.count;
+            }
             fContextStack.push(fMatchersCount);
-        } // pushContext()
+        } // pushContext(QName)
 
         /** Pops a context off of the stack. */
         public void popContext() {
             fMatchersCount = fContextStack.pop();
+            fCalledCount = fCalledStack.pop();
+            final int logStart = fLogStack.pop();
+            for (int i = fLogCount - 1; i >= logStart; i--) {
+                final int index = fLogMatchers[i];
+                register(index, fLogNames[i]);
+                fLogNames[i] = null;
+            }
+            fLogCount = logStart;
         } // popContext()
 
+        /**
+         * Calls the matchers for the start of the element of the current
+         * context: the matchers of enclosing contexts which are called for
+         * it, and the matchers added in the current context so far.
+         */
+        public void startElement(QName element, XMLAttributes attributes) {
+            final int count = fMatchersCount;
+            int i = 0;
+            if (fContextStack.size() > 0) {
+                for (int j = fCalledStack.peek(); j < fCalledCount; j++) {
+                    fMatchers[fCalled[j]].startElement(element, attributes);
+                }
+                i = fContextStack.peek();
+            }
+            for (; i < count; i++) {
+                fMatchers[i].startElement(element, attributes);
+            }
+        } // startElement(QName,XMLAttributes)
+
+        /**
+         * Calls the matchers for the end of the element of the current
+         * context, in the reverse order of <code>startElement</code>.
+         */
+        public void endElement(QName element, XSTypeDefinition type, boolean nillable,
+                Object actualValue, short valueType, ShortList itemValueType) {
+            int end = 0;
+            if (fContextStack.size() > 0) {
+                end = fContextStack.peek();
+            }
+            for (int i = fMatchersCount - 1; i >= end; i--) {
+                fMatchers[i].endElement(element, type, nillable, actualValue, valueType, itemValueType);
+            }
+            if (fContextStack.size() > 0) {
+                for (int j = fCalledCount - 1; j >= fCalledStack.peek(); j--) {
+                    fMatchers[fCalled[j]].endElement(element, type, nillable, actualValue, valueType, itemValueType);
+                }
+            }
+        } // endElement(QName,XSTypeDefinition,boolean,Object,short,ShortList)
+
         //
         // Private methods
         //
 
+        /**
+         * Decides how the matcher at the given index is called for the
+         * element of the context being pushed: for every element, only
+         * for elements with the local names it waits for, or not at all.
+         */
+        private void classifyMatcher(int index) {
+            final XPathMatcher matcher = fMatchers[index];
+            final int count = matcher.getWaitingNameCount();
+            if (count < 0) {
+                fCalled[fCalledCount++] = index;
+                changeRegistration(index, null);
+            }
+            else if (count == 0) {
+                changeRegistration(index, null);
+            }
+            else {
+                String[] names = fWaitingNames[index];
+                boolean same = names != null && names.length == count;
+                for (int i = 0; same && i < count; i++) {
+                    same = names[i] == matcher.getWaitingName(i);
+                }
+                if (!same) {
+                    names = new String[count];
+                    for (int i = 0; i < count; i++) {
+                        names[i] = matcher.getWaitingName(i);
+                    }
+                    changeRegistration(index, names);
+                }
+            }
+        } // classifyMatcher(int)
+
+        /**
+         * Registers the matcher at the given index under the given names,
+         * recording the previous registration so that it is restored
+         * when the current context is popped.
+         */
+        private void changeRegistration(int index, String[] names) {
+            if (fWaitingNames[index] == names) {
+                return;
+            }
+            if (fLogCount == fLogMatchers.length) {
+                int[] matchers = new int[fLogCount * 2];
+                System.arraycopy(fLogMatchers, 0, matchers, 0, fLogCount);
+                fLogMatchers = matchers;
+                String[][] logNames = new String[fLogCount * 2][];
+                System.arraycopy(fLogNames, 0, logNames, 0, fLogCount);
+                fLogNames = logNames;
+            }
+            fLogMatchers[fLogCount] = index;
+            fLogNames[fLogCount++] = fWaitingNames[index];
+            register(index, names);
+        } // changeRegistration(int,String[])
+
+        /** Registers the matcher at the given index under the given names. */
+        private void register(int index, String[] names) {
+            final String[] oldNames = fWaitingNames[index];
+            if (oldNames != null) {
+                for (int i = 0; i < oldNames.length; i++) {
+                    ((WaitingMatchers) fWaiting.get(oldNames[i])).remove(index);
+                }
+            }
+            if (names != null) {
+                for (int i = 0; i < names.length; i++) {
+                    WaitingMatchers waiting = (WaitingMatchers) fWaiting.get(names[i]);
+                    if (waiting == null) {
+                        waiting = new WaitingMatchers();
+                        fWaiting.put(names[i], waiting);
+                    }
+                    waiting.add(index);
+                }
+            }
+            fWaitingNames[index] = names;
+        } // register(int,String[])
+
         /** Ensures the size of the matchers array. */
         private void ensureMatcherCapacity() {
             if (fMatchersCount == fMatchers.length) {
                 XPathMatcher[] array = new XPathMatcher[fMatchers.length * 2];
                 System.arraycopy(fMatchers, 0, array, 0, fMatchers.length);
                 fMatchers = array;
+                String[][] names = new String[fMatchers.length][];
+                System.arraycopy(fWaitingNames, 0, names, 0, fWaitingNames.length);
+                fWaitingNames = names;
             }
         } // ensureMatcherCapacity()
 
+        /** Ensures there is room for more matcher indexes in <code>fCalled</code>. */
+        private void ensureCalledCapacity(int more) {
+            if (fCalledCount + more > fCalled.length) {
+                int[] array = new int[Math.max(fCalled.length * 2, fCalledCount + more)];
+                System.arraycopy(fCalled, 0, array, 0, fCalledCount);
+                fCalled = array;
+            }
+        } // ensureCalledCapacity(int)
+
+        //
+        // Classes
+        //
+
+        /** 
+         * Indexes of the matchers waiting for elements with some local 
+         * name, in ascending order. 
+         */
+        private static final class WaitingMatchers {
+
+            int[] matchers = new int[4];
+            int count;
+
+            void add(int index) {
+                if (count == matchers.length) {
+                    int[] array = new int[count * 2];
+                    System.arraycopy(matchers, 0, array, 0, count);
+                    matchers = array;
+                }
+                int i = count;
+                while (i > 0 && matchers[i - 1] > index) {
+                    matchers[i] = matchers[i - 1];
+                    i--;
+                }
+                matchers[i] = index;
+                count++;
+            } // add(int)
+
+            void remove(int index) {
+                int i = 0;
+                while (matchers[i] != index) {
+                    i++;
+                }
+                System.arraycopy(matchers, i + 1, matchers, i, count - i - 1);
+                count--;
+            } // remove(int)
+
+        } // class WaitingMatchers
+
     } // class XPathMatcherStack
 
     // value store implementations
@@ -3705,6 +4428,8 @@ public class XMLSchemaValidator
 
         /** Identity constraint. */
         protected IdentityConstraint fIdentityConstraint;
+        /** Depth of the element the identity constraint is declared on. */
+        protected int fInitialDepth;
         protected int fFieldCount = 0;
         protected Field[] fFields = null;
         /** current data */
@@ -3893,13 +4618,35 @@ public class XMLSchemaValidator
                     addValueType(fLocalValueTypes[i]);
                     addItemValueType(fLocalItemValueTypes[i]);
                 }
+                if (fValueLog != null) {
+                    fValueLog.add(new RecordedValues(fIdentityConstraint, fInitialDepth, 
+                            fLocalValues, fLocalValueTypes, fLocalItemValueTypes));
+                }
             }
         } // addValue(String,Field)
 
+        /**
+         * Stores values recorded by addValue, without checking them. 
+         */
+        void addValues(RecordedValues values) {
+            for (int i = 0; i < fFieldCount; i++) {
+                fValues.addElement(values.fValues[i]);
+                addValueType(values.fValueTypes[i]);
+                addItemValueType(values.fItemValueTypes[i]);
+            }
+        } // addValues(RecordedValues)
+
         /**
          * Returns true if this value store contains the locally scoped value stores
          */
         public boolean contains() {
+            return contains(fLocalValues, fLocalValueTypes, fLocalItemValueTypes);
+        } // contains():boolean
+
+        /**
+         * Returns true if this value store contains the specified values
+         */
+        public boolean contains(Object[] values, short[] valueTypes, ShortList[] itemValueTypes) {
             // REVISIT: we can improve performance by using hash codes, instead of
             // traversing global vector that could be quite large.
             int next = 0;
@@ -3907,15 +4654,15 @@ public class XMLSchemaValidator
             LOOP : for (int i = 0; i < size; i = next) {
                 next = i + fFieldCount;
                 for (int j = 0; j < fFieldCount; j++) {
-                    Object value1 = fLocalValues[j];
+                    Object value1 = values[j];
                     Object value2 = fValues.elementAt(i);
-                    short valueType1 = fLocalValueTypes[j];
+                    short valueType1 = valueTypes[j];
                     short valueType2 = getValueTypeAt(i);
                     if (value1 == null || value2 == null || valueType1 != valueType2 || !(value1.equals(value2))) {
                         continue LOOP;
                     }
                     else if(valueType1 == XSConstants.LIST_DT || valueType1 == XSConstants.LISTOFUNION_DT) {
-                        ShortList list1 = fLocalItemValueTypes[j];
+                        ShortList list1 = itemValueTypes[j];
                         ShortList list2 = getItemValueTypeAt(i);
                         if(list1 == null || list2 == null || !list1.equals(list2))
                             continue LOOP;
@@ -3927,7 +4674,7 @@ public class XMLSchemaValidator
             }
             // didn't find it
             return false;
-        } // contains():boolean
+        } // contains(Object[],short[],ShortList[]):boolean
 
         /**
          * Returns -1 if this value store contains the specified
@@ -4402,6 +5149,7 @@ public class XMLSchemaValidator
                             (UniqueValueStore) fIdentityConstraint2ValueStoreMap.get(toHash);
                         if (uniqueValueStore == null) {
                             uniqueValueStore = new UniqueValueStore(unique);
+                            uniqueValueStore.fInitialDepth = fElementDepth;
                             fIdentityConstraint2ValueStoreMap.put(toHash, uniqueValueStore);
                         } else {
                             uniqueValueStore.clear();
@@ -4417,6 +5165,7 @@ public class XMLSchemaValidator
                             (KeyValueStore) fIdentityConstraint2ValueStoreMap.get(toHash);
                         if (keyValueStore == null) {
                             keyValueStore = new KeyValueStore(key);
+                            keyValueStore.fInitialDepth = fElementDepth;
                             fIdentityConstraint2ValueStoreMap.put(toHash, keyValueStore);
                         } else {
                             keyValueStore.clear();
@@ -4432,6 +5181,7 @@ public class XMLSchemaValidator
                             (KeyRefValueStore) fIdentityConstraint2ValueStoreMap.get(toHash);
                         if (keyRefValueStore == null) {
                             keyRefValueStore = new KeyRefValueStore(keyRef, null);
+                            keyRefValueStore.fInitialDepth = fElementDepth;
                             fIdentityConstraint2ValueStoreMap.put(toHash, keyRefValueStore);
                         } else {
                             keyRefValueStore.clear();
@@ -4506,6 +5256,68 @@ public class XMLSchemaValidator
 
     } // class ValueStoreCache
 
+    /**
+     * The values of a tuple stored for an identity constraint, as 
+     * recorded while recording element content.
+     */
+    private static final class RecordedValues {
+
+        final IdentityConstraint fIdentityConstraint;
+        final int fInitialDepth;
+        final Object[] fValues;
+        final short[] fValueTypes;
+        final ShortList[] fItemValueTypes;
+
+        RecordedValues(IdentityConstraint id, int initialDepth, 
+                Object[] values, short[] valueTypes, ShortList[] itemValueTypes) {
+            fIdentityConstraint = id;
+            fInitialDepth = initialDepth;
+            fValues = (Object[]) values.clone();
+            fValueTypes = (short[]) valueTypes.clone();
+            fItemValueTypes = (ShortList[]) itemValueTypes.clone();
+        }
+    } // class RecordedValues
+
+    /**
+     * The effect of the content of an element: the state the validator
+     * was in when the content started, the state the content left it in,
+     * and the ranges of the logs holding the IDs, IDREFs and identity 
+     * constraint values the content added.
+     */
+    private static final class ContentRecord {
+
+        // state when the content starts
+        int fElementDepth;
+        XSElementDecl fElemDecl;
+        XSTypeDefinition fType;
+        XSCMValidator fCM;
+        boolean fNil;
+        boolean fStrictAssess;
+        int fIgnoreXSITypeDepth;
+        int fNFullDepthBefore;
+        int fNNoneDepthBefore;
+        Object[] fMatcherStates;
+
+        // state when the content ends
+        int[] fCMState;
+        boolean fSubElement;
+        boolean fSawText;
+        boolean fSawCharacters;
+        int fNFullDepthAfter;
+        int fNNoneDepthAfter;
+
+        // what the content added
+        ArrayList fIds;
+        int fIdStart;
+        int fIdEnd;
+        ArrayList fIdRefs;
+        int fIdRefStart;
+        int fIdRefEnd;
+        ArrayList fValues;
+        int fValueStart;
+        int fValueEnd;
+    } // class ContentRecord
+
     // the purpose of this class is to enable IdentityConstraint,int
     // pairs to be used easily as keys in Hashtables.
     protected static final class LocalIDKey {
@@ -46,9 +46,11 @@ public class XSAttributeGroupDecl implements XSAttributeGroupDefinition {
     public String fTargetNamespace = null;
     // number of attribute uses included by this attribute group
     int fAttrUseNum = 0;
-    // attribute uses included by this attribute group
+    // attribute uses included by this attribute group; groups without
+    // attribute uses share an empty array
     private static final int INITIAL_SIZE = 5;
-    XSAttributeUseImpl[] fAttributeUses = new XSAttributeUseImpl[INITIAL_SIZE];
+    private static final XSAttributeUseImpl[] NO_ATTRIBUTE_USES = new XSAttributeUseImpl[0];
+    XSAttributeUseImpl[] fAttributeUses = NO_ATTRIBUTE_USES;
     // attribute wildcard included by this attribute group
     public XSWildcardDecl fAttributeWC = null;
     // whether there is an attribute use whose type is or is derived from ID.
@@ -84,7 +86,7 @@ public class XSAttributeGroupDecl implements XSAttributeGroupDefinition {
         }
 
         if (fAttrUseNum == fAttributeUses.length) {
-            fAttributeUses = resize(fAttributeUses, fAttrUseNum*2);
+            fAttributeUses = resize(fAttributeUses, fAttrUseNum == 0 ? INITIAL_SIZE : fAttrUseNum*2);
         }
         fAttributeUses[fAttrUseNum++] = attrUse;
 
@@ -130,7 +132,7 @@ public class XSAttributeGroupDecl implements XSAttributeGroupDefinition {
                 uses[count++] = fAttributeUses[i];
             }
         }
-        fAttributeUses = uses;
+        fAttributeUses = (count < fAttrUseNum) ? resize(uses, count) : uses;
         fAttrUseNum = count;
 
         // Do not remove attributes that have the same name as the prohibited
@@ -79,11 +79,16 @@ public class XSComplexTypeDecl implements XSComplexTypeDefinition, TypeInfo {
     // if the content type is element or mixed, the particle
     XSParticleDecl fParticle = null;
 
-    // if there is a particle, the content model corresponding to that particle
-    XSCMValidator fCMValidator = null;
+    // if there is a particle, the content model corresponding to that particle,
+    // as held by the content model cache
+    private volatile Object fCMValidator = null;
 
-    // the content model that's sufficient for computing UPA
-    XSCMValidator fUPACMValidator = null;
+    // the content model that's sufficient for computing UPA, as held by the
+    // content model cache
+    private volatile Object fUPACMValidator = null;
+
+    // the content model cache of the grammar this type belongs to, or null
+    ContentModelCache fContentModels = null;
 
     // list of annotations affiliated with this type
     XSObjectListImpl fAnnotations = null;
@@ -168,24 +173,52 @@ public class XSComplexTypeDecl implements XSComplexTypeDefinition, TypeInfo {
         return getContentModel(cmBuilder, false);
     }
 
-    public synchronized XSCMValidator getContentModel(CMBuilder cmBuilder, boolean forUPA) {
-        if (fCMValidator == null) {
-            if (forUPA) {
-                if (fUPACMValidator == null) {
-                    fUPACMValidator = cmBuilder.getContentModel(this, true);
+    public XSCMValidator getContentModel(CMBuilder cmBuilder, boolean forUPA) {
+        // the content model is built once and then read without locking
+        XSCMValidator cm = ContentModelCache.get(fCMValidator);
+        if (cm == null && forUPA) {
+            cm = ContentModelCache.get(fUPACMValidator);
+        }
+        return (cm != null) ? cm : buildContentModel(cmBuilder, forUPA);
+    }
 
-                    if (fUPACMValidator != null && !fUPACMValidator.isCompactedForUPA()) {
-                        fCMValidator = fUPACMValidator;
+    private synchronized XSCMValidator buildContentModel(CMBuilder cmBuilder, boolean forUPA) {
+        // another thread may have built the content model in the meantime
+        XSCMValidator cm = ContentModelCache.get(fCMValidator);
+        if (cm != null) {
+            return cm;
+        }
+        if (forUPA) {
+            cm = ContentModelCache.get(fUPACMValidator);
+            if (cm == null) {
+                cm = cmBuilder.getContentModel(this, true);
+                if (cm != null) {
+                    if (cm.isCompactedForUPA()) {
+                        fUPACMValidator = hold(cm);
+                    }
+                    else {
+                        fCMValidator = hold(cm);
                     }
                 }
-                return fUPACMValidator;
             }
-            else {
-                fCMValidator = cmBuilder.getContentModel(this, false);
+            return cm;
+        }
+        cm = cmBuilder.getContentModel(this, false);
+        if (cm != null) {
+            fCMValidator = hold(cm);
+            // the content model for UPA is no longer needed
+            if (fUPACMValidator != null) {
+                if (fContentModels != null) {
+                    fContentModels.release(fUPACMValidator);
+                }
+                fUPACMValidator = null;
             }
         }
+        return cm;
+    }
 
-        return fCMValidator;
+    private Object hold(XSCMValidator cm) {
+        return (fContentModels != null) ? fContentModels.hold(cm) : cm;
     }
 
     // some utility methods:
@@ -547,6 +580,11 @@ public class XSComplexTypeDecl implements XSComplexTypeDefinition, TypeInfo {
         fContentType = CONTENTTYPE_EMPTY;
         fXSSimpleType = null;
         fParticle = null;
+        if (fContentModels != null) {
+            fContentModels.release(fCMValidator);
+            fContentModels.release(fUPACMValidator);
+            fContentModels = null;
+        }
         fCMValidator = null;
         fUPACMValidator = null;
         if(fAnnotations != null) {
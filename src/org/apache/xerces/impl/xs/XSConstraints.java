@@ -335,11 +335,11 @@ public class XSConstraints {
             SimpleLocator loc,
             String key, Object[] args) {
         if (loc != null) {
-            errorReporter.reportError(loc, XSMessageFormatter.SCHEMA_DOMAIN,
+            errorReporter.report(loc, XSMessageFormatter.SCHEMA_DOMAIN,
                     key, args, XMLErrorReporter.SEVERITY_ERROR);
         }
         else {
-            errorReporter.reportError(XSMessageFormatter.SCHEMA_DOMAIN,
+            errorReporter.report(XSMessageFormatter.SCHEMA_DOMAIN,
                     key, args, XMLErrorReporter.SEVERITY_ERROR);
         }
     }
@@ -354,6 +354,24 @@ public class XSConstraints {
             SubstitutionGroupHandler SGHandler,
             CMBuilder cmBuilder,
             XMLErrorReporter errorReporter) {
+        fullSchemaChecking(grammarBucket, SGHandler, cmBuilder, errorReporter, 1);
+    }
+
+    /**
+     * Checks the 3 constraints against each complex type, using the
+     * given number of threads. The constraints of different complex
+     * types are independent once the substitution groups are known,
+     * so the types are divided among the threads. The errors are
+     * reported in the same order as when checking with one thread.
+     *
+     * @param threadCount the number of threads to check the complex
+     * types with, including the calling thread
+     */
+    public static void fullSchemaChecking(XSGrammarBucket grammarBucket,
+            SubstitutionGroupHandler SGHandler,
+            CMBuilder cmBuilder,
+            XMLErrorReporter errorReporter,
+            int threadCount) {
         // get all grammars, and put all substitution group information
         // in the substitution group handler
         SchemaGrammar[] grammars = grammarBucket.getGrammars();
@@ -406,18 +424,38 @@ public class XSConstraints {
         }
 
         // for each complex type, check the 3 constraints.
+        if (threadCount > 1) {
+            new ParallelConstraintChecker(grammars, SGHandler, cmBuilder,
+                    errorReporter).check(threadCount);
+        }
+        else {
+            checkComplexTypes(grammars, SGHandler, cmBuilder, errorReporter);
+        }
+
+        // the grammars have been checked, so compact grammars can
+        // release the locators used to report errors
+        for (int i = grammars.length-1; i >= 0; i--) {
+            grammars[i].compact();
+        }
+    }
+
+    /**
+     * Checks the 3 constraints against the unchecked complex types of
+     * each grammar, in the calling thread.
+     */
+    private static void checkComplexTypes(SchemaGrammar[] grammars,
+            SubstitutionGroupHandler SGHandler,
+            CMBuilder cmBuilder,
+            XMLErrorReporter errorReporter) {
         // types need to be checked
         XSComplexTypeDecl[] types;
         SimpleLocator [] ctLocators;
-        // to hold the errors
-        // REVISIT: do we want to report all errors? or just one?
-        //XMLSchemaError1D errors = new XMLSchemaError1D();
         // whether need to check this type again;
         // whether only do UPA checking
         boolean further, fullChecked;
         // if do all checkings, how many need to be checked again.
         int keepType;
-        // i: grammar; j: type; k: error
+        // i: grammar; j: type
         // for all grammars
         SymbolHash elemTable = new SymbolHash();
         for (int i = grammars.length-1, j; i >= 0; i--) {
@@ -428,91 +466,13 @@ public class XSConstraints {
             ctLocators = grammars[i].getUncheckedCTLocators();
             // for each type
             for (j = 0; j < types.length; j++) {
-                // if we've already full-checked this grammar, then
-                // skip the EDC constraint
-                if (!fullChecked) {
-                    // 1. Element Decl Consistent
-                    if (types[j].fParticle!=null) {
-                        elemTable.clear();
-                        try {
-                            checkElementDeclsConsistent(types[j], types[j].fParticle,
-                                    elemTable, SGHandler);
-                        }
-                        catch (XMLSchemaException e) {
-                            reportSchemaError(errorReporter, ctLocators[j],
-                                    e.getKey(),
-                                    e.getArgs());
-                        }
-                    }
-                }
-
-                // 2. Particle Derivation
-
-                if (types[j].fBaseType != null &&
-                        types[j].fBaseType != SchemaGrammar.fAnyType &&
-                        types[j].fDerivedBy == XSConstants.DERIVATION_RESTRICTION &&
-                        (types[j].fBaseType instanceof XSComplexTypeDecl)) {
-
-                    XSParticleDecl derivedParticle=types[j].fParticle;
-                    XSParticleDecl baseParticle=
-                        ((XSComplexTypeDecl)(types[j].fBaseType)).fParticle;
-                    if (derivedParticle==null) {
-                        if (baseParticle!=null && !baseParticle.emptiable()) {
-                            reportSchemaError(errorReporter,ctLocators[j],
-                                    "derivation-ok-restriction.5.3.2",
-                                    new Object[]{types[j].fName, types[j].fBaseType.getName()});
-                        }
-                    }
-                    else if (baseParticle!=null) {
-                        try {
-                            particleValidRestriction(types[j].fParticle,
-                                    SGHandler,
-                                    ((XSComplexTypeDecl)(types[j].fBaseType)).fParticle,
-                                    SGHandler);
-                        } catch (XMLSchemaException e) {
-                            reportSchemaError(errorReporter, ctLocators[j],
-                                    e.getKey(),
-                                    e.getArgs());
-                            reportSchemaError(errorReporter, ctLocators[j],
-                                    "derivation-ok-restriction.5.4.2",
-                                    new Object[]{types[j].fName});
-                        }
-                    }
-                    else {
-                        reportSchemaError(errorReporter, ctLocators[j],
-                                "derivation-ok-restriction.5.4.2",
-                                new Object[]{types[j].fName});
-                    }
-                }
-                // 3. UPA
-                // get the content model and check UPA
-                XSCMValidator cm = types[j].getContentModel(cmBuilder, true);
-                further = false;
-                if (cm != null) {
-                    try {
-                        further = cm.checkUniqueParticleAttribution(SGHandler);
-                    } catch (XMLSchemaException e) {
-                        reportSchemaError(errorReporter, ctLocators[j],
-                                e.getKey(),
-                                e.getArgs());
-                    }
-                }
-                // now report all errors
-                // REVISIT: do we want to report all errors? or just one?
-                /*for (k = errors.getErrorCodeNum()-1; k >= 0; k--) {
-                    reportSchemaError(errorReporter, ctLocators[j],
-                                      errors.getErrorCode(k),
-                                      errors.getArgs(k));
-                }*/
+                further = checkComplexType(types[j], ctLocators[j], fullChecked,
+                        elemTable, SGHandler, cmBuilder, errorReporter);
 
                 // if we are doing all checkings, and this one needs further
                 // checking, store it in the type array.
                 if (!fullChecked && further)
                     types[keepType++] = types[j];
-
-                // clear errors for the next type.
-                // REVISIT: do we want to report all errors? or just one?
-                //errors.clear();
             }
             // we've done with the types in this grammar. if we are checking
             // all constraints, need to trim type array to a proper size:
@@ -525,6 +485,96 @@ public class XSConstraints {
         }
     }
 
+    /**
+     * Checks the 3 constraints against a complex type, and returns
+     * whether the type needs to be checked again when more grammars
+     * are added.
+     *
+     * @param type the complex type to check
+     * @param locator the location of the complex type
+     * @param fullChecked whether the grammar of the type has already
+     * been checked, in which case only UPA is checked
+     * @param elemTable table used to check Element Declarations Consistent
+     */
+    static boolean checkComplexType(XSComplexTypeDecl type,
+            SimpleLocator locator,
+            boolean fullChecked,
+            SymbolHash elemTable,
+            SubstitutionGroupHandler SGHandler,
+            CMBuilder cmBuilder,
+            XMLErrorReporter errorReporter) {
+        // if we've already full-checked this grammar, then
+        // skip the EDC constraint
+        if (!fullChecked) {
+            // 1. Element Decl Consistent
+            if (type.fParticle!=null) {
+                elemTable.clear();
+                try {
+                    checkElementDeclsConsistent(type, type.fParticle,
+                            elemTable, SGHandler);
+                }
+                catch (XMLSchemaException e) {
+                    reportSchemaError(errorReporter, locator,
+                            e.getKey(),
+                            e.getArgs());
+                }
+            }
+        }
+
+        // 2. Particle Derivation
+
+        if (type.fBaseType != null &&
+                type.fBaseType != SchemaGrammar.fAnyType &&
+                type.fDerivedBy == XSConstants.DERIVATION_RESTRICTION &&
+                (type.fBaseType instanceof XSComplexTypeDecl)) {
+
+            XSParticleDecl derivedParticle=type.fParticle;
+            XSParticleDecl baseParticle=
+                ((XSComplexTypeDecl)(type.fBaseType)).fParticle;
+            if (derivedParticle==null) {
+                if (baseParticle!=null && !baseParticle.emptiable()) {
+                    reportSchemaError(errorReporter,locator,
+                            "derivation-ok-restriction.5.3.2",
+                            new Object[]{type.fName, type.fBaseType.getName()});
+                }
+            }
+            else if (baseParticle!=null) {
+                try {
+                    particleValidRestriction(type.fParticle,
+                            SGHandler,
+                            ((XSComplexTypeDecl)(type.fBaseType)).fParticle,
+                            SGHandler);
+                } catch (XMLSchemaException e) {
+                    reportSchemaError(errorReporter, locator,
+                            e.getKey(),
+                            e.getArgs());
+                    reportSchemaError(errorReporter, locator,
+                            "derivation-ok-restriction.5.4.2",
+                            new Object[]{type.fName});
+                }
+            }
+            else {
+                reportSchemaError(errorReporter, locator,
+                        "derivation-ok-restriction.5.4.2",
+                        new Object[]{type.fName});
+            }
+        }
+        // 3. UPA
+        // get the content model and check UPA
+        XSCMValidator cm = type.getContentModel(cmBuilder, true);
+        boolean further = false;
+        if (cm != null) {
+            try {
+                further = cm.checkUniqueParticleAttribution(SGHandler);
+            } catch (XMLSchemaException e) {
+                reportSchemaError(errorReporter, locator,
+                        e.getKey(),
+                        e.getArgs());
+            }
+        }
+        return further;
+    }
+
     /*
        Check that a given particle is a valid restriction of a base particle.
      */
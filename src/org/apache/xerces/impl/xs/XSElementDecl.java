@@ -75,7 +75,8 @@ public class XSElementDecl implements XSElementDeclaration {
     // identity constraints
     static final int INITIAL_SIZE = 2;
     int fIDCPos = 0;
-    IdentityConstraint[] fIDConstraints = new IdentityConstraint[INITIAL_SIZE];
+    // allocated when the first identity constraint is added
+    IdentityConstraint[] fIDConstraints = null;
     // The namespace schema information item corresponding to the target namespace 
     // of the element declaration, if it is globally declared; or null otherwise.
     private XSNamespaceItem fNamespaceItem = null;
@@ -106,7 +107,10 @@ public class XSElementDecl implements XSElementDeclaration {
     }
 
     public void addIDConstraint(IdentityConstraint idc) {
-        if (fIDCPos == fIDConstraints.length) {
+        if (fIDConstraints == null) {
+            fIDConstraints = new IdentityConstraint[INITIAL_SIZE];
+        }
+        else if (fIDCPos == fIDConstraints.length) {
             fIDConstraints = resize(fIDConstraints, fIDCPos*2);
         }
         fIDConstraints[fIDCPos++] = idc;
@@ -92,6 +92,10 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
     private final SymbolHash fSubGroupMap;
     
     // store a certain kind of components from all namespaces
+    // these maps are created the first time they are asked for, without
+    // locking. threads which race to create one create equal maps, and
+    // the maps only have final fields until they are used, so it does
+    // not matter which one is stored or seen.
     private final XSNamedMap[] fGlobalComponents;
     // store a certain kind of components from one namespace
     private final XSNamedMap[][] fNSComponents;
@@ -99,7 +103,7 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
     // a string list of all the target namespaces.
     private final StringList fNamespacesList;
     // store all annotations
-    private XSObjectList fAnnotations = null;
+    private volatile XSObjectList fAnnotations;
     
     // whether there is any IDC in this XSModel
     private final boolean fHasIDC;
@@ -294,15 +298,16 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
      *   <code>objectType</code> or an empty <code>XSNamedMap</code> if no 
      *   such definitions exist. 
      */
-    public synchronized XSNamedMap getComponents(short objectType) {
+    public XSNamedMap getComponents(short objectType) {
         if (objectType <= 0 || objectType > MAX_COMP_IDX ||
             !GLOBAL_COMP[objectType]) {
             return XSNamedMapImpl.EMPTY_MAP;
         }
         
-        SymbolHash[] tables = new SymbolHash[fGrammarCount];
         // get all hashtables from all namespaces for this type of components
-        if (fGlobalComponents[objectType] == null) {
+        XSNamedMap components = fGlobalComponents[objectType];
+        if (components == null) {
+            SymbolHash[] tables = new SymbolHash[fGrammarCount];
             for (int i = 0; i < fGrammarCount; i++) {
                 switch (objectType) {
                 case XSConstants.TYPE_DEFINITION:
@@ -334,14 +339,15 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
             // which take specific types out of the hash table
             if (objectType == XSTypeDefinition.COMPLEX_TYPE ||
                 objectType == XSTypeDefinition.SIMPLE_TYPE) {
-                fGlobalComponents[objectType] = new XSNamedMap4Types(fNamespaces, tables, fGrammarCount, objectType);
+                components = new XSNamedMap4Types(fNamespaces, tables, fGrammarCount, objectType);
             }
             else {
-                fGlobalComponents[objectType] = new XSNamedMapImpl(fNamespaces, tables, fGrammarCount);
+                components = new XSNamedMapImpl(fNamespaces, tables, fGrammarCount);
             }
+            fGlobalComponents[objectType] = components;
         }
         
-        return fGlobalComponents[objectType];
+        return components;
     }
 
     /**
@@ -356,8 +362,8 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
      *   <code>objectType</code> and defined in the specified 
      *   <code>namespace</code> or an empty <code>XSNamedMap</code>. 
      */
-    public synchronized XSNamedMap getComponentsByNamespace(short objectType,
-                                                            String namespace) {
+    public XSNamedMap getComponentsByNamespace(short objectType,
+                                               String namespace) {
         if (objectType <= 0 || objectType > MAX_COMP_IDX ||
             !GLOBAL_COMP[objectType]) {
             return XSNamedMapImpl.EMPTY_MAP;
@@ -384,7 +390,8 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
         }
         
         // get the hashtable for this type of components
-        if (fNSComponents[i][objectType] == null) {
+        XSNamedMap components = fNSComponents[i][objectType];
+        if (components == null) {
             SymbolHash table = null;
             switch (objectType) {
             case XSConstants.TYPE_DEFINITION:
@@ -416,14 +423,15 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
             // which take specific types out of the hash table
             if (objectType == XSTypeDefinition.COMPLEX_TYPE ||
                 objectType == XSTypeDefinition.SIMPLE_TYPE) {
-                fNSComponents[i][objectType] = new XSNamedMap4Types(namespace, table, objectType);
+                components = new XSNamedMap4Types(namespace, table, objectType);
             }
             else {
-                fNSComponents[i][objectType] = new XSNamedMapImpl(namespace, table);
+                components = new XSNamedMapImpl(namespace, table);
             }
+            fNSComponents[i][objectType] = components;
         }
         
-        return fNSComponents[i][objectType];
+        return components;
     }
 
     /**
@@ -661,9 +669,10 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
      *  [annotations]: a set of annotations if it exists, otherwise an empty 
      * <code>XSObjectList</code>. 
      */
-    public synchronized XSObjectList getAnnotations() {
-        if (fAnnotations != null) {
-            return fAnnotations;
+    public XSObjectList getAnnotations() {
+        XSObjectList annotationList = fAnnotations;
+        if (annotationList != null) {
+            return annotationList;
         }
 
         // do this in two passes to avoid inaccurate array size
@@ -672,8 +681,9 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
             totalAnnotations += fGrammarList[i].fNumAnnotations;
         }
         if (totalAnnotations == 0) {
-            fAnnotations = XSObjectListImpl.EMPTY_LIST;
-            return fAnnotations;
+            annotationList = XSObjectListImpl.EMPTY_LIST;
+            fAnnotations = annotationList;
+            return annotationList;
         }
         XSAnnotationImpl [] annotations = new XSAnnotationImpl [totalAnnotations];
         int currPos = 0;
@@ -684,8 +694,9 @@ public final class XSModelImpl extends AbstractList implements XSModel, XSNamesp
                 currPos += currGrammar.fNumAnnotations;
             }
         }
-        fAnnotations = new XSObjectListImpl(annotations, annotations.length);
-        return fAnnotations;
+        annotationList = new XSObjectListImpl(annotations, annotations.length);
+        fAnnotations = annotationList;
+        return annotationList;
     }
 
     private static final String null2EmptyString(String str) {
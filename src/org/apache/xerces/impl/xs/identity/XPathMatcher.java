@@ -105,6 +105,17 @@ public class XPathMatcher {
      */
     private final int [] fNoMatchDepth;
     
+    /**
+     * For each member of the union and each of its steps, the local 
+     * name of the elements the path looks for when its current step is
+     * that step, if the step is a descendant step followed by a child
+     * step with a name test, or null.
+     */
+    private final String[][] fStepNames;
+    
+    /** Local names found by <code>getWaitingNameCount</code>. */
+    private final String[] fWaitingNames;
+    
     final QName fQName = new QName();
 
 
@@ -125,6 +136,25 @@ public class XPathMatcher {
         fCurrentStep = new int[fLocationPaths.length];
         fNoMatchDepth = new int[fLocationPaths.length];
         fMatched = new int[fLocationPaths.length];        
+        fStepNames = new String[fLocationPaths.length][];
+        for (int i = 0; i < fLocationPaths.length; i++) {
+            XPath.Step[] steps = fLocationPaths[i].steps;
+            fStepNames[i] = new String[steps.length + 1];
+            for (int j = 0; j < steps.length; j++) {
+                if (steps[j].axis.type != XPath.Axis.DESCENDANT) {
+                    continue;
+                }
+                int k = j;
+                while (k < steps.length && steps[k].axis.type == XPath.Axis.DESCENDANT) {
+                    k++;
+                }
+                if (k < steps.length && steps[k].axis.type == XPath.Axis.CHILD &&
+                    steps[k].nodeTest.type == XPath.NodeTest.QNAME) {
+                    fStepNames[i][j] = steps[k].nodeTest.name.localpart;
+                }
+            }
+        }
+        fWaitingNames = new String[fLocationPaths.length];
     } // <init>(XPath)
 
     //
@@ -147,6 +177,101 @@ public class XPathMatcher {
         return false;
     } // isMatched():int
 
+    /**
+     * Returns true if the next element and all of its descendants
+     * can't change the state of this matcher: every member of the
+     * union has either matched without the descendant axis, or failed
+     * to match some ancestor of the element. Such a matcher does not
+     * need to be called for the element or its descendants, since
+     * calling its <code>startElement</code> and <code>endElement</code>
+     * methods for them would only push and pop its state.
+     */
+    public boolean isIdle() {
+        for (int i = 0; i < fLocationPaths.length; i++) {
+            if ((fMatched[i] & MATCHED_DESCENDANT) != MATCHED && fNoMatchDepth[i] == 0) {
+                return false;
+            }
+        }
+        return true;
+    } // isIdle():boolean
+
+    /**
+     * Finds the local names of the elements which can change the state
+     * of this matcher when the next element starts. If the matcher is
+     * not idle, and every member of the union which can still match is
+     * on a descendant step looking for an element with a given name, 
+     * calling the matcher for an element with another local name, and 
+     * for the descendants of such an element which don't have one of 
+     * these names, only pushes and pops its state.
+     *
+     * @return the number of local names, which are then returned by 
+     *         <code>getWaitingName</code>; 0 if the matcher is idle, 
+     *         or -1 if any element can change the state of the matcher
+     */
+    public int getWaitingNameCount() {
+        boolean idle = true;
+        boolean named = true;
+        int count = 0;
+        for (int i = 0; i < fLocationPaths.length; i++) {
+            if ((fMatched[i] & MATCHED_DESCENDANT) != MATCHED && fNoMatchDepth[i] == 0) {
+                idle = false;
+            }
+            if (fMatched[i] != 0) {
+                // the end of a matched member of the union affects
+                // the members which follow it
+                named = false;
+            }
+            else if (fNoMatchDepth[i] == 0) {
+                String name = fStepNames[i][fCurrentStep[i]];
+                if (name == null) {
+                    named = false;
+                }
+                else {
+                    int j = 0;
+                    while (j < count && fWaitingNames[j] != name) {
+                        j++;
+                    }
+                    if (j == count) {
+                        fWaitingNames[count++] = name;
+                    }
+                }
+            }
+        }
+        if (idle) {
+            return 0;
+        }
+        return named ? count : -1;
+    } // getWaitingNameCount():int
+
+    /** 
+     * Returns one of the local names found by the last call to
+     * <code>getWaitingNameCount</code>.
+     */
+    public String getWaitingName(int index) {
+        return fWaitingNames[index];
+    } // getWaitingName(int):String
+
+    /**
+     * Returns the state of this matcher if no member of the union has
+     * matched: for each member, the step it is on, or -1 if it failed
+     * to match some ancestor of the next element. Two matchers for the
+     * same XPath in the same state are changed in the same way by the
+     * same element and its descendants.
+     *
+     * @return the state of each member of the union, or null if some
+     *         member of the union has matched
+     */
+    public int[] getUnmatchedState() {
+        int[] state = new int[fLocationPaths.length];
+        for (int i = 0; i < fLocationPaths.length; i++) {
+            if (fMatched[i] != 0) {
+                return null;
+            }
+            state[i] = (fNoMatchDepth[i] == 0) ? fCurrentStep[i] : -1;
+        }
+        return state;
+    } // getUnmatchedState():int[]
+
     //
     // Protected methods
     //
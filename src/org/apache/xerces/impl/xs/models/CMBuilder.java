@@ -17,6 +17,7 @@
 
 package org.apache.xerces.impl.xs.models;
 
+import org.apache.xerces.impl.XMLErrorReporter;
 import org.apache.xerces.impl.dtd.models.CMNode;
 import org.apache.xerces.impl.xs.SchemaSymbols;
 import org.apache.xerces.impl.xs.XSComplexTypeDecl;
@@ -59,6 +60,16 @@ public class CMBuilder {
         fDeclPool = declPool;
     }
 
+    /**
+     * Creates a content model builder with the same limits as this one,
+     * which can be used on another thread than this one. Errors found
+     * while building content models are reported to the given error
+     * reporter.
+     */
+    public CMBuilder newBuilder(XMLErrorReporter errorReporter) {
+        return new CMBuilder(fNodeFactory.newFactory(errorReporter));
+    }
+
     /**
      * Get content model for the a given type
      *
@@ -125,8 +136,21 @@ public class CMBuilder {
     XSCMValidator createDFACM(XSParticleDecl particle, boolean forUPA) {
         fLeafCount = 0;
         fParticleCount = 0;
+        boolean useRepeatingLeafNodes = useRepeatingLeafNodes(particle);
+        // count the occurrences of particles with occurrence ranges
+        // instead of expanding them, when the resulting content model
+        // can be shown to be deterministic
+        if (!useRepeatingLeafNodes && hasOccurrenceRange(particle)) {
+            XSCMValidator cm = XSCountingCM.create(particle);
+            if (cm != null) {
+                // the limit on the number of nodes still applies to the
+                // content model as if it had been expanded
+                fNodeFactory.nodeCountCheck(expandedNodeCount(particle, forUPA));
+                return cm;
+            }
+        }
         // convert particle tree to CM tree
-        CMNode node = useRepeatingLeafNodes(particle) ? buildCompactSyntaxTree(particle) : buildSyntaxTree(particle, forUPA);
+        CMNode node = useRepeatingLeafNodes ? buildCompactSyntaxTree(particle) : buildSyntaxTree(particle, forUPA);
         if (node == null)
             return null;
         // build DFA content model from the CM tree
@@ -418,6 +442,89 @@ public class CMBuilder {
         return nodeRet;
     }
     
+    // This method checks if this particle or any particle it contains has an
+    // occurrence range which can't be expressed with ?, * or + alone.
+    private boolean hasOccurrenceRange(XSParticleDecl particle) {
+        int maxOccurs = particle.fMaxOccurs;
+        if (maxOccurs == 0) {
+            return false;
+        }
+        if (particle.fMinOccurs > 1 ||
+            (maxOccurs > 1 && maxOccurs != SchemaSymbols.OCCURRENCE_UNBOUNDED)) {
+            return true;
+        }
+        if (particle.fType == XSParticleDecl.PARTICLE_MODELGROUP) {
+            XSModelGroupImpl group = (XSModelGroupImpl) particle.fValue;
+            for (int i = 0; i < group.fParticleCount; ++i) {
+                if (hasOccurrenceRange(group.fParticles[i])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // This method returns the number of nodes buildSyntaxTree() would create
+    // for this particle, or Integer.MAX_VALUE if there would be more.
+    private long expandedNodeCount(XSParticleDecl particle, boolean forUPA) {
+        int maxOccurs = particle.fMaxOccurs;
+        int minOccurs = particle.fMinOccurs;
+        if (forUPA) {
+            // the same reduction of the occurrence values as buildSyntaxTree()
+            if (minOccurs > 1) {
+                minOccurs = (maxOccurs > minOccurs || particle.getMaxOccursUnbounded()) ? 1 : 2;
+            }
+            if (maxOccurs > 1) {
+                maxOccurs = 2;
+            }
+        }
+
+        long nodes = 0;
+        if (particle.fType == XSParticleDecl.PARTICLE_MODELGROUP) {
+            XSModelGroupImpl group = (XSModelGroupImpl)particle.fValue;
+            int count = 0;
+            for (int i = 0; i < group.fParticleCount; i++) {
+                long temp = expandedNodeCount(group.fParticles[i], forUPA);
+                if (temp > 0) {
+                    // each particle after the first adds a binary node
+                    nodes += (count++ == 0) ? temp : temp + 1;
+                }
+            }
+            if (nodes == 0) {
+                return 0;
+            }
+            if (group.fCompositor == XSModelGroupImpl.MODELGROUP_CHOICE && count < group.fParticleCount) {
+                ++nodes;
+            }
+        }
+        else {
+            nodes = 1;
+        }
+
+        // the same expansion as expandContentModel(): copies of the
+        // nodes, the binary nodes joining them and the unary nodes
+        long expanded;
+        if (minOccurs == 1 && maxOccurs == 1) {
+            expanded = nodes;
+        }
+        else if (maxOccurs == SchemaSymbols.OCCURRENCE_UNBOUNDED) {
+            expanded = (minOccurs > 1) ? minOccurs * nodes + minOccurs : nodes + 1;
+        }
+        else if (maxOccurs == 0) {
+            expanded = 0;
+        }
+        else if (minOccurs == 0) {
+            expanded = nodes + 1 + (maxOccurs - 1) * (nodes + 2);
+        }
+        else {
+            expanded = minOccurs * nodes + minOccurs - 1;
+            if (maxOccurs > minOccurs) {
+                expanded += (maxOccurs - minOccurs) * (nodes + 2) + 1;
+            }
+        }
+        return Math.min(expanded, Integer.MAX_VALUE);
+    }
+
     // This method checks if this particle can be transformed into a compact syntax
     // tree containing compound leaf nodes which carry occurence information. Currently
     // it returns true if each model group has minOccurs/maxOccurs == 1 or 
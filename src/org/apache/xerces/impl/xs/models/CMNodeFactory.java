@@ -83,6 +83,19 @@ public class CMNodeFactory {
         
     }//reset()
     
+    /**
+     * Creates a node factory with the same limits as this one, which
+     * reports errors to the given error reporter. The new factory can
+     * be used on another thread than this one.
+     */
+    public CMNodeFactory newFactory(XMLErrorReporter errorReporter) {
+        CMNodeFactory factory = new CMNodeFactory();
+        factory.fErrorReporter = errorReporter;
+        factory.fSecurityManager = fSecurityManager;
+        factory.maxNodeLimit = maxNodeLimit;
+        return factory;
+    }//newFactory(XMLErrorReporter)
+    
     public void reset() {
         // we are setting the limit of number of nodes to 3 times the maxOccurs value.
         if (fSecurityManager != null) {
@@ -117,7 +130,7 @@ public class CMNodeFactory {
                 System.out.println("nodeCount = " + nodeCount ) ;
                 System.out.println("nodeLimit = " + maxNodeLimit ) ;
             }
-            fErrorReporter.reportError(XSMessageFormatter.SCHEMA_DOMAIN, "maxOccurLimit", new Object[]{ new Integer(maxNodeLimit) }, XMLErrorReporter.SEVERITY_FATAL_ERROR);
+            fErrorReporter.report(XSMessageFormatter.SCHEMA_DOMAIN, "maxOccurLimit", new Object[]{ new Integer(maxNodeLimit) }, XMLErrorReporter.SEVERITY_FATAL_ERROR);
             // similarly to entity manager behaviour, take into accont
             // behaviour if continue-after-fatal-error is set.
             nodeCount = 0;
@@ -125,6 +138,23 @@ public class CMNodeFactory {
         
     }//nodeCountCheck()
 
+    /**
+     * Checks the limit on the number of nodes for a content model which
+     * is built without creating nodes, but which would otherwise have
+     * been built from the given number of nodes.
+     */
+    public void nodeCountCheck(long nodes) {
+        if (fSecurityManager != null) {
+            if (nodes > maxNodeLimit - nodeCount) {
+                nodeCount = maxNodeLimit + 1;
+                nodeCountCheck();
+            }
+            else {
+                nodeCount += nodes;
+            }
+        }
+    }//nodeCountCheck(long)
+
     //reset the node count
     public void resetNodeCount(){
         nodeCount = 0 ;
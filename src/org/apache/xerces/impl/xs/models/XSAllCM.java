@@ -224,5 +224,11 @@ public class XSAllCM implements XSCMValidator {
     public boolean isCompactedForUPA() {
         return false;
     }
+    
+    public int getEstimatedSize() {
+        // object, element array and optional flags, assuming 16 byte
+        // headers and 4 byte references
+        return 24 + (16 + 4 * fAllElements.length) + (16 + fIsOptionalElement.length);
+    }
 } // class XSAllCM
 
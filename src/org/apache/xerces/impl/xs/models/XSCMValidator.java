@@ -124,4 +124,12 @@ public interface XSCMValidator {
      * @return a boolean that says whether this content has been compacted for UPA
      */
     public boolean isCompactedForUPA();
+    
+    /**
+     * Returns an estimate of the number of bytes of memory held by this
+     * content model, not counting the declarations it refers to.
+     * 
+     * @return the estimated size of this content model in bytes
+     */
+    public int getEstimatedSize();
 } // XSCMValidator
@@ -0,0 +1,985 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.impl.xs.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Vector;
+
+import org.apache.xerces.impl.xs.SchemaSymbols;
+import org.apache.xerces.impl.xs.SubstitutionGroupHandler;
+import org.apache.xerces.impl.xs.XMLSchemaException;
+import org.apache.xerces.impl.xs.XSConstraints;
+import org.apache.xerces.impl.xs.XSElementDecl;
+import org.apache.xerces.impl.xs.XSModelGroupImpl;
+import org.apache.xerces.impl.xs.XSParticleDecl;
+import org.apache.xerces.impl.xs.XSWildcardDecl;
+import org.apache.xerces.xs.XSConstants;
+import org.apache.xerces.xni.QName;
+
+/**
+ * A content model validator which counts the repetitions of particles
+ * with occurrence ranges instead of expanding them, so that its size is
+ * linear in the size of the content model whatever the minOccurs and
+ * maxOccurs values. The automaton has one state for each element and
+ * wildcard particle (a position), and a counter for each particle whose
+ * occurrence range cannot be checked by the states alone. Transitions
+ * between positions carry conditions on the counters (the counter of a
+ * particle which is left has reached minOccurs, the counter of a particle
+ * which is repeated has not reached maxOccurs) and updates of them (the
+ * counter of a particle which is repeated is incremented, the counter of
+ * a particle which is entered is set to one).
+ * <p>
+ * A counting content model is only built if it is deterministic: for any
+ * values of the counters, at most one transition may be taken for a given
+ * element, except for transitions to the same position of which one
+ * leaves the counters no higher than the other, in which case that one
+ * is taken. Content models for which this cannot be shown are built as
+ * a DFA instead.
+ *
+ * @xerces.internal
+ *
+ * @version $Id$
+ */
+public class XSCountingCM implements XSCMValidator {
+
+    //
+    // Constants
+    //
+
+    // kinds of counter operations; an operation is encoded as
+    // its kind in the two low bits and the counter above them
+
+    /** Condition: the counter is not below minOccurs. */
+    private static final int CHECK_MIN = 0;
+
+    /** Condition: the counter is below maxOccurs. */
+    private static final int CHECK_MAX = 1;
+
+    /** Update: the counter is incremented. */
+    private static final int INCREMENT = 2;
+
+    /** Update: the counter is set to one. */
+    private static final int ENTER = 3;
+
+    //
+    // Data
+    //
+
+    /** The element or wildcard declaration of each position. */
+    private final Object[] fTerms;
+
+    /** The particle type of each position. */
+    private final int[] fTermTypes;
+
+    /** The minOccurs value of each counter. */
+    private final int[] fMinOccurs;
+
+    /**
+     * The maxOccurs value of each counter, or
+     * <code>SchemaSymbols.OCCURRENCE_UNBOUNDED</code>.
+     */
+    private final int[] fMaxOccurs;
+
+    /**
+     * The index of the first transition from each state. State 0 is
+     * the start state and state p+1 is the state after position p. The
+     * transitions from a state are ordered by target position.
+     */
+    private final int[] fTransStart;
+
+    /** The target position of each transition. */
+    private final int[] fTransTarget;
+
+    /**
+     * The counter operations of each transition, conditions first, or
+     * null if there are none.
+     */
+    private final int[][] fTransOps;
+
+    /** Whether each state may end the content. */
+    private final boolean[] fFinal;
+
+    /**
+     * The conditions on ending the content in each state, or null if
+     * there are none.
+     */
+    private final int[][] fFinalOps;
+
+    //
+    // Constructors
+    //
+
+    private XSCountingCM(Builder builder) {
+        fTerms = builder.fTerms.toArray();
+        fTermTypes = builder.fTermTypes.toArray();
+        fMinOccurs = builder.fMinOccurs.toArray();
+        fMaxOccurs = builder.fMaxOccurs.toArray();
+        fTransStart = builder.fTransStart;
+        fTransTarget = builder.fTransTarget;
+        fTransOps = builder.fTransOps;
+        fFinal = builder.fFinal;
+        fFinalOps = builder.fFinalOps;
+    }
+
+    /**
+     * Builds a counting content model for the given particle, which must
+     * not be an "all" model group.
+     *
+     * @param particle the particle of the content model
+     * @return the content model, or null if the particle is empty or the
+     *         content model cannot be shown to be deterministic
+     */
+    public static XSCountingCM create(XSParticleDecl particle) {
+        Builder builder = new Builder();
+        return builder.build(particle) ? new XSCountingCM(builder) : null;
+    }
+
+    //
+    // XSCMValidator methods
+    //
+
+    public int[] startContentModel() {
+        // [0] : the current state
+        // [1] : if [0] is an error state then the
+        //       last valid state before the error
+        // [2..] : the counters
+        return new int[2 + fMinOccurs.length];
+    }
+
+    public Object oneTransition(QName curElem, int[] state, SubstitutionGroupHandler subGroupHandler) {
+        int curState = state[0];
+
+        if (curState == XSCMValidator.FIRST_ERROR || curState == XSCMValidator.SUBSEQUENT_ERROR) {
+            // there was an error last time; so just go find correct Object in fTerms.
+            // ... after resetting state[0].
+            if (curState == XSCMValidator.FIRST_ERROR)
+                state[0] = XSCMValidator.SUBSEQUENT_ERROR;
+
+            return findMatchingDecl(curElem, subGroupHandler);
+        }
+
+        int lastTarget = -1;
+        Object matchingDecl = null;
+        for (int t = fTransStart[curState]; t < fTransStart[curState + 1]; t++) {
+            // transitions to the same position are next to each other
+            if (fTransTarget[t] != lastTarget) {
+                lastTarget = fTransTarget[t];
+                matchingDecl = matchingDecl(curElem, lastTarget, subGroupHandler);
+            }
+            if (matchingDecl != null && check(fTransOps[t], state)) {
+                update(fTransOps[t], state);
+                state[0] = fTransTarget[t] + 1;
+                return matchingDecl;
+            }
+        }
+
+        // no transition matches: set the state to FIRST_ERROR
+        state[1] = state[0];
+        state[0] = XSCMValidator.FIRST_ERROR;
+        return findMatchingDecl(curElem, subGroupHandler);
+    }
+
+    public boolean endContentModel(int[] state) {
+        final int curState = state[0];
+        return fFinal[curState] && check(fFinalOps[curState], state);
+    }
+
+    public boolean checkUniqueParticleAttribution(SubstitutionGroupHandler subGroupHandler) throws XMLSchemaException {
+        // the content model would not have been built if any two of its
+        // particles could compete for the same element, so there is
+        // nothing to report.
+
+        // if there is a other or list wildcard, we need to check this CM
+        // again, if this grammar is cached.
+        for (int i = 0; i < fTerms.length; i++) {
+            if (fTermTypes[i] == XSParticleDecl.PARTICLE_WILDCARD) {
+                XSWildcardDecl wildcard = (XSWildcardDecl)fTerms[i];
+                if (wildcard.fType == XSWildcardDecl.NSCONSTRAINT_LIST ||
+                    wildcard.fType == XSWildcardDecl.NSCONSTRAINT_NOT) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public Vector whatCanGoHere(int[] state) {
+        int curState = state[0];
+        if (curState < 0)
+            curState = state[1];
+
+        Vector ret = new Vector();
+        int lastTarget = -1;
+        for (int t = fTransStart[curState]; t < fTransStart[curState + 1]; t++) {
+            final int target = fTransTarget[t];
+            if (target != lastTarget && check(fTransOps[t], state)) {
+                ret.addElement(fTerms[target]);
+                lastTarget = target;
+            }
+        }
+        return ret;
+    }
+
+    public int[] occurenceInfo(int[] state) {
+        return null;
+    }
+
+    public String getTermName(int termId) {
+        Object term = fTerms[termId];
+        return (term != null) ? term.toString() : null;
+    }
+
+    public boolean isCompactedForUPA() {
+        return false;
+    }
+
+    public int getEstimatedSize() {
+        // assume 16 byte object and array headers and 4 byte references
+        int size = 56;
+        size += 16 + 4 * fTerms.length;
+        size += 16 + 4 * fTermTypes.length;
+        size += 2 * (16 + 4 * fMinOccurs.length);
+        size += 16 + 4 * fTransStart.length;
+        size += 16 + 4 * fTransTarget.length;
+        size += 16 + 4 * fTransOps.length;
+        for (int i = 0; i < fTransOps.length; i++) {
+            if (fTransOps[i] != null) {
+                size += 16 + 4 * fTransOps[i].length;
+            }
+        }
+        size += 16 + fFinal.length;
+        size += 16 + 4 * fFinalOps.length;
+        for (int i = 0; i < fFinalOps.length; i++) {
+            if (fFinalOps[i] != null) {
+                size += 16 + 4 * fFinalOps[i].length;
+            }
+        }
+        return size;
+    }
+
+    //
+    // Private methods
+    //
+
+    /**
+     * Returns the declaration matched by the given element at the given
+     * position, or null if the element does not match.
+     */
+    private Object matchingDecl(QName curElem, int position, SubstitutionGroupHandler subGroupHandler) {
+        if (fTermTypes[position] == XSParticleDecl.PARTICLE_ELEMENT) {
+            return subGroupHandler.getMatchingElemDecl(curElem, (XSElementDecl)fTerms[position]);
+        }
+        if (((XSWildcardDecl)fTerms[position]).allowNamespace(curElem.uri)) {
+            return fTerms[position];
+        }
+        return null;
+    }
+
+    private Object findMatchingDecl(QName curElem, SubstitutionGroupHandler subGroupHandler) {
+        for (int position = 0; position < fTerms.length; position++) {
+            Object matchingDecl = matchingDecl(curElem, position, subGroupHandler);
+            if (matchingDecl != null) {
+                return matchingDecl;
+            }
+        }
+        return null;
+    }
+
+    /** Returns whether the conditions of the given operations hold. */
+    private boolean check(int[] ops, int[] state) {
+        if (ops != null) {
+            for (int i = 0; i < ops.length; i++) {
+                final int counter = ops[i] >>> 2;
+                switch (ops[i] & 3) {
+                    case CHECK_MIN:
+                        if (state[counter + 2] < fMinOccurs[counter]) {
+                            return false;
+                        }
+                        break;
+                    case CHECK_MAX:
+                        if (state[counter + 2] >= fMaxOccurs[counter]) {
+                            return false;
+                        }
+                        break;
+                    default:
+                        return true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Applies the updates of the given operations. */
+    private void update(int[] ops, int[] state) {
+        if (ops != null) {
+            for (int i = 0; i < ops.length; i++) {
+                final int counter = ops[i] >>> 2;
+                switch (ops[i] & 3) {
+                    case INCREMENT:
+                        // an unbounded counter only needs to count up to minOccurs
+                        if (fMaxOccurs[counter] != SchemaSymbols.OCCURRENCE_UNBOUNDED ||
+                            state[counter + 2] < fMinOccurs[counter]) {
+                            ++state[counter + 2];
+                        }
+                        break;
+                    case ENTER:
+                        state[counter + 2] = 1;
+                        break;
+                }
+            }
+        }
+    }
+
+    //
+    // Classes
+    //
+
+    /** A growable array of ints. */
+    private static final class IntList {
+        int[] fData = new int[16];
+        int fSize;
+
+        void add(int value) {
+            if (fSize == fData.length) {
+                int[] data = new int[fSize << 1];
+                System.arraycopy(fData, 0, data, 0, fSize);
+                fData = data;
+            }
+            fData[fSize++] = value;
+        }
+
+        int[] toArray() {
+            int[] data = new int[fSize];
+            System.arraycopy(fData, 0, data, 0, fSize);
+            return data;
+        }
+    }
+
+    /**
+     * Builds the automaton of a particle: the Glushkov automaton of the
+     * particle with counters for the particles with occurrence ranges,
+     * then checks that it is deterministic.
+     */
+    private static final class Builder {
+
+        private static final int[] NO_POSITIONS = new int[0];
+
+        // positions
+
+        final ArrayList fTerms = new ArrayList();
+        final IntList fTermTypes = new IntList();
+
+        /**
+         * The particles enclosing each position, from the outermost, as
+         * indexes into fNodeCounters.
+         */
+        final ArrayList fPaths = new ArrayList();
+
+        // particles and counters
+
+        /** The counter of each particle, or -1. */
+        final IntList fNodeCounters = new IntList();
+        final IntList fMinOccurs = new IntList();
+        final IntList fMaxOccurs = new IntList();
+
+        /** Whether each counter must reach minOccurs when its particle is left. */
+        final IntList fCheckMin = new IntList();
+
+        /** The particles enclosing the particle being built. */
+        private int[] fPath = new int[8];
+
+        // transitions, in the order they are found
+
+        final IntList fSources = new IntList();
+        final IntList fTargets = new IntList();
+        final ArrayList fOps = new ArrayList();
+
+        // the automaton
+
+        int[] fTransStart;
+        int[] fTransTarget;
+        int[][] fTransOps;
+        boolean[] fFinal;
+        int[][] fFinalOps;
+
+        /** Builds the automaton, returning false if it is not deterministic. */
+        boolean build(XSParticleDecl particle) {
+            Glushkov root = buildParticle(particle, particle.fMinOccurs, particle.fMaxOccurs, 0);
+            if (root == null) {
+                return false;
+            }
+            final int positionCount = fTerms.size();
+            for (int i = 0; i < root.fFirst.length; i++) {
+                addTransition(-1, root.fFirst[i], -1, -1, false);
+            }
+            fFinal = new boolean[positionCount + 1];
+            fFinalOps = new int[positionCount + 1][];
+            fFinal[0] = root.fNullable;
+            for (int i = 0; i < root.fLast.length; i++) {
+                final int position = root.fLast[i];
+                fFinal[position + 1] = true;
+                fFinalOps[position + 1] = exitChecks(position, -1);
+            }
+            sortTransitions(positionCount + 1);
+            return checkDeterminism(positionCount);
+        }
+
+        /**
+         * Builds the positions of a particle with the given occurrence
+         * range, returning null if the particle is empty.
+         */
+        private Glushkov buildParticle(XSParticleDecl particle, int minOccurs, int maxOccurs, int depth) {
+            if (maxOccurs == 0) {
+                return null;
+            }
+            if (particle.fType == XSParticleDecl.PARTICLE_MODELGROUP) {
+                XSModelGroupImpl group = (XSModelGroupImpl)particle.fValue;
+                // a group with a single particle is merged with it when
+                // the occurrence ranges multiply out
+                XSParticleDecl single = null;
+                int count = 0;
+                for (int i = 0; i < group.fParticleCount; i++) {
+                    if (!isEmpty(group.fParticles[i])) {
+                        single = group.fParticles[i];
+                        ++count;
+                    }
+                }
+                if (count == 0) {
+                    return null;
+                }
+                if (count == 1 && (group.fCompositor == XSModelGroupImpl.MODELGROUP_SEQUENCE ||
+                                   group.fParticleCount == 1)) {
+                    long min = (long)minOccurs * single.fMinOccurs;
+                    long max = (maxOccurs == SchemaSymbols.OCCURRENCE_UNBOUNDED ||
+                                single.fMaxOccurs == SchemaSymbols.OCCURRENCE_UNBOUNDED) ?
+                            SchemaSymbols.OCCURRENCE_UNBOUNDED : (long)maxOccurs * single.fMaxOccurs;
+                    if ((single.fMinOccurs <= 1 || minOccurs == maxOccurs) &&
+                        min <= Integer.MAX_VALUE && max <= Integer.MAX_VALUE) {
+                        return buildParticle(single, (int)min, (int)max, depth);
+                    }
+                }
+            }
+
+            final int node = fNodeCounters.fSize;
+            fNodeCounters.add(-1);
+            if (depth == fPath.length) {
+                int[] path = new int[depth << 1];
+                System.arraycopy(fPath, 0, path, 0, depth);
+                fPath = path;
+            }
+            fPath[depth] = node;
+
+            Glushkov body;
+            if (particle.fType == XSParticleDecl.PARTICLE_MODELGROUP) {
+                body = buildGroup((XSModelGroupImpl)particle.fValue, depth);
+            }
+            else {
+                final int position = fTerms.size();
+                fTerms.add(particle.fValue);
+                fTermTypes.add(particle.fType);
+                int[] path = new int[depth + 1];
+                System.arraycopy(fPath, 0, path, 0, depth + 1);
+                fPaths.add(path);
+                body = new Glushkov(new int[] {position}, new int[] {position}, false);
+            }
+
+            // count the occurrences unless the states alone can check them
+            final boolean bounded = maxOccurs != SchemaSymbols.OCCURRENCE_UNBOUNDED;
+            final boolean checkMin = minOccurs > 1 && !body.fNullable;
+            int counter = -1;
+            if ((bounded && maxOccurs > 1) || checkMin) {
+                counter = fMinOccurs.fSize;
+                fNodeCounters.fData[node] = counter;
+                fMinOccurs.add(minOccurs);
+                fMaxOccurs.add(maxOccurs);
+                fCheckMin.add(checkMin ? 1 : 0);
+            }
+
+            // repeating the particle leads from its last positions
+            // back to its first positions
+            if (maxOccurs > 1 || !bounded) {
+                for (int i = 0; i < body.fLast.length; i++) {
+                    for (int j = 0; j < body.fFirst.length; j++) {
+                        addTransition(body.fLast[i], body.fFirst[j], depth, counter, bounded);
+                    }
+                }
+            }
+
+            return new Glushkov(body.fFirst, body.fLast, body.fNullable || minOccurs == 0);
+        }
+
+        /** Builds the positions of the particles of a model group. */
+        private Glushkov buildGroup(XSModelGroupImpl group, int depth) {
+            final boolean sequence = group.fCompositor == XSModelGroupImpl.MODELGROUP_SEQUENCE;
+            int[] first = NO_POSITIONS;
+            int[] last = NO_POSITIONS;
+            boolean nullable = sequence;
+            for (int i = 0; i < group.fParticleCount; i++) {
+                XSParticleDecl child = group.fParticles[i];
+                Glushkov particle = buildParticle(child, child.fMinOccurs, child.fMaxOccurs, depth + 1);
+                if (particle == null) {
+                    // an empty particle makes a choice optional
+                    nullable |= !sequence;
+                    continue;
+                }
+                if (sequence) {
+                    // the particle follows the last positions of the
+                    // particles before it, up to a required one
+                    for (int j = 0; j < last.length; j++) {
+                        for (int k = 0; k < particle.fFirst.length; k++) {
+                            addTransition(last[j], particle.fFirst[k], depth, -1, false);
+                        }
+                    }
+                    if (nullable) {
+                        first = union(first, particle.fFirst);
+                    }
+                    last = particle.fNullable ? union(last, particle.fLast) : particle.fLast;
+                    nullable &= particle.fNullable;
+                }
+                else {
+                    first = union(first, particle.fFirst);
+                    last = union(last, particle.fLast);
+                    nullable |= particle.fNullable;
+                }
+            }
+            return new Glushkov(first, last, nullable);
+        }
+
+        private static boolean isEmpty(XSParticleDecl particle) {
+            if (particle.fMaxOccurs == 0) {
+                return true;
+            }
+            if (particle.fType == XSParticleDecl.PARTICLE_MODELGROUP) {
+                XSModelGroupImpl group = (XSModelGroupImpl)particle.fValue;
+                for (int i = 0; i < group.fParticleCount; i++) {
+                    if (!isEmpty(group.fParticles[i])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private static int[] union(int[] a, int[] b) {
+            if (a.length == 0) {
+                return b;
+            }
+            int[] c = new int[a.length + b.length];
+            System.arraycopy(a, 0, c, 0, a.length);
+            System.arraycopy(b, 0, c, a.length, b.length);
+            return c;
+        }
+
+        /**
+         * Adds a transition from one position to another (or from the
+         * start if the source is -1), which leaves the particles enclosing
+         * the source below the given depth, repeats the particle at the
+         * given depth if it has a counter, and enters the particles
+         * enclosing the target below the given depth.
+         */
+        private void addTransition(int source, int target, int depth,
+                int counter, boolean bounded) {
+            IntList ops = new IntList();
+            if (source != -1) {
+                int[] path = (int[])fPaths.get(source);
+                for (int i = depth + 1; i < path.length; i++) {
+                    final int c = fNodeCounters.fData[path[i]];
+                    if (c != -1 && fCheckMin.fData[c] != 0) {
+                        ops.add(c << 2 | CHECK_MIN);
+                    }
+                }
+            }
+            if (counter != -1) {
+                if (bounded) {
+                    ops.add(counter << 2 | CHECK_MAX);
+                }
+                ops.add(counter << 2 | INCREMENT);
+            }
+            int[] path = (int[])fPaths.get(target);
+            for (int i = depth + 1; i < path.length; i++) {
+                final int c = fNodeCounters.fData[path[i]];
+                if (c != -1) {
+                    ops.add(c << 2 | ENTER);
+                }
+            }
+            fSources.add(source + 1);
+            fTargets.add(target);
+            fOps.add(ops.fSize > 0 ? ops.toArray() : null);
+        }
+
+        /**
+         * Returns the conditions on leaving the particles enclosing a
+         * position below the given depth, or null if there are none.
+         */
+        private int[] exitChecks(int position, int depth) {
+            IntList ops = new IntList();
+            int[] path = (int[])fPaths.get(position);
+            for (int i = depth + 1; i < path.length; i++) {
+                final int c = fNodeCounters.fData[path[i]];
+                if (c != -1 && fCheckMin.fData[c] != 0) {
+                    ops.add(c << 2 | CHECK_MIN);
+                }
+            }
+            return ops.fSize > 0 ? ops.toArray() : null;
+        }
+
+        /**
+         * Groups the transitions by source state, ordered by target
+         * position and, for the same target, by how high they leave the
+         * counters, and removes duplicate transitions.
+         */
+        private void sortTransitions(int stateCount) {
+            final int count = fSources.fSize;
+            final int[] sources = fSources.fData;
+            final int[] targets = fTargets.fData;
+            int[] ranks = new int[count];
+            for (int t = 0; t < count; t++) {
+                ranks[t] = rank((int[])fOps.get(t), targets[t]);
+            }
+
+            // counting sort by source, stable
+            int[] start = new int[stateCount + 1];
+            for (int t = 0; t < count; t++) {
+                ++start[sources[t] + 1];
+            }
+            for (int s = 0; s < stateCount; s++) {
+                start[s + 1] += start[s];
+            }
+            int[] order = new int[count];
+            int[] next = new int[stateCount];
+            System.arraycopy(start, 0, next, 0, stateCount);
+            for (int t = 0; t < count; t++) {
+                order[next[sources[t]]++] = t;
+            }
+
+            // insertion sort each state by target and rank
+            for (int s = 0; s < stateCount; s++) {
+                for (int i = start[s] + 1; i < start[s + 1]; i++) {
+                    final int t = order[i];
+                    int j = i - 1;
+                    while (j >= start[s] &&
+                           (targets[order[j]] > targets[t] ||
+                            (targets[order[j]] == targets[t] && ranks[order[j]] > ranks[t]))) {
+                        order[j + 1] = order[j];
+                        --j;
+                    }
+                    order[j + 1] = t;
+                }
+            }
+
+            // copy, dropping duplicates
+            fTransStart = new int[stateCount + 1];
+            IntList transTarget = new IntList();
+            ArrayList transOps = new ArrayList();
+            for (int s = 0; s < stateCount; s++) {
+                fTransStart[s] = transTarget.fSize;
+                for (int i = start[s]; i < start[s + 1]; i++) {
+                    final int t = order[i];
+                    final int[] ops = (int[])fOps.get(t);
+                    boolean duplicate = false;
+                    for (int j = transTarget.fSize - 1; j >= fTransStart[s] &&
+                            transTarget.fData[j] == targets[t]; j--) {
+                        if (equals((int[])transOps.get(j), ops)) {
+                            duplicate = true;
+                            break;
+                        }
+                    }
+                    if (!duplicate) {
+                        transTarget.add(targets[t]);
+                        transOps.add(ops);
+                    }
+                }
+            }
+            fTransStart[stateCount] = transTarget.fSize;
+            fTransTarget = transTarget.toArray();
+            fTransOps = (int[][])transOps.toArray(new int[transOps.size()][]);
+        }
+
+        /**
+         * Returns how high a transition leaves the counters of the
+         * particles enclosing its target: for each counter, 0 if it is
+         * set to one, 1 if it is unchanged and 2 if it is incremented.
+         */
+        private int rank(int[] ops, int target) {
+            int[] path = (int[])fPaths.get(target);
+            int rank = 0;
+            for (int i = 0; i < path.length; i++) {
+                final int c = fNodeCounters.fData[path[i]];
+                if (c != -1) {
+                    rank += update(ops, c);
+                }
+            }
+            return rank;
+        }
+
+        /**
+         * Returns how a transition updates a counter: 0 if it is set to
+         * one, 1 if it is unchanged and 2 if it is incremented.
+         */
+        private static int update(int[] ops, int counter) {
+            if (ops != null) {
+                for (int i = 0; i < ops.length; i++) {
+                    if (ops[i] >>> 2 == counter) {
+                        if ((ops[i] & 3) == ENTER) {
+                            return 0;
+                        }
+                        if ((ops[i] & 3) == INCREMENT) {
+                            return 2;
+                        }
+                    }
+                }
+            }
+            return 1;
+        }
+
+        private static boolean equals(int[] a, int[] b) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            if (a.length != b.length) {
+                return false;
+            }
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] != b[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks that for any values of the counters, an element can
+         * only be matched by one transition from each state, or by
+         * transitions to the same position of which the first leaves
+         * the counters no higher than the others.
+         */
+        private boolean checkDeterminism(int positionCount) {
+            int[][] overlaps = findOverlaps(positionCount);
+            final int stateCount = positionCount + 1;
+            // the first transition from the current state to each position
+            int[] firstTrans = new int[positionCount];
+            int[] stamp = new int[positionCount];
+            for (int s = 0; s < stateCount; s++) {
+                for (int t = fTransStart[s]; t < fTransStart[s + 1]; t++) {
+                    if (stamp[fTransTarget[t]] != s + 1) {
+                        stamp[fTransTarget[t]] = s + 1;
+                        firstTrans[fTransTarget[t]] = t;
+                    }
+                }
+                for (int t = fTransStart[s]; t < fTransStart[s + 1]; t++) {
+                    final int target = fTransTarget[t];
+                    // transitions to the same position
+                    for (int u = t + 1; u < fTransStart[s + 1] && fTransTarget[u] == target; u++) {
+                        if (satisfiable(fTransOps[t], fTransOps[u]) &&
+                            !dominates(fTransOps[t], fTransOps[u], target)) {
+                            return false;
+                        }
+                    }
+                    // transitions to other positions which may match the same element
+                    int[] others = overlaps[target];
+                    for (int i = 0; i < others.length; i++) {
+                        final int other = others[i];
+                        if (other <= target || stamp[other] != s + 1) {
+                            continue;
+                        }
+                        for (int u = firstTrans[other]; u < fTransStart[s + 1] && fTransTarget[u] == other; u++) {
+                            if (satisfiable(fTransOps[t], fTransOps[u])) {
+                                return false;
+                            }
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns, for each position, the other positions whose terms
+         * may match the same element. This does not depend on the
+         * substitution groups, which may still grow.
+         */
+        private int[][] findOverlaps(int positionCount) {
+            // elements can only overlap if the heads of their
+            // substitution groups have the same name
+            HashMap heads = new HashMap();
+            IntList wildcards = new IntList();
+            for (int p = 0; p < positionCount; p++) {
+                if (fTermTypes.fData[p] == XSParticleDecl.PARTICLE_ELEMENT) {
+                    XSElementDecl element = (XSElementDecl)fTerms.get(p);
+                    while (element.fSubGroup != null) {
+                        element = element.fSubGroup;
+                    }
+                    String key = element.fTargetNamespace == null ? element.fName :
+                        element.fTargetNamespace + ',' + element.fName;
+                    IntList list = (IntList)heads.get(key);
+                    if (list == null) {
+                        list = new IntList();
+                        heads.put(key, list);
+                    }
+                    list.add(p);
+                }
+                else {
+                    wildcards.add(p);
+                }
+            }
+            int[][] overlaps = new int[positionCount][];
+            for (int p = 0; p < positionCount; p++) {
+                Object term = fTerms.get(p);
+                IntList list = new IntList();
+                if (fTermTypes.fData[p] == XSParticleDecl.PARTICLE_ELEMENT) {
+                    XSElementDecl element = (XSElementDecl)term;
+                    while (element.fSubGroup != null) {
+                        element = element.fSubGroup;
+                    }
+                    IntList candidates = (IntList)heads.get(element.fTargetNamespace == null ? element.fName :
+                        element.fTargetNamespace + ',' + element.fName);
+                    for (int i = 0; i < candidates.fSize; i++) {
+                        final int q = candidates.fData[i];
+                        if (q != p && overlap(term, fTerms.get(q))) {
+                            list.add(q);
+                        }
+                    }
+                    for (int i = 0; i < wildcards.fSize; i++) {
+                        if (overlap(term, fTerms.get(wildcards.fData[i]))) {
+                            list.add(wildcards.fData[i]);
+                        }
+                    }
+                }
+                else {
+                    for (int q = 0; q < positionCount; q++) {
+                        if (q != p && overlap(term, fTerms.get(q))) {
+                            list.add(q);
+                        }
+                    }
+                }
+                overlaps[p] = list.toArray();
+            }
+            return overlaps;
+        }
+
+        /**
+         * Returns whether two terms may match the same element, whatever
+         * elements are later added to the substitution groups.
+         */
+        private static boolean overlap(Object term1, Object term2) {
+            if (term1 instanceof XSElementDecl) {
+                if (term2 instanceof XSElementDecl) {
+                    return isHead((XSElementDecl)term1, (XSElementDecl)term2) ||
+                           isHead((XSElementDecl)term2, (XSElementDecl)term1);
+                }
+                return overlap((XSElementDecl)term1, (XSWildcardDecl)term2);
+            }
+            if (term2 instanceof XSElementDecl) {
+                return overlap((XSElementDecl)term2, (XSWildcardDecl)term1);
+            }
+            return XSConstraints.overlapUPA((XSWildcardDecl)term1, (XSWildcardDecl)term2);
+        }
+
+        /** Returns whether an element or one of its heads has the name of another. */
+        private static boolean isHead(XSElementDecl head, XSElementDecl element) {
+            for (; element != null; element = element.fSubGroup) {
+                if (element.fName == head.fName &&
+                    element.fTargetNamespace == head.fTargetNamespace) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean overlap(XSElementDecl element, XSWildcardDecl wildcard) {
+            // a global element may be substituted by elements
+            // from any namespace
+            return element.fScope == XSConstants.SCOPE_GLOBAL ||
+                   wildcard.allowNamespace(element.fTargetNamespace);
+        }
+
+        /**
+         * Returns whether the conditions of two transitions may hold for
+         * the same values of the counters.
+         */
+        private boolean satisfiable(int[] ops1, int[] ops2) {
+            if (ops1 == null || ops2 == null) {
+                return true;
+            }
+            for (int i = 0; i < ops1.length; i++) {
+                final int kind1 = ops1[i] & 3;
+                if (kind1 != CHECK_MIN && kind1 != CHECK_MAX) {
+                    break;
+                }
+                final int counter = ops1[i] >>> 2;
+                for (int j = 0; j < ops2.length; j++) {
+                    final int kind2 = ops2[j] & 3;
+                    if (kind2 != CHECK_MIN && kind2 != CHECK_MAX) {
+                        break;
+                    }
+                    // a counter at minOccurs or above, and below maxOccurs,
+                    // holds if minOccurs < maxOccurs
+                    if (ops2[j] >>> 2 == counter && kind1 != kind2 &&
+                        fMinOccurs.fData[counter] >= fMaxOccurs.fData[counter] &&
+                        fMaxOccurs.fData[counter] != SchemaSymbols.OCCURRENCE_UNBOUNDED) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns whether the first of two transitions to the same position
+         * leaves each counter enclosing the position no higher than the
+         * second, and differs from it only in counters which have no
+         * minimum to reach, so that whatever follows the second transition
+         * may also follow the first.
+         */
+        private boolean dominates(int[] ops1, int[] ops2, int target) {
+            int[] path = (int[])fPaths.get(target);
+            for (int i = 0; i < path.length; i++) {
+                final int c = fNodeCounters.fData[path[i]];
+                if (c != -1) {
+                    final int update1 = update(ops1, c);
+                    final int update2 = update(ops2, c);
+                    if (update1 > update2) {
+                        return false;
+                    }
+                    if (update1 != update2 &&
+                        (fCheckMin.fData[c] != 0 ||
+                         fMaxOccurs.fData[c] == SchemaSymbols.OCCURRENCE_UNBOUNDED)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /** The first and last positions of a particle, and whether it is nullable. */
+    private static final class Glushkov {
+        final int[] fFirst;
+        final int[] fLast;
+        final boolean fNullable;
+
+        Glushkov(int[] first, int[] last, boolean nullable) {
+            fFirst = first;
+            fLast = last;
+            fNullable = nullable;
+        }
+    }
+
+} // class XSCountingCM
@@ -1170,4 +1170,25 @@ public class XSDFACM
     public boolean isCompactedForUPA() {
         return fIsCompactedForUPA;
     }
+    
+    public int getEstimatedSize() {
+        // assume 16 byte object and array headers and 4 byte references
+        int size = 56;
+        size += 16 + 4 * fElemMap.length;
+        size += 16 + 4 * fElemMapType.length;
+        size += 16 + fFinalStateFlags.length;
+        size += 16 + 4 * fTransTable.length;
+        for (int i = 0; i < fTransTable.length && fTransTable[i] != null; i++) {
+            size += 16 + 4 * fTransTable[i].length;
+        }
+        if (fCountingStates != null) {
+            size += 16 + 4 * fCountingStates.length;
+            for (int i = 0; i < fCountingStates.length; i++) {
+                if (fCountingStates[i] != null) {
+                    size += 32;
+                }
+            }
+        }
+        return size;
+    }
 } // class DFAContentModel
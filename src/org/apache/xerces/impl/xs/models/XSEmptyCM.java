@@ -141,4 +141,9 @@ public class XSEmptyCM implements XSCMValidator {
     public boolean isCompactedForUPA() {
         return false;
     }
+    
+    public int getEstimatedSize() {
+        // a single instance is shared by all types
+        return 0;
+    }
 } // class XSEmptyCM
@@ -34,9 +34,11 @@ public class ElementImpl extends DefaultElement {
     
     SchemaDOM schemaDOM;
     Attr[] attrs;
-    int row;
-    int col;
-    int parentRow;
+    ElementImpl parent;
+    ElementImpl firstChild;
+    ElementImpl lastChild;
+    ElementImpl previousSibling;
+    ElementImpl nextSibling;
     
     int line;
     int column;
@@ -45,9 +47,6 @@ public class ElementImpl extends DefaultElement {
     String fSyntheticAnnotation;
     
     public ElementImpl(int line, int column, int offset) {
-        row = -1;
-        col = -1;
-        parentRow = -1;
         nodeType = Node.ELEMENT_NODE;
         
         this.line = line;
@@ -63,9 +62,6 @@ public class ElementImpl extends DefaultElement {
     public ElementImpl(String prefix, String localpart, String rawname,
             String uri, int line, int column, int offset) {
         super(prefix, localpart, rawname, uri, Node.ELEMENT_NODE);
-        row = -1;
-        col = -1;
-        parentRow = -1;
         
         this.line = line;
         this.column = column;
@@ -88,58 +84,32 @@ public class ElementImpl extends DefaultElement {
     
     
     public Node getParentNode() {
-        return schemaDOM.relations[row][0];
+        return parent;
     }
     
     
     public boolean hasChildNodes() {
-        if (parentRow == -1) {
-            return false;
-        }
-        else {
-            return true;
-        }
+        return firstChild != null;
     }
     
     
     public Node getFirstChild() {
-        if (parentRow == -1) {
-            return null;
-        }
-        return schemaDOM.relations[parentRow][1];
+        return firstChild;
     }
     
     
     public Node getLastChild() {
-        if (parentRow == -1) {
-            return null;
-        }
-        int i=1;
-        for (; i<schemaDOM.relations[parentRow].length; i++) {
-            if (schemaDOM.relations[parentRow][i] == null) {
-                return schemaDOM.relations[parentRow][i-1];
-            }
-        }
-        if (i ==1) {
-            i++;
-        }
-        return schemaDOM.relations[parentRow][i-1];
+        return lastChild;
     }
     
     
     public Node getPreviousSibling() {
-        if (col == 1) {
-            return null;
-        }
-        return schemaDOM.relations[row][col-1];
+        return previousSibling;
     }
     
     
     public Node getNextSibling() {
-        if (col == schemaDOM.relations[row].length-1) {
-            return null;
-        }
-        return schemaDOM.relations[row][col+1];
+        return nextSibling;
     }
     
     
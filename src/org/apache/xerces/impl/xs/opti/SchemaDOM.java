@@ -41,14 +41,12 @@ import org.w3c.dom.Node;
  */
 public class SchemaDOM extends DefaultDocument {
     
-    static final int relationsRowResizeFactor = 15;
-    static final int relationsColResizeFactor = 10;
+    private static final Attr[] EMPTY_ATTRS = new Attr[0];
     
-    NodeImpl[][] relations;
+    // the element holding the document element as its only child
+    ElementImpl documentNode;
     // parent must be an element in this scheme
     ElementImpl parent;
-    int currLoc;
-    int nextFreeLoc;
     boolean hidden;
     boolean inCDATA;
     
@@ -96,8 +94,9 @@ public class SchemaDOM extends DefaultDocument {
         node.schemaDOM = this;
         
         // set the attributes
-        Attr[] attrs = new Attr[attributes.getLength()];
-        for (int i=0; i<attributes.getLength(); i++) {
+        final int length = attributes.getLength();
+        Attr[] attrs = (length == 0) ? EMPTY_ATTRS : new Attr[length];
+        for (int i=0; i<length; i++) {
             attrs[i] = new AttrImpl(node, 
                     attributes.getPrefix(i), 
                     attributes.getLocalName(i), 
@@ -107,44 +106,23 @@ public class SchemaDOM extends DefaultDocument {
         }
         node.attrs = attrs;
         
-        // check if array needs to be resized
-        if (nextFreeLoc == relations.length) {
-            resizeRelations();
+        // add the current node as the last child of parent
+        node.parent = parent;
+        if (parent.lastChild == null) {
+            parent.firstChild = node;
         }
-        
-        // store the current parent
-        //if (relations[currLoc][0] == null || relations[currLoc][0] != parent) {
-        if (relations[currLoc][0] != parent) {
-            relations[nextFreeLoc][0] = parent;
-            currLoc = nextFreeLoc++;
-        }
-        
-        // add the current node as child of parent
-        boolean foundPlace = false;
-        int i = 1;
-        for (i = 1; i<relations[currLoc].length; i++) {
-            if (relations[currLoc][i] == null) {
-                foundPlace = true;
-                break;
-            }
-        }
-        
-        if (!foundPlace) {
-            resizeRelations(currLoc);
+        else {
+            parent.lastChild.nextSibling = node;
+            node.previousSibling = parent.lastChild;
         }
-        relations[currLoc][i] = node;
-        
-        parent.parentRow = currLoc;
-        node.row = currLoc;
-        node.col = i;
+        parent.lastChild = node;
     }
     
     
     public void endElement()  {
         // the parent of current parent node becomes the parent
         // for the next node.
-        currLoc = parent.row;
-        parent = (ElementImpl)relations[currLoc][0];
+        parent = parent.parent;
     }
     
     // note that this will only be called within appinfo/documentation
@@ -251,55 +229,15 @@ public class SchemaDOM extends DefaultDocument {
         inCDATA = false;
     }
     
-    private void resizeRelations() {
-        NodeImpl[][] temp = new NodeImpl[relations.length+relationsRowResizeFactor][];
-        System.arraycopy(relations, 0, temp, 0, relations.length);
-        for (int i = relations.length ; i < temp.length ; i++) {
-            temp[i] = new NodeImpl[relationsColResizeFactor];
-        }
-        relations = temp;
-    }
-    
-    private void resizeRelations(int i) {
-        NodeImpl[] temp = new NodeImpl[relations[i].length+relationsColResizeFactor];
-        System.arraycopy(relations[i], 0, temp, 0, relations[i].length);
-        relations[i] = temp;
-    }
-    
-    
     public void reset() {
-        
-        // help out the garbage collector
-        if(relations != null) 
-            for(int i=0; i<relations.length; i++) 
-                for(int j=0; j<relations[i].length; j++) 
-                    relations[i][j] = null;
-        relations = new NodeImpl[relationsRowResizeFactor][];
-        parent = new ElementImpl(0, 0, 0);
-        parent.rawname = "DOCUMENT_NODE";
-        currLoc = 0;
-        nextFreeLoc = 1;
+        documentNode = new ElementImpl(0, 0, 0);
+        documentNode.rawname = "DOCUMENT_NODE";
+        parent = documentNode;
         inCDATA = false;
-        for (int i=0; i<relationsRowResizeFactor; i++) {
-            relations[i] = new NodeImpl[relationsColResizeFactor];
-        }
-        relations[currLoc][0] = parent;
     }
     
     
     public void printDOM() {
-        /*
-         for (int i=0; i<relations.length; i++) {
-         if (relations[i][0] != null) {
-         for (int j=0; j<relations[i].length; j++) {
-         if (relations[i][j] != null) {
-         System.out.print(relations[i][j].nodeType+"-"+relations[i][j].parentRow+"  ");
-         }
-         }
-         System.out.println("");
-         }
-         }
-         */
         //traverse(getDocumentElement(), 0);
     }
     
@@ -341,7 +279,7 @@ public class SchemaDOM extends DefaultDocument {
     // org.w3c.dom methods
     public Element getDocumentElement() {
         // this returns a parent node, known to be an ElementImpl
-        return (ElementImpl)relations[0][1];
+        return documentNode.firstChild;
     }
     
     public DOMImplementation getImplementation() {
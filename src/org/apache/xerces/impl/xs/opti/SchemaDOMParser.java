@@ -192,7 +192,7 @@ public class SchemaDOMParser extends DefaultXMLDocumentHandler {
                     // the string we saw: starting from the first non-whitespace character.
                     String txt = new String(text.ch, i, text.length+text.offset-i);
                     // report an error
-                    fErrorReporter.reportError(fLocator, 
+                    fErrorReporter.report(fLocator, 
                             XSMessageFormatter.SCHEMA_DOMAIN,
                             "s4s-elt-character",
                             new Object[]{txt},
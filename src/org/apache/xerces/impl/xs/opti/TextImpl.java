@@ -32,14 +32,15 @@ public class TextImpl extends DefaultText {
     // Data
     String fData = null;
     SchemaDOM fSchemaDOM = null;
-    int fRow;
-    int fCol;
 
+    /**
+     * Text nodes are not linked into the tree of a SchemaDOM, so the row
+     * and column of the node are not used and it has no parent or
+     * siblings.
+     */
     public TextImpl(StringBuffer str, SchemaDOM sDOM, int row, int col) {
         fData = str.toString();
         fSchemaDOM = sDOM;
-        fRow = row;
-        fCol = col;
         rawname = prefix = localpart = uri = null;
         nodeType = Node.TEXT_NODE;
     }
@@ -51,25 +52,6 @@ public class TextImpl extends DefaultText {
     public String getNodeName() {
         return "#text";
     }
-    
-    public Node getParentNode() {
-        return fSchemaDOM.relations[fRow][0];
-    }
-
-    public Node getPreviousSibling() {
-        if (fCol == 1) {
-            return null;
-        }
-        return fSchemaDOM.relations[fRow][fCol-1];
-    }
-
-
-    public Node getNextSibling() {
-        if (fCol == fSchemaDOM.relations[fRow].length-1) {
-            return null;
-        }
-        return fSchemaDOM.relations[fRow][fCol+1];
-    }
 
     // CharacterData methods
 
@@ -17,7 +17,8 @@
 
 package org.apache.xerces.impl.xs.traversers;
 
-import java.util.Hashtable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.StringTokenizer;
@@ -34,6 +35,7 @@ import org.apache.xerces.impl.xs.XSWildcardDecl;
 import org.apache.xerces.impl.xs.util.XInt;
 import org.apache.xerces.impl.xs.util.XIntPool;
 import org.apache.xerces.util.DOMUtil;
+import org.apache.xerces.util.SymbolHash;
 import org.apache.xerces.util.SymbolTable;
 import org.apache.xerces.util.XMLChar;
 import org.apache.xerces.util.XMLSymbols;
@@ -140,11 +142,13 @@ public class XSAttributeChecker {
     private static final XInt INT_WS_COLLAPSE    = fXIntPool.getXInt(XSSimpleType.WS_COLLAPSE);
     private static final XInt INT_UNBOUNDED      = fXIntPool.getXInt(SchemaSymbols.OCCURRENCE_UNBOUNDED);
 
-    // used to store the map from element name to attribute list
+    // used to store the map from element name to attribute list.
+    // these are only read once they have been filled in below, so
+    // they need no synchronization.
     // for 14 global elements
-    private static final Hashtable fEleAttrsMapG = new Hashtable(29);
+    private static final SymbolHash fEleAttrsMapG = new SymbolHash(29);
     // for 39 local elememnts
-    private static final Hashtable fEleAttrsMapL = new Hashtable(79);
+    private static final SymbolHash fEleAttrsMapL = new SymbolHash(79);
 
     // used to initialize fEleAttrsMap
     // step 1: all possible data types
@@ -923,10 +927,14 @@ public class XSAttributeChecker {
     protected SymbolTable fSymbolTable = null;
 
     // used to store the mapping from processed element to attributes
-    protected Hashtable fNonSchemaAttrs = new Hashtable();
+    protected HashMap fNonSchemaAttrs = new HashMap();
 
-    // temprory vector, used to hold the namespace list
-    protected Vector fNamespaceList = new Vector();
+    // temporary array, used to hold the namespace list
+    protected String[] fNamespaceList = new String[4];
+
+    // the last value returned for ATTIDX_FROMDEFAULT; reused when the
+    // next element gets its default values from the same attributes
+    private Long fFromDefault = new Long(0);
 
     // whether this attribute appeared in the current element
     protected boolean[] fSeen = new boolean[ATTIDX_COUNT];
@@ -989,7 +997,7 @@ public class XSAttributeChecker {
             reportSchemaError("s4s-elt-schema-ns", new Object[] {elName}, element);
         }
 
-        Hashtable eleAttrsMap = fEleAttrsMapG;
+        SymbolHash eleAttrsMap = fEleAttrsMapG;
         String lookupName = elName;
 
         // REVISIT: only local element and attribute are different from others.
@@ -1029,6 +1037,10 @@ public class XSAttributeChecker {
         // clear the "seen" flag.
         System.arraycopy(fSeenTemp, 0, fSeen, 0, ATTIDX_COUNT);
 
+        // For "enumeration", and type is possible to be a QName, we need
+        // to return namespace context for later QName resolution.
+        final boolean saveNSContext = enumAsQName && elName.equals(SchemaSymbols.ELT_ENUMERATION);
+
         // traverse all attributes
         int length = attrs.length;
         Attr sattr = null;
@@ -1067,10 +1079,10 @@ public class XSAttributeChecker {
                 else {
                     if(attrValues[ATTIDX_NONSCHEMA] == null) {
                         // these are usually small
-                        attrValues[ATTIDX_NONSCHEMA] = new Vector(4,2);
+                        attrValues[ATTIDX_NONSCHEMA] = new ArrayList(4);
                     }
-                    ((Vector)attrValues[ATTIDX_NONSCHEMA]).addElement(attrName);
-                    ((Vector)attrValues[ATTIDX_NONSCHEMA]).addElement(attrVal);
+                    ((ArrayList)attrValues[ATTIDX_NONSCHEMA]).add(attrName);
+                    ((ArrayList)attrValues[ATTIDX_NONSCHEMA]).add(attrVal);
                     // for attributes from other namespace
                     // store them in a list, and TRY to validate them after
                     // schema traversal (because it's "lax")
@@ -1139,9 +1151,7 @@ public class XSAttributeChecker {
                     attrValues[oneAttr.valueIndex] = oneAttr.dfltValue;
             }
 
-            // For "enumeration", and type is possible to be a QName, we need
-            // to return namespace context for later QName resolution.
-            if (elName.equals(SchemaSymbols.ELT_ENUMERATION) && enumAsQName) {
+            if (saveNSContext) {
                 attrValues[ATTIDX_ENUMNSDECLS] = new SchemaNamespaceSupport(schemaDoc.fNamespaceSupport);
             }
         }
@@ -1160,7 +1170,10 @@ public class XSAttributeChecker {
             }
         }
 
-        attrValues[ATTIDX_FROMDEFAULT] = new Long(fromDefault);
+        if (fFromDefault.longValue() != fromDefault) {
+            fFromDefault = new Long(fromDefault);
+        }
+        attrValues[ATTIDX_FROMDEFAULT] = fFromDefault;
         //attrValues[ATTIDX_OTHERVALUES] = otherValues;
 
         // Check that minOccurs isn't greater than maxOccurs.
@@ -1446,7 +1459,7 @@ public class XSAttributeChecker {
                 // list
                 retValue = INT_ANY_LIST;
 
-                fNamespaceList.removeAllElements();
+                int num = 0;
 
                 // tokenize
                 StringTokenizer tokens = new StringTokenizer(value, " \n\t\r");
@@ -1467,18 +1480,27 @@ public class XSAttributeChecker {
                         }
 
                         //check for duplicate namespaces in the list
-                        if (!fNamespaceList.contains(tempNamespace)) {
-                            fNamespaceList.addElement(tempNamespace);
+                        int i = 0;
+                        while (i < num && !(tempNamespace == null ? fNamespaceList[i] == null
+                                : tempNamespace.equals(fNamespaceList[i]))) {
+                            i++;
+                        }
+                        if (i == num) {
+                            if (num == fNamespaceList.length) {
+                                String[] newList = new String[num << 1];
+                                System.arraycopy(fNamespaceList, 0, newList, 0, num);
+                                fNamespaceList = newList;
+                            }
+                            fNamespaceList[num++] = tempNamespace;
                         }
                     }
                 } catch (InvalidDatatypeValueException ide) {
                     throw new InvalidDatatypeValueException("cvc-datatype-valid.1.2.3", new Object[]{value, "((##any | ##other) | List of (anyURI | (##targetNamespace | ##local)) )"});
                 }
 
-                // convert the vector to an array
-                int num = fNamespaceList.size();
+                // copy the namespaces into an array of the right size
                 String[] list = new String[num];
-                fNamespaceList.copyInto(list);
+                System.arraycopy(fNamespaceList, 0, list, 0, num);
                 attrValues[ATTIDX_NAMESPACE_LIST] = list;
             }
             break;
@@ -1658,8 +1680,11 @@ public class XSAttributeChecker {
         fArrayPool[fPoolPos++] = null;
         // to make sure that one array is not returned twice, we use
         // the last entry to indicate whether an array is already returned
-        // now set it to false.
+        // now set it to false. the list of non-schema attributes was
+        // cleared when the array was returned, so keep it for reuse.
+        Object nonSchemaAttrs = retArray[ATTIDX_NONSCHEMA];
         System.arraycopy(fTempArray, 0, retArray, 0, ATTIDX_COUNT-1);
+        retArray[ATTIDX_NONSCHEMA] = nonSchemaAttrs;
         retArray[ATTIDX_ISRETURNED] = Boolean.FALSE;
 
         return retArray;
@@ -1683,9 +1708,9 @@ public class XSAttributeChecker {
 
         // mark this array as returned
         attrArray[ATTIDX_ISRETURNED] = Boolean.TRUE;
-        // better clear nonschema vector
+        // better clear nonschema list
         if(attrArray[ATTIDX_NONSCHEMA] != null)
-            ((Vector)attrArray[ATTIDX_NONSCHEMA]).clear();
+            ((ArrayList)attrArray[ATTIDX_NONSCHEMA]).clear();
         // and put it into the pool
         fArrayPool[--fPoolPos] = attrArray;
     }
@@ -1769,9 +1794,9 @@ class SmallContainer extends Container {
 }
 
 class LargeContainer extends Container {
-    Hashtable items;
+    SymbolHash items;
     LargeContainer(int size) {
-        items = new Hashtable(size*2+1);
+        items = new SymbolHash(size*2+1);
         values = new OneAttr[size];
     }
     void put(String key, OneAttr value) {
@@ -17,6 +17,7 @@
 
 package org.apache.xerces.impl.xs.traversers;
 
+import java.util.ArrayList;
 import java.util.Locale;
 import java.util.Vector;
 
@@ -138,19 +139,22 @@ abstract class XSDAbstractTraverser {
         // if contents was null, must have been some kind of error;
         // nothing to contribute to PSVI
         if (contents == null) return null;
+        // compact grammars keep no annotations; there is nothing
+        // more to do unless the annotation has to be validated
+        if (fSchemaHandler.fCompactGrammars && !fValidateAnnotations) return null;
         
         // find the grammar; fSchemaHandler must be known!
         SchemaGrammar grammar = fSchemaHandler.getGrammar(schemaDoc.fTargetNamespace);
         // fish out local attributes passed from parent
-        Vector annotationLocalAttrs = (Vector)parentAttrs[XSAttributeChecker.ATTIDX_NONSCHEMA];
+        ArrayList annotationLocalAttrs = (ArrayList)parentAttrs[XSAttributeChecker.ATTIDX_NONSCHEMA];
         // optimize for case where there are no local attributes
         if(annotationLocalAttrs != null && !annotationLocalAttrs.isEmpty()) {
             StringBuffer localStrBuffer = new StringBuffer(64);
             localStrBuffer.append(" ");
-            // Vector should contain rawname value pairs
+            // list should contain rawname value pairs
             int i = 0;
             while (i < annotationLocalAttrs.size()) {
-                String rawname = (String)annotationLocalAttrs.elementAt(i++);
+                String rawname = (String)annotationLocalAttrs.get(i++);
                 int colonIndex = rawname.indexOf(':');
                 String prefix, localpart;
                 if (colonIndex == -1) {
@@ -168,7 +172,7 @@ abstract class XSDAbstractTraverser {
                 }
                 localStrBuffer.append(rawname)
                 .append("=\"");
-                String value = (String)annotationLocalAttrs.elementAt(i++);
+                String value = (String)annotationLocalAttrs.get(i++);
                 // search for pesky "s and <s within attr value:
                 value = processAttValue(value);
                 localStrBuffer.append(value)
@@ -187,12 +191,12 @@ abstract class XSDAbstractTraverser {
             if (fValidateAnnotations) {
                 schemaDoc.addAnnotation(new XSAnnotationInfo(annotation, annotationDecl));
             }
-            return new XSAnnotationImpl(annotation, grammar);
+            return newAnnotation(annotation, grammar);
         } else {
             if (fValidateAnnotations) {
                 schemaDoc.addAnnotation(new XSAnnotationInfo(contents, annotationDecl));
             }
-            return new XSAnnotationImpl(contents, grammar);
+            return newAnnotation(contents, grammar);
         }
         
     }
@@ -200,20 +204,24 @@ abstract class XSDAbstractTraverser {
     XSAnnotationImpl traverseSyntheticAnnotation(Element annotationParent, String initialContent,
             Object[] parentAttrs, boolean isGlobal, XSDocumentInfo schemaDoc) {
         
+        // compact grammars keep no annotations; there is nothing
+        // more to do unless the annotation has to be validated
+        if (fSchemaHandler.fCompactGrammars && !fValidateAnnotations) return null;
+        
         String contents = initialContent;
         
         // find the grammar; fSchemaHandler must be known!
         SchemaGrammar grammar = fSchemaHandler.getGrammar(schemaDoc.fTargetNamespace);
         // fish out local attributes passed from parent
-        Vector annotationLocalAttrs = (Vector)parentAttrs[XSAttributeChecker.ATTIDX_NONSCHEMA];
+        ArrayList annotationLocalAttrs = (ArrayList)parentAttrs[XSAttributeChecker.ATTIDX_NONSCHEMA];
         // optimize for case where there are no local attributes
         if (annotationLocalAttrs != null && !annotationLocalAttrs.isEmpty()) {
             StringBuffer localStrBuffer = new StringBuffer(64);
             localStrBuffer.append(" ");
-            // Vector should contain rawname value pairs
+            // list should contain rawname value pairs
             int i = 0;
             while (i < annotationLocalAttrs.size()) {
-                String rawname = (String)annotationLocalAttrs.elementAt(i++);
+                String rawname = (String)annotationLocalAttrs.get(i++);
                 int colonIndex = rawname.indexOf(':');
                 String prefix, localpart;
                 if (colonIndex == -1) {
@@ -227,7 +235,7 @@ abstract class XSDAbstractTraverser {
                 String uri = schemaDoc.fNamespaceSupport.getURI(fSymbolTable.addSymbol(prefix));
                 localStrBuffer.append(rawname)
                 .append("=\"");
-                String value = (String)annotationLocalAttrs.elementAt(i++);
+                String value = (String)annotationLocalAttrs.get(i++);
                 // search for pesky "s and <s within attr value:
                 value = processAttValue(value);
                 localStrBuffer.append(value)
@@ -246,15 +254,21 @@ abstract class XSDAbstractTraverser {
             if (fValidateAnnotations) {
                 schemaDoc.addAnnotation(new XSAnnotationInfo(annotation, annotationParent));
             }
-            return new XSAnnotationImpl(annotation, grammar);
+            return newAnnotation(annotation, grammar);
         } else {
             if (fValidateAnnotations) {
                 schemaDoc.addAnnotation(new XSAnnotationInfo(contents, annotationParent));
             }
-            return new XSAnnotationImpl(contents, grammar);
+            return newAnnotation(contents, grammar);
         }
     }
     
+    // creates the annotation component for the given contents, unless
+    // the grammar is compact, in which case annotations are not kept
+    private XSAnnotationImpl newAnnotation(String contents, SchemaGrammar grammar) {
+        return fSchemaHandler.fCompactGrammars ? null : new XSAnnotationImpl(contents, grammar);
+    }
+    
     // the QName simple type used to resolve qnames
     private static final XSSimpleType fQNameDV = (XSSimpleType)SchemaGrammar.SG_SchemaNS.getGlobalTypeDecl(SchemaSymbols.ATTVAL_QNAME);
     // Temp data structures to be re-used in traversing facets
@@ -390,19 +404,24 @@ abstract class XSDAbstractTraverser {
                 if (child != null &&
                         DOMUtil.getLocalName(child).equals(SchemaSymbols.ELT_ANNOTATION)) {
                     // traverse annotation if any
-                    if (patternAnnotations == null){
-                        patternAnnotations = new XSObjectListImpl();
+                    XSAnnotationImpl annotation = traverseAnnotationDecl(child, attrs, false, schemaDoc);
+                    if (annotation != null) {
+                        if (patternAnnotations == null){
+                            patternAnnotations = new XSObjectListImpl();
+                        }
+                        patternAnnotations.addXSObject(annotation);
                     }
-                    patternAnnotations.addXSObject(traverseAnnotationDecl(child, attrs, false, schemaDoc));
                     child = DOMUtil.getNextSiblingElement(child);
                 }
                 else {
                     String text = DOMUtil.getSyntheticAnnotation(content);
-                    if (text != null) {
+                    XSAnnotationImpl annotation = (text != null) ?
+                            traverseSyntheticAnnotation(content, text, attrs, false, schemaDoc) : null;
+                    if (annotation != null) {
                         if (patternAnnotations == null){
                             patternAnnotations = new XSObjectListImpl();
                         }
-                        patternAnnotations.addXSObject(traverseSyntheticAnnotation(content, text, attrs, false, schemaDoc));
+                        patternAnnotations.addXSObject(annotation);
                     }
                 }
                 if (child !=null) {
@@ -171,6 +171,10 @@ public class XSDHandler {
     protected static final String TOLERATE_DUPLICATES = 
       Constants.XERCES_FEATURE_PREFIX + Constants.TOLERATE_DUPLICATES_FEATURE;
     
+    /** Feature identifier: compact grammars */
+    protected static final String COMPACT_GRAMMARS = 
+      Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_COMPACT_GRAMMARS_FEATURE;
+    
     /** Feature identifier: namespace prefixes. */
     private static final String NAMESPACE_PREFIXES =
         Constants.SAX_FEATURE_PREFIX + Constants.NAMESPACE_PREFIXES_FEATURE;
@@ -214,6 +218,10 @@ public class XSDHandler {
     protected static final String LOCALE =
         Constants.XERCES_PROPERTY_PREFIX + Constants.LOCALE_PROPERTY;
     
+    /** Property identifier: content model policy. */
+    protected static final String CONTENT_MODEL_POLICY =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_CONTENT_MODEL_POLICY_PROPERTY;
+    
     protected static final boolean DEBUG_NODE_POOL = false;
     
     // Data
@@ -374,6 +382,12 @@ public class XSDHandler {
     
     // handle tolerate duplicates feature
     boolean fTolerateDuplicates = false;
+    
+    // the content model policy of new grammars
+    private short fContentModelPolicy = SchemaGrammar.CONTENT_MODEL_LAZY;
+    
+    // handle compact grammars feature: new grammars are compact
+    boolean fCompactGrammars = false;
 
     // the XMLErrorReporter
     private XMLErrorReporter fErrorReporter;
@@ -418,8 +432,6 @@ public class XSDHandler {
     
     // the initial size of the array to store deferred local elements
     private static final int INIT_STACK_SIZE = 30;
-    // the incremental size of the array to store deferred local elements
-    private static final int INC_STACK_SIZE  = 10;
     // current position of the array (# of deferred local elements)
     private int fLocalElemStackPos = 0;
     
@@ -877,11 +889,15 @@ public class XSDHandler {
             sg = findGrammar(desc, false);
             if(sg == null) {
                 sg = new SchemaGrammar(currSchemaInfo.fTargetNamespace, desc.makeClone(), fSymbolTable);
+                sg.setContentModelPolicy(fContentModelPolicy);
+                sg.setCompact(fCompactGrammars);
                 fGrammarBucket.putGrammar(sg);
             }
         }
         else {
             sg = new SchemaGrammar(currSchemaInfo.fTargetNamespace, desc.makeClone(), fSymbolTable);
+            sg.setContentModelPolicy(fContentModelPolicy);
+            sg.setCompact(fCompactGrammars);
             fGrammarBucket.putGrammar(sg);
         }
 
@@ -3350,6 +3366,8 @@ public class XSDHandler {
 
         if (sg == null) {
             sg = new SchemaGrammar(desc.getNamespace(), desc.makeClone(), fSymbolTable);
+            sg.setContentModelPolicy(fContentModelPolicy);
+            sg.setCompact(fCompactGrammars);
             fGrammarBucket.putGrammar(sg);
         }
         else if (sg.isImmutable()){
@@ -3561,6 +3579,27 @@ public class XSDHandler {
         } catch (XMLConfigurationException e) {
             fTolerateDuplicates = false;
         }
+        
+        try {
+            fCompactGrammars = componentManager.getFeature(COMPACT_GRAMMARS);
+        } catch (XMLConfigurationException e) {
+            fCompactGrammars = false;
+        }
+        
+        try {
+            String policy = (String) componentManager.getProperty(CONTENT_MODEL_POLICY);
+            if (Constants.CONTENT_MODEL_POLICY_EAGER.equals(policy)) {
+                fContentModelPolicy = SchemaGrammar.CONTENT_MODEL_EAGER;
+            }
+            else if (Constants.CONTENT_MODEL_POLICY_SOFT.equals(policy)) {
+                fContentModelPolicy = SchemaGrammar.CONTENT_MODEL_SOFT;
+            }
+            else {
+                fContentModelPolicy = SchemaGrammar.CONTENT_MODEL_LAZY;
+            }
+        } catch (XMLConfigurationException e) {
+            fContentModelPolicy = SchemaGrammar.CONTENT_MODEL_LAZY;
+        }
 
         try {
             fSchemaParser.setFeature(
@@ -3664,23 +3703,24 @@ public class XSDHandler {
         
         // if the stack is full, increase the size
         if (fParticle.length == fLocalElemStackPos) {
-            // increase size
-            XSParticleDecl[] newStackP = new XSParticleDecl[fLocalElemStackPos+INC_STACK_SIZE];
+            // double the size, so that large schemas are not copied over and over
+            final int newSize = fLocalElemStackPos << 1;
+            XSParticleDecl[] newStackP = new XSParticleDecl[newSize];
             System.arraycopy(fParticle, 0, newStackP, 0, fLocalElemStackPos);
             fParticle = newStackP;
-            Element[] newStackE = new Element[fLocalElemStackPos+INC_STACK_SIZE];
+            Element[] newStackE = new Element[newSize];
             System.arraycopy(fLocalElementDecl, 0, newStackE, 0, fLocalElemStackPos);
             fLocalElementDecl = newStackE;
-            XSDocumentInfo [] newStackE_schema = new XSDocumentInfo[fLocalElemStackPos+INC_STACK_SIZE];
+            XSDocumentInfo [] newStackE_schema = new XSDocumentInfo[newSize];
             System.arraycopy(fLocalElementDecl_schema, 0, newStackE_schema, 0, fLocalElemStackPos);
             fLocalElementDecl_schema = newStackE_schema;
-            int[] newStackI = new int[fLocalElemStackPos+INC_STACK_SIZE];
+            int[] newStackI = new int[newSize];
             System.arraycopy(fAllContext, 0, newStackI, 0, fLocalElemStackPos);
             fAllContext = newStackI;
-            XSObject[] newStackC = new XSObject[fLocalElemStackPos+INC_STACK_SIZE];
+            XSObject[] newStackC = new XSObject[newSize];
             System.arraycopy(fParent, 0, newStackC, 0, fLocalElemStackPos);
             fParent = newStackC;
-            String [][] newStackN = new String [fLocalElemStackPos+INC_STACK_SIZE][];
+            String [][] newStackN = new String [newSize][];
             System.arraycopy(fLocalElemNamespaceContext, 0, newStackN, 0, fLocalElemStackPos);
             fLocalElemNamespaceContext = newStackN;
         }
@@ -4125,11 +4165,11 @@ public class XSDHandler {
     
     void reportSchemaError(String key, Object[] args, Element ele, Exception exception) {
         if (element2Locator(ele, xl)) {
-            fErrorReporter.reportError(xl, XSMessageFormatter.SCHEMA_DOMAIN,
+            fErrorReporter.report(xl, XSMessageFormatter.SCHEMA_DOMAIN,
                     key, args, XMLErrorReporter.SEVERITY_ERROR, exception);
         }
         else {
-            fErrorReporter.reportError(XSMessageFormatter.SCHEMA_DOMAIN,
+            fErrorReporter.report(XSMessageFormatter.SCHEMA_DOMAIN,
                     key, args, XMLErrorReporter.SEVERITY_ERROR, exception);
         }
     }
@@ -4140,11 +4180,11 @@ public class XSDHandler {
     
     void reportSchemaWarning(String key, Object[] args, Element ele, Exception exception) {
         if (element2Locator(ele, xl)) {
-            fErrorReporter.reportError(xl, XSMessageFormatter.SCHEMA_DOMAIN,
+            fErrorReporter.report(xl, XSMessageFormatter.SCHEMA_DOMAIN,
                     key, args, XMLErrorReporter.SEVERITY_WARNING, exception);
         }
         else {
-            fErrorReporter.reportError(XSMessageFormatter.SCHEMA_DOMAIN,
+            fErrorReporter.report(XSMessageFormatter.SCHEMA_DOMAIN,
                     key, args, XMLErrorReporter.SEVERITY_WARNING, exception);
         }
     }
@@ -200,7 +200,8 @@ class XSDSimpleTypeTraverser extends XSDAbstractTraverser {
             String text = DOMUtil.getSyntheticAnnotation(simpleTypeDecl);
             if (text != null) {
                 XSAnnotationImpl annotation = traverseSyntheticAnnotation(simpleTypeDecl, text, attrValues, false, schemaDoc);
-                annotations = new XSAnnotationImpl[] {annotation};
+                if (annotation != null)
+                    annotations = new XSAnnotationImpl[] {annotation};
             }
         }
         // (list|restriction|union)
@@ -261,14 +262,16 @@ class XSDSimpleTypeTraverser extends XSDAbstractTraverser {
             String text = DOMUtil.getSyntheticAnnotation(child);
             if (text != null) {
                 XSAnnotationImpl annotation = traverseSyntheticAnnotation(child, text, contentAttrs, false, schemaDoc);
-                if (annotations == null) {
-                    annotations = new XSAnnotationImpl [] {annotation};
-                }
-                else {
-                    XSAnnotationImpl [] tempArray = new XSAnnotationImpl[2];
-                    tempArray[0] = annotations[0];
-                    annotations = tempArray;
-                    annotations[1] = annotation;
+                if (annotation != null) {
+                    if (annotations == null) {
+                        annotations = new XSAnnotationImpl [] {annotation};
+                    }
+                    else {
+                        XSAnnotationImpl [] tempArray = new XSAnnotationImpl[2];
+                        tempArray[0] = annotations[0];
+                        annotations = tempArray;
+                        annotations[1] = annotation;
+                    }
                 }
             }
         }
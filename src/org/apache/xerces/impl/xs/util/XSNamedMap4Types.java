@@ -65,32 +65,42 @@ public final class XSNamedMap4Types extends XSNamedMapImpl {
      * range of valid child node indices is 0 to <code>length-1</code>
      * inclusive.
      */
-    public synchronized int getLength() {
-        if (fLength == -1) {
-            // first get the number of components for all types
-            int length = 0;
-            for (int i = 0; i < fNSNum; i++) {
-                length += fMaps[i].getLength();
-            }
-            // then copy all types to an temporary array
-            int pos = 0;
-            XSObject[] array = new XSObject[length];
-            for (int i = 0; i < fNSNum; i++) {
-                pos += fMaps[i].getValues(array, pos);
-            }
-            // then copy either simple or complex types to fArray,
-            // depending on which kind is required
-            fLength = 0;
-            fArray = new XSObject[length];
-            XSTypeDefinition type;
-            for (int i = 0; i < length; i++) {
-                type = (XSTypeDefinition)array[i];
-                if (type.getTypeCategory() == fType) {
-                    fArray[fLength++] = type;
-                }
+    public int getLength() {
+        return getArray().length;
+    }
+
+    /**
+     * Builds the array of the types in this map which are of the
+     * required kind.
+     */
+    XSObject[] buildArray() {
+        // first get the number of components for all types
+        int length = 0;
+        for (int i = 0; i < fNSNum; i++) {
+            length += fMaps[i].getLength();
+        }
+        // then copy all types to an temporary array
+        int pos = 0;
+        XSObject[] array = new XSObject[length];
+        for (int i = 0; i < fNSNum; i++) {
+            pos += fMaps[i].getValues(array, pos);
+        }
+        // then move either simple or complex types to the front,
+        // depending on which kind is required
+        int typeCount = 0;
+        XSTypeDefinition type;
+        for (int i = 0; i < length; i++) {
+            type = (XSTypeDefinition)array[i];
+            if (type.getTypeCategory() == fType) {
+                array[typeCount++] = type;
             }
         }
-        return fLength;
+        if (typeCount == length) {
+            return array;
+        }
+        XSObject[] types = new XSObject[typeCount];
+        System.arraycopy(array, 0, types, 0, typeCount);
+        return types;
     }
 
     /**
@@ -117,24 +127,4 @@ public final class XSNamedMap4Types extends XSNamedMapImpl {
         return null;
     }
 
-    /**
-     * Returns the <code>index</code>th item in the map. The index starts at
-     * 0. If <code>index</code> is greater than or equal to the number of
-     * nodes in the list, this returns <code>null</code>.
-     * @param index The position in the map from which the item is to be
-     *   retrieved.
-     * @return The <code>XSObject</code> at the <code>index</code>th position
-     *   in the <code>XSNamedMap</code>, or <code>null</code> if that is
-     *   not a valid index.
-     */
-    public synchronized XSObject item(int index) {
-        if (fArray == null) {
-            getLength();
-        }
-        if (index < 0 || index >= fLength) {
-            return null;
-        }
-        return fArray[index];
-    }
-    
 } // class XSNamedMapImpl
@@ -56,12 +56,13 @@ public class XSNamedMapImpl extends AbstractMap implements XSNamedMap {
     final SymbolHash[] fMaps;
     // store all components from all namespace.
     // used when this map is accessed as a list.
-    XSObject[] fArray = null;
-    // store the number of components.
-    // used when this map is accessed as a list.
-    int fLength = -1;
+    // the array and the entry set below are built the first time they
+    // are needed, without locking: threads which race to build them
+    // build equal values, and the fields are volatile so that whichever
+    // one is stored is seen fully initialized.
+    private volatile XSObject[] fArray;
     // Set of Map.Entry<QName,XSObject> for the java.util.Map methods
-    private Set fEntrySet = null;
+    private volatile Set fEntrySet;
     
     /**
      * Construct an XSNamedMap implementation for one namespace
@@ -99,8 +100,7 @@ public class XSNamedMapImpl extends AbstractMap implements XSNamedMap {
             fNamespaces = null;
             fMaps = null;
             fNSNum = 0;
-            fArray = array;
-            fLength = 0;
+            fArray = new XSObject[0];
             return;
         }
         // because all components are from the same target namesapce,
@@ -108,9 +108,13 @@ public class XSNamedMapImpl extends AbstractMap implements XSNamedMap {
         fNamespaces = new String[]{array[0].getNamespace()};
         fMaps = null;
         fNSNum = 1;
-        // copy elements to the Vector
+        // trim the array to the number of components
+        if (length != array.length) {
+            XSObject[] newArray = new XSObject[length];
+            System.arraycopy(array, 0, newArray, 0, length);
+            array = newArray;
+        }
         fArray = array;
-        fLength = length;
     }
 
     /**
@@ -118,14 +122,16 @@ public class XSNamedMapImpl extends AbstractMap implements XSNamedMap {
      * The range of valid child object indices is 0 to <code>length-1</code> 
      * inclusive. 
      */
-    public synchronized int getLength() {
-        if (fLength == -1) {
-            fLength = 0;
-            for (int i = 0; i < fNSNum; i++) {
-                fLength += fMaps[i].getLength();
-            }
+    public int getLength() {
+        final XSObject[] array = fArray;
+        if (array != null) {
+            return array.length;
+        }
+        int length = 0;
+        for (int i = 0; i < fNSNum; i++) {
+            length += fMaps[i].getLength();
         }
-        return fLength;
+        return length;
     }
 
     /**
@@ -153,9 +159,10 @@ public class XSNamedMapImpl extends AbstractMap implements XSNamedMap {
                 }
                 // Otherwise (it's created from an array)
                 // go through the array to find a matching name
+                final XSObject[] array = fArray;
                 XSObject ret;
-                for (int j = 0; j < fLength; j++) {
-                    ret = fArray[j];
+                for (int j = 0; j < array.length; j++) {
+                    ret = array[j];
                     if (ret.getName().equals(localName)) {
                         return ret;
                     }
@@ -175,21 +182,44 @@ public class XSNamedMapImpl extends AbstractMap implements XSNamedMap {
      *   position in the <code>XSObjectList</code>, or <code>null</code> if 
      *   the index specified is not valid. 
      */
-    public synchronized XSObject item(int index) {
-        if (fArray == null) {
-            // calculate the total number of elements
-            getLength();
-            fArray = new XSObject[fLength];
-            int pos = 0;
-            // get components from all SymbolHashes
-            for (int i = 0; i < fNSNum; i++) {
-                pos += fMaps[i].getValues(fArray, pos);
-            }
-        }
-        if (index < 0 || index >= fLength) {
+    public XSObject item(int index) {
+        final XSObject[] array = getArray();
+        if (index < 0 || index >= array.length) {
             return null;
         }
-        return fArray[index];
+        return array[index];
+    }
+
+    /**
+     * Returns the array of all the components in this map, building
+     * it the first time it is needed.
+     */
+    final XSObject[] getArray() {
+        XSObject[] array = fArray;
+        if (array == null) {
+            array = buildArray();
+            fArray = array;
+        }
+        return array;
+    }
+
+    /**
+     * Builds the array of all the components in this map from the
+     * maps of each namespace.
+     */
+    XSObject[] buildArray() {
+        // calculate the total number of elements
+        int length = 0;
+        for (int i = 0; i < fNSNum; i++) {
+            length += fMaps[i].getLength();
+        }
+        XSObject[] array = new XSObject[length];
+        int pos = 0;
+        // get components from all SymbolHashes
+        for (int i = 0; i < fNSNum; i++) {
+            pos += fMaps[i].getValues(array, pos);
+        }
+        return array;
     }
     
     static boolean isEqual(String one, String two) {
@@ -221,17 +251,19 @@ public class XSNamedMapImpl extends AbstractMap implements XSNamedMap {
         return getLength();
     }
 
-    public synchronized Set entrySet() {
+    public Set entrySet() {
         // Defer creation of the entry set until it is actually needed.
-        if (fEntrySet == null) {
-            final int length = getLength();
+        Set entrySet = fEntrySet;
+        if (entrySet == null) {
+            final XSObject[] array = getArray();
+            final int length = array.length;
             final XSNamedMapEntry[] entries = new XSNamedMapEntry[length];
             for (int i = 0; i < length; ++i) {
-                XSObject xso = item(i);
+                XSObject xso = array[i];
                 entries[i] = new XSNamedMapEntry(new QName(xso.getNamespace(), xso.getName()), xso);
             }
             // Create a view of this immutable map.
-            fEntrySet = new AbstractSet() {
+            entrySet = new AbstractSet() {
                 public Iterator iterator() {
                     return new Iterator() {
                         private int index = 0;
@@ -253,8 +285,9 @@ public class XSNamedMapImpl extends AbstractMap implements XSNamedMap {
                     return length;
                 }
             };
+            fEntrySet = entrySet;
         }
-        return fEntrySet;
+        return entrySet;
     }
     
     /** An entry in the XSNamedMap. **/
@@ -105,12 +105,29 @@ final class StreamValidatorHelper implements ValidatorHelper {
      */
     private SoftReference fParser = new SoftReference(null);
     
+    /** 
+     * Whether the parser configuration and parser should be strongly 
+     * reachable so that they are never reclaimed by the garbage collector. 
+     */
+    private final boolean fRetainResources;
+    
+    /** Strong reference to the parser configuration, if retained. **/
+    private XMLParserConfiguration fRetainedConfiguration;
+    
+    /** Strong reference to the parser, if retained. **/
+    private SAXParser fRetainedParser;
+    
     /** Serializer factory. **/
     private SerializerFactory fSerializerFactory;
     
     public StreamValidatorHelper(XMLSchemaValidatorComponentManager componentManager) {
+        this(componentManager, false);
+    }
+    
+    public StreamValidatorHelper(XMLSchemaValidatorComponentManager componentManager, boolean retainResources) {
         fComponentManager = componentManager;
         fSchemaValidator = (XMLSchemaValidator) fComponentManager.getProperty(SCHEMA_VALIDATOR);
+        fRetainResources = retainResources;
     }
 
     public void validate(Source source, Result result) 
@@ -170,6 +187,9 @@ final class StreamValidatorHelper implements ValidatorHelper {
                 if (newConfig || parser == null) {
                     parser = new SAXParser(config);
                     fParser = new SoftReference(parser);
+                    if (fRetainResources) {
+                        fRetainedParser = parser;
+                    }
                 }
                 else {
                     parser.reset();
@@ -222,6 +242,9 @@ final class StreamValidatorHelper implements ValidatorHelper {
         config.setDTDHandler(null);
         config.setDTDContentModelHandler(null);
         fConfiguration = new SoftReference(config);
+        if (fRetainResources) {
+            fRetainedConfiguration = config;
+        }
         return config;
     }
     
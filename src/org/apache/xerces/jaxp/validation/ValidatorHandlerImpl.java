@@ -236,6 +236,18 @@ final class ValidatorHandlerImpl extends ValidatorHandler implements
         return fTypeInfoProvider;
     }
     
+    /**
+     * Restores the features and properties of this validator handler to 
+     * their initial state and releases the application objects registered
+     * with it, so that it may be reused.
+     */
+    void restoreInitialState() {
+        fComponentManager.restoreInitialState();
+        setErrorHandler(null);
+        setResourceResolver(null);
+        fContentHandler = null;
+    }
+    
     public boolean getFeature(String name)
         throws SAXNotRecognizedException, SAXNotSupportedException {
         if (name == null) {
@@ -92,8 +92,16 @@ final class ValidatorImpl extends Validator implements PSVIProvider {
     /** Flag for tracking whether the resource resolver changed since last reset. */
     private boolean fResourceResolverChanged = false;
     
+    /** Flag indicating whether helpers should retain resources which may otherwise be reclaimed. */
+    private final boolean fRetainResources;
+    
     public ValidatorImpl(XSGrammarPoolContainer grammarContainer) {
+        this(grammarContainer, false);
+    }
+    
+    ValidatorImpl(XSGrammarPoolContainer grammarContainer, boolean retainResources) {
         fComponentManager = new XMLSchemaValidatorComponentManager(grammarContainer);
+        fRetainResources = retainResources;
         setErrorHandler(null);
         setResourceResolver(null);
     }
@@ -124,7 +132,7 @@ final class ValidatorImpl extends Validator implements PSVIProvider {
         else if (source instanceof StreamSource) {
             // Hand off to stream validator helper.
             if (fStreamValidatorHelper == null) {
-                fStreamValidatorHelper = new StreamValidatorHelper(fComponentManager);
+                fStreamValidatorHelper = new StreamValidatorHelper(fComponentManager, fRetainResources);
             }
             fStreamValidatorHelper.validate(source, result);
         }
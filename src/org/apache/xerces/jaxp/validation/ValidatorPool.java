@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.jaxp.validation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * <p>A thread-safe pool of validators and validator handlers for
+ * a <code>Schema</code>.</p>
+ *
+ * <p><code>Validator</code>s and <code>ValidatorHandler</code>s may only
+ * be used by one thread at a time. Creating one for each document is
+ * costly compared to validating a small document, so this class keeps a
+ * bounded number of idle instances which have been reset and are ready
+ * to be handed out again. Each instance has its own scanner, validator and
+ * buffers and all of them share the grammars of the schema, which
+ * are never modified once the schema has been created.</p>
+ *
+ * <p>When the schema was created by Xerces the pooled validators keep
+ * the parser configuration they use for <code>StreamSource</code>s for
+ * their lifetime instead of allowing the garbage collector to reclaim
+ * it between documents.</p>
+ *
+ * <p>A validator obtained from {@link #borrowValidator()} should be
+ * given back with {@link #returnValidator(Validator)} once the
+ * application is finished with it, including any features, properties,
+ * error handler or resource resolver it set, all of which are restored
+ * to their initial state. The <code>validate</code> methods of this class
+ * do this on behalf of the application.</p>
+ *
+ * @version $Id$
+ */
+public final class ValidatorPool {
+
+    /** Default maximum number of idle instances of each kind. */
+    public static final int DEFAULT_MAX_IDLE = 16;
+
+    //
+    // Data
+    //
+
+    /** The schema validators are created from. **/
+    private final Schema fSchema;
+
+    /** The grammar pool container of the schema, if it was created by Xerces. **/
+    private final XSGrammarPoolContainer fGrammarContainer;
+
+    /** Maximum number of idle instances of each kind. **/
+    private final int fMaxIdle;
+
+    /** Idle validators. **/
+    private final ArrayList fIdleValidators = new ArrayList();
+
+    /** Idle validator handlers. **/
+    private final ArrayList fIdleValidatorHandlers = new ArrayList();
+
+    /** Number of validators and validator handlers currently in use. **/
+    private int fActiveCount = 0;
+
+    /** Highest number of validators and validator handlers in use at once. **/
+    private int fPeakActiveCount = 0;
+
+    /** Number of validators and validator handlers handed out. **/
+    private long fBorrowCount = 0;
+
+    /** Number of validators and validator handlers created. **/
+    private long fCreatedCount = 0;
+
+    /** Number of returned instances dropped because the pool was full. **/
+    private long fDiscardedCount = 0;
+
+    /**
+     * Constructs a pool for the given schema which keeps at most
+     * {@link #DEFAULT_MAX_IDLE} idle instances of each kind.
+     *
+     * @param schema the schema to validate against
+     */
+    public ValidatorPool(Schema schema) {
+        this(schema, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Constructs a pool for the given schema.
+     *
+     * @param schema the schema to validate against
+     * @param maxIdle the maximum number of idle validators and idle
+     * validator handlers to keep
+     */
+    public ValidatorPool(Schema schema, int maxIdle) {
+        if (schema == null) {
+            throw new NullPointerException();
+        }
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException(Integer.toString(maxIdle));
+        }
+        fSchema = schema;
+        fGrammarContainer = (schema instanceof XSGrammarPoolContainer) ?
+                (XSGrammarPoolContainer) schema : null;
+        fMaxIdle = maxIdle;
+    }
+
+    /*
+     * Pool methods
+     */
+
+    /** Returns the schema validators are created from. */
+    public Schema getSchema() {
+        return fSchema;
+    }
+
+    /**
+     * Returns the maximum number of idle validators and idle
+     * validator handlers kept by this pool.
+     */
+    public int getMaxIdle() {
+        return fMaxIdle;
+    }
+
+    /**
+     * Obtains a validator from the pool, creating one if there
+     * are no idle validators.
+     */
+    public Validator borrowValidator() {
+        synchronized (this) {
+            onBorrow();
+            final int size = fIdleValidators.size();
+            if (size > 0) {
+                return (Validator) fIdleValidators.remove(size - 1);
+            }
+            ++fCreatedCount;
+        }
+        return (fGrammarContainer != null) ?
+                new ValidatorImpl(fGrammarContainer, true) : fSchema.newValidator();
+    }
+
+    /**
+     * Resets a validator obtained from {@link #borrowValidator()} and
+     * makes it available for reuse. The application must not use
+     * the validator after returning it.
+     */
+    public void returnValidator(Validator validator) {
+        if (validator == null) {
+            return;
+        }
+        validator.reset();
+        synchronized (this) {
+            onReturn();
+            if (fIdleValidators.size() < fMaxIdle) {
+                fIdleValidators.add(validator);
+            }
+            else {
+                ++fDiscardedCount;
+            }
+        }
+    }
+
+    /**
+     * Obtains a validator handler from the pool, creating one if
+     * there are no idle validator handlers.
+     */
+    public ValidatorHandler borrowValidatorHandler() {
+        synchronized (this) {
+            onBorrow();
+            final int size = fIdleValidatorHandlers.size();
+            if (size > 0) {
+                return (ValidatorHandler) fIdleValidatorHandlers.remove(size - 1);
+            }
+            ++fCreatedCount;
+        }
+        return (fGrammarContainer != null) ?
+                new ValidatorHandlerImpl(fGrammarContainer) : fSchema.newValidatorHandler();
+    }
+
+    /**
+     * Resets a validator handler obtained from {@link #borrowValidatorHandler()}
+     * and makes it available for reuse. The application must not use the
+     * validator handler after returning it.
+     */
+    public void returnValidatorHandler(ValidatorHandler validatorHandler) {
+        if (validatorHandler == null) {
+            return;
+        }
+        if (validatorHandler instanceof ValidatorHandlerImpl) {
+            ((ValidatorHandlerImpl) validatorHandler).restoreInitialState();
+        }
+        else {
+            validatorHandler.setContentHandler(null);
+            validatorHandler.setErrorHandler(null);
+            validatorHandler.setResourceResolver(null);
+        }
+        synchronized (this) {
+            onReturn();
+            if (fIdleValidatorHandlers.size() < fMaxIdle) {
+                fIdleValidatorHandlers.add(validatorHandler);
+            }
+            else {
+                ++fDiscardedCount;
+            }
+        }
+    }
+
+    /**
+     * Validates the given source with a pooled validator.
+     *
+     * @see Validator#validate(Source)
+     */
+    public void validate(Source source)
+        throws SAXException, IOException {
+        validate(source, null, null);
+    }
+
+    /**
+     * Validates the given source with a pooled validator, sending
+     * the augmented result to the given result.
+     *
+     * @see Validator#validate(Source, Result)
+     */
+    public void validate(Source source, Result result)
+        throws SAXException, IOException {
+        validate(source, result, null);
+    }
+
+    /**
+     * Validates the given source with a pooled validator, sending
+     * the augmented result to the given result and reporting errors
+     * to the given error handler. If the error handler is null
+     * the validator's default error handling applies.
+     *
+     * @see Validator#validate(Source, Result)
+     */
+    public void validate(Source source, Result result, ErrorHandler errorHandler)
+        throws SAXException, IOException {
+        final Validator validator = borrowValidator();
+        try {
+            if (errorHandler != null) {
+                validator.setErrorHandler(errorHandler);
+            }
+            validator.validate(source, result);
+        }
+        finally {
+            returnValidator(validator);
+        }
+    }
+
+    /**
+     * Discards all idle validators and validator handlers.
+     */
+    public synchronized void clear() {
+        fIdleValidators.clear();
+        fIdleValidatorHandlers.clear();
+    }
+
+    /*
+     * Metrics
+     */
+
+    /** Returns the number of validators and validator handlers currently in use. */
+    public synchronized int getActiveCount() {
+        return fActiveCount;
+    }
+
+    /** Returns the highest number of validators and validator handlers in use at once. */
+    public synchronized int getPeakActiveCount() {
+        return fPeakActiveCount;
+    }
+
+    /** Returns the number of idle validators. */
+    public synchronized int getIdleValidatorCount() {
+        return fIdleValidators.size();
+    }
+
+    /** Returns the number of idle validator handlers. */
+    public synchronized int getIdleValidatorHandlerCount() {
+        return fIdleValidatorHandlers.size();
+    }
+
+    /** Returns the number of validators and validator handlers handed out. */
+    public synchronized long getBorrowCount() {
+        return fBorrowCount;
+    }
+
+    /** Returns the number of validators and validator handlers created by this pool. */
+    public synchronized long getCreatedCount() {
+        return fCreatedCount;
+    }
+
+    /**
+     * Returns the number of validators and validator handlers which were
+     * dropped when returned because the pool already held the maximum
+     * number of idle instances.
+     */
+    public synchronized long getDiscardedCount() {
+        return fDiscardedCount;
+    }
+
+    /*
+     * Private methods
+     */
+
+    private void onBorrow() {
+        ++fBorrowCount;
+        if (++fActiveCount > fPeakActiveCount) {
+            fPeakActiveCount = fActiveCount;
+        }
+    }
+
+    private void onReturn() {
+        if (fActiveCount > 0) {
+            --fActiveCount;
+        }
+    }
+
+} // ValidatorPool
@@ -32,6 +32,7 @@ import org.apache.xerces.impl.xs.XMLSchemaValidator;
 import org.apache.xerces.impl.xs.XSMessageFormatter;
 import org.apache.xerces.util.DOMEntityResolverWrapper;
 import org.apache.xerces.util.ErrorHandlerWrapper;
+import org.apache.xerces.util.IndexedNamespaceSupport;
 import org.apache.xerces.util.NamespaceSupport;
 import org.apache.xerces.util.ParserConfigurationSettings;
 import org.apache.xerces.util.SecurityManager;
@@ -219,7 +220,7 @@ final class XMLSchemaValidatorComponentManager extends ParserConfigurationSettin
         fErrorReporter = new XMLErrorReporter();
         fComponents.put(ERROR_REPORTER, fErrorReporter);
         
-        fNamespaceContext = new NamespaceSupport();
+        fNamespaceContext = new IndexedNamespaceSupport();
         fComponents.put(NAMESPACE_CONTEXT, fNamespaceContext);
         
         fSchemaValidator = new XMLSchemaValidator();
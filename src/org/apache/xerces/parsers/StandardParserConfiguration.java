@@ -127,6 +127,14 @@ public class StandardParserConfiguration
     /** Feature identifier: whether to ignore identity constraint errors */
     protected static final String IDENTITY_CONSTRAINT_CHECKING =
         Constants.XERCES_FEATURE_PREFIX + Constants.IDC_CHECKING_FEATURE;
+    
+    /** Feature identifier: whether to stop at the first validity error */
+    protected static final String SCHEMA_FAIL_FAST =
+        Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_FAIL_FAST_FEATURE;
+    
+    /** Feature identifier: whether to keep loaded grammars in a compact form */
+    protected static final String SCHEMA_COMPACT_GRAMMARS =
+        Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_COMPACT_GRAMMARS_FEATURE;
 
     // property identifiers
 
@@ -153,6 +161,18 @@ public class StandardParserConfiguration
     /** Property identifier: Schema DV Factory */
     protected static final String SCHEMA_DV_FACTORY = 
         Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_DV_FACTORY_PROPERTY;
+
+    /** Property identifier: schema full checking threads */
+    protected static final String SCHEMA_FULL_CHECKING_THREADS = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_FULL_CHECKING_THREADS_PROPERTY;
+
+    /** Property identifier: schema content model policy */
+    protected static final String SCHEMA_CONTENT_MODEL_POLICY = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_CONTENT_MODEL_POLICY_PROPERTY;
+
+    /** Property identifier: schema location cache */
+    protected static final String SCHEMA_LOCATION_CACHE = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_LOCATION_CACHE_PROPERTY;
     
     //
     // Data
@@ -234,6 +254,8 @@ public class StandardParserConfiguration
             ID_IDREF_CHECKING,
             IDENTITY_CONSTRAINT_CHECKING,
             UNPARSED_ENTITY_CHECKING,
+            SCHEMA_FAIL_FAST,
+            SCHEMA_COMPACT_GRAMMARS,
         };
         addRecognizedFeatures(recognizedFeatures);
 
@@ -251,6 +273,8 @@ public class StandardParserConfiguration
         setFeature(ID_IDREF_CHECKING, true);
         setFeature(IDENTITY_CONSTRAINT_CHECKING, true);
         setFeature(UNPARSED_ENTITY_CHECKING, true);
+        setFeature(SCHEMA_FAIL_FAST, false);
+        setFeature(SCHEMA_COMPACT_GRAMMARS, false);
 
         // add default recognized properties
     
@@ -264,6 +288,9 @@ public class StandardParserConfiguration
             ROOT_TYPE_DEF,
             ROOT_ELEMENT_DECL,
             SCHEMA_DV_FACTORY,
+            SCHEMA_FULL_CHECKING_THREADS,
+            SCHEMA_CONTENT_MODEL_POLICY,
+            SCHEMA_LOCATION_CACHE,
         };
         
         addRecognizedProperties(recognizedProperties);
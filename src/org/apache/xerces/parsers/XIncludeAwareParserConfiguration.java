@@ -18,6 +18,7 @@
 package org.apache.xerces.parsers;
 
 import org.apache.xerces.impl.Constants;
+import org.apache.xerces.util.IndexedNamespaceSupport;
 import org.apache.xerces.util.NamespaceSupport;
 import org.apache.xerces.util.SymbolTable;
 import org.apache.xerces.xinclude.XIncludeHandler;
@@ -59,6 +60,10 @@ public class XIncludeAwareParserConfiguration extends XML11Configuration {
     protected static final String XINCLUDE_HANDLER =
         Constants.XERCES_PROPERTY_PREFIX + Constants.XINCLUDE_HANDLER_PROPERTY;
     
+    /** Property identifier: XInclude cache. */
+    protected static final String XINCLUDE_CACHE =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.XINCLUDE_CACHE_PROPERTY;
+    
     /** Property identifier: error reporter. */
     protected static final String NAMESPACE_CONTEXT =
         Constants.XERCES_PROPERTY_PREFIX + Constants.NAMESPACE_CONTEXT_PROPERTY;
@@ -134,14 +139,14 @@ public class XIncludeAwareParserConfiguration extends XML11Configuration {
         
         // add default recognized properties
         final String[] recognizedProperties =
-        { XINCLUDE_HANDLER, NAMESPACE_CONTEXT };
+        { XINCLUDE_HANDLER, XINCLUDE_CACHE, NAMESPACE_CONTEXT };
         addRecognizedProperties(recognizedProperties);
         
         setFeature(ALLOW_UE_AND_NOTATION_EVENTS, true);
         setFeature(XINCLUDE_FIXUP_BASE_URIS, true);
         setFeature(XINCLUDE_FIXUP_LANGUAGE, true);
         
-        fNonXIncludeNSContext = new NamespaceSupport();
+        fNonXIncludeNSContext = new IndexedNamespaceSupport();
         fCurrentNSContext = fNonXIncludeNSContext;
         setProperty(NAMESPACE_CONTEXT, fNonXIncludeNSContext);
     }
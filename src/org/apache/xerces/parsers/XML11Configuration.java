@@ -191,6 +191,14 @@ public class XML11Configuration extends ParserConfigurationSettings
 	/** Feature identifier: whether to ignore identity constraint errors */
 	protected static final String IDENTITY_CONSTRAINT_CHECKING =
 	    Constants.XERCES_FEATURE_PREFIX + Constants.IDC_CHECKING_FEATURE;
+	
+	/** Feature identifier: whether to stop at the first validity error */
+	protected static final String SCHEMA_FAIL_FAST =
+	    Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_FAIL_FAST_FEATURE;
+	
+	/** Feature identifier: whether to keep loaded grammars in a compact form */
+	protected static final String SCHEMA_COMPACT_GRAMMARS =
+	    Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_COMPACT_GRAMMARS_FEATURE;
 
     
 
@@ -290,6 +298,18 @@ public class XML11Configuration extends ParserConfigurationSettings
     /** Property identifier: Schema DV Factory */
     protected static final String SCHEMA_DV_FACTORY = 
         Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_DV_FACTORY_PROPERTY;
+
+    /** Property identifier: schema full checking threads */
+    protected static final String SCHEMA_FULL_CHECKING_THREADS = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_FULL_CHECKING_THREADS_PROPERTY;
+
+    /** Property identifier: schema content model policy */
+    protected static final String SCHEMA_CONTENT_MODEL_POLICY = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_CONTENT_MODEL_POLICY_PROPERTY;
+
+    /** Property identifier: schema location cache */
+    protected static final String SCHEMA_LOCATION_CACHE = 
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_LOCATION_CACHE_PROPERTY;
     
     // debugging
 
@@ -495,6 +515,7 @@ public class XML11Configuration extends ParserConfigurationSettings
 		        TOLERATE_DUPLICATES, IGNORE_XSI_TYPE,
 		        ID_IDREF_CHECKING, IDENTITY_CONSTRAINT_CHECKING,
 		        UNPARSED_ENTITY_CHECKING, USE_GRAMMAR_POOL_ONLY,
+		        SCHEMA_FAIL_FAST, SCHEMA_COMPACT_GRAMMARS,
 		        // NOTE: These shouldn't really be here but since the XML Schema
 		        //       validator is constructed dynamically, its recognized
 		        //       features might not have been set and it would cause a
@@ -526,6 +547,8 @@ public class XML11Configuration extends ParserConfigurationSettings
         fFeatures.put(IDENTITY_CONSTRAINT_CHECKING, Boolean.TRUE);
         fFeatures.put(UNPARSED_ENTITY_CHECKING, Boolean.TRUE);
         fFeatures.put(USE_GRAMMAR_POOL_ONLY, Boolean.FALSE);
+        fFeatures.put(SCHEMA_FAIL_FAST, Boolean.FALSE);
+        fFeatures.put(SCHEMA_COMPACT_GRAMMARS, Boolean.FALSE);
         fFeatures.put(PARSER_SETTINGS, Boolean.TRUE);
 
         // add default recognized properties
@@ -557,6 +580,9 @@ public class XML11Configuration extends ParserConfigurationSettings
                 ROOT_TYPE_DEF,
                 ROOT_ELEMENT_DECL,
                 SCHEMA_DV_FACTORY,
+                SCHEMA_FULL_CHECKING_THREADS,
+                SCHEMA_CONTENT_MODEL_POLICY,
+                SCHEMA_LOCATION_CACHE,
         };
         addRecognizedProperties(recognizedProperties);
 		
@@ -17,6 +17,7 @@
 
 package org.apache.xerces.util;
 
+import org.apache.xerces.impl.StructuredParseException;
 import org.apache.xerces.xni.XMLLocator;
 import org.apache.xerces.xni.XNIException;
 import org.apache.xerces.xni.parser.XMLErrorHandler;
@@ -191,8 +192,15 @@ public class ErrorHandlerWrapper
     // Protected methods
     //
 
-    /** Creates a SAXParseException from an XMLParseException. */
+    /** 
+     * Creates a SAXParseException from an XMLParseException. If the message
+     * of the XMLParseException is formatted on demand the message of the
+     * SAXParseException is too.
+     */
     protected static SAXParseException createSAXParseException(XMLParseException exception) {
+        if (exception instanceof StructuredParseException) {
+            return new DeferredSAXParseException(exception);
+        }
         return new SAXParseException(exception.getMessage(),
                                      exception.getPublicId(),
                                      exception.getExpandedSystemId(),
@@ -227,4 +235,34 @@ public class ErrorHandlerWrapper
     protected static XNIException createXNIException(SAXException exception) {
         return new XNIException(exception.getMessage(),exception);
     } // createXNIException(SAXException):XMLParseException
+
+    //
+    // Classes
+    //
+
+    /**
+     * A SAXParseException whose message is that of the XMLParseException
+     * it was created from, which is only formatted when requested.
+     */
+    private static final class DeferredSAXParseException extends SAXParseException {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 3436396186880585458L;
+
+        /** The exception the message is obtained from. */
+        private final XMLParseException fParseException;
+
+        public DeferredSAXParseException(XMLParseException exception) {
+            super(null, exception.getPublicId(), exception.getExpandedSystemId(),
+                    exception.getLineNumber(), exception.getColumnNumber(),
+                    exception.getException());
+            fParseException = exception;
+        }
+
+        public String getMessage() {
+            return fParseException.getMessage();
+        }
+
+    } // class DeferredSAXParseException
+
 } // class ErrorHandlerWrapper
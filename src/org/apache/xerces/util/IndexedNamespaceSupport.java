@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.util;
+
+/**
+ * Namespace support which resolves prefixes in constant time instead
+ * of searching the namespace information array. Each prefix symbol
+ * is mapped to the position of its innermost binding, and each
+ * binding records the position of the binding it hides, so that
+ * the bindings of a prefix form a stack which is unwound when
+ * contexts are popped.
+ * <p>
+ * The cost of resolving a prefix does not depend on the depth of the
+ * document or the number of bindings in scope, which makes this class
+ * suitable for the document scanner. Like its base class, it assumes
+ * that all strings passed as arguments to methods are unique symbols.
+ *
+ * @version $Id$
+ */
+public class IndexedNamespaceSupport extends NamespaceSupport {
+
+    //
+    // Constants
+    //
+
+    /** Initial capacity of the prefix table. Must be a power of two. */
+    private static final int INITIAL_TABLE_SIZE = 16;
+
+    //
+    // Data
+    //
+
+    /**
+     * Prefixes which have been bound since the last reset. This is
+     * an open addressing table with linear probing.
+     */
+    private String[] fPrefixTable = new String[INITIAL_TABLE_SIZE];
+
+    /**
+     * Position in the namespace information array of the innermost
+     * binding of each prefix in the prefix table, or -1 if the
+     * prefix is not bound.
+     */
+    private int[] fBindingTable = new int[INITIAL_TABLE_SIZE];
+
+    /** Position of the innermost binding of the null prefix, or -1. */
+    private int fNullPrefixBinding = -1;
+
+    /** Number of prefixes in the prefix table. */
+    private int fPrefixCount;
+
+    /**
+     * Position of the binding hidden by each binding in the
+     * namespace information array, or -1 if there is none.
+     */
+    private int[] fHiddenBinding = new int[16];
+
+    //
+    // Constructors
+    //
+
+    /** Default constructor. */
+    public IndexedNamespaceSupport() {
+    } // <init>()
+
+    //
+    // NamespaceContext methods
+    //
+
+    public void reset() {
+        super.reset();
+        // forget the prefixes of the previous document
+        for (int i = fPrefixTable.length - 1; i >= 0; --i) {
+            fPrefixTable[i] = null;
+        }
+        fNullPrefixBinding = -1;
+        fPrefixCount = 0;
+        // index the bindings of the "xml" and "xmlns" prefixes
+        for (int i = 0; i < fNamespaceSize; i += 2) {
+            bind(i);
+        }
+    } // reset()
+
+    public void popContext() {
+        final int start = fContext[fCurrentContext--];
+        for (int i = fNamespaceSize - 2; i >= start; i -= 2) {
+            final String prefix = fNamespace[i];
+            if (prefix != null) {
+                fBindingTable[lookup(prefix)] = fHiddenBinding[i >> 1];
+            }
+            else {
+                fNullPrefixBinding = fHiddenBinding[i >> 1];
+            }
+        }
+        fNamespaceSize = start;
+    } // popContext()
+
+    public boolean declarePrefix(String prefix, String uri) {
+        // ignore "xml" and "xmlns" prefixes
+        if (prefix == XMLSymbols.PREFIX_XML || prefix == XMLSymbols.PREFIX_XMLNS) {
+            return false;
+        }
+
+        // see if prefix already exists in current context
+        final int binding = getBinding(prefix);
+        if (binding >= fContext[fCurrentContext]) {
+            fNamespace[binding + 1] = uri;
+            return true;
+        }
+
+        // resize array, if needed
+        if (fNamespaceSize == fNamespace.length) {
+            String[] namespacearray = new String[fNamespaceSize * 2];
+            System.arraycopy(fNamespace, 0, namespacearray, 0, fNamespaceSize);
+            fNamespace = namespacearray;
+        }
+
+        // bind prefix to uri in current context
+        fNamespace[fNamespaceSize] = prefix;
+        fNamespace[fNamespaceSize + 1] = uri;
+        bind(fNamespaceSize);
+        fNamespaceSize += 2;
+
+        return true;
+    } // declarePrefix(String,String):boolean
+
+    public String getURI(String prefix) {
+        final int binding = getBinding(prefix);
+        return (binding != -1) ? fNamespace[binding + 1] : null;
+    } // getURI(String):String
+
+    //
+    // Public methods
+    //
+
+    public boolean containsPrefix(String prefix) {
+        return getBinding(prefix) != -1;
+    } // containsPrefix(String):boolean
+
+    //
+    // Private methods
+    //
+
+    /**
+     * Returns the position of the innermost binding of the given
+     * prefix in the namespace information array, or -1 if the
+     * prefix is not bound.
+     */
+    private int getBinding(String prefix) {
+        if (prefix == null) {
+            return fNullPrefixBinding;
+        }
+        final String[] prefixTable = fPrefixTable;
+        final int mask = prefixTable.length - 1;
+        int slot = hash(prefix) & mask;
+        String entry;
+        while ((entry = prefixTable[slot]) != null) {
+            if (entry == prefix) {
+                return fBindingTable[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    } // getBinding(String):int
+
+    /**
+     * Makes the binding at the given position in the namespace
+     * information array the innermost binding of its prefix.
+     */
+    private void bind(int position) {
+        final int index = position >> 1;
+        if (index >= fHiddenBinding.length) {
+            int[] hiddenBinding = new int[fHiddenBinding.length << 1];
+            System.arraycopy(fHiddenBinding, 0, hiddenBinding, 0, fHiddenBinding.length);
+            fHiddenBinding = hiddenBinding;
+        }
+        final String prefix = fNamespace[position];
+        if (prefix == null) {
+            fHiddenBinding[index] = fNullPrefixBinding;
+            fNullPrefixBinding = position;
+            return;
+        }
+        if (fPrefixCount << 1 >= fPrefixTable.length) {
+            rehash();
+        }
+        final int slot = lookup(prefix);
+        fHiddenBinding[index] = fBindingTable[slot];
+        fBindingTable[slot] = position;
+    } // bind(int)
+
+    /**
+     * Returns the slot of the given prefix in the prefix table,
+     * adding the prefix if it is not in the table. The prefix
+     * must not be null.
+     */
+    private int lookup(String prefix) {
+        final String[] prefixTable = fPrefixTable;
+        final int mask = prefixTable.length - 1;
+        int slot = hash(prefix) & mask;
+        String entry;
+        while ((entry = prefixTable[slot]) != null) {
+            if (entry == prefix) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        prefixTable[slot] = prefix;
+        fBindingTable[slot] = -1;
+        ++fPrefixCount;
+        return slot;
+    } // lookup(String):int
+
+    /**
+     * Rebuilds the prefix table, dropping the prefixes which are
+     * no longer bound and growing the table if it is still too full.
+     */
+    private void rehash() {
+        final String[] oldPrefixTable = fPrefixTable;
+        final int[] oldBindingTable = fBindingTable;
+        int live = 0;
+        for (int i = oldPrefixTable.length - 1; i >= 0; --i) {
+            if (oldPrefixTable[i] != null && oldBindingTable[i] != -1) {
+                ++live;
+            }
+        }
+        int size = oldPrefixTable.length;
+        while ((live + 1) << 1 >= size) {
+            size <<= 1;
+        }
+        fPrefixTable = new String[size];
+        fBindingTable = new int[size];
+        fPrefixCount = 0;
+        final int mask = size - 1;
+        for (int i = oldPrefixTable.length - 1; i >= 0; --i) {
+            final String prefix = oldPrefixTable[i];
+            if (prefix != null && oldBindingTable[i] != -1) {
+                int slot = hash(prefix) & mask;
+                while (fPrefixTable[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                fPrefixTable[slot] = prefix;
+                fBindingTable[slot] = oldBindingTable[i];
+                ++fPrefixCount;
+            }
+        }
+    } // rehash()
+
+    private static int hash(String prefix) {
+        final int code = prefix.hashCode();
+        return code ^ (code >>> 16);
+    } // hash(String):int
+
+} // class IndexedNamespaceSupport
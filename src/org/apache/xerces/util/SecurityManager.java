@@ -56,6 +56,24 @@ public final class SecurityManager {
     
     /** W3C XML Schema maxOccurs limit. **/
     private int maxOccurLimit;
+    
+    /** Limit on the number of characters read for a document. **/
+    private int totalCharacterLimit;
+    
+    /** Limit on the depth of nested elements. **/
+    private int elementDepthLimit;
+    
+    /** Limit on the number of elements in a document. **/
+    private int elementCountLimit;
+    
+    /** Limit on the number of attributes of an element. **/
+    private int elementAttributeLimit;
+    
+    /** Limit on the number of namespace declarations of an element. **/
+    private int namespaceDeclarationLimit;
+    
+    /** Limit on the length of character data between markup. **/
+    private int textLengthLimit;
 
     /**
      * Default constructor.  Establishes default values 
@@ -114,5 +132,133 @@ public final class SecurityManager {
         return maxOccurLimit;    
     }
     
+    /**
+     * <p>Sets the number of characters the parser may read 
+     * for a document, including the characters of its DTD and
+     * of the entities it references, and the replacement text of
+     * internal entities each time they are expanded. A value of
+     * zero means there is no limit, which is the default.</p>
+     *
+     * @param limit the number of characters permitted
+     */
+    public void setTotalCharacterLimit(int limit) {
+        totalCharacterLimit = limit;
+    }
+    
+    /**
+     * <p>Returns the number of characters the parser may 
+     * read for a document, or zero if there is no limit.</p>
+     *
+     * @return the number of characters permitted
+     */
+    public int getTotalCharacterLimit() {
+        return totalCharacterLimit;
+    }
+    
+    /**
+     * <p>Sets the maximum depth of nested elements in a document. 
+     * A value of zero means there is no limit, which is the default.</p>
+     *
+     * @param limit the maximum element depth
+     */
+    public void setElementDepthLimit(int limit) {
+        elementDepthLimit = limit;
+    }
+    
+    /**
+     * <p>Returns the maximum depth of nested elements in a 
+     * document, or zero if there is no limit.</p>
+     *
+     * @return the maximum element depth
+     */
+    public int getElementDepthLimit() {
+        return elementDepthLimit;
+    }
+    
+    /**
+     * <p>Sets the number of elements permitted in a document. 
+     * A value of zero means there is no limit, which is the default.</p>
+     *
+     * @param limit the number of elements permitted
+     */
+    public void setElementCountLimit(int limit) {
+        elementCountLimit = limit;
+    }
+    
+    /**
+     * <p>Returns the number of elements permitted in a document,
+     * or zero if there is no limit.</p>
+     *
+     * @return the number of elements permitted
+     */
+    public int getElementCountLimit() {
+        return elementCountLimit;
+    }
+    
+    /**
+     * <p>Sets the number of attributes, including namespace 
+     * declarations, which may be specified on an element. A value 
+     * of zero means there is no limit, which is the default.</p>
+     *
+     * @param limit the number of attributes permitted
+     */
+    public void setElementAttributeLimit(int limit) {
+        elementAttributeLimit = limit;
+    }
+    
+    /**
+     * <p>Returns the number of attributes which may be specified
+     * on an element, or zero if there is no limit.</p>
+     *
+     * @return the number of attributes permitted
+     */
+    public int getElementAttributeLimit() {
+        return elementAttributeLimit;
+    }
+    
+    /**
+     * <p>Sets the number of namespace declarations which may 
+     * appear on an element. A value of zero means there is no 
+     * limit, which is the default.</p>
+     *
+     * @param limit the number of namespace declarations permitted
+     */
+    public void setNamespaceDeclarationLimit(int limit) {
+        namespaceDeclarationLimit = limit;
+    }
+    
+    /**
+     * <p>Returns the number of namespace declarations which may
+     * appear on an element, or zero if there is no limit.</p>
+     *
+     * @return the number of namespace declarations permitted
+     */
+    public int getNamespaceDeclarationLimit() {
+        return namespaceDeclarationLimit;
+    }
+    
+    /**
+     * <p>Sets the number of characters of character data, including
+     * CDATA sections and character references, which may appear 
+     * between two tags, comments or processing instructions. A value 
+     * of zero means there is no limit, which is the default.</p>
+     *
+     * @param limit the length of character data permitted
+     */
+    public void setTextLengthLimit(int limit) {
+        textLengthLimit = limit;
+    }
+    
+    /**
+     * <p>Returns the number of characters of character data which
+     * may appear between two tags, comments or processing 
+     * instructions, or zero if there is no limit.</p>
+     *
+     * @return the length of character data permitted
+     */
+    public int getTextLengthLimit() {
+        return textLengthLimit;
+    }
+    
 } // class SecurityManager
 
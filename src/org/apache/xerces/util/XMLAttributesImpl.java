@@ -50,17 +50,20 @@ public class XMLAttributesImpl
     /** Default table size. */
     protected static final int TABLE_SIZE = 101;
     
-    /** Maximum hash collisions per bucket. */
+    /** Initial capacity of the index tables. */
+    private static final int INDEX_TABLE_SIZE = 16;
+    
+    /** Maximum number of probes for an entry in an index table. */
     protected static final int MAX_HASH_COLLISIONS = 40;
     
     protected static final int MULTIPLIERS_SIZE = 1 << 5;
     protected static final int MULTIPLIERS_MASK = MULTIPLIERS_SIZE - 1;
     
     /** 
-     * Threshold at which an instance is treated
-     * as a large attribute list.
+     * Number of attributes up to which a list is searched
+     * directly instead of through the index tables.
      */
-    protected static final int SIZE_LIMIT = 20;
+    protected static final int SIZE_LIMIT = 8;
     
     //
     // Data
@@ -77,6 +80,8 @@ public class XMLAttributesImpl
      * Usage count for the attribute table view. 
      * Incremented each time all attributes are removed
      * when the attribute table view is in use.
+     * 
+     * @deprecated The table view is no longer used by this class.
      */
     protected int fLargeCount = 1;
     
@@ -89,6 +94,8 @@ public class XMLAttributesImpl
     /** 
      * Hashtable of attribute information. 
      * Provides an alternate view of the attribute specification. 
+     * 
+     * @deprecated The table view is no longer used by this class.
      */
     protected Attribute[] fAttributeTableView;
     
@@ -97,16 +104,22 @@ public class XMLAttributesImpl
      * with respect to the current state of this object.
      * A chain is stale if its state is not the same as the number
      * of times the attribute table view has been used.
+     * 
+     * @deprecated The table view is no longer used by this class.
      */
     protected int[] fAttributeTableViewChainState;
     
     /**
      * Actual number of buckets in the table view.
+     * 
+     * @deprecated The table view is no longer used by this class.
      */
     protected int fTableViewBuckets;
     
     /**
      * Indicates whether the table view contains consistent data.
+     * 
+     * @deprecated The table view is no longer used by this class.
      */
     protected boolean fIsTableViewConsistent;
     
@@ -116,6 +129,12 @@ public class XMLAttributesImpl
      */
     protected int[] fHashMultipliers;
 
+    /** Index of the attributes by qualified name. */
+    private final IndexTable fQNameTable;
+
+    /** Index of the attributes by local name and namespace name. */
+    private final IndexTable fNSTable;
+
     //
     // Constructors
     //
@@ -130,6 +149,8 @@ public class XMLAttributesImpl
      */
     public XMLAttributesImpl(int tableSize) {
         fTableViewBuckets = tableSize;
+        fQNameTable = new IndexTable(INDEX_TABLE_SIZE);
+        fNSTable = new IndexTable(INDEX_TABLE_SIZE);
         for (int i = 0; i < fAttributes.length; i++) {
             fAttributes[i] = new Attribute();
         }
@@ -185,110 +206,35 @@ public class XMLAttributesImpl
      */
     public int addAttribute(QName name, String type, String value) {
 
-        int index;
-        if (fLength < SIZE_LIMIT) {
-            index = name.uri != null && name.uri.length() != 0
-                ? getIndexFast(name.uri, name.localpart)
-                : getIndexFast(name.rawname);
-
-            if (index == -1) {
-                index = fLength;
-                if (fLength++ == fAttributes.length) {
-                    Attribute[] attributes = new Attribute[fAttributes.length + 4];
-                    System.arraycopy(fAttributes, 0, attributes, 0, fAttributes.length);
-                    for (int i = fAttributes.length; i < attributes.length; i++) {
-                        attributes[i] = new Attribute();
-                    }
-                    fAttributes = attributes;
-                }
+        int index = name.uri != null && name.uri.length() != 0
+            ? getIndexFast(name.uri, name.localpart)
+            : getIndexFast(name.rawname);
+
+        Attribute attribute;
+        if (index == -1) {
+            index = fLength;
+            if (fLength++ == fAttributes.length) {
+                growAttributes();
             }
+            attribute = fAttributes[index];
+            attribute.name.setValues(name);
+            // keep the index tables in step with the list
+            appendToTable(fQNameTable, false, index);
+            appendToTable(fNSTable, true, index);
         }
-        else if (name.uri == null || 
-            name.uri.length() == 0 || 
-            (index = getIndexFast(name.uri, name.localpart)) == -1) {
-            
-            /**
-             * If attributes were removed from the list after the table
-             * becomes in use this isn't reflected in the table view. It's
-             * assumed that once a user starts removing attributes they're 
-             * not likely to add more. We only make the view consistent if
-             * the user of this class adds attributes, removes them, and
-             * then adds more.
-             */
-            if (!fIsTableViewConsistent || fLength == SIZE_LIMIT || 
-                (fLength > SIZE_LIMIT && fLength > fTableViewBuckets)) {
-                prepareAndPopulateTableView();
-                fIsTableViewConsistent = true;
-            }
-
-            int bucket = getTableViewBucket(name.rawname); 
-		
-            // The chain is stale. 
-            // This must be a unique attribute.
-            if (fAttributeTableViewChainState[bucket] != fLargeCount) {
-                index = fLength;
-                if (fLength++ == fAttributes.length) {
-                    Attribute[] attributes = new Attribute[fAttributes.length << 1];
-                    System.arraycopy(fAttributes, 0, attributes, 0, fAttributes.length);
-                    for (int i = fAttributes.length; i < attributes.length; i++) {
-                        attributes[i] = new Attribute();
-                    }
-                    fAttributes = attributes;
-                }
-			
-                // Update table view.
-                fAttributeTableViewChainState[bucket] = fLargeCount;
-                fAttributes[index].next = null;
-                fAttributeTableView[bucket] = fAttributes[index];
+        else {
+            attribute = fAttributes[index];
+            if (attribute.name.rawname != name.rawname) {
+                fQNameTable.valid = false;
             }
-            // This chain is active. 
-            // We need to check if any of the attributes has the same rawname.
-            else {
-                // Search the table.
-                int collisionCount = 0;
-                Attribute found = fAttributeTableView[bucket];
-                while (found != null) {
-                    if (found.name.rawname == name.rawname) {
-                        break;
-                    }
-                    found = found.next;
-                    ++collisionCount;
-                }
-                // This attribute is unique.
-                if (found == null) {
-                    index = fLength;
-                    if (fLength++ == fAttributes.length) {
-                        Attribute[] attributes = new Attribute[fAttributes.length << 1];
-                        System.arraycopy(fAttributes, 0, attributes, 0, fAttributes.length);
-                        for (int i = fAttributes.length; i < attributes.length; i++) {
-                            attributes[i] = new Attribute();
-                        }
-                        fAttributes = attributes;
-                    }
-                    // Select a new hash function and rehash the table view
-                    // if the collision threshold is exceeded.
-                    if (collisionCount >= MAX_HASH_COLLISIONS) {
-                        // The current attribute will be processed in the rehash.
-                        // Need to set its name first.
-                        fAttributes[index].name.setValues(name);
-                        rebalanceTableView(fLength);
-                    }
-                    else {
-                        // Update table view
-                        fAttributes[index].next = fAttributeTableView[bucket];
-                        fAttributeTableView[bucket] = fAttributes[index];
-                    }
-                }
-                // Duplicate. We still need to find the index.
-                else {
-                    index = getIndexFast(name.rawname);
-                }
+            if (attribute.name.localpart != name.localpart ||
+                attribute.name.uri != name.uri) {
+                fNSTable.valid = false;
             }
-        }          
+            attribute.name.setValues(name);
+        }
         
         // set values
-        Attribute attribute = fAttributes[index];
-        attribute.name.setValues(name);
         attribute.type = type;
         attribute.value = value;
         attribute.nonNormalizedValue = value;
@@ -307,6 +253,9 @@ public class XMLAttributesImpl
      */
     public void removeAllAttributes() {
         fLength = 0;
+        // the tables are emptied the next time they are used
+        fQNameTable.valid = false;
+        fNSTable.valid = false;
     } // removeAllAttributes()
 
     /**
@@ -318,7 +267,8 @@ public class XMLAttributesImpl
      * @param attrIndex The attribute index.
      */
     public void removeAttributeAt(int attrIndex) {
-        fIsTableViewConsistent = false;
+        fQNameTable.valid = false;
+        fNSTable.valid = false;
         if (attrIndex < fLength - 1) {
             Attribute removedAttr = fAttributes[attrIndex];
             System.arraycopy(fAttributes, attrIndex + 1,
@@ -338,6 +288,8 @@ public class XMLAttributesImpl
      */
     public void setName(int attrIndex, QName attrName) {
         fAttributes[attrIndex].name.setValues(attrName);
+        fQNameTable.valid = false;
+        fNSTable.valid = false;
     } // setName(int,QName)
 
     /**
@@ -564,14 +516,10 @@ public class XMLAttributesImpl
      *         appear in the list.
      */
     public int getIndex(String qName) {
-        for (int i = 0; i < fLength; i++) {
-            Attribute attribute = fAttributes[i];
-            if (attribute.name.rawname != null &&
-                attribute.name.rawname.equals(qName)) {
-                return i;
-            }
+        if (qName == null) {
+            return -1;
         }
-        return -1;
+        return lookupQName(qName, false);
     } // getIndex(String):int
     
     /**
@@ -584,17 +532,10 @@ public class XMLAttributesImpl
      *         appear in the list.
      */
     public int getIndex(String uri, String localPart) {
-        for (int i = 0; i < fLength; i++) {
-            Attribute attribute = fAttributes[i];
-            if (attribute.name.localpart != null &&
-                attribute.name.localpart.equals(localPart) &&
-                ((uri==attribute.name.uri) ||
-                (uri!=null && attribute.name.uri!=null && attribute.name.uri.equals(uri))))
-            {
-                return i;
-            }
+        if (localPart == null) {
+            return -1;
         }
-        return -1;
+        return lookupNS(uri, localPart, false);
     } // getIndex(String,String):int
 
     /**
@@ -757,6 +698,7 @@ public class XMLAttributesImpl
      */
     public void setURI(int attrIndex, String uri) {
         fAttributes[attrIndex].name.uri = uri;
+        fNSTable.valid = false;
     } // getURI(int,QName)
 
     // Implementation methods
@@ -774,13 +716,7 @@ public class XMLAttributesImpl
      *         appear in the list.
      */
     public int getIndexFast(String qName) {
-        for (int i = 0; i < fLength; ++i) {
-            Attribute attribute = fAttributes[i];
-            if (attribute.name.rawname == qName) {
-                return i;
-            }
-        }
-        return -1;
+        return lookupQName(qName, true);
     } // getIndexFast(String):int
     
     /**
@@ -813,19 +749,11 @@ public class XMLAttributesImpl
     public void addAttributeNS(QName name, String type, String value) {
         int index = fLength;
         if (fLength++ == fAttributes.length) {
-            Attribute[] attributes;
-            if (fLength < SIZE_LIMIT) {
-                attributes = new Attribute[fAttributes.length + 4];
-            }
-            else {
-                attributes = new Attribute[fAttributes.length << 1];
-            }
-            System.arraycopy(fAttributes, 0, attributes, 0, fAttributes.length);
-            for (int i = fAttributes.length; i < attributes.length; i++) {
-                attributes[i] = new Attribute();
-            }
-            fAttributes = attributes;
+            growAttributes();
         }
+        // the tables are rebuilt once the names are complete
+        fQNameTable.valid = false;
+        fNSTable.valid = false;
         
         // set values
         Attribute attribute = fAttributes[index];
@@ -857,7 +785,7 @@ public class XMLAttributesImpl
         if (length <= SIZE_LIMIT) {
             final Attribute[] attributes = fAttributes;
             for (int i = 0; i < length - 1; ++i) {
-            	Attribute att1 = attributes[i];
+                Attribute att1 = attributes[i];
                 for (int j = i + 1; j < length; ++j) {
                     Attribute att2 = attributes[j];
                     if (att1.name.localpart == att2.name.localpart &&
@@ -867,71 +795,24 @@ public class XMLAttributesImpl
                 }
             }
             return null;
-    	}
-    	// If the list is large check duplicates using a hash table.
-    	else {
-    	    return checkManyDuplicatesNS();
-    	}
-    }
-    
-    private QName checkManyDuplicatesNS() {
-        // We don't want this table view to be read if someone calls 
-        // addAttribute so we invalidate it up front.
-        fIsTableViewConsistent = false;
-
-        prepareTableView();
-
-        Attribute attr;
-        int bucket;
-        
-        final int length = fLength;
-        final Attribute[] attributes = fAttributes;
-        final Attribute[] attributeTableView = fAttributeTableView;
-        final int[] attributeTableViewChainState = fAttributeTableViewChainState;
-        int largeCount = fLargeCount;
-
+        }
+        // If the list is large check for duplicates using the index table.
+        final IndexTable table = fNSTable;
+        table.clear(length);
         for (int i = 0; i < length; ++i) {
-            attr = attributes[i];
-            bucket = getTableViewBucket(attr.name.localpart, attr.name.uri);
-            
-            // The chain is stale. 
-            // This must be a unique attribute.
-            if (attributeTableViewChainState[bucket] != largeCount) {
-                attributeTableViewChainState[bucket] = largeCount;
-                attr.next = null;
-                attributeTableView[bucket] = attr;
-            } 
-            // This chain is active. 
-            // We need to check if any of the attributes has the same name.
-            else {
-                // Search the table.
-                int collisionCount = 0;
-                Attribute found = attributeTableView[bucket];
-                while (found != null) {
-                    if (found.name.localpart == attr.name.localpart &&
-                        found.name.uri == attr.name.uri) {
-                        return attr.name;
-                    }
-                    found = found.next;
-                    ++collisionCount;
-                }
-                
-                // Select a new hash function and rehash the table view
-                // if the collision threshold is exceeded.
-                if (collisionCount >= MAX_HASH_COLLISIONS) {
-                    // The current attribute will be processed in the rehash.
-                    rebalanceTableViewNS(i+1);
-                    largeCount = fLargeCount;
-                }
-                else {
-                    // Update table view
-                    attr.next = attributeTableView[bucket];
-                    attributeTableView[bucket] = attr;
-                }
+            if (addToTable(table, true, i) != -1) {
+                // the table is incomplete
+                table.valid = false;
+                return fAttributes[i].name;
+            }
+            // The hash function was changed. Start over.
+            if (!table.valid) {
+                table.clear(length);
+                i = -1;
             }
         }
         return null;
-    }
+    } // checkDuplicatesNS():QName
     
     /**
      * Look up the index of an attribute by Namespace name.
@@ -948,14 +829,7 @@ public class XMLAttributesImpl
      *         appear in the list.
      */
     public int getIndexFast(String uri, String localPart) {
-        for (int i = 0; i < fLength; ++i) {
-            Attribute attribute = fAttributes[i];
-            if (attribute.name.localpart == localPart && 
-                attribute.name.uri == uri) {
-                return i;
-            }
-        }
-        return -1;
+        return lookupNS(uri, localPart, true);
     } // getIndexFast(String,String):int
 
     /**
@@ -971,38 +845,196 @@ public class XMLAttributesImpl
         }
         return type;
     }
-	
+    
     /**
-     * Returns the position in the table view 
-     * where the given attribute name would be hashed.
+     * Increases the capacity of the attribute list.
+     */
+    private void growAttributes() {
+        final int length = fAttributes.length;
+        Attribute[] attributes = new Attribute[length < SIZE_LIMIT ? length + 4 : length << 1];
+        System.arraycopy(fAttributes, 0, attributes, 0, length);
+        for (int i = length; i < attributes.length; i++) {
+            attributes[i] = new Attribute();
+        }
+        fAttributes = attributes;
+    } // growAttributes()
+    
+    /**
+     * Looks up an attribute by qualified name in the index table.
      * 
-     * @param qname the attribute name
-     * @return the position in the table view where the given attribute
-     * would be hashed
+     * @param qName the qualified name
+     * @param fast true if the name is a symbol and may be compared
+     * by reference
+     * @return the index of the attribute, or -1 if it does not
+     * appear in the list
      */
-    protected int getTableViewBucket(String qname) {
-        return (hash(qname) & 0x7FFFFFFF) % fTableViewBuckets;
-    }
+    private int lookupQName(String qName, boolean fast) {
+        if (fLength <= SIZE_LIMIT) {
+            for (int i = 0; i < fLength; ++i) {
+                final String rawname = fAttributes[i].name.rawname;
+                if (rawname == qName || (!fast && qName.equals(rawname))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        final IndexTable table = fQNameTable;
+        if (!table.valid) {
+            populateTable(table, false);
+        }
+        final int[] entries = table.entries;
+        final int[] stamps = table.stamps;
+        final int stamp = table.stamp;
+        final int mask = entries.length - 1;
+        int slot = spread(hash(qName)) & mask;
+        while (stamps[slot] == stamp) {
+            final String rawname = fAttributes[entries[slot]].name.rawname;
+            if (rawname == qName || (!fast && qName.equals(rawname))) {
+                return entries[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    } // lookupQName(String,boolean):int
     
     /**
-     * Returns the position in the table view
-     * where the given attribute name would be hashed.
+     * Looks up an attribute by namespace name and local name
+     * in the index table.
      * 
-     * @param localpart the local part of the attribute
-     * @param uri the namespace name of the attribute
-     * @return the position in the table view where the given attribute
-     * would be hashed
+     * @param uri the namespace name, or null
+     * @param localPart the local name
+     * @param fast true if the names are symbols and may be compared
+     * by reference
+     * @return the index of the attribute, or -1 if it does not
+     * appear in the list
      */
-    protected int getTableViewBucket(String localpart, String uri) {
-        if (uri == null) {
-            return (hash(localpart) & 0x7FFFFFFF) % fTableViewBuckets;
+    private int lookupNS(String uri, String localPart, boolean fast) {
+        if (fLength <= SIZE_LIMIT) {
+            for (int i = 0; i < fLength; ++i) {
+                final QName name = fAttributes[i].name;
+                if (fast ? (name.localpart == localPart && name.uri == uri) :
+                    (localPart.equals(name.localpart) && (uri == name.uri ||
+                    (uri != null && uri.equals(name.uri))))) {
+                    return i;
+                }
+            }
+            return -1;
         }
-        else {
-            return (hash(localpart, uri) & 0x7FFFFFFF) % fTableViewBuckets;
+        final IndexTable table = fNSTable;
+        if (!table.valid) {
+            populateTable(table, true);
         }
-    }
+        final int[] entries = table.entries;
+        final int[] stamps = table.stamps;
+        final int stamp = table.stamp;
+        final int mask = entries.length - 1;
+        int slot = spread(hash(localPart, uri)) & mask;
+        while (stamps[slot] == stamp) {
+            final QName name = fAttributes[entries[slot]].name;
+            if (fast ? (name.localpart == localPart && name.uri == uri) :
+                (localPart.equals(name.localpart) && (uri == name.uri ||
+                (uri != null && uri.equals(name.uri))))) {
+                return entries[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    } // lookupNS(String,String,boolean):int
+    
+    /**
+     * Adds the attribute at the given index to an index table unless
+     * the table is waiting to be rebuilt. The table is invalidated 
+     * instead if it would become too full.
+     */
+    private void appendToTable(IndexTable table, boolean ns, int index) {
+        if (table.valid) {
+            if ((index + 1) << 1 > table.entries.length) {
+                table.valid = false;
+            }
+            else {
+                addToTable(table, ns, index);
+            }
+        }
+    } // appendToTable(IndexTable,boolean,int)
+    
+    /**
+     * Adds the attribute at the given index to an index table unless
+     * the table already holds an attribute with the same name. 
+     * Names are compared by reference.
+     * <p>
+     * If the attribute is only placed after more than MAX_HASH_COLLISIONS
+     * probes a new hash function is selected and all of the index tables
+     * are invalidated.
+     * 
+     * @param table the index table
+     * @param ns true if the table is keyed on the namespace name and
+     * local name, false if it is keyed on the qualified name
+     * @param index the index of the attribute
+     * @return the index of the attribute with the same name, or -1
+     * if the attribute was added
+     */
+    private int addToTable(IndexTable table, boolean ns, int index) {
+        final QName name = fAttributes[index].name;
+        final int[] entries = table.entries;
+        final int[] stamps = table.stamps;
+        final int stamp = table.stamp;
+        final int mask = entries.length - 1;
+        int slot = spread(ns ? hash(name.localpart, name.uri) : hash(name.rawname)) & mask;
+        int collisionCount = 0;
+        while (stamps[slot] == stamp) {
+            final QName found = fAttributes[entries[slot]].name;
+            if (ns ? (found.localpart == name.localpart && found.uri == name.uri) :
+                found.rawname == name.rawname) {
+                return entries[slot];
+            }
+            slot = (slot + 1) & mask;
+            ++collisionCount;
+        }
+        stamps[slot] = stamp;
+        entries[slot] = index;
+        if (collisionCount >= MAX_HASH_COLLISIONS) {
+            rebalanceTables();
+        }
+        return -1;
+    } // addToTable(IndexTable,boolean,int):int
+    
+    /**
+     * Empties an index table and adds all of the attributes to it.
+     */
+    private void populateTable(IndexTable table, boolean ns) {
+        final int length = fLength;
+        do {
+            table.clear(length);
+            for (int i = 0; i < length && table.valid; ++i) {
+                addToTable(table, ns, i);
+            }
+        }
+        while (!table.valid);
+    } // populateTable(IndexTable,boolean)
+    
+    /**
+     * Randomly selects a new hash function and invalidates the index
+     * tables so that their entries will be more evenly distributed
+     * when they are rebuilt. This method is called automatically when
+     * placing an entry takes more than MAX_HASH_COLLISIONS probes.
+     */
+    private void rebalanceTables() {
+        if (fHashMultipliers == null) {
+            fHashMultipliers = new int[MULTIPLIERS_SIZE + 1];
+        }
+        PrimeNumberSequenceGenerator.generateSequence(fHashMultipliers);
+        fQNameTable.valid = false;
+        fNSTable.valid = false;
+    } // rebalanceTables()
+    
+    private static int spread(int code) {
+        return code ^ (code >>> 16);
+    } // spread(int):int
     
     private int hash(String localpart) {
+        if (localpart == null) {
+            return 0;
+        }
         if (fHashMultipliers == null) {
             return localpart.hashCode();
         }
@@ -1010,10 +1042,13 @@ public class XMLAttributesImpl
     } // hash(String):int
     
     private int hash(String localpart, String uri) {
+        if (uri == null) {
+            return hash(localpart);
+        }
         if (fHashMultipliers == null) {
-            return localpart.hashCode() + uri.hashCode() * 31;
+            return hash(localpart) + uri.hashCode() * 31;
         }
-        return hash0(localpart) + hash0(uri) * fHashMultipliers[MULTIPLIERS_SIZE];
+        return hash(localpart) + hash0(uri) * fHashMultipliers[MULTIPLIERS_SIZE];
     } // hash(String,String):int
     
     private int hash0(String symbol) {
@@ -1025,9 +1060,44 @@ public class XMLAttributesImpl
         }
         return code;
     } // hash0(String):int
-	
+
+    //
+    // Deprecated methods
+    //
+
+    /**
+     * Returns the position in the table view 
+     * where the given attribute name would be hashed.
+     * 
+     * @param qname the attribute name
+     * @return the position in the table view where the given attribute
+     * would be hashed
+     * 
+     * @deprecated The table view is no longer used by this class.
+     */
+    protected int getTableViewBucket(String qname) {
+        return (hash(qname) & 0x7FFFFFFF) % fTableViewBuckets;
+    }
+    
+    /**
+     * Returns the position in the table view
+     * where the given attribute name would be hashed.
+     * 
+     * @param localpart the local part of the attribute
+     * @param uri the namespace name of the attribute
+     * @return the position in the table view where the given attribute
+     * would be hashed
+     * 
+     * @deprecated The table view is no longer used by this class.
+     */
+    protected int getTableViewBucket(String localpart, String uri) {
+        return (hash(localpart, uri) & 0x7FFFFFFF) % fTableViewBuckets;
+    }
+    
     /**
      * Purges all elements from the table view.
+     * 
+     * @deprecated The table view is no longer used by this class.
      */
     protected void cleanTableView() {
         if (++fLargeCount < 0) {
@@ -1041,31 +1111,25 @@ public class XMLAttributesImpl
         }
     }
     
-    /**
-     * Increases the capacity of the table view.
-     */
-    private void growTableView() {
-        final int length = fLength;
-        int tableViewBuckets = fTableViewBuckets;
-        do {
-            tableViewBuckets = (tableViewBuckets << 1) + 1;
-            if (tableViewBuckets < 0) {
-                tableViewBuckets = Integer.MAX_VALUE;
-                break;
-            } 
-        }
-        while (length > tableViewBuckets);
-        fTableViewBuckets = tableViewBuckets;
-        fAttributeTableView = null;
-        fLargeCount = 1;
-    }
-    
     /**
      * Prepares the table view of the attributes list for use.
+     * 
+     * @deprecated The table view is no longer used by this class.
      */
     protected void prepareTableView() {
         if (fLength > fTableViewBuckets) {
-            growTableView();
+            int tableViewBuckets = fTableViewBuckets;
+            do {
+                tableViewBuckets = (tableViewBuckets << 1) + 1;
+                if (tableViewBuckets < 0) {
+                    tableViewBuckets = Integer.MAX_VALUE;
+                    break;
+                } 
+            }
+            while (fLength > tableViewBuckets);
+            fTableViewBuckets = tableViewBuckets;
+            fAttributeTableView = null;
+            fLargeCount = 1;
         }
         if (fAttributeTableView == null) {
             fAttributeTableView = new Attribute[fTableViewBuckets];
@@ -1080,17 +1144,15 @@ public class XMLAttributesImpl
      * Prepares the table view of the attributes list for use,
      * and populates it with the attributes which have been
      * previously read.
+     * 
+     * @deprecated The table view is no longer used by this class.
      */
     protected void prepareAndPopulateTableView() {
-        prepareAndPopulateTableView(fLength);
-    }
-    
-    private void prepareAndPopulateTableView(final int count) {
         prepareTableView();
         // Need to populate the hash table with the attributes we've processed so far.
         Attribute attr;
         int bucket;
-        for (int i = 0; i < count; ++i) {
+        for (int i = 0; i < fLength; ++i) {
             attr = fAttributes[i];
             bucket = getTableViewBucket(attr.name.rawname);
             if (fAttributeTableViewChainState[bucket] != fLargeCount) {
@@ -1105,55 +1167,6 @@ public class XMLAttributesImpl
             }
         }
     }
-    
-    private void prepareAndPopulateTableViewNS(final int count) {
-        prepareTableView();
-        // Need to populate the hash table with the attributes we've processed so far.
-        Attribute attr;
-        int bucket;
-        for (int i = 0; i < count; ++i) {
-            attr = fAttributes[i];
-            bucket = getTableViewBucket(attr.name.localpart, attr.name.uri);
-            if (fAttributeTableViewChainState[bucket] != fLargeCount) {
-                fAttributeTableViewChainState[bucket] = fLargeCount;
-                attr.next = null;
-                fAttributeTableView[bucket] = attr;
-            } 
-            else {
-                // Update table view
-                attr.next = fAttributeTableView[bucket];
-                fAttributeTableView[bucket] = attr;
-            }
-        }
-    }
-    
-    /**
-     * Randomly selects a new hash function and reorganizes the table view
-     * in order to more evenly distribute its entries. This method is called
-     * automatically when the number of attributes in one bucket exceeds
-     * MAX_HASH_COLLISIONS.
-     */
-    private void rebalanceTableView(final int count) {
-        if (fHashMultipliers == null) {
-            fHashMultipliers = new int[MULTIPLIERS_SIZE + 1];
-        }
-        PrimeNumberSequenceGenerator.generateSequence(fHashMultipliers);
-        prepareAndPopulateTableView(count);
-    }
-    
-    /**
-     * Randomly selects a new hash function and reorganizes the table view
-     * in order to more evenly distribute its entries. This method is called
-     * automatically when the number of attributes in one bucket exceeds
-     * MAX_HASH_COLLISIONS.
-     */
-    private void rebalanceTableViewNS(final int count) {
-        if (fHashMultipliers == null) {
-            fHashMultipliers = new int[MULTIPLIERS_SIZE + 1];
-        }
-        PrimeNumberSequenceGenerator.generateSequence(fHashMultipliers);
-        prepareAndPopulateTableViewNS(count);
-    }
 
     //
     // Classes
@@ -1196,9 +1209,71 @@ public class XMLAttributesImpl
         
         // Additional data for attribute table view
         
-        /** Pointer to the next attribute in the chain. **/
+        /** 
+         * Pointer to the next attribute in the chain.
+         * 
+         * @deprecated The table view is no longer used by this class.
+         */
         public Attribute next;
         
     } // class Attribute
 
+    /**
+     * An open addressing table of attribute indexes with linear
+     * probing. An entry is only in use if its stamp matches the
+     * current stamp of the table, so that the table can be emptied
+     * without visiting or reallocating its arrays.
+     */
+    static final class IndexTable {
+
+        /** Attribute indexes. The length is a power of two. */
+        int[] entries;
+
+        /** Stamps of the entries. */
+        int[] stamps;
+
+        /** Current stamp. */
+        int stamp;
+
+        /** Whether the table reflects the current attribute list. */
+        boolean valid;
+
+        /** Constructs an index table with the given initial capacity. */
+        IndexTable(int capacity) {
+            int size = 1;
+            while (size < capacity) {
+                size <<= 1;
+            }
+            entries = new int[size];
+            stamps = new int[size];
+            stamp = 1;
+        } // <init>(int)
+
+        /**
+         * Empties the table and makes sure it can hold the given
+         * number of entries while remaining at most half full.
+         */
+        void clear(int count) {
+            int size = entries.length;
+            if (count << 1 > size) {
+                do {
+                    size <<= 1;
+                }
+                while (count << 1 > size);
+                entries = new int[size];
+                stamps = new int[size];
+                stamp = 1;
+            }
+            else if (++stamp < 0) {
+                // Overflow. We actually need to visit the stamps.
+                for (int i = size - 1; i >= 0; --i) {
+                    stamps[i] = 0;
+                }
+                stamp = 1;
+            }
+            valid = true;
+        } // clear(int)
+
+    } // class IndexTable
+
 } // class XMLAttributesImpl
@@ -18,6 +18,7 @@
 package org.apache.xerces.util;
 
 import java.io.IOException;
+import java.util.HashMap;
 
 import javax.xml.parsers.SAXParserFactory;
 
@@ -52,6 +53,12 @@ import org.xml.sax.ext.EntityResolver2;
  * <p>It is intended that this class may be used standalone to perform 
  * catalog resolution outside of a parsing context. It may be shared
  * between several parsers and the application.</p>
+ * 
+ * <p>The results of catalog lookups, including lookups which found
+ * no mapping, are remembered so that repeated resolution of the same
+ * identifiers does not query the catalog again. The remembered results 
+ * are discarded when the catalog list is changed or the catalog
+ * is cleared.</p>
  *
  * @author Michael Glavassevich, IBM
  *
@@ -86,6 +93,43 @@ public class XMLCatalogResolver
      */
     private boolean fUseLiteralSystemId = true;
     
+    /** Value remembered for lookups which found no mapping. **/
+    private static final Object NO_MAPPING = new Object();
+    
+    /** 
+     * Maximum number of results remembered for each kind of lookup. 
+     * Once reached the remembered results are discarded.
+     */
+    private static final int MAX_CACHED_RESULTS = 4096;
+    
+    /** 
+     * Lock for the remembered results and the statistics. It is held 
+     * only briefly so that lookups of remembered results don't wait on 
+     * catalog resolution being performed by other threads.
+     */
+    private final Object fResultsLock = new Object();
+    
+    /** Results of system identifier lookups. **/
+    private final HashMap fSystemResults = new HashMap();
+    
+    /** 
+     * Results of public identifier lookups, as maps of system 
+     * identifiers to results keyed by public identifier.
+     */
+    private final HashMap fPublicResults = new HashMap();
+    
+    /** Number of public identifier lookups remembered. **/
+    private int fPublicResultCount = 0;
+    
+    /** Results of URI lookups. **/
+    private final HashMap fURIResults = new HashMap();
+    
+    /** Number of lookups answered from the remembered results. **/
+    private long fCacheHits = 0;
+    
+    /** Number of lookups which queried the catalog. **/
+    private long fCacheMisses = 0;
+    
     /**
      * <p>Constructs a catalog resolver with a default configuration.</p>
      */
@@ -138,6 +182,7 @@ public class XMLCatalogResolver
         fCatalogsChanged = true;
         fCatalogsList = (catalogs != null)
             ? (String[]) catalogs.clone() : null;
+        clearResults();
     }
     
     /**
@@ -145,6 +190,32 @@ public class XMLCatalogResolver
      */
     public final synchronized void clear () {
         fCatalog = null;
+        clearResults();
+    }
+    
+    /**
+     * <p>Returns the number of lookups which were answered
+     * from the results of previous lookups.</p>
+     * 
+     * @return the number of lookups answered without
+     * querying the catalog
+     */
+    public final long getCacheHitCount () {
+        synchronized (fResultsLock) {
+            return fCacheHits;
+        }
+    }
+    
+    /**
+     * <p>Returns the number of lookups which queried
+     * the catalog.</p>
+     * 
+     * @return the number of lookups which queried the catalog
+     */
+    public final long getCacheMissCount () {
+        synchronized (fResultsLock) {
+            return fCacheMisses;
+        }
     }
     
     /**
@@ -454,15 +525,37 @@ public class XMLCatalogResolver
      * @throws IOException if an i/o error occurred while reading
      * the catalog
      */
-    public final synchronized String resolveSystem (String systemId) 
+    public final String resolveSystem (String systemId) 
+        throws IOException {
+        
+        Object result;
+        synchronized (fResultsLock) {
+            result = fSystemResults.get(systemId);
+            if (result != null) {
+                ++fCacheHits;
+                return (result != NO_MAPPING) ? (String) result : null;
+            }
+            ++fCacheMisses;
+        }
+        return resolveSystem0(systemId);
+    }
+    
+    private synchronized String resolveSystem0 (String systemId) 
         throws IOException {
 
         if (fCatalogsChanged) {
             parseCatalogs();
             fCatalogsChanged = false;
         }
-        return (fCatalog != null) 
+        String resolvedId = (fCatalog != null) 
             ? fCatalog.resolveSystem(systemId) : null;
+        synchronized (fResultsLock) {
+            if (fSystemResults.size() == MAX_CACHED_RESULTS) {
+                fSystemResults.clear();
+            }
+            fSystemResults.put(systemId, (resolvedId != null) ? (Object) resolvedId : NO_MAPPING);
+        }
+        return resolvedId;
     }
     
     /**
@@ -480,15 +573,48 @@ public class XMLCatalogResolver
      * @throws IOException if an i/o error occurred while reading
      * the catalog
      */
-    public final synchronized String resolvePublic (String publicId, String systemId) 
+    public final String resolvePublic (String publicId, String systemId) 
+        throws IOException {
+        
+        Object result;
+        synchronized (fResultsLock) {
+            HashMap results = (HashMap) fPublicResults.get(publicId);
+            if (results != null) {
+                result = results.get(systemId);
+                if (result != null) {
+                    ++fCacheHits;
+                    return (result != NO_MAPPING) ? (String) result : null;
+                }
+            }
+            ++fCacheMisses;
+        }
+        return resolvePublic0(publicId, systemId);
+    }
+    
+    private synchronized String resolvePublic0 (String publicId, String systemId) 
         throws IOException {
 
         if (fCatalogsChanged) {
             parseCatalogs();
             fCatalogsChanged = false;
         }
-        return (fCatalog != null) 
+        String resolvedId = (fCatalog != null) 
             ? fCatalog.resolvePublic(publicId, systemId) : null;
+        synchronized (fResultsLock) {
+            if (fPublicResultCount == MAX_CACHED_RESULTS) {
+                fPublicResults.clear();
+                fPublicResultCount = 0;
+            }
+            HashMap results = (HashMap) fPublicResults.get(publicId);
+            if (results == null) {
+                results = new HashMap();
+                fPublicResults.put(publicId, results);
+            }
+            if (results.put(systemId, (resolvedId != null) ? (Object) resolvedId : NO_MAPPING) == null) {
+                ++fPublicResultCount;
+            }
+        }
+        return resolvedId;
     }
     
     /**
@@ -509,15 +635,37 @@ public class XMLCatalogResolver
      * @throws IOException if an i/o error occurred while reading
      * the catalog
      */
-    public final synchronized String resolveURI (String uri) 
+    public final String resolveURI (String uri) 
+        throws IOException {
+        
+        Object result;
+        synchronized (fResultsLock) {
+            result = fURIResults.get(uri);
+            if (result != null) {
+                ++fCacheHits;
+                return (result != NO_MAPPING) ? (String) result : null;
+            }
+            ++fCacheMisses;
+        }
+        return resolveURI0(uri);
+    }
+    
+    private synchronized String resolveURI0 (String uri) 
         throws IOException {
 
         if (fCatalogsChanged) {
             parseCatalogs();
             fCatalogsChanged = false;
         }
-        return (fCatalog != null)
+        String resolvedId = (fCatalog != null)
             ? fCatalog.resolveURI(uri) : null;
+        synchronized (fResultsLock) {
+            if (fURIResults.size() == MAX_CACHED_RESULTS) {
+                fURIResults.clear();
+            }
+            fURIResults.put(uri, (resolvedId != null) ? (Object) resolvedId : NO_MAPPING);
+        }
+        return resolvedId;
     }
     
     /**
@@ -540,6 +688,18 @@ public class XMLCatalogResolver
         fResolverCatalogManager.setVerbosity(0);
     }
     
+    /**
+     * Discards the results of previous lookups.
+     */
+    private void clearResults () {
+        synchronized (fResultsLock) {
+            fSystemResults.clear();
+            fPublicResults.clear();
+            fPublicResultCount = 0;
+            fURIResults.clear();
+        }
+    }
+    
     /**
      * Instruct the <code>Catalog</code> to parse each of the  
      * catalogs in the list. Only the first catalog will actually be 
@@ -0,0 +1,814 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xerces.xinclude;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.xerces.util.AugmentationsImpl;
+import org.apache.xerces.util.DefaultErrorHandler;
+import org.apache.xerces.util.XMLAttributesImpl;
+import org.apache.xerces.util.XMLResourceIdentifierImpl;
+import org.apache.xerces.util.XMLSymbols;
+import org.apache.xerces.xni.Augmentations;
+import org.apache.xerces.xni.NamespaceContext;
+import org.apache.xerces.xni.QName;
+import org.apache.xerces.xni.XMLAttributes;
+import org.apache.xerces.xni.XMLDocumentHandler;
+import org.apache.xerces.xni.XMLLocator;
+import org.apache.xerces.xni.XMLResourceIdentifier;
+import org.apache.xerces.xni.XMLString;
+import org.apache.xerces.xni.XNIException;
+import org.apache.xerces.xni.parser.XMLDocumentSource;
+import org.apache.xerces.xni.parser.XMLErrorHandler;
+import org.apache.xerces.xni.parser.XMLParseException;
+
+/**
+ * A cache of the results of XInclude processing, which may be shared
+ * across include sites, parsers and parses. Setting an instance of this
+ * class as the value of the
+ * <code>http://apache.org/xml/properties/xinclude/cache</code>
+ * property allows the XInclude processor to record the document events
+ * produced by an include and to replay them, instead of opening and
+ * parsing the resource again, the next time the same resource is
+ * included in the same context.
+ * <p>
+ * Entries are keyed by the resolved URI of the included resource, the
+ * value of the xpointer and parse attributes and the other attributes
+ * and properties of the include parent which affect the result (the
+ * [base URI] and [language] fixup). The cache holds at most a
+ * configurable number of entries, discarding the least recently used
+ * entry when full. Optionally, the modification times of included
+ * local files are checked before an entry is reused.
+ * <p>
+ * Includes are only cached when they are not processed on a validating
+ * pipeline, when they are not at the top level of the result infoset,
+ * and when the resource is located by its URI rather than provided as
+ * a stream by an entity resolver.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @version $Id$
+ */
+public class XIncludeCache {
+
+    //
+    // Constants
+    //
+
+    /** Default maximum number of entries. */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    /** Default maximum number of events recorded for a single entry. */
+    public static final int DEFAULT_MAX_ENTRY_SIZE = 1 << 16;
+
+    //
+    // Data
+    //
+
+    /** Cached entries, in least recently used order. */
+    private final LinkedHashMap fEntries = new LinkedHashMap(16, 0.75f, true) {
+        private static final long serialVersionUID = 7361442367613738620L;
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > fMaxEntries;
+        }
+    };
+
+    /** Maximum number of entries. */
+    private int fMaxEntries;
+
+    /** Maximum number of events recorded for a single entry. */
+    private int fMaxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+
+    /** Whether the modification times of local files are checked. */
+    private boolean fCheckModified = false;
+
+    /** Number of lookups which found a usable entry. */
+    private long fHits;
+
+    /** Number of lookups which did not find a usable entry. */
+    private long fMisses;
+
+    //
+    // Constructors
+    //
+
+    /** Constructs a cache with the default maximum number of entries. */
+    public XIncludeCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a cache with the given maximum number of entries.
+     *
+     * @param maxEntries the maximum number of entries
+     */
+    public XIncludeCache(int maxEntries) {
+        fMaxEntries = maxEntries;
+    }
+
+    //
+    // Public methods
+    //
+
+    /** Returns the maximum number of entries. */
+    public synchronized int getMaxEntries() {
+        return fMaxEntries;
+    }
+
+    /**
+     * Sets the maximum number of entries. If the cache holds more
+     * entries than the new maximum, the least recently used entries
+     * are removed.
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        fMaxEntries = maxEntries;
+        while (fEntries.size() > maxEntries) {
+            fEntries.remove(fEntries.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Returns the maximum number of document events recorded for
+     * a single include.
+     */
+    public synchronized int getMaxEntrySize() {
+        return fMaxEntrySize;
+    }
+
+    /**
+     * Sets the maximum number of document events recorded for a
+     * single include. Includes which produce more events than this
+     * are not cached.
+     */
+    public synchronized void setMaxEntrySize(int maxEntrySize) {
+        fMaxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Returns whether the modification times of included local files
+     * are checked before an entry is reused.
+     */
+    public synchronized boolean getCheckModified() {
+        return fCheckModified;
+    }
+
+    /**
+     * Sets whether the modification times of included local files are
+     * checked before an entry is reused. An entry is discarded if any of
+     * the files it was recorded from has changed since. This setting
+     * applies to entries added after it has been changed.
+     */
+    public synchronized void setCheckModified(boolean checkModified) {
+        fCheckModified = checkModified;
+    }
+
+    /** Returns the number of entries in the cache. */
+    public synchronized int size() {
+        return fEntries.size();
+    }
+
+    /** Returns the number of lookups which found a usable entry. */
+    public synchronized long getHitCount() {
+        return fHits;
+    }
+
+    /** Returns the number of lookups which did not find a usable entry. */
+    public synchronized long getMissCount() {
+        return fMisses;
+    }
+
+    /** Removes all entries and resets the statistics. */
+    public synchronized void clear() {
+        fEntries.clear();
+        fHits = 0;
+        fMisses = 0;
+    }
+
+    //
+    // Package methods
+    //
+
+    /**
+     * Returns the entry for the given key, or null if there is no
+     * entry or if it is out of date.
+     */
+    synchronized Entry get(String key) {
+        Entry entry = (Entry) fEntries.get(key);
+        if (entry != null && !entry.isUpToDate()) {
+            fEntries.remove(key);
+            entry = null;
+        }
+        if (entry != null) {
+            ++fHits;
+        }
+        else {
+            ++fMisses;
+        }
+        return entry;
+    }
+
+    /** Creates a recorder for a new entry. */
+    synchronized Recorder createRecorder(XMLDocumentHandler handler,
+            NamespaceContext namespaceContext) {
+        return new Recorder(handler, namespaceContext, fMaxEntrySize);
+    }
+
+    /** Adds the entry produced by the given recorder. */
+    synchronized void put(String key, Recorder recorder) {
+        if (fMaxEntries > 0 && !recorder.fDiscarded) {
+            fEntries.put(key, new Entry(recorder, fCheckModified));
+        }
+    }
+
+    /**
+     * Returns the local file for the given URI, or null if the
+     * URI is not a file URI.
+     */
+    static File getFile(String uri) {
+        if (uri == null || !uri.regionMatches(true, 0, "file:", 0, 5)) {
+            return null;
+        }
+        try {
+            return new File(new java.net.URI(uri));
+        }
+        catch (java.net.URISyntaxException e) {
+            return null;
+        }
+        catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    //
+    // Classes
+    //
+
+    /**
+     * A recorded sequence of document events.
+     */
+    static final class Entry {
+
+        /** Event types. */
+        private final byte[] fEvents;
+
+        /** Event arguments. */
+        private final Object[] fArgs;
+
+        /** URIs of the resources included. */
+        final String[] fResources;
+
+        /** Local files included, or null if not checked. */
+        private final File[] fFiles;
+
+        /** Modification times of the local files included. */
+        private final long[] fModified;
+
+        Entry(Recorder recorder, boolean checkModified) {
+            fEvents = new byte[recorder.fEventCount];
+            System.arraycopy(recorder.fEvents, 0, fEvents, 0, fEvents.length);
+            fArgs = recorder.fArgs.toArray();
+            fResources = (String[]) recorder.fResources.toArray(new String[recorder.fResources.size()]);
+            if (checkModified) {
+                fFiles = new File[fResources.length];
+                fModified = new long[fResources.length];
+                for (int i = 0; i < fResources.length; ++i) {
+                    fFiles[i] = getFile(fResources[i]);
+                    if (fFiles[i] != null) {
+                        fModified[i] = fFiles[i].lastModified();
+                    }
+                }
+            }
+            else {
+                fFiles = null;
+                fModified = null;
+            }
+        }
+
+        /** Returns true if none of the local files included has changed. */
+        boolean isUpToDate() {
+            if (fFiles != null) {
+                for (int i = 0; i < fFiles.length; ++i) {
+                    if (fFiles[i] != null && fFiles[i].lastModified() != fModified[i]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Replays the recorded events to the given handler, reproducing
+         * the namespace declarations of each element on the given
+         * namespace context.
+         */
+        void replay(XMLDocumentHandler handler, NamespaceContext namespaceContext) {
+            final Object[] args = fArgs;
+            final QName element = new QName();
+            final QName attrName = new QName();
+            final XMLAttributesImpl attributes = new XMLAttributesImpl();
+            final XMLString text = new XMLString();
+            int arg = 0;
+            for (int i = 0; i < fEvents.length; ++i) {
+                switch (fEvents[i]) {
+                    case Recorder.START_ELEMENT:
+                    case Recorder.EMPTY_ELEMENT: {
+                        element.setValues((QName) args[arg++]);
+                        copyAttributes((XMLAttributes) args[arg++], attributes, attrName);
+                        Augmentations augs = copyAugmentations((Object[]) args[arg++]);
+                        String[] prefixes = (String[]) args[arg++];
+                        namespaceContext.pushContext();
+                        for (int j = 0; j < prefixes.length; j += 2) {
+                            namespaceContext.declarePrefix(prefixes[j], prefixes[j + 1]);
+                        }
+                        if (fEvents[i] == Recorder.START_ELEMENT) {
+                            handler.startElement(element, attributes, augs);
+                        }
+                        else {
+                            handler.emptyElement(element, attributes, augs);
+                            namespaceContext.popContext();
+                        }
+                        break;
+                    }
+                    case Recorder.END_ELEMENT:
+                        element.setValues((QName) args[arg++]);
+                        handler.endElement(element, copyAugmentations((Object[]) args[arg++]));
+                        namespaceContext.popContext();
+                        break;
+                    case Recorder.CHARACTERS:
+                        setText(text, (char[]) args[arg++]);
+                        handler.characters(text, copyAugmentations((Object[]) args[arg++]));
+                        break;
+                    case Recorder.IGNORABLE_WHITESPACE:
+                        setText(text, (char[]) args[arg++]);
+                        handler.ignorableWhitespace(text, copyAugmentations((Object[]) args[arg++]));
+                        break;
+                    case Recorder.COMMENT:
+                        setText(text, (char[]) args[arg++]);
+                        handler.comment(text, copyAugmentations((Object[]) args[arg++]));
+                        break;
+                    case Recorder.PROCESSING_INSTRUCTION: {
+                        String target = (String) args[arg++];
+                        setText(text, (char[]) args[arg++]);
+                        handler.processingInstruction(target, text, copyAugmentations((Object[]) args[arg++]));
+                        break;
+                    }
+                    case Recorder.START_CDATA:
+                        handler.startCDATA(copyAugmentations((Object[]) args[arg++]));
+                        break;
+                    case Recorder.END_CDATA:
+                        handler.endCDATA(copyAugmentations((Object[]) args[arg++]));
+                        break;
+                    case Recorder.START_GENERAL_ENTITY: {
+                        String name = (String) args[arg++];
+                        XMLResourceIdentifier identifier = (XMLResourceIdentifier) args[arg++];
+                        String encoding = (String) args[arg++];
+                        handler.startGeneralEntity(name, identifier, encoding, copyAugmentations((Object[]) args[arg++]));
+                        break;
+                    }
+                    case Recorder.END_GENERAL_ENTITY: {
+                        String name = (String) args[arg++];
+                        handler.endGeneralEntity(name, copyAugmentations((Object[]) args[arg++]));
+                        break;
+                    }
+                    case Recorder.TEXT_DECL: {
+                        String version = (String) args[arg++];
+                        String encoding = (String) args[arg++];
+                        handler.textDecl(version, encoding, copyAugmentations((Object[]) args[arg++]));
+                        break;
+                    }
+                }
+            }
+        }
+
+        private static void setText(XMLString text, char[] ch) {
+            text.setValues(ch, 0, ch.length);
+        }
+
+    } // class Entry
+
+    /**
+     * A document handler which passes the events it receives on to
+     * another handler while recording them for an entry. The recorder
+     * also acts as the error handler while the events are recorded,
+     * since the events of an include for which errors or warnings are
+     * reported are not replayable.
+     */
+    static final class Recorder implements XMLDocumentHandler, XMLErrorHandler {
+
+        /** Event types. */
+        static final byte START_ELEMENT = 0;
+        static final byte EMPTY_ELEMENT = 1;
+        static final byte END_ELEMENT = 2;
+        static final byte CHARACTERS = 3;
+        static final byte IGNORABLE_WHITESPACE = 4;
+        static final byte COMMENT = 5;
+        static final byte PROCESSING_INSTRUCTION = 6;
+        static final byte START_CDATA = 7;
+        static final byte END_CDATA = 8;
+        static final byte START_GENERAL_ENTITY = 9;
+        static final byte END_GENERAL_ENTITY = 10;
+        static final byte TEXT_DECL = 11;
+
+        /** The handler events are passed on to. */
+        private final XMLDocumentHandler fDocumentHandler;
+
+        /** The namespace context of the pipeline. */
+        private final NamespaceContext fNamespaceContext;
+
+        /** Maximum number of events. */
+        private final int fMaxEvents;
+
+        /** Event types. */
+        byte[] fEvents = new byte[64];
+
+        /** Number of events recorded. */
+        int fEventCount;
+
+        /** Event arguments. */
+        final ArrayList fArgs = new ArrayList();
+
+        /** URIs of the resources included. */
+        final ArrayList fResources = new ArrayList();
+
+        /**
+         * Whether the events cannot be recorded, either because there
+         * are too many of them or because they cannot be replayed.
+         */
+        boolean fDiscarded;
+
+        /** The document source. */
+        private XMLDocumentSource fDocumentSource;
+
+        /** The error handler errors are passed on to. */
+        private XMLErrorHandler fErrorHandler;
+
+        /** The error handler used if no error handler has been set. */
+        private XMLErrorHandler fDefaultErrorHandler;
+
+        Recorder(XMLDocumentHandler handler, NamespaceContext namespaceContext, int maxEvents) {
+            fDocumentHandler = handler;
+            fNamespaceContext = namespaceContext;
+            fMaxEvents = maxEvents;
+        }
+
+        /** Records that the given resource has been included. */
+        void addIncludedResource(String uri) {
+            if (uri != null && !fResources.contains(uri)) {
+                fResources.add(uri);
+            }
+        }
+
+        /**
+         * Sets the error handler errors are passed on to. If null, errors
+         * are passed on to a default error handler, as the error reporter
+         * would.
+         */
+        void setErrorHandler(XMLErrorHandler errorHandler) {
+            fErrorHandler = errorHandler;
+        }
+
+        /** Returns the error handler errors are passed on to. */
+        XMLErrorHandler getErrorHandler() {
+            return fErrorHandler;
+        }
+
+        /** Marks the events as not replayable. */
+        void discard() {
+            if (!fDiscarded) {
+                fDiscarded = true;
+                fEvents = null;
+                fArgs.clear();
+            }
+        }
+
+        public void startDocument(XMLLocator locator, String encoding,
+                NamespaceContext namespaceContext, Augmentations augs)
+            throws XNIException {
+            // only received from the root document
+            discard();
+            if (fDocumentHandler != null) {
+                fDocumentHandler.startDocument(locator, encoding, namespaceContext, augs);
+            }
+        }
+
+        public void xmlDecl(String version, String encoding, String standalone, Augmentations augs)
+            throws XNIException {
+            discard();
+            if (fDocumentHandler != null) {
+                fDocumentHandler.xmlDecl(version, encoding, standalone, augs);
+            }
+        }
+
+        public void doctypeDecl(String rootElement, String publicId, String systemId, Augmentations augs)
+            throws XNIException {
+            discard();
+            if (fDocumentHandler != null) {
+                fDocumentHandler.doctypeDecl(rootElement, publicId, systemId, augs);
+            }
+        }
+
+        public void comment(XMLString text, Augmentations augs) throws XNIException {
+            if (addEvent(COMMENT)) {
+                fArgs.add(toCharArray(text));
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.comment(text, augs);
+            }
+        }
+
+        public void processingInstruction(String target, XMLString data, Augmentations augs)
+            throws XNIException {
+            if (addEvent(PROCESSING_INSTRUCTION)) {
+                fArgs.add(target);
+                fArgs.add(toCharArray(data));
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.processingInstruction(target, data, augs);
+            }
+        }
+
+        public void startElement(QName element, XMLAttributes attributes, Augmentations augs)
+            throws XNIException {
+            recordElement(START_ELEMENT, element, attributes, augs);
+            if (fDocumentHandler != null) {
+                fDocumentHandler.startElement(element, attributes, augs);
+            }
+        }
+
+        public void emptyElement(QName element, XMLAttributes attributes, Augmentations augs)
+            throws XNIException {
+            recordElement(EMPTY_ELEMENT, element, attributes, augs);
+            if (fDocumentHandler != null) {
+                fDocumentHandler.emptyElement(element, attributes, augs);
+            }
+        }
+
+        public void startGeneralEntity(String name, XMLResourceIdentifier identifier,
+                String encoding, Augmentations augs) throws XNIException {
+            if (addEvent(START_GENERAL_ENTITY)) {
+                fArgs.add(name);
+                fArgs.add(identifier != null ?
+                        new XMLResourceIdentifierImpl(identifier.getPublicId(),
+                                identifier.getLiteralSystemId(),
+                                identifier.getBaseSystemId(),
+                                identifier.getExpandedSystemId(),
+                                identifier.getNamespace()) : null);
+                fArgs.add(encoding);
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.startGeneralEntity(name, identifier, encoding, augs);
+            }
+        }
+
+        public void textDecl(String version, String encoding, Augmentations augs) throws XNIException {
+            if (addEvent(TEXT_DECL)) {
+                fArgs.add(version);
+                fArgs.add(encoding);
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.textDecl(version, encoding, augs);
+            }
+        }
+
+        public void endGeneralEntity(String name, Augmentations augs) throws XNIException {
+            if (addEvent(END_GENERAL_ENTITY)) {
+                fArgs.add(name);
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.endGeneralEntity(name, augs);
+            }
+        }
+
+        public void characters(XMLString text, Augmentations augs) throws XNIException {
+            if (addEvent(CHARACTERS)) {
+                fArgs.add(toCharArray(text));
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.characters(text, augs);
+            }
+        }
+
+        public void ignorableWhitespace(XMLString text, Augmentations augs) throws XNIException {
+            if (addEvent(IGNORABLE_WHITESPACE)) {
+                fArgs.add(toCharArray(text));
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.ignorableWhitespace(text, augs);
+            }
+        }
+
+        public void endElement(QName element, Augmentations augs) throws XNIException {
+            if (addEvent(END_ELEMENT)) {
+                fArgs.add(element.clone());
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.endElement(element, augs);
+            }
+        }
+
+        public void startCDATA(Augmentations augs) throws XNIException {
+            if (addEvent(START_CDATA)) {
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.startCDATA(augs);
+            }
+        }
+
+        public void endCDATA(Augmentations augs) throws XNIException {
+            if (addEvent(END_CDATA)) {
+                fArgs.add(toArray(augs));
+            }
+            if (fDocumentHandler != null) {
+                fDocumentHandler.endCDATA(augs);
+            }
+        }
+
+        public void endDocument(Augmentations augs) throws XNIException {
+            discard();
+            if (fDocumentHandler != null) {
+                fDocumentHandler.endDocument(augs);
+            }
+        }
+
+        public void setDocumentSource(XMLDocumentSource source) {
+            fDocumentSource = source;
+        }
+
+        public XMLDocumentSource getDocumentSource() {
+            return fDocumentSource;
+        }
+
+        public void warning(String domain, String key, XMLParseException exception)
+            throws XNIException {
+            discard();
+            getDelegateErrorHandler().warning(domain, key, exception);
+        }
+
+        public void error(String domain, String key, XMLParseException exception)
+            throws XNIException {
+            discard();
+            getDelegateErrorHandler().error(domain, key, exception);
+        }
+
+        public void fatalError(String domain, String key, XMLParseException exception)
+            throws XNIException {
+            discard();
+            getDelegateErrorHandler().fatalError(domain, key, exception);
+        }
+
+        private XMLErrorHandler getDelegateErrorHandler() {
+            if (fErrorHandler != null) {
+                return fErrorHandler;
+            }
+            if (fDefaultErrorHandler == null) {
+                fDefaultErrorHandler = new DefaultErrorHandler();
+            }
+            return fDefaultErrorHandler;
+        }
+
+        /**
+         * Records a start or empty element event, along with the namespace
+         * declarations of the current context. The events of elements which
+         * carry references to unparsed entities or notations are not replayable,
+         * since the declarations also need to be reported.
+         */
+        private void recordElement(byte type, QName element, XMLAttributes attributes, Augmentations augs) {
+            if (!addEvent(type)) {
+                return;
+            }
+            XMLAttributesImpl copy = new XMLAttributesImpl();
+            if (attributes != null) {
+                QName name = new QName();
+                copyAttributes(attributes, copy, name);
+                for (int i = copy.getLength() - 1; i >= 0; --i) {
+                    String attrType = copy.getType(i);
+                    if (attrType == XMLSymbols.fENTITYSymbol ||
+                        attrType == XMLSymbols.fENTITIESSymbol ||
+                        attrType == XMLSymbols.fNOTATIONSymbol) {
+                        discard();
+                        return;
+                    }
+                }
+            }
+            int count = fNamespaceContext.getDeclaredPrefixCount();
+            String[] prefixes = new String[count << 1];
+            for (int i = 0; i < count; ++i) {
+                String prefix = fNamespaceContext.getDeclaredPrefixAt(i);
+                prefixes[i << 1] = prefix;
+                prefixes[(i << 1) + 1] = fNamespaceContext.getURI(prefix);
+            }
+            fArgs.add(element.clone());
+            fArgs.add(copy);
+            fArgs.add(toArray(augs));
+            fArgs.add(prefixes);
+        }
+
+        /**
+         * Adds an event of the given type. Returns false if events
+         * are no longer being recorded.
+         */
+        private boolean addEvent(byte type) {
+            if (fDiscarded) {
+                return false;
+            }
+            if (fEventCount == fMaxEvents) {
+                discard();
+                return false;
+            }
+            if (fEventCount == fEvents.length) {
+                byte[] events = new byte[fEventCount << 1];
+                System.arraycopy(fEvents, 0, events, 0, fEventCount);
+                fEvents = events;
+            }
+            fEvents[fEventCount++] = type;
+            return true;
+        }
+
+        private static char[] toCharArray(XMLString text) {
+            char[] ch = new char[text.length];
+            System.arraycopy(text.ch, text.offset, ch, 0, text.length);
+            return ch;
+        }
+
+        private static Object[] toArray(Augmentations augs) {
+            if (augs == null) {
+                return null;
+            }
+            ArrayList items = new ArrayList();
+            Enumeration keys = augs.keys();
+            while (keys.hasMoreElements()) {
+                Object key = keys.nextElement();
+                items.add(key);
+                items.add(augs.getItem((String) key));
+            }
+            return items.toArray();
+        }
+
+    } // class Recorder
+
+    //
+    // Private static methods
+    //
+
+    /** Copies the given attributes, using <code>name</code> as scratch space. */
+    private static void copyAttributes(XMLAttributes source, XMLAttributesImpl dest, QName name) {
+        dest.removeAllAttributes();
+        int length = source.getLength();
+        for (int i = 0; i < length; ++i) {
+            source.getName(i, name);
+            int index = dest.addAttribute(name, source.getType(i), source.getValue(i));
+            dest.setNonNormalizedValue(index, source.getNonNormalizedValue(i));
+            dest.setSpecified(index, source.isSpecified(i));
+            Augmentations augs = source.getAugmentations(i);
+            if (augs != null) {
+                Augmentations destAugs = dest.getAugmentations(index);
+                Enumeration keys = augs.keys();
+                while (keys.hasMoreElements()) {
+                    String key = (String) keys.nextElement();
+                    destAugs.putItem(key, augs.getItem(key));
+                }
+            }
+        }
+    }
+
+    /** Creates augmentations from recorded items. */
+    private static Augmentations copyAugmentations(Object[] items) {
+        if (items == null) {
+            return null;
+        }
+        Augmentations augs = new AugmentationsImpl();
+        for (int i = 0; i < items.length; i += 2) {
+            augs.putItem((String) items[i], items[i + 1]);
+        }
+        return augs;
+    }
+
+} // class XIncludeCache
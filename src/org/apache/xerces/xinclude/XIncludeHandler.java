@@ -216,6 +216,10 @@ public class XIncludeHandler
     protected static final String ERROR_REPORTER =
         Constants.XERCES_PROPERTY_PREFIX + Constants.ERROR_REPORTER_PROPERTY;
 
+    /** Property identifier: error handler. */
+    protected static final String ERROR_HANDLER =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.ERROR_HANDLER_PROPERTY;
+
     /** Property identifier: entity resolver. */
     protected static final String ENTITY_RESOLVER =
         Constants.XERCES_PROPERTY_PREFIX + Constants.ENTITY_RESOLVER_PROPERTY;
@@ -228,6 +232,10 @@ public class XIncludeHandler
     protected static final String BUFFER_SIZE =
         Constants.XERCES_PROPERTY_PREFIX + Constants.BUFFER_SIZE_PROPERTY;
     
+    /** property identifier: XInclude cache. */
+    protected static final String XINCLUDE_CACHE =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.XINCLUDE_CACHE_PROPERTY;
+    
     protected static final String PARSER_SETTINGS = 
         Constants.XERCES_FEATURE_PREFIX + Constants.PARSER_SETTINGS;
 
@@ -240,10 +248,10 @@ public class XIncludeHandler
 
     /** Recognized properties. */
     private static final String[] RECOGNIZED_PROPERTIES =
-        { ERROR_REPORTER, ENTITY_RESOLVER, SECURITY_MANAGER, BUFFER_SIZE };
+        { ERROR_REPORTER, ENTITY_RESOLVER, SECURITY_MANAGER, BUFFER_SIZE, XINCLUDE_CACHE };
 
     /** Property defaults. */
-    private static final Object[] PROPERTY_DEFAULTS = { null, null, null, new Integer(XMLEntityManager.DEFAULT_BUFFER_SIZE) };
+    private static final Object[] PROPERTY_DEFAULTS = { null, null, null, new Integer(XMLEntityManager.DEFAULT_BUFFER_SIZE), null };
 
     // instance variables
 
@@ -287,6 +295,14 @@ public class XIncludeHandler
     protected XMLEntityResolver fEntityResolver;
     protected SecurityManager fSecurityManager;
     
+    // the cache of include results, and the recorder
+    // for the include currently being processed
+    protected XIncludeCache fIncludeCache;
+    private XIncludeCache.Recorder fIncludeRecorder;
+    
+    // the parser settings which affect cached include results
+    private String fIncludeCacheSettings;
+    
     // these are needed for text include processing
     protected XIncludeTextReader fXInclude10TextReader;
     protected XIncludeTextReader fXInclude11TextReader;
@@ -428,6 +444,7 @@ public class XIncludeHandler
         
         // parser settings changed. Need to refresh features on child config.
         fNeedCopyFeatures = true;
+        fIncludeCacheSettings = null;
 
         try {
             fSendUEAndNotationEvents =
@@ -551,6 +568,17 @@ public class XIncludeHandler
         	fBufferSize = ((Integer)getPropertyDefault(BUFFER_SIZE)).intValue();
         }
         
+        // Get XInclude cache.
+        try {
+            fIncludeCache = (XIncludeCache)componentManager.getProperty(XINCLUDE_CACHE);
+            if (fChildConfig != null) {
+                fChildConfig.setProperty(XINCLUDE_CACHE, fIncludeCache);
+            }
+        }
+        catch (XMLConfigurationException e) {
+            fIncludeCache = null;
+        }
+        
         // Reset XML 1.0 text reader.
         if (fXInclude10TextReader != null) {
         	fXInclude10TextReader.setBufferSize(fBufferSize);
@@ -620,6 +648,7 @@ public class XIncludeHandler
         }
         if (fSettings != null) {
             fNeedCopyFeatures = true;
+            fIncludeCacheSettings = null;
             fSettings.setFeature(featureId, state);
         }
     } // setFeature(String,boolean)
@@ -696,6 +725,13 @@ public class XIncludeHandler
             }
             return;
         }
+        if (propertyId.equals(XINCLUDE_CACHE)) {
+            fIncludeCache = (XIncludeCache)value;
+            if (fChildConfig != null) {
+                fChildConfig.setProperty(propertyId, value);
+            }
+            return;
+        }
 
     } // setProperty(String,Object)
 
@@ -796,6 +832,8 @@ public class XIncludeHandler
                         "RecursiveInclude",
                         new Object[] { fCurrentBaseURI.getExpandedSystemId()});
             }
+            fParentXIncludeHandler.addIncludedResource(
+                fCurrentBaseURI.getExpandedSystemId());
         }
 
         // initialize the current language
@@ -1582,6 +1620,15 @@ public class XIncludeHandler
             }
         }
         
+        String cacheKey = getIncludeCacheKey(includedSource, parse, xpointer,
+            attributes.getValue(XINCLUDE_ATTR_ENCODING), accept, acceptLanguage, href);
+        if (cacheKey != null) {
+            XIncludeCache.Entry entry = fIncludeCache.get(cacheKey);
+            if (entry != null && replayInclude(entry)) {
+                return true;
+            }
+        }
+        
         if (parse.equals(XINCLUDE_PARSE_XML)) {
             // Instead of always creating a new configuration, the first one can be reused
             if ((xpointer != null && fXPointerChildConfig == null) 
@@ -1603,6 +1650,7 @@ public class XIncludeHandler
                 if (fEntityResolver != null) fChildConfig.setProperty(ENTITY_RESOLVER, fEntityResolver);
                 fChildConfig.setProperty(SECURITY_MANAGER, fSecurityManager);
                 fChildConfig.setProperty(BUFFER_SIZE, new Integer(fBufferSize));
+                fChildConfig.setProperty(XINCLUDE_CACHE, fIncludeCache);
                 
                 // features must be copied to child configuration
                 fNeedCopyFeatures = true;
@@ -1693,6 +1741,13 @@ public class XIncludeHandler
             }
             fNeedCopyFeatures = false;
 
+            XMLDocumentSource source = null;
+            if (cacheKey != null) {
+                // record the events of the child pipeline
+                source = fDocumentHandler.getDocumentSource();
+                startIncludeRecording();
+                setChildDocumentHandler(fIncludeRecorder, xpointer != null);
+            }
             try {
                 fHasIncludeReportedContent = false;
                 fNamespaceContext.pushScope();
@@ -1715,6 +1770,10 @@ public class XIncludeHandler
                 		return false;
                 	}
                 }
+                
+                if (cacheKey != null) {
+                    fIncludeCache.put(cacheKey, fIncludeRecorder);
+                }
             }
             catch (XNIException e) {
                 // necessary to make sure proper location is reported to the application and in errors
@@ -1747,6 +1806,11 @@ public class XIncludeHandler
             }
             finally {
                 fNamespaceContext.popScope();
+                if (cacheKey != null) {
+                    endIncludeRecording();
+                    setChildDocumentHandler(fDocumentHandler, xpointer != null);
+                    fDocumentHandler.setDocumentSource(source);
+                }
             }
         }
         else if (parse.equals(XINCLUDE_PARSE_TEXT)) {
@@ -1754,6 +1818,13 @@ public class XIncludeHandler
             String encoding = attributes.getValue(XINCLUDE_ATTR_ENCODING);
             includedSource.setEncoding(encoding);
             XIncludeTextReader textReader = null;
+            XMLDocumentHandler handler = fDocumentHandler;
+            if (cacheKey != null) {
+                // record the characters reported for the text
+                startIncludeRecording();
+                fIncludeRecorder.addIncludedResource(getIncludedURI(includedSource));
+                fDocumentHandler = fIncludeRecorder;
+            }
             
             try {
                 fHasIncludeReportedContent = false;
@@ -1779,14 +1850,18 @@ public class XIncludeHandler
                 }
                 textReader.setErrorReporter(fErrorReporter);
                 textReader.parse();
+                
+                if (cacheKey != null) {
+                    fIncludeCache.put(cacheKey, fIncludeRecorder);
+                }
             }
             // encoding errors
             catch (MalformedByteSequenceException ex) {
-                fErrorReporter.reportError(ex.getDomain(), ex.getKey(), 
+                fErrorReporter.report(ex.getDomain(), ex.getKey(), 
                     ex.getArguments(), XMLErrorReporter.SEVERITY_FATAL_ERROR, ex);
             }
             catch (CharConversionException e) {
-                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
+                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
                     "CharConversionFailure", null, XMLErrorReporter.SEVERITY_FATAL_ERROR, e);
             }
             catch (IOException e) {
@@ -1802,6 +1877,10 @@ public class XIncludeHandler
                 return false;
             }
             finally {
+                if (cacheKey != null) {
+                    endIncludeRecording();
+                    fDocumentHandler = handler;
+                }
                 if (textReader != null) {
                     try {
                         textReader.close();
@@ -1820,6 +1899,183 @@ public class XIncludeHandler
         }
         return true;
     }
+    
+    /**
+     * Returns the key under which the result of an include is stored in the
+     * XInclude cache, or null if the result of the include should not be cached.
+     * Besides the resource and the attributes of the include element, the key
+     * captures the [base URI] and [language] of the include parent and the
+     * parser settings, all of which affect the events reported for the include.
+     */
+    private String getIncludeCacheKey(XMLInputSource includedSource, String parse,
+        String xpointer, String encoding, String accept, String acceptLanguage, String href) {
+        // Includes at the top level of the result infoset are subject to checks 
+        // against the rest of the document, and resources provided as streams
+        // cannot be identified.
+        if (fIncludeCache == null || fDocumentHandler == null || 
+            fErrorReporter == null || fResultDepth == 0 ||
+            includedSource.getByteStream() != null || includedSource.getCharacterStream() != null) {
+            return null;
+        }
+        String uri = getIncludedURI(includedSource);
+        if (uri == null) {
+            return null;
+        }
+        StringBuffer key = new StringBuffer();
+        appendKey(key, parse);
+        appendKey(key, uri);
+        appendKey(key, accept);
+        appendKey(key, acceptLanguage);
+        if (parse.equals(XINCLUDE_PARSE_XML)) {
+            // Errors reported by a validator on the child pipeline would not be
+            // reported again when the result is replayed.
+            try {
+                if (fSettings.getFeature(VALIDATION) || fSettings.getFeature(DYNAMIC_VALIDATION)) {
+                    return null;
+                }
+            }
+            catch (XMLConfigurationException e) {
+                return null;
+            }
+            if (fIncludeCacheSettings == null) {
+                StringBuffer settings = new StringBuffer();
+                appendSettings(settings, Constants.getXercesFeatures(), Constants.XERCES_FEATURE_PREFIX);
+                appendSettings(settings, Constants.getSAXFeatures(), Constants.SAX_FEATURE_PREFIX);
+                fIncludeCacheSettings = settings.toString();
+            }
+            appendKey(key, fIncludeCacheSettings);
+            appendKey(key, xpointer);
+            appendKey(key, href);
+            if (fFixupBaseURIs) {
+                try {
+                    appendKey(key, getRelativeBaseURI());
+                }
+                catch (MalformedURIException e) {
+                    return null;
+                }
+                appendKey(key, getIncludeParentBaseURI());
+            }
+            if (fFixupLanguage) {
+                appendKey(key, getIncludeParentLanguage());
+            }
+        }
+        else {
+            appendKey(key, encoding);
+            appendKey(key, fIsXML11 ? "1.1" : "1.0");
+        }
+        return key.toString();
+    }
+    
+    private static void appendKey(StringBuffer key, String value) {
+        // U+FFFF cannot occur in an attribute value or a URI
+        if (value != null) {
+            key.append(value);
+        }
+        key.append('\uFFFF');
+    }
+    
+    private void appendSettings(StringBuffer settings, Enumeration features, String featurePrefix) {
+        while (features.hasMoreElements()) {
+            try {
+                settings.append(fSettings.getFeature(featurePrefix + 
+                    (String)features.nextElement()) ? '1' : '0');
+            }
+            catch (XMLConfigurationException e) {
+                settings.append('-');
+            }
+        }
+    }
+    
+    /**
+     * Returns the expanded system identifier of the included resource, or
+     * null if it cannot be determined.
+     */
+    private String getIncludedURI(XMLInputSource includedSource) {
+        try {
+            return XMLEntityManager.expandSystemId(
+                includedSource.getSystemId(),
+                includedSource.getBaseSystemId(),
+                false);
+        }
+        catch (MalformedURIException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Starts recording the events reported for an include. The recorder
+     * also stands in for the error handler so that it can tell whether
+     * the include reported any errors.
+     */
+    private void startIncludeRecording() {
+        fIncludeRecorder = fIncludeCache.createRecorder(fDocumentHandler, fNamespaceContext);
+        fIncludeRecorder.setErrorHandler(fErrorReporter.getErrorHandler());
+        fErrorReporter.setProperty(ERROR_HANDLER, fIncludeRecorder);
+    }
+    
+    /**
+     * Sets the document handler of the child pipeline.
+     */
+    private void setChildDocumentHandler(XMLDocumentHandler handler, boolean xpointer) {
+        fChildConfig.setDocumentHandler(handler);
+        // The configuration only passes the handler on to the last
+        // component of the pipeline once the pipeline has been configured.
+        if (xpointer) {
+            ((XPointerHandler)fXPtrProcessor).setDocumentHandler(handler);
+        }
+        else {
+            ((XIncludeHandler)fChildConfig.getProperty(
+                Constants.XERCES_PROPERTY_PREFIX
+                    + Constants.XINCLUDE_HANDLER_PROPERTY)).setDocumentHandler(handler);
+        }
+    }
+    
+    /**
+     * Stops recording the events reported for an include.
+     */
+    private void endIncludeRecording() {
+        fErrorReporter.setProperty(ERROR_HANDLER, fIncludeRecorder.getErrorHandler());
+        fIncludeRecorder = null;
+    }
+    
+    /**
+     * Reports the events recorded in the given cache entry in place of
+     * processing the include. Returns false if the entry cannot be used
+     * because it would create a recursive include.
+     */
+    private boolean replayInclude(XIncludeCache.Entry entry) {
+        final String[] resources = entry.fResources;
+        for (int i = 0; i < resources.length; ++i) {
+            if (searchForRecursiveIncludes(resources[i])) {
+                return false;
+            }
+        }
+        for (int i = 0; i < resources.length; ++i) {
+            addIncludedResource(resources[i]);
+        }
+        fNamespaceContext.pushScope();
+        try {
+            entry.replay(fDocumentHandler, fNamespaceContext);
+        }
+        finally {
+            fNamespaceContext.popScope();
+        }
+        return true;
+    }
+    
+    /**
+     * Records that the given resource has been included beneath this handler,
+     * so that the results of includes which are being cached can be checked
+     * for recursive includes, and for changes to the resources they include.
+     */
+    protected void addIncludedResource(String systemId) {
+        if (fIncludeRecorder != null) {
+            fIncludeRecorder.addIncludedResource(systemId);
+        }
+        if (fParentXIncludeHandler != null) {
+            fParentXIncludeHandler.addIncludedResource(systemId);
+        }
+    }
 
     /**
      * Returns true if the element has the namespace "http://www.w3.org/2001/XInclude"
@@ -2393,7 +2649,7 @@ public class XIncludeHandler
 
     private void reportError(String key, Object[] args, short severity, Exception exception) {
         if (fErrorReporter != null) {
-            fErrorReporter.reportError(
+            fErrorReporter.report(
                 XIncludeMessageFormatter.XINCLUDE_DOMAIN,
                 key,
                 args,
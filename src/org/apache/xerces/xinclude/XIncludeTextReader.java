@@ -468,24 +468,24 @@ public class XIncludeTextReader {
                             // convert surrogates to a supplemental character
                             int sup = XMLChar.supplemental(ch, (char)ch2);
                             if (!isValid(sup)) {
-                                fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                           "InvalidCharInContent", 
-                                                           new Object[] { Integer.toString(sup, 16) },
-                                                           XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                                fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                                      "InvalidCharInContent", 
+                                                      new Object[] { Integer.toString(sup, 16) },
+                                                      XMLErrorReporter.SEVERITY_FATAL_ERROR);
                             }
                         }
                         else {
-                            fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                       "InvalidCharInContent", 
-                                                       new Object[] { Integer.toString(ch2, 16) },
-                                                       XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                            fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                                  "InvalidCharInContent", 
+                                                  new Object[] { Integer.toString(ch2, 16) },
+                                                  XMLErrorReporter.SEVERITY_FATAL_ERROR);
                         }
                     }
                     else {
-                        fErrorReporter.reportError(XMLMessageFormatter.XML_DOMAIN,
-                                                   "InvalidCharInContent", 
-                                                   new Object[] { Integer.toString(ch, 16) },
-                                                   XMLErrorReporter.SEVERITY_FATAL_ERROR);
+                        fErrorReporter.report(XMLMessageFormatter.XML_DOMAIN,
+                                              "InvalidCharInContent", 
+                                              new Object[] { Integer.toString(ch, 16) },
+                                              XMLErrorReporter.SEVERITY_FATAL_ERROR);
                     }
                 }
             }
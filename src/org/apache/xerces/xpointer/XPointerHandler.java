@@ -394,7 +394,7 @@ public final class XPointerHandler extends XIncludeHandler implements
      */
     private void reportWarning(String key, Object[] arguments)
             throws XNIException {
-        fXPointerErrorReporter.reportError(
+        fXPointerErrorReporter.report(
                 XPointerMessageFormatter.XPOINTER_DOMAIN, key, arguments,
                 XMLErrorReporter.SEVERITY_WARNING);
     }
@@ -228,6 +228,12 @@ public abstract class BaseMarkupSerializer
      */
     private OutputStream    _output;
 
+
+    /**
+     * The byte buffer used when writing directly to the output stream.
+     */
+    private byte[]          _byteBuffer;
+
     /** Current node that is being processed  */
     protected Node fCurrentNode = null;
 
@@ -351,16 +357,30 @@ public abstract class BaseMarkupSerializer
 
         _encodingInfo = _format.getEncodingInfo();
 
-        if ( _output != null ) {
-            _writer = _encodingInfo.getWriter(_output);
-        }
-
         if ( _format.getIndenting() ) {
             _indenting = true;
+            if ( _output != null ) {
+                _writer = _encodingInfo.getWriter(_output);
+            }
             _printer = new IndentPrinter( _writer, _format );
         } else {
             _indenting = false;
-            _printer = new Printer( _writer, _format );
+            if ( _output != null && ByteStreamPrinter.isSupported( _encodingInfo ) ) {
+                // UTF-8 and US-ASCII are encoded by the printer directly
+                // into a byte buffer which is kept for the next document.
+                if ( _byteBuffer == null ) {
+                    _byteBuffer = new byte[ ByteStreamPrinter.DEFAULT_BUFFER_SIZE ];
+                }
+                _writer = null;
+                _printer = new ByteStreamPrinter( _output, _format, 
+                        ByteStreamPrinter.isASCII( _encodingInfo ), _byteBuffer );
+            }
+            else {
+                if ( _output != null ) {
+                    _writer = _encodingInfo.getWriter(_output);
+                }
+                _printer = new Printer( _writer, _format );
+            }
         }
 
         ElementState state;
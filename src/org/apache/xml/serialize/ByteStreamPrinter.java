@@ -0,0 +1,376 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xml.serialize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.xerces.util.XMLChar;
+
+/**
+ * A printer which encodes text as UTF-8 or US-ASCII directly into
+ * a byte buffer and writes it to an output stream, bypassing the
+ * <code>Writer</code> returned by {@link EncodingInfo#getWriter}.
+ * Characters which cannot be represented in US-ASCII are written
+ * as '?', as an <code>OutputStreamWriter</code> would. The serializers
+ * escape such characters before they reach the printer.
+ * <p>
+ * While in DTD mode output is accumulated as characters by the
+ * {@link Printer} implementation.
+ *
+ * @deprecated This class was deprecated in Xerces 2.9.0. It is recommended
+ * that new applications use the DOM Level 3 LSSerializer or JAXP's Transformation
+ * API for XML (TrAX) for serializing XML. See the Xerces documentation for more
+ * information.
+ * @version $Id$
+ */
+public class ByteStreamPrinter
+    extends Printer
+{
+
+    /**
+     * The default size of the output buffer.
+     */
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * The output stream to which the document is written.
+     */
+    protected OutputStream _output;
+
+    /**
+     * Output buffer.
+     */
+    private final byte[] _bytes;
+
+    /**
+     * Position within the output buffer.
+     */
+    private int _bytePos = 0;
+
+    /**
+     * True if encoding to US-ASCII, false if encoding to UTF-8.
+     */
+    private final boolean _ascii;
+
+    /**
+     * A high surrogate waiting for its low surrogate, or 0.
+     */
+    private char _highSurrogate = 0;
+
+
+    /**
+     * Constructs a printer for the given output stream.
+     *
+     * @param output The output stream
+     * @param format The output format
+     * @param ascii True to encode as US-ASCII, false to encode as UTF-8
+     * @param buffer A buffer to use for output, which may be reused
+     *  across documents, or null to allocate one
+     */
+    public ByteStreamPrinter( OutputStream output, OutputFormat format,
+                              boolean ascii, byte[] buffer )
+    {
+        super( null, format );
+        _output = output;
+        _ascii = ascii;
+        // leave room for one fully encoded character
+        _bytes = ( buffer != null && buffer.length >= 4 ) ? buffer : new byte[ DEFAULT_BUFFER_SIZE ];
+    }
+
+
+    /**
+     * Returns true if the given encoding can be written by this printer.
+     */
+    public static boolean isSupported( EncodingInfo encodingInfo )
+    {
+        return isUTF8( encodingInfo ) || isASCII( encodingInfo );
+    }
+
+
+    /**
+     * Returns true if the given encoding is US-ASCII.
+     */
+    public static boolean isASCII( EncodingInfo encodingInfo )
+    {
+        return "ASCII".equalsIgnoreCase( encodingInfo.javaName ) ||
+            "US-ASCII".equalsIgnoreCase( encodingInfo.ianaName );
+    }
+
+
+    /**
+     * Returns true if the given encoding is UTF-8.
+     */
+    public static boolean isUTF8( EncodingInfo encodingInfo )
+    {
+        return "UTF8".equalsIgnoreCase( encodingInfo.javaName ) ||
+            "UTF-8".equalsIgnoreCase( encodingInfo.ianaName );
+    }
+
+
+    public String leaveDTD()
+        throws IOException
+    {
+        // With no writer of our own the printer is only in DTD mode
+        // if a DTD writer has been set up.
+        if ( _dtdWriter == null )
+            return null;
+        return super.leaveDTD();
+    }
+
+
+    public void printText( String text )
+        throws IOException
+    {
+        printText( text, 0, text.length() );
+    }
+
+
+    public void printText( String text, int start, int length )
+        throws IOException
+    {
+        if ( _writer != null ) {
+            super.printText( text, start, length );
+            return;
+        }
+        try {
+            final byte[] bytes = _bytes;
+            final int limit = bytes.length - 4;
+            int pos = _bytePos;
+            int end = start + length;
+            for ( int i = start ; i < end ; ++i ) {
+                if ( pos > limit ) {
+                    _bytePos = pos;
+                    flushBuffer();
+                    pos = 0;
+                }
+                char ch = text.charAt( i );
+                if ( ch < 0x80 && _highSurrogate == 0 ) {
+                    bytes[ pos++ ] = (byte) ch;
+                }
+                else {
+                    _bytePos = pos;
+                    encode( ch );
+                    pos = _bytePos;
+                }
+            }
+            _bytePos = pos;
+        } catch ( IOException except ) {
+            // We don't throw an exception, but hold it
+            // until the end of the document.
+            if ( _exception == null )
+                _exception = except;
+            throw except;
+        }
+    }
+
+
+    public void printText( StringBuffer text )
+        throws IOException
+    {
+        printText( text.toString() );
+    }
+
+
+    public void printText( char[] chars, int start, int length )
+        throws IOException
+    {
+        if ( _writer != null ) {
+            super.printText( chars, start, length );
+            return;
+        }
+        try {
+            final byte[] bytes = _bytes;
+            final int limit = bytes.length - 4;
+            int pos = _bytePos;
+            int end = start + length;
+            for ( int i = start ; i < end ; ++i ) {
+                if ( pos > limit ) {
+                    _bytePos = pos;
+                    flushBuffer();
+                    pos = 0;
+                }
+                char ch = chars[ i ];
+                if ( ch < 0x80 && _highSurrogate == 0 ) {
+                    bytes[ pos++ ] = (byte) ch;
+                }
+                else {
+                    _bytePos = pos;
+                    encode( ch );
+                    pos = _bytePos;
+                }
+            }
+            _bytePos = pos;
+        } catch ( IOException except ) {
+            // We don't throw an exception, but hold it
+            // until the end of the document.
+            if ( _exception == null )
+                _exception = except;
+            throw except;
+        }
+    }
+
+
+    public void printText( char ch )
+        throws IOException
+    {
+        if ( _writer != null ) {
+            super.printText( ch );
+            return;
+        }
+        try {
+            if ( _bytePos > _bytes.length - 4 ) {
+                flushBuffer();
+            }
+            if ( ch < 0x80 && _highSurrogate == 0 ) {
+                _bytes[ _bytePos++ ] = (byte) ch;
+            }
+            else {
+                encode( ch );
+            }
+        } catch ( IOException except ) {
+            // We don't throw an exception, but hold it
+            // until the end of the document.
+            if ( _exception == null )
+                _exception = except;
+            throw except;
+        }
+    }
+
+
+    public void printSpace()
+        throws IOException
+    {
+        printText( ' ' );
+    }
+
+
+    public void breakLine()
+        throws IOException
+    {
+        printText( '\n' );
+    }
+
+
+    public void flushLine( boolean preserveSpace )
+        throws IOException
+    {
+        if ( _writer != null ) {
+            super.flushLine( preserveSpace );
+            return;
+        }
+        // Write anything left in the buffer into the stream.
+        try {
+            flushBuffer();
+        } catch ( IOException except ) {
+            // We don't throw an exception, but hold it
+            // until the end of the document.
+            if ( _exception == null )
+                _exception = except;
+        }
+    }
+
+
+    /**
+     * Flush the output stream. Must be called when done printing
+     * the document, otherwise some text might be buffered.
+     */
+    public void flush()
+        throws IOException
+    {
+        if ( _writer != null ) {
+            super.flush();
+            return;
+        }
+        try {
+            flushBuffer();
+            _output.flush();
+        } catch ( IOException except ) {
+            // We don't throw an exception, but hold it
+            // until the end of the document.
+            if ( _exception == null )
+                _exception = except;
+            throw except;
+        }
+    }
+
+
+    /**
+     * Writes the contents of the byte buffer to the output stream.
+     */
+    protected void flushBuffer()
+        throws IOException
+    {
+        if ( _bytePos > 0 ) {
+            int length = _bytePos;
+            _bytePos = 0;
+            _output.write( _bytes, 0, length );
+        }
+    }
+
+
+    /**
+     * Encodes a character which is not a plain ASCII character, or
+     * which follows a pending high surrogate. The caller ensures there
+     * is room for at least four bytes in the buffer.
+     */
+    private void encode( char ch )
+    {
+        final byte[] bytes = _bytes;
+        if ( _highSurrogate != 0 ) {
+            char high = _highSurrogate;
+            _highSurrogate = 0;
+            if ( XMLChar.isLowSurrogate( ch ) ) {
+                if ( _ascii ) {
+                    bytes[ _bytePos++ ] = (byte) '?';
+                }
+                else {
+                    int c = XMLChar.supplemental( high, ch );
+                    bytes[ _bytePos++ ] = (byte) ( 0xF0 | ( c >> 18 ) );
+                    bytes[ _bytePos++ ] = (byte) ( 0x80 | ( ( c >> 12 ) & 0x3F ) );
+                    bytes[ _bytePos++ ] = (byte) ( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+                    bytes[ _bytePos++ ] = (byte) ( 0x80 | ( c & 0x3F ) );
+                }
+                return;
+            }
+            // unpaired high surrogate; together with the character
+            // which follows this takes at most four bytes
+            bytes[ _bytePos++ ] = (byte) '?';
+        }
+        if ( ch < 0x80 ) {
+            bytes[ _bytePos++ ] = (byte) ch;
+        }
+        else if ( XMLChar.isHighSurrogate( ch ) ) {
+            _highSurrogate = ch;
+        }
+        else if ( _ascii || XMLChar.isLowSurrogate( ch ) ) {
+            bytes[ _bytePos++ ] = (byte) '?';
+        }
+        else if ( ch < 0x800 ) {
+            bytes[ _bytePos++ ] = (byte) ( 0xC0 | ( ch >> 6 ) );
+            bytes[ _bytePos++ ] = (byte) ( 0x80 | ( ch & 0x3F ) );
+        }
+        else {
+            bytes[ _bytePos++ ] = (byte) ( 0xE0 | ( ch >> 12 ) );
+            bytes[ _bytePos++ ] = (byte) ( 0x80 | ( ( ch >> 6 ) & 0x3F ) );
+            bytes[ _bytePos++ ] = (byte) ( 0x80 | ( ch & 0x3F ) );
+        }
+    }
+
+
+}
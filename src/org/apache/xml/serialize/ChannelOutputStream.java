@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.xml.serialize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An output stream which copies the bytes written to it into direct
+ * byte buffers and writes them to a channel as the buffers fill up.
+ * If the channel is a <code>GatheringByteChannel</code> several buffers
+ * are accumulated and written with a single gathering write.
+ * <p>
+ * The buffers are kept in a pool owned by the stream, so a stream which
+ * is reused for several documents (see {@link #setChannel}) allocates
+ * its direct buffers only once. The channel is never closed by this
+ * stream.
+ *
+ * @xerces.internal
+ *
+ * @version $Id$
+ */
+final class ChannelOutputStream extends OutputStream {
+
+    /** Size of the direct buffers. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Number of buffers accumulated for a gathering write. */
+    private static final int GATHER_COUNT = 8;
+
+    /** The channel written to. */
+    private WritableByteChannel fChannel;
+
+    /** The channel as a gathering channel, if it is one. */
+    private GatheringByteChannel fGatheringChannel;
+
+    /** Buffers waiting to be written; the last one is being filled. */
+    private final ByteBuffer[] fBuffers = new ByteBuffer[GATHER_COUNT];
+
+    /** Number of buffers in use. */
+    private int fBufferCount = 0;
+
+    /** Buffers available for reuse. */
+    private final ByteBuffer[] fPool = new ByteBuffer[GATHER_COUNT];
+
+    /** Top of the pool. */
+    private int fPoolTop = -1;
+
+    /** Buffer used for single byte writes. */
+    private final byte[] fSingleByte = new byte[1];
+
+    /**
+     * Sets the channel to write to. Any previous channel must have
+     * been released with {@link #release}.
+     */
+    public void setChannel(WritableByteChannel channel) {
+        fChannel = channel;
+        fGatheringChannel = (channel instanceof GatheringByteChannel)
+            ? (GatheringByteChannel) channel : null;
+    }
+
+    public void write(int b) throws IOException {
+        fSingleByte[0] = (byte) b;
+        write(fSingleByte, 0, 1);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ByteBuffer buffer = currentBuffer();
+            int count = buffer.remaining();
+            if (count > len) {
+                count = len;
+            }
+            buffer.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Writes all buffered bytes to the channel.
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * Writes all buffered bytes to the channel, and releases the channel.
+     * The channel is not closed.
+     */
+    public void close() throws IOException {
+        try {
+            drain();
+        }
+        finally {
+            release();
+        }
+    }
+
+    /**
+     * Discards any buffered bytes, returns all buffers to the pool
+     * and releases the channel.
+     */
+    public void release() {
+        for (int i = 0; i < fBufferCount; ++i) {
+            returnBuffer(fBuffers[i]);
+            fBuffers[i] = null;
+        }
+        fBufferCount = 0;
+        fChannel = null;
+        fGatheringChannel = null;
+    }
+
+    /**
+     * Returns a buffer with room for at least one byte, writing
+     * the pending buffers to the channel if necessary.
+     */
+    private ByteBuffer currentBuffer() throws IOException {
+        if (fBufferCount > 0) {
+            ByteBuffer buffer = fBuffers[fBufferCount - 1];
+            if (buffer.hasRemaining()) {
+                return buffer;
+            }
+            if (fGatheringChannel == null || fBufferCount == GATHER_COUNT) {
+                drain();
+                return fBuffers[0];
+            }
+        }
+        ByteBuffer buffer = getBuffer();
+        fBuffers[fBufferCount++] = buffer;
+        return buffer;
+    }
+
+    /**
+     * Writes the pending buffers to the channel, keeping the first
+     * one as the current buffer.
+     */
+    private void drain() throws IOException {
+        if (fBufferCount == 0) {
+            return;
+        }
+        for (int i = 0; i < fBufferCount; ++i) {
+            fBuffers[i].flip();
+        }
+        if (fGatheringChannel != null) {
+            ByteBuffer last = fBuffers[fBufferCount - 1];
+            while (last.hasRemaining()) {
+                fGatheringChannel.write(fBuffers, 0, fBufferCount);
+            }
+        }
+        else {
+            for (int i = 0; i < fBufferCount; ++i) {
+                ByteBuffer buffer = fBuffers[i];
+                while (buffer.hasRemaining()) {
+                    fChannel.write(buffer);
+                }
+            }
+        }
+        for (int i = 1; i < fBufferCount; ++i) {
+            returnBuffer(fBuffers[i]);
+            fBuffers[i] = null;
+        }
+        fBuffers[0].clear();
+        fBufferCount = 1;
+    }
+
+    /** Retrieves a buffer from the pool. */
+    private ByteBuffer getBuffer() {
+        if (fPoolTop > -1) {
+            ByteBuffer buffer = fPool[fPoolTop];
+            fPool[fPoolTop--] = null;
+            return buffer;
+        }
+        return ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /** Returns a buffer to the pool. */
+    private void returnBuffer(ByteBuffer buffer) {
+        if (fPoolTop < fPool.length - 1) {
+            buffer.clear();
+            fPool[++fPoolTop] = buffer;
+        }
+    }
+
+} // class ChannelOutputStream
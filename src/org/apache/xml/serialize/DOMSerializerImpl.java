@@ -17,12 +17,15 @@
 
 package org.apache.xml.serialize;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 
 import org.apache.xerces.dom.CoreDocumentImpl;
@@ -30,6 +33,7 @@ import org.apache.xerces.dom.DOMErrorImpl;
 import org.apache.xerces.dom.DOMLocatorImpl;
 import org.apache.xerces.dom.DOMMessageFormatter;
 import org.apache.xerces.dom.DOMNormalizer;
+import org.apache.xerces.dom.DOMOutputImpl;
 import org.apache.xerces.dom.DOMStringListImpl;
 import org.apache.xerces.impl.Constants;
 import org.apache.xerces.impl.XMLEntityManager;
@@ -83,6 +87,9 @@ public class DOMSerializerImpl implements LSSerializer, DOMConfiguration {
 
     // XML 1.1 serializer
     private XML11Serializer xml11Serializer;
+
+    // stream used for writing to a byte channel, keeps its buffers
+    private ChannelOutputStream fChannelStream;
     
     //Recognized parameters
     private DOMStringList fRecognizedParameters;
@@ -651,6 +658,9 @@ public class DOMSerializerImpl implements LSSerializer, DOMConfiguration {
       * "unsupported-encoding" error is raised.
       * <br> If no output is specified in the <code>LSOutput</code>, a
       * "no-output-specified" error is raised.
+      * <br> If the destination is a <code>DOMOutputImpl</code> with a byte
+      * channel and neither a character stream nor a byte stream, the output
+      * is written to the channel as the serializer's buffers fill up.
       * @param node  The node to serialize.
       * @param destination The destination for the serialized DOM.
       * @return  Returns <code>true</code> if <code>node</code> was
@@ -688,15 +698,27 @@ public class DOMSerializerImpl implements LSSerializer, DOMConfiguration {
                 }
             }
         }
+        ChannelOutputStream channelStream = null;
         try {
             prepareForSerialization(ser, node);
             ser._format.setEncoding(encoding);
             OutputStream outputStream = destination.getByteStream();
             Writer writer = destination.getCharacterStream();
             String uri =  destination.getSystemId();
+            WritableByteChannel channel = (destination instanceof DOMOutputImpl) ?
+                    ((DOMOutputImpl) destination).getByteChannel() : null;
             if (writer == null) {
                 if (outputStream == null) {
-                    if (uri == null) {
+                    if (channel != null) {
+                        // byte channel was specified
+                        if (fChannelStream == null) {
+                            fChannelStream = new ChannelOutputStream();
+                        }
+                        fChannelStream.setChannel(channel);
+                        channelStream = fChannelStream;
+                        ser.setOutputByteStream(channelStream);
+                    }
+                    else if (uri == null) {
                         String msg = DOMMessageFormatter.formatMessage(
                             DOMMessageFormatter.SERIALIZER_DOMAIN, 
                             "no-output-specified", null);
@@ -771,11 +793,48 @@ public class DOMSerializerImpl implements LSSerializer, DOMConfiguration {
         }
         finally {
             ser.clearDocumentState();
+            if (channelStream != null) {
+                // the serializer has flushed everything it wrote
+                channelStream.release();
+            }
         }
         return true;
 
     } //write
 
+    /**
+     * NON-DOM: Serialize the specified node into a byte buffer. The
+     * encoding is found as for {@link #write(Node, LSOutput)}, from the
+     * given encoding, or if it is <code>null</code> the input encoding or
+     * the XML encoding of the node's owner document, defaulting to UTF-8.
+     * The returned buffer wraps the serializer's output without copying it.
+     * 
+     * @param node The node to serialize.
+     * @param encoding The encoding to use, or <code>null</code>.
+     * @return The serialized bytes, or <code>null</code> if the node could
+     *   not be serialized.
+     */
+    public ByteBuffer writeToByteBuffer(Node node, String encoding) throws LSException {
+        ByteBufferOutputStream destination = new ByteBufferOutputStream();
+        DOMOutputImpl output = new DOMOutputImpl();
+        output.setByteStream(destination);
+        output.setEncoding(encoding);
+        if (!write(node, output)) {
+            return null;
+        }
+        return destination.toByteBuffer();
+    }
+    
+    /**
+     * NON-DOM: Serialize the specified node into a byte buffer, using
+     * the encoding of the node's owner document or UTF-8.
+     * 
+     * @see #writeToByteBuffer(Node, String)
+     */
+    public ByteBuffer writeToByteBuffer(Node node) throws LSException {
+        return writeToByteBuffer(node, null);
+    }
+
     /**
       *  Serialize the specified node as described above in the general
       * description of the <code>LSSerializer</code> interface. The output
@@ -876,6 +935,19 @@ public class DOMSerializerImpl implements LSSerializer, DOMConfiguration {
     //  Private methods
     //
 
+    /**
+     * A ByteArrayOutputStream whose contents can be wrapped in
+     * a ByteBuffer without copying.
+     */
+    private static final class ByteBufferOutputStream extends ByteArrayOutputStream {
+        ByteBufferOutputStream() {
+            super(8192);
+        }
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
     private void prepareForSerialization(XMLSerializer ser, Node node) {
         ser.reset();
         ser.features = features;
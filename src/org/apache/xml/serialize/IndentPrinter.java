@@ -161,6 +161,12 @@ public class IndentPrinter
     {
         _text.append( chars, start, length );
     }
+
+
+    public void printText( String text, int start, int length )
+    {
+        _text.append( text.substring( start, start + length ) );
+    }
     
 
     /**
@@ -208,6 +208,34 @@ public class Printer
     }
 
 
+    /**
+     * Prints <code>length</code> characters of the string starting
+     * at <code>start</code>. Used by the serializers to print runs
+     * of text which require no escaping in one call.
+     */
+    public void printText( String text, int start, int length )
+        throws IOException
+    {
+        try {
+            while ( length-- > 0 ) {
+                if ( _pos == BufferSize ) {
+                    _writer.write( _buffer );
+                    _pos = 0;
+                }
+                _buffer[ _pos ] = text.charAt( start );
+                ++start;
+                ++_pos;
+            }
+        } catch ( IOException except ) {
+            // We don't throw an exception, but hold it
+            // until the end of the document.
+            if ( _exception == null )
+                _exception = except;
+            throw except;
+        }
+    }
+
+
     public void printText( char[] chars, int start, int length )
         throws IOException
     {
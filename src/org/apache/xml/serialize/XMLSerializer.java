@@ -100,6 +100,34 @@ extends BaseMarkupSerializer {
 
     protected static final boolean DEBUG = false;
 
+    /** 
+     * Characters below 0x80 which are printed as is in text content:
+     * all printable characters except '&lt;', '&amp;' and '&gt;',
+     * plus tab and line feed.
+     */
+    private static final boolean[] TEXT_PLAIN_CHARS = new boolean[0x80];
+
+    /**
+     * Characters below 0x80 which are printed as is in attribute values:
+     * all printable characters except '&lt;', '&amp;' and '&quot;'.
+     */
+    private static final boolean[] ATTRIBUTE_PLAIN_CHARS = new boolean[0x80];
+
+    /** Characters below 0x80 which are printed as is in unescaped text. */
+    private static final boolean[] UNESCAPED_PLAIN_CHARS = new boolean[0x80];
+
+    static {
+        for (int ch = 0x20; ch < 0x80; ++ch) {
+            TEXT_PLAIN_CHARS[ch] = true;
+            ATTRIBUTE_PLAIN_CHARS[ch] = true;
+            UNESCAPED_PLAIN_CHARS[ch] = true;
+        }
+        TEXT_PLAIN_CHARS['<'] = TEXT_PLAIN_CHARS['&'] = TEXT_PLAIN_CHARS['>'] = false;
+        TEXT_PLAIN_CHARS['\t'] = TEXT_PLAIN_CHARS['\n'] = true;
+        ATTRIBUTE_PLAIN_CHARS['<'] = ATTRIBUTE_PLAIN_CHARS['&'] = ATTRIBUTE_PLAIN_CHARS['"'] = false;
+        UNESCAPED_PLAIN_CHARS['\t'] = UNESCAPED_PLAIN_CHARS['\n'] = UNESCAPED_PLAIN_CHARS['\r'] = true;
+    }
+
     // 
     // data
     //
@@ -1225,9 +1253,20 @@ extends BaseMarkupSerializer {
     // Printing attribute value
     //
     protected void printEscaped(String source) throws IOException {
+        final int lastPrintable = _encodingInfo.lastPrintable;
         int length = source.length();
         for (int i = 0; i < length; ++i) {
             int ch = source.charAt(i);
+            // print the run of characters which need no escaping at once
+            if (isPlain(ch, ATTRIBUTE_PLAIN_CHARS, lastPrintable)) {
+                int start = i;
+                while (++i < length && isPlain(source.charAt(i), ATTRIBUTE_PLAIN_CHARS, lastPrintable));
+                _printer.printText(source, start, i - start);
+                if (i == length) {
+                    break;
+                }
+                ch = source.charAt(i);
+            }
             if (!XMLChar.isValid(ch)) {
                 if (++i < length) {
                     surrogates(ch, source.charAt(i), false);
@@ -1273,55 +1312,51 @@ extends BaseMarkupSerializer {
         }
     }
 
+    /**
+     * Returns true if the character can be printed as is. Characters
+     * below 0x80 are looked up in the given table, others must be valid
+     * XML characters known to be printable in the output encoding 
+     * without consulting its encoder.
+     */
+    private static boolean isPlain(int ch, boolean[] plainChars, int lastPrintable) {
+        return (ch < 0x80) ? plainChars[ch] : 
+            (ch <= lastPrintable && XMLChar.isValid(ch));
+    }
+
     protected void printText( String text, boolean preserveSpace, boolean unescaped )
     throws IOException {
+        // Whether or not spaces are preserved the text is printed exactly
+        // as it is. Runs of characters which need no escaping are handed
+        // to the printer at once.
+        final boolean[] plainChars = unescaped ? UNESCAPED_PLAIN_CHARS : TEXT_PLAIN_CHARS;
+        final int lastPrintable = unescaped ? Integer.MAX_VALUE : _encodingInfo.lastPrintable;
         int index;
         char ch;
         int length = text.length();
-        if ( preserveSpace ) {
-            // Preserving spaces: the text must print exactly as it is,
-            // without breaking when spaces appear in the text and without
-            // consolidating spaces. If a line terminator is used, a line
-            // break will occur.
-            for ( index = 0 ; index < length ; ++index ) {
-                ch = text.charAt( index );
-                if (!XMLChar.isValid(ch)) {
-                    // check if it is surrogate
-                    if (++index <length) {
-                        surrogates(ch, text.charAt(index), true);
-                    } else {
-                        fatalError("The character '"+ch+"' is an invalid XML character"); 
-                    }
-                    continue;
+        for ( index = 0 ; index < length ; ++index ) {
+            ch = text.charAt( index );
+            if (isPlain(ch, plainChars, lastPrintable)) {
+                int start = index;
+                while (++index < length && isPlain(text.charAt(index), plainChars, lastPrintable));
+                _printer.printText(text, start, index - start);
+                if (index == length) {
+                    break;
                 }
-                if ( unescaped ) {
-                    _printer.printText( ch );
-                } else
-                    printXMLChar( ch );
-            }
-        } else {
-            // Not preserving spaces: print one part at a time, and
-            // use spaces between parts to break them into different
-            // lines. Spaces at beginning of line will be stripped
-            // by printing mechanism. Line terminator is treated
-            // no different than other text part.
-            for ( index = 0 ; index < length ; ++index ) {
                 ch = text.charAt( index );
-                if (!XMLChar.isValid(ch)) {
-                    // check if it is surrogate
-                    if (++index <length) {
-                        surrogates(ch, text.charAt(index), true);
-                    } else {
-                        fatalError("The character '"+ch+"' is an invalid XML character"); 
-                    }
-                    continue;
+            }
+            if (!XMLChar.isValid(ch)) {
+                // check if it is surrogate
+                if (++index <length) {
+                    surrogates(ch, text.charAt(index), true);
+                } else {
+                    fatalError("The character '"+ch+"' is an invalid XML character"); 
                 }
-
-				if ( unescaped )
-                    _printer.printText( ch );
-                else
-                    printXMLChar( ch);
+                continue;
             }
+            if ( unescaped ) {
+                _printer.printText( ch );
+            } else
+                printXMLChar( ch );
         }
     }
 
@@ -1329,55 +1364,39 @@ extends BaseMarkupSerializer {
 
     protected void printText( char[] chars, int start, int length,
                               boolean preserveSpace, boolean unescaped ) throws IOException {
-
-        if ( preserveSpace ) {
-            // Preserving spaces: the text must print exactly as it is,
-            // without breaking when spaces appear in the text and without
-            // consolidating spaces. If a line terminator is used, a line
-            // break will occur.
-            while ( length-- > 0 ) {
-                char ch = chars[start++];
-                if (!XMLChar.isValid(ch)) {
-                    // check if it is surrogate
-                    if ( length-- > 0 ) {
-                        surrogates(ch, chars[start++], true);
-                    } 
-                    else {
-                        fatalError("The character '"+ch+"' is an invalid XML character"); 
-                    }
-                    continue;
-                }
-                if ( unescaped ) {
-                    _printer.printText( ch );
-                } 
-                else {
-                    printXMLChar( ch );
+        // Whether or not spaces are preserved the text is printed exactly
+        // as it is. Runs of characters which need no escaping are handed
+        // to the printer at once.
+        final boolean[] plainChars = unescaped ? UNESCAPED_PLAIN_CHARS : TEXT_PLAIN_CHARS;
+        final int lastPrintable = unescaped ? Integer.MAX_VALUE : _encodingInfo.lastPrintable;
+        final int end = start + length;
+        while ( start < end ) {
+            char ch = chars[start];
+            if (isPlain(ch, plainChars, lastPrintable)) {
+                int runStart = start;
+                while (++start < end && isPlain(chars[start], plainChars, lastPrintable));
+                _printer.printText(chars, runStart, start - runStart);
+                if (start == end) {
+                    break;
                 }
+                ch = chars[start];
             }
-        } else {
-            // Not preserving spaces: print one part at a time, and
-            // use spaces between parts to break them into different
-            // lines. Spaces at beginning of line will be stripped
-            // by printing mechanism. Line terminator is treated
-            // no different than other text part.
-            while ( length-- > 0 ) {
-                char ch = chars[start++];
-                if (!XMLChar.isValid(ch)) {
-                    // check if it is surrogate
-                    if ( length-- > 0 ) {
-                        surrogates(ch, chars[start++], true);
-                    } 
-                    else {
-                        fatalError("The character '"+ch+"' is an invalid XML character"); 
-                    }
-                    continue;
-                }
-                if ( unescaped ) {
-                    _printer.printText( ch );
+            ++start;
+            if (!XMLChar.isValid(ch)) {
+                // check if it is surrogate
+                if ( start < end ) {
+                    surrogates(ch, chars[start++], true);
                 } 
                 else {
-                    printXMLChar( ch );
+                    fatalError("The character '"+ch+"' is an invalid XML character"); 
                 }
+                continue;
+            }
+            if ( unescaped ) {
+                _printer.printText( ch );
+            } 
+            else {
+                printXMLChar( ch );
             }
         }
     }
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dom.revalidation;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.apache.xerces.dom.ElementImpl;
+import org.apache.xerces.parsers.XMLGrammarPreparser;
+import org.apache.xerces.util.XMLGrammarPoolImpl;
+import org.apache.xerces.xni.grammars.Grammar;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.parser.XMLInputSource;
+import org.w3c.dom.DOMConfiguration;
+import org.w3c.dom.DOMError;
+import org.w3c.dom.DOMErrorHandler;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Tests that revalidating a document with normalizeDocument() after
+ * modifying some of its subtrees reports the same errors as validating
+ * the whole document, while the unmodified subtrees are skipped.
+ * 
+ * @version $Id$
+ */
+public class SubtreeTest extends TestCase {
+    
+    private static final String GRAMMAR_POOL =
+        "http://apache.org/xml/properties/internal/grammar-pool";
+    
+    private XMLGrammarPoolImpl fGrammarPool;
+    
+    private final ArrayList fErrors = new ArrayList();
+    
+    private final DOMErrorHandler fErrorHandler = new DOMErrorHandler() {
+        public boolean handleError(DOMError error) {
+            fErrors.add(error.getMessage());
+            return true;
+        }
+    };
+    
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(SubtreeTest.class);
+    }
+    
+    protected void setUp() throws Exception {
+        fGrammarPool = new XMLGrammarPoolImpl();
+        fGrammarPool.putGrammar(loadGrammar("subtree.xsd"));
+    }
+    
+    public void testUnmodified() throws Exception {
+        Document doc = parse();
+        assertEquals(0, normalize(doc).size());
+        Element section = doc.getElementById("s1");
+        Object content = getNormalizedContent(section);
+        assertNotNull(content);
+        
+        assertEquals(0, normalize(doc).size());
+        assertSame(content, getNormalizedContent(section));
+        assertSame(section, doc.getElementById("s1"));
+        assertEquals("b", doc.getElementById("i2").getAttribute("code"));
+        assertEquals("d", doc.getElementById("i4").getAttribute("code"));
+    }
+    
+    public void testDuplicatesOfSkippedContent() throws Exception {
+        Document doc = parse();
+        assertEquals(0, normalize(doc).size());
+        Object content = getNormalizedContent(doc.getElementById("s1"));
+        
+        // the same ID and key value as an item in the first section
+        addItem(doc.getElementById("s2"), "i1", "a");
+        ArrayList errors = normalize(doc);
+        assertSame(content, getNormalizedContent(doc.getElementById("s1")));
+        
+        Document expected = parse();
+        addItem((Element) expected.getElementsByTagName("section").item(1), "i1", "a");
+        ArrayList expectedErrors = normalize(expected);
+        assertEquals(3, expectedErrors.size());
+        assertEquals(expectedErrors, errors);
+    }
+    
+    public void testDuplicatesInSkippedContent() throws Exception {
+        Document doc = parse();
+        assertEquals(0, normalize(doc).size());
+        
+        // the first section is skipped, since it is validated after
+        // the IDs and key values it contains were added
+        Element section = doc.getElementById("s1");
+        Element item = addItem(doc.createElementNS(null, "section"), "i2", "b");
+        section.getParentNode().insertBefore(item.getParentNode(), section);
+        assertEquals(3, normalize(doc).size());
+        
+        // the duplicates are not recorded 
+        section.getParentNode().removeChild(item.getParentNode());
+        assertEquals(0, normalize(doc).size());
+        assertSame(section, doc.getElementById("s1"));
+        assertSame(section, doc.getElementById("i2").getParentNode());
+    }
+    
+    public void testKeyrefToSkippedContent() throws Exception {
+        Document doc = parse();
+        assertEquals(0, normalize(doc).size());
+        Object content = getNormalizedContent(doc.getElementById("s1"));
+        
+        Element ref = doc.createElementNS(null, "ref");
+        ref.setAttributeNS(null, "to", "c");
+        doc.getDocumentElement().appendChild(ref);
+        assertEquals(0, normalize(doc).size());
+        assertSame(content, getNormalizedContent(doc.getElementById("s1")));
+        
+        ref.setAttributeNS(null, "to", "e");
+        assertEquals(1, normalize(doc).size());
+    }
+    
+    public void testModifiedContent() throws Exception {
+        Document doc = parse();
+        assertEquals(0, normalize(doc).size());
+        Element section = doc.getElementById("s1");
+        Object content = getNormalizedContent(section);
+        
+        Element item = doc.getElementById("i3");
+        item.appendChild(doc.createElementNS(null, "note")).appendChild(doc.createTextNode("text"));
+        assertNull(getNormalizedContent(section));
+        assertEquals(0, normalize(doc).size());
+        assertNotSame(content, getNormalizedContent(section));
+        
+        item.setAttributeNS(null, "code", "b");
+        assertNull(getNormalizedContent(section));
+        assertEquals(1, normalize(doc).size());
+    }
+    
+    public void testGrammarChanged() throws Exception {
+        Document doc = parse();
+        assertEquals(0, normalize(doc).size());
+        
+        // the first section has more items than the new grammar allows
+        fGrammarPool.clear();
+        fGrammarPool.putGrammar(loadGrammar("bounded.xsd"));
+        assertEquals(1, normalize(doc).size());
+    }
+    
+    private Document parse() throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        return dbf.newDocumentBuilder().parse(getResource("subtree.xml"));
+    }
+    
+    private Grammar loadGrammar(String name) throws Exception {
+        XMLGrammarPreparser preparser = new XMLGrammarPreparser();
+        preparser.registerPreparser(XMLGrammarDescription.XML_SCHEMA, null);
+        return preparser.preparseGrammar(XMLGrammarDescription.XML_SCHEMA,
+                new XMLInputSource(null, getResource(name), null));
+    }
+    
+    private String getResource(String name) {
+        return ClassLoader.getSystemResource("dom/revalidation/" + name).toString();
+    }
+    
+    private ArrayList normalize(Document doc) {
+        DOMConfiguration config = doc.getDomConfig();
+        if (config.getParameter("error-handler") != fErrorHandler) {
+            config.setParameter("validate", Boolean.TRUE);
+            config.setParameter("schema-type", "http://www.w3.org/2001/XMLSchema");
+            config.setParameter(GRAMMAR_POOL, fGrammarPool);
+            config.setParameter("error-handler", fErrorHandler);
+        }
+        fErrors.clear();
+        doc.normalizeDocument();
+        return new ArrayList(fErrors);
+    }
+    
+    private Element addItem(Element section, String id, String code) {
+        Element item = section.getOwnerDocument().createElementNS(null, "item");
+        item.setAttributeNS(null, "id", id);
+        item.setAttributeNS(null, "code", code);
+        section.appendChild(item);
+        return item;
+    }
+    
+    private Object getNormalizedContent(Element element) throws Exception {
+        Field field = ElementImpl.class.getDeclaredField("normalizedContent");
+        field.setAccessible(true);
+        return field.get(element);
+    }
+    
+}
@@ -48,6 +48,8 @@ public class AllTests {
         suite.addTestSuite(UseGrammarPoolOnly_False_Test.class);
         suite.addTestSuite(FixedAttrTest.class);
         suite.addTestSuite(FeaturePropagationTest.class);
+        suite.addTestSuite(CountingContentModelTest.class);
+        suite.addTestSuite(IdentityConstraintMatchingTest.class);
         return suite;
     }
 }
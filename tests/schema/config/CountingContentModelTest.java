@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package schema.config;
+
+import java.io.FileNotFoundException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import junit.framework.TestCase;
+
+import org.apache.xerces.impl.xs.SchemaGrammar;
+import org.apache.xerces.impl.xs.XMLSchemaLoader;
+import org.apache.xerces.impl.xs.XSComplexTypeDecl;
+import org.apache.xerces.impl.xs.models.CMBuilder;
+import org.apache.xerces.impl.xs.models.CMNodeFactory;
+import org.apache.xerces.impl.xs.models.XSCMValidator;
+import org.apache.xerces.impl.xs.models.XSCountingCM;
+import org.apache.xerces.impl.xs.models.XSDFACM;
+import org.apache.xerces.xni.parser.XMLInputSource;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Tests content models with occurrence ranges, which are validated by
+ * counting the occurrences of their particles when the content model
+ * can be shown to be deterministic, and by a DFA otherwise.
+ * 
+ * @version $Id$
+ */
+public class CountingContentModelTest extends TestCase {
+    
+    private URL fSchemaURL;
+    private Validator fValidator;
+    private final ArrayList fErrors = new ArrayList();
+    
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(CountingContentModelTest.class);
+    }
+    
+    public CountingContentModelTest(String name) {
+        super(name);
+    }
+    
+    protected void setUp() throws Exception {
+        super.setUp();
+        String schemaPath = "schema/config/countingCM.xsd";
+        fSchemaURL = ClassLoader.getSystemResource(schemaPath);
+        if (fSchemaURL == null) {
+            throw new FileNotFoundException("Couldn't find schema file for test: " + schemaPath);
+        }
+        SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        Schema schema = sf.newSchema(fSchemaURL);
+        fValidator = schema.newValidator();
+        fValidator.setErrorHandler(new ErrorHandler() {
+            public void warning(SAXParseException e) {
+            }
+            public void error(SAXParseException e) {
+                fErrors.add(e.getMessage());
+            }
+            public void fatalError(SAXParseException e) {
+                fErrors.add(e.getMessage());
+            }
+        });
+    }
+    
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        fValidator = null;
+        fErrors.clear();
+    }
+    
+    public void testContentModels() throws Exception {
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        SchemaGrammar grammar = (SchemaGrammar) loader.loadGrammar(
+                new XMLInputSource(null, fSchemaURL.toExternalForm(), null));
+        assertTrue(getContentModel(grammar, "Nested") instanceof XSCountingCM);
+        assertTrue(getContentModel(grammar, "Unbounded") instanceof XSCountingCM);
+        assertTrue(getContentModel(grammar, "Fallback") instanceof XSDFACM);
+    }
+    
+    public void testNestedValid() throws Exception {
+        assertValid("nested", "abab");
+        assertValid("nested", "aabab");
+        assertValid("nested", "abaabaab");
+        assertValid("nested", "aababc");
+        assertValid("nested", "abababc");
+    }
+    
+    public void testNestedBelowMinOccurs() throws Exception {
+        assertError("nested", "ab",
+                "cvc-complex-type.2.4.b: The content of element 'nested' is not complete. One of '{a}' is expected.");
+        assertError("nested", "abc",
+                "cvc-complex-type.2.4.a: Invalid content was found starting with element 'c'. One of '{a}' is expected.");
+        assertError("nested", "aba",
+                "cvc-complex-type.2.4.b: The content of element 'nested' is not complete. One of '{a, b}' is expected.");
+    }
+    
+    public void testNestedAboveMaxOccurs() throws Exception {
+        assertError("nested", "aaab",
+                "cvc-complex-type.2.4.a: Invalid content was found starting with element 'a'. One of '{b}' is expected.");
+        assertError("nested", "abababa",
+                "cvc-complex-type.2.4.a: Invalid content was found starting with element 'a'. One of '{c}' is expected.");
+        assertError("nested", "abababca",
+                "cvc-complex-type.2.4.d: Invalid content was found starting with element 'a'. No child element is expected at this point.");
+    }
+    
+    public void testUnboundedValid() throws Exception {
+        assertValid("unbounded", "abab");
+        assertValid("unbounded", "aaaaabab");
+        assertValid("unbounded", "abaaaaab");
+    }
+    
+    public void testUnboundedInvalid() throws Exception {
+        assertError("unbounded", "aaab",
+                "cvc-complex-type.2.4.b: The content of element 'unbounded' is not complete. One of '{a}' is expected.");
+        assertError("unbounded", "abb",
+                "cvc-complex-type.2.4.a: Invalid content was found starting with element 'b'. One of '{a}' is expected.");
+        assertError("unbounded", "ababa",
+                "cvc-complex-type.2.4.d: Invalid content was found starting with element 'a'. No child element is expected at this point.");
+    }
+    
+    public void testFallback() throws Exception {
+        for (int i = 4; i <= 9; i++) {
+            assertValid("fallback", repeat('a', i));
+        }
+        assertError("fallback", "aaa",
+                "cvc-complex-type.2.4.b: The content of element 'fallback' is not complete. One of '{a}' is expected.");
+        assertError("fallback", repeat('a', 10),
+                "cvc-complex-type.2.4.d: Invalid content was found starting with element 'a'. No child element is expected at this point.");
+    }
+    
+    private XSCMValidator getContentModel(SchemaGrammar grammar, String typeName) {
+        XSComplexTypeDecl type = (XSComplexTypeDecl) grammar.getGlobalTypeDecl(typeName);
+        return type.getContentModel(new CMBuilder(new CMNodeFactory()));
+    }
+    
+    private void validate(String elementName, String children) throws Exception {
+        StringBuffer buffer = new StringBuffer();
+        buffer.append("<root><").append(elementName).append('>');
+        for (int i = 0; i < children.length(); i++) {
+            buffer.append('<').append(children.charAt(i)).append("/>");
+        }
+        buffer.append("</").append(elementName).append("></root>");
+        fErrors.clear();
+        fValidator.validate(new StreamSource(new StringReader(buffer.toString())));
+    }
+    
+    private void assertValid(String elementName, String children) throws Exception {
+        validate(elementName, children);
+        assertEquals("Errors for " + elementName + " with " + children + ": " + fErrors,
+                0, fErrors.size());
+    }
+    
+    private void assertError(String elementName, String children, String expected) throws Exception {
+        validate(elementName, children);
+        assertTrue("Expected an error for " + elementName + " with " + children,
+                fErrors.size() > 0);
+        assertEquals(expected, fErrors.get(0));
+    }
+    
+    private static String repeat(char c, int count) {
+        StringBuffer buffer = new StringBuffer(count);
+        for (int i = 0; i < count; i++) {
+            buffer.append(c);
+        }
+        return buffer.toString();
+    }
+}
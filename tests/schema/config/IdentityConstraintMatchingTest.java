@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package schema.config;
+
+import java.io.FileNotFoundException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Tests that the values selected by identity constraints, and the errors
+ * reported for them, don't depend on which elements the XPath matchers
+ * are called for: nested child axis selectors, descendant axis selectors
+ * and fields, unions and attribute fields, over nested scopes and 
+ * elements of other namespaces with the same local names.
+ * 
+ * @version $Id$
+ */
+public class IdentityConstraintMatchingTest extends TestCase {
+    
+    private static final String SIMPLE = 
+        "<root>\n" +
+        "<group id='g1'>\n" +
+        "<item code='a'><name>n1</name><value>1</value></item>\n" +
+        "<item code='b'><name>n2</name><item code='c'/></item>\n" +
+        "<group id='g2'><item code='d'><name>n3</name><value>2</value></item></group>\n" +
+        "</group>\n" +
+        "<group id='g3'/>\n" +
+        "<ref group='g2' item='d' name='n3'/>\n" +
+        "<ref group='g1' item='b' name='n2'/>\n" +
+        "</root>";
+    
+    private static final String NESTED = 
+        "<root>\n" +
+        "<group id='g1'>\n" +
+        "<item code='a'><name>n1</name><value>1</value></item>\n" +
+        "<item code='b'><name>n2</name><item code='c'><name>n3</name></item></item>\n" +
+        "<group id='g2'>\n" +
+        "<item code='a'><name>n4</name></item>\n" +
+        "<group id='g3'><item code='b'><name>n1</name><value>2</value><value>3</value></item></group>\n" +
+        "</group>\n" +
+        "</group>\n" +
+        "<group id='g1'/>\n" +
+        "<ref group='g2' item='a' name='n4'/>\n" +
+        "<ref group='gx' item='b' name='n9'/>\n" +
+        "<o:group xmlns:o='urn:other' id='g4'><o:item code='q'><o:name>n2</o:name></o:item></o:group>\n" +
+        "</root>";
+    
+    private static final String DEEP = 
+        "<root>\n" +
+        "<group id='g1'><group id='g2'><group id='g3'>\n" +
+        "<item code='x'><name>deep</name>\n" +
+        "<item code='y'><value>7</value>\n" +
+        "<item code='x'><name>deep</name><value>8</value></item>\n" +
+        "</item>\n" +
+        "</item>\n" +
+        "<item code='x'/>\n" +
+        "</group><item code='g1'/></group></group>\n" +
+        "<group id='x'><item code='y'><value>9</value></item></group>\n" +
+        "<ref group='g3' item='x' name='deep'/>\n" +
+        "<ref group='g3' item='y'/>\n" +
+        "</root>";
+    
+    private static final String[] SIMPLE_ERRORS = {
+        "5:62: cvc-identity-constraint.3: Field \".//value\" of identity constraint \"groupValue\" matches more than one value within the scope of its selector; fields must match unique values.",
+        "5:62: cvc-identity-constraint.4.1: Duplicate unique value [2] declared for identity constraint \"groupValue\" of element \"root\".",
+        "10:8: cvc-identity-constraint.4.3: Key 'itemRef' with value 'd,n3' not found for identity constraint of element 'root'."
+    };
+    
+    private static final String[] NESTED_ERRORS = {
+        "6:16: cvc-identity-constraint.4.1: Duplicate unique value [a] declared for identity constraint \"shallowItem\" of element \"root\".",
+        "6:16: cvc-identity-constraint.4.1: Duplicate unique value [a] declared for identity constraint \"anyCode\" of element \"root\".",
+        "7:31: cvc-identity-constraint.4.1: Duplicate unique value [b] declared for identity constraint \"anyCode\" of element \"root\".",
+        "7:46: cvc-identity-constraint.4.1: Duplicate unique value [n1] declared for identity constraint \"itemName\" of element \"root\".",
+        "7:62: cvc-identity-constraint.3: Field \".//value\" of identity constraint \"groupValue\" matches more than one value within the scope of its selector; fields must match unique values.",
+        "7:78: cvc-identity-constraint.3: Field \".//value\" of identity constraint \"groupValue\" matches more than one value within the scope of its selector; fields must match unique values.",
+        "7:78: cvc-identity-constraint.3: Field \".//value\" of identity constraint \"groupValue\" matches more than one value within the scope of its selector; fields must match unique values.",
+        "7:78: cvc-identity-constraint.3: Field \".//value\" of identity constraint \"groupValue\" matches more than one value within the scope of its selector; fields must match unique values.",
+        "10:17: cvc-identity-constraint.4.2.2: Duplicate key value [g1] declared for identity constraint \"groupKey\" of element \"root\".",
+        "10:17: cvc-identity-constraint.4.1: Duplicate unique value [g1] declared for identity constraint \"anyCode\" of element \"root\".",
+        "14:8: cvc-identity-constraint.4.3: Key 'itemRef' with value 'a,n4' not found for identity constraint of element 'root'.",
+        "14:8: cvc-identity-constraint.4.3: Key 'groupRef' with value 'gx' not found for identity constraint of element 'root'."
+    };
+    
+    private static final String[] DEEP_ERRORS = {
+        "5:16: cvc-identity-constraint.4.1: Duplicate unique value [x] declared for identity constraint \"anyCode\" of element \"root\".",
+        "5:33: cvc-identity-constraint.4.1: Duplicate unique value [deep] declared for identity constraint \"itemName\" of element \"root\".",
+        "5:49: cvc-identity-constraint.3: Field \".//value\" of identity constraint \"groupValue\" matches more than one value within the scope of its selector; fields must match unique values.",
+        "5:49: cvc-identity-constraint.3: Field \".//value\" of identity constraint \"groupValue\" matches more than one value within the scope of its selector; fields must match unique values.",
+        "5:49: cvc-identity-constraint.3: Field \".//value\" of identity constraint \"groupValue\" matches more than one value within the scope of its selector; fields must match unique values.",
+        "8:17: cvc-identity-constraint.4.1: Duplicate unique value [x] declared for identity constraint \"anyCode\" of element \"root\".",
+        "8:17: cvc-identity-constraint.4.1: Duplicate unique value [x] declared for identity constraint \"localItem\" of element \"group\".",
+        "9:26: cvc-complex-type.2.4.a: Invalid content was found starting with element 'item'. One of '{group}' is expected.",
+        "9:26: cvc-identity-constraint.4.1: Duplicate unique value [g1] declared for identity constraint \"anyCode\" of element \"root\".",
+        "10:15: cvc-identity-constraint.4.1: Duplicate unique value [x] declared for identity constraint \"anyCode\" of element \"root\".",
+        "10:30: cvc-identity-constraint.4.1: Duplicate unique value [y] declared for identity constraint \"anyCode\" of element \"root\"."
+    };
+    
+    private static final String[] WIDE_ERRORS = {
+        "2:138: cvc-identity-constraint.4.1: Duplicate unique value [c0] declared for identity constraint \"shallowItem\" of element \"root\".",
+        "2:138: cvc-identity-constraint.4.1: Duplicate unique value [c0] declared for identity constraint \"anyCode\" of element \"root\".",
+        "2:169: cvc-identity-constraint.4.2.1.a: Element \"root\" has no value for the key \"groupKey\".",
+        "7:16: cvc-identity-constraint.4.2.2: Duplicate key value [g0] declared for identity constraint \"groupKey\" of element \"root\".",
+        "7:16: cvc-identity-constraint.4.1: Duplicate unique value [g0] declared for identity constraint \"anyCode\" of element \"root\".",
+        "7:143: cvc-identity-constraint.4.1: Duplicate unique value [c5] declared for identity constraint \"shallowItem\" of element \"root\".",
+        "7:143: cvc-identity-constraint.4.1: Duplicate unique value [c5] declared for identity constraint \"anyCode\" of element \"root\".",
+        "7:174: cvc-identity-constraint.4.2.1.a: Element \"root\" has no value for the key \"groupKey\".",
+        "8:16: cvc-identity-constraint.4.2.2: Duplicate key value [g1] declared for identity constraint \"groupKey\" of element \"root\".",
+        "8:16: cvc-identity-constraint.4.1: Duplicate unique value [g1] declared for identity constraint \"anyCode\" of element \"root\".",
+        "9:16: cvc-identity-constraint.4.2.2: Duplicate key value [g2] declared for identity constraint \"groupKey\" of element \"root\".",
+        "9:16: cvc-identity-constraint.4.1: Duplicate unique value [g2] declared for identity constraint \"anyCode\" of element \"root\".",
+        "10:16: cvc-identity-constraint.4.2.2: Duplicate key value [g3] declared for identity constraint \"groupKey\" of element \"root\".",
+        "10:16: cvc-identity-constraint.4.1: Duplicate unique value [g3] declared for identity constraint \"anyCode\" of element \"root\".",
+        "11:16: cvc-identity-constraint.4.2.2: Duplicate key value [g4] declared for identity constraint \"groupKey\" of element \"root\".",
+        "11:16: cvc-identity-constraint.4.1: Duplicate unique value [g4] declared for identity constraint \"anyCode\" of element \"root\".",
+        "11:112: cvc-identity-constraint.4.1: Duplicate unique value [n0] declared for identity constraint \"itemName\" of element \"root\".",
+        "12:16: cvc-identity-constraint.4.2.2: Duplicate key value [g0] declared for identity constraint \"groupKey\" of element \"root\".",
+        "12:16: cvc-identity-constraint.4.1: Duplicate unique value [g0] declared for identity constraint \"anyCode\" of element \"root\".",
+        "12:71: cvc-identity-constraint.4.1: Duplicate unique value [c0] declared for identity constraint \"shallowItem\" of element \"root\".",
+        "12:71: cvc-identity-constraint.4.1: Duplicate unique value [c0] declared for identity constraint \"anyCode\" of element \"root\".",
+        "12:94: cvc-identity-constraint.4.1: Duplicate unique value [c1] declared for identity constraint \"shallowItem\" of element \"root\".",
+        "12:94: cvc-identity-constraint.4.1: Duplicate unique value [c1] declared for identity constraint \"anyCode\" of element \"root\".",
+        "12:109: cvc-identity-constraint.4.1: Duplicate unique value [n3] declared for identity constraint \"itemName\" of element \"root\".",
+        "12:140: cvc-identity-constraint.4.1: Duplicate unique value [c10] declared for identity constraint \"shallowItem\" of element \"root\".",
+        "12:140: cvc-identity-constraint.4.1: Duplicate unique value [c10] declared for identity constraint \"anyCode\" of element \"root\".",
+        "12:171: cvc-identity-constraint.4.2.1.a: Element \"root\" has no value for the key \"groupKey\".",
+        "13:16: cvc-identity-constraint.4.2.2: Duplicate key value [g1] declared for identity constraint \"groupKey\" of element \"root\".",
+        "13:16: cvc-identity-constraint.4.1: Duplicate unique value [g1] declared for identity constraint \"anyCode\" of element \"root\".",
+        "13:32: cvc-identity-constraint.4.1: Duplicate unique value [c2] declared for identity constraint \"shallowItem\" of element \"root\".",
+        "13:32: cvc-identity-constraint.4.1: Duplicate unique value [c2] declared for identity constraint \"anyCode\" of element \"root\".",
+        "13:70: cvc-identity-constraint.4.1: Duplicate unique value [c3] declared for identity constraint \"shallowItem\" of element \"root\".",
+        "13:70: cvc-identity-constraint.4.1: Duplicate unique value [c3] declared for identity constraint \"anyCode\" of element \"root\".",
+        "13:93: cvc-identity-constraint.4.1: Duplicate unique value [c4] declared for identity constraint \"shallowItem\" of element \"root\".",
+        "13:93: cvc-identity-constraint.4.1: Duplicate unique value [c4] declared for identity constraint \"anyCode\" of element \"root\".",
+        "13:108: cvc-identity-constraint.4.1: Duplicate unique value [n6] declared for identity constraint \"itemName\" of element \"root\".",
+        "20:8: cvc-identity-constraint.4.3: Key 'itemRef' with value 'c1,n1' not found for identity constraint of element 'root'.",
+        "20:8: cvc-identity-constraint.4.3: Key 'groupRef' with value 'g5' not found for identity constraint of element 'root'."
+    };
+    
+    private URL fSchemaURL;
+    private Validator fValidator;
+    private final ArrayList fErrors = new ArrayList();
+    
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(IdentityConstraintMatchingTest.class);
+    }
+    
+    public IdentityConstraintMatchingTest(String name) {
+        super(name);
+    }
+    
+    protected void setUp() throws Exception {
+        super.setUp();
+        String schemaPath = "schema/config/idcPaths.xsd";
+        fSchemaURL = ClassLoader.getSystemResource(schemaPath);
+        if (fSchemaURL == null) {
+            throw new FileNotFoundException("Couldn't find schema file for test: " + schemaPath);
+        }
+        SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        Schema schema = sf.newSchema(fSchemaURL);
+        fValidator = schema.newValidator();
+        fValidator.setErrorHandler(new ErrorHandler() {
+            public void warning(SAXParseException e) {
+            }
+            public void error(SAXParseException e) {
+                fErrors.add(e.getLineNumber() + ":" + e.getColumnNumber() + ": " + e.getMessage());
+            }
+            public void fatalError(SAXParseException e) throws SAXParseException {
+                throw e;
+            }
+        });
+    }
+    
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        fValidator = null;
+        fErrors.clear();
+    }
+    
+    public void testSimple() throws Exception {
+        // the selector .//group/item doesn't select the items of the
+        // nested group, since the matcher doesn't try to match the
+        // group step again on an element which fails the item step
+        assertErrors(SIMPLE_ERRORS, SIMPLE);
+    }
+    
+    public void testNested() throws Exception {
+        assertErrors(NESTED_ERRORS, NESTED);
+    }
+    
+    public void testDeep() throws Exception {
+        assertErrors(DEEP_ERRORS, DEEP);
+    }
+    
+    public void testWide() throws Exception {
+        assertErrors(WIDE_ERRORS, wide());
+    }
+    
+    public void testReuse() throws Exception {
+        // no values are left over in the value stores of the validator
+        assertErrors(NESTED_ERRORS, NESTED);
+        assertErrors(DEEP_ERRORS, DEEP);
+        assertErrors(NESTED_ERRORS, NESTED);
+        assertErrors(WIDE_ERRORS, wide());
+        assertErrors(SIMPLE_ERRORS, SIMPLE);
+    }
+    
+    /**
+     * Returns a document with many groups, whose codes and identifiers
+     * repeat every few groups.
+     */
+    private static String wide() {
+        StringBuffer buffer = new StringBuffer();
+        buffer.append("<root>\n");
+        for (int i = 0; i < 12; i++) {
+            buffer.append("<group id='g").append(i % 5).append("'>");
+            for (int j = 0; j < 3; j++) {
+                buffer.append("<item code='c").append((i * 3 + j) % 31).append("'>");
+                if (j != 1) {
+                    buffer.append("<name>n").append((i * 3 + j) % 29).append("</name>");
+                }
+                buffer.append("</item>");
+            }
+            if (i % 5 == 0) {
+                buffer.append("<group><item code='c").append(i).append("'><value>").append(i % 7);
+                buffer.append("</value></item></group>");
+            }
+            buffer.append("</group>\n");
+        }
+        for (int i = 0; i < 6; i++) {
+            buffer.append("<ref group='g").append(i).append("' item='c").append(i);
+            buffer.append("' name='n").append(i).append("'/>\n");
+        }
+        buffer.append("</root>");
+        return buffer.toString();
+    }
+    
+    private void assertErrors(String[] expected, String document) throws Exception {
+        fErrors.clear();
+        fValidator.validate(new StreamSource(new StringReader(document)));
+        assertEquals(Arrays.asList(expected), fErrors);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package thread;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.apache.xerces.impl.Constants;
+import org.apache.xerces.impl.xs.XMLSchemaLoader;
+import org.apache.xerces.util.XMLGrammarPoolImpl;
+import org.apache.xerces.xni.XNIException;
+import org.apache.xerces.xni.parser.XMLErrorHandler;
+import org.apache.xerces.xni.parser.XMLInputSource;
+import org.apache.xerces.xni.parser.XMLParseException;
+
+/**
+ * Tests that the errors found by schema full checking on several
+ * threads are reported in the same order as on a single thread.
+ * 
+ * @version $Id$
+ */
+public class FullCheckingTest extends TestCase {
+    
+    /** Feature identifier: schema full checking. */
+    private static final String SCHEMA_FULL_CHECKING =
+        Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_FULL_CHECKING;
+    
+    /** Property identifier: schema full checking threads. */
+    private static final String SCHEMA_FULL_CHECKING_THREADS =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_FULL_CHECKING_THREADS_PROPERTY;
+    
+    /** Property identifier: grammar pool. */
+    private static final String GRAMMAR_POOL =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.XMLGRAMMAR_POOL_PROPERTY;
+    
+    /** Number of complex types in the schema. */
+    private static final int TYPE_COUNT = 60;
+    
+    /** Number of times the schema is loaded on several threads. */
+    private static final int REPEAT_COUNT = 10;
+    
+    private String fSchema;
+    
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(FullCheckingTest.class);
+    }
+    
+    public FullCheckingTest(String name) {
+        super(name);
+    }
+    
+    protected void setUp() throws Exception {
+        super.setUp();
+        // one line for each type, so that the errors
+        // can be told apart by their line numbers
+        StringBuffer buffer = new StringBuffer();
+        buffer.append("<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'>\n");
+        buffer.append("<xsd:complexType name='base'><xsd:sequence>");
+        buffer.append("<xsd:element name='x' type='xsd:string'/>");
+        buffer.append("</xsd:sequence></xsd:complexType>\n");
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            buffer.append("<xsd:complexType name='t").append(i).append("'>");
+            switch (i % 4) {
+                case 0:
+                    // violates the unique particle attribution constraint
+                    buffer.append("<xsd:sequence>");
+                    buffer.append("<xsd:element name='e' minOccurs='0'/>");
+                    buffer.append("<xsd:element name='e'/>");
+                    buffer.append("</xsd:sequence>");
+                    break;
+                case 1:
+                    // violates the element declarations consistent constraint
+                    buffer.append("<xsd:sequence>");
+                    buffer.append("<xsd:element name='e' type='xsd:string'/>");
+                    buffer.append("<xsd:element name='e' type='xsd:int'/>");
+                    buffer.append("</xsd:sequence>");
+                    break;
+                case 2:
+                    // is not a valid restriction of its base type
+                    buffer.append("<xsd:complexContent><xsd:restriction base='base'><xsd:sequence>");
+                    buffer.append("<xsd:element name='y' type='xsd:string'/>");
+                    buffer.append("</xsd:sequence></xsd:restriction></xsd:complexContent>");
+                    break;
+                default:
+                    buffer.append("<xsd:sequence>");
+                    buffer.append("<xsd:element name='e' maxOccurs='").append(i).append("'/>");
+                    buffer.append("</xsd:sequence>");
+                    break;
+            }
+            buffer.append("</xsd:complexType>\n");
+        }
+        buffer.append("</xsd:schema>\n");
+        fSchema = buffer.toString();
+    }
+    
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        fSchema = null;
+    }
+    
+    public void testErrorOrder() throws Exception {
+        ArrayList expected = loadSchema(1);
+        // one error for each of the types breaking the unique particle
+        // attribution or element declarations consistent constraints,
+        // and two for each of the invalid restrictions
+        assertEquals(TYPE_COUNT, expected.size());
+        for (int i = 0; i < REPEAT_COUNT; i++) {
+            assertEquals(expected, loadSchema(2));
+            assertEquals(expected, loadSchema(4));
+        }
+    }
+    
+    public void testNoErrors() throws Exception {
+        // types which are valid are not reported
+        fSchema = "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'>" +
+            "<xsd:complexType name='t'><xsd:sequence>" +
+            "<xsd:element name='e' maxOccurs='3'/>" +
+            "</xsd:sequence></xsd:complexType></xsd:schema>";
+        assertEquals(0, loadSchema(4).size());
+    }
+    
+    /**
+     * Loads the schema with full checking on the given number of
+     * threads, returning the errors reported with their locations.
+     */
+    private ArrayList loadSchema(int threadCount) throws IOException {
+        final ArrayList errors = new ArrayList();
+        XMLSchemaLoader loader = new XMLSchemaLoader();
+        // the loader only checks grammars fully when they go into a pool
+        loader.setProperty(GRAMMAR_POOL, new XMLGrammarPoolImpl());
+        loader.setFeature(SCHEMA_FULL_CHECKING, true);
+        loader.setProperty(SCHEMA_FULL_CHECKING_THREADS, new Integer(threadCount));
+        loader.setErrorHandler(new XMLErrorHandler() {
+            public void warning(String domain, String key, XMLParseException exception) throws XNIException {
+            }
+            public void error(String domain, String key, XMLParseException exception) throws XNIException {
+                errors.add(exception.getLineNumber() + ":" +
+                        exception.getColumnNumber() + ": " + exception.getMessage());
+            }
+            public void fatalError(String domain, String key, XMLParseException exception) throws XNIException {
+                throw exception;
+            }
+        });
+        loader.loadGrammar(new XMLInputSource(null, "test.xsd", null, new StringReader(fSchema), null));
+        return errors;
+    }
+}
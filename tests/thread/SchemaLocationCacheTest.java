@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package thread;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.apache.xerces.impl.Constants;
+import org.apache.xerces.impl.xs.SchemaLocationCache;
+import org.apache.xerces.parsers.XIncludeAwareParserConfiguration;
+import org.apache.xerces.xni.XMLResourceIdentifier;
+import org.apache.xerces.xni.XNIException;
+import org.apache.xerces.xni.parser.XMLEntityResolver;
+import org.apache.xerces.xni.parser.XMLErrorHandler;
+import org.apache.xerces.xni.parser.XMLInputSource;
+import org.apache.xerces.xni.parser.XMLParseException;
+import org.apache.xerces.xni.parser.XMLParserConfiguration;
+
+/**
+ * Tests the sharing of the grammars loaded from schema location hints
+ * through a schema location cache, by parsers on several threads.
+ * 
+ * @version $Id$
+ */
+public class SchemaLocationCacheTest extends TestCase {
+    
+    /** Feature identifier: validation. */
+    private static final String VALIDATION =
+        Constants.SAX_FEATURE_PREFIX + Constants.VALIDATION_FEATURE;
+    
+    /** Feature identifier: schema validation. */
+    private static final String SCHEMA_VALIDATION =
+        Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_VALIDATION_FEATURE;
+    
+    /** Feature identifier: schema full checking. */
+    private static final String SCHEMA_FULL_CHECKING =
+        Constants.XERCES_FEATURE_PREFIX + Constants.SCHEMA_FULL_CHECKING;
+    
+    /** Property identifier: schema location cache. */
+    private static final String SCHEMA_LOCATION_CACHE =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.SCHEMA_LOCATION_CACHE_PROPERTY;
+    
+    /** Property identifier: entity resolver. */
+    private static final String ENTITY_RESOLVER =
+        Constants.XERCES_PROPERTY_PREFIX + Constants.ENTITY_RESOLVER_PROPERTY;
+    
+    /** Number of validating threads. */
+    private static final int THREAD_COUNT = 8;
+    
+    /** Number of documents validated by each thread. */
+    private static final int PARSE_COUNT = 5;
+    
+    /** Time a loading thread waits for another thread to look for its grammar. */
+    private static final long LOAD_DELAY = 500;
+    
+    private File fDirectory;
+    private ArrayList fFiles;
+    private SchemaLocationCache fCache;
+    
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(SchemaLocationCacheTest.class);
+    }
+    
+    public SchemaLocationCacheTest(String name) {
+        super(name);
+    }
+    
+    protected void setUp() throws Exception {
+        super.setUp();
+        fDirectory = File.createTempFile("schema", "");
+        fDirectory.delete();
+        fDirectory.mkdir();
+        fFiles = new ArrayList();
+        write("main.xsd",
+                "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'>" +
+                "<xsd:include schemaLocation='included.xsd'/>" +
+                "<xsd:element name='root' type='rootType'/>" +
+                "</xsd:schema>");
+        write("included.xsd",
+                "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'>" +
+                "<xsd:complexType name='rootType'><xsd:sequence>" +
+                "<xsd:element name='item' type='xsd:int' maxOccurs='unbounded'/>" +
+                "</xsd:sequence></xsd:complexType>" +
+                "</xsd:schema>");
+        // violates the unique particle attribution constraint,
+        // which is only checked by schema full checking
+        write("ambiguous.xsd",
+                "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'>" +
+                "<xsd:element name='root'><xsd:complexType><xsd:sequence>" +
+                "<xsd:element name='item' type='xsd:int' minOccurs='0'/>" +
+                "<xsd:element name='item' type='xsd:int'/>" +
+                "</xsd:sequence></xsd:complexType></xsd:element>" +
+                "</xsd:schema>");
+        for (int i = 0; i < 5; i++) {
+            write("schema" + i + ".xsd",
+                    "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'>" +
+                    "<xsd:element name='root'><xsd:complexType><xsd:sequence>" +
+                    "<xsd:element name='item' type='xsd:int' maxOccurs='unbounded'/>" +
+                    "</xsd:sequence></xsd:complexType></xsd:element>" +
+                    "</xsd:schema>");
+        }
+        fCache = new SchemaLocationCache();
+    }
+    
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        for (int i = 0; i < fFiles.size(); i++) {
+            ((File) fFiles.get(i)).delete();
+        }
+        fDirectory.delete();
+        fFiles = null;
+        fCache = null;
+    }
+    
+    public void testSharedLoad() throws Exception {
+        final Object gate = new Object();
+        final boolean[] open = new boolean[1];
+        final ArrayList results = new ArrayList();
+        Thread[] threads = new Thread[THREAD_COUNT];
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    synchronized (gate) {
+                        while (!open[0]) {
+                            try {
+                                gate.wait();
+                            }
+                            catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                    }
+                    for (int j = 0; j < PARSE_COUNT; j++) {
+                        Object result;
+                        try {
+                            result = validate("main.xsd", null, false);
+                        }
+                        catch (Exception e) {
+                            result = e;
+                        }
+                        synchronized (results) {
+                            results.add(result);
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        synchronized (gate) {
+            open[0] = true;
+            gate.notifyAll();
+        }
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            threads[i].join();
+        }
+        
+        assertEquals(THREAD_COUNT * PARSE_COUNT, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(new ArrayList(), results.get(i));
+        }
+        // the threads which did not load the grammar waited for it
+        assertEquals(1, fCache.getMissCount());
+        assertEquals(THREAD_COUNT * PARSE_COUNT - 1, fCache.getHitCount());
+        assertEquals(1, fCache.size());
+    }
+    
+    public void testFirstLoadFails() throws Exception {
+        DelayedResolver resolver = new DelayedResolver() {
+            XMLInputSource firstResolve() {
+                throw new IllegalStateException("first load");
+            }
+        };
+        try {
+            validate("main.xsd", resolver, false);
+            fail("first load did not fail");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("first load", e.getMessage());
+        }
+        
+        // the waiting thread loaded the grammar itself
+        assertEquals(new ArrayList(), resolver.getResult());
+        assertEquals(2, fCache.getMissCount());
+        assertEquals(0, fCache.getHitCount());
+        assertEquals(1, fCache.size());
+        
+        assertEquals(new ArrayList(), validate("main.xsd", null, false));
+        assertEquals(1, fCache.getHitCount());
+    }
+    
+    public void testFirstLoadHasErrors() throws Exception {
+        DelayedResolver resolver = new DelayedResolver() {
+            XMLInputSource firstResolve() {
+                // refers to a type which does not exist
+                return new XMLInputSource(null, "included.xsd", null, new StringReader(
+                        "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'>" +
+                        "<xsd:complexType name='rootType'><xsd:sequence>" +
+                        "<xsd:element name='item' type='missing'/>" +
+                        "</xsd:sequence></xsd:complexType>" +
+                        "</xsd:schema>"), null);
+            }
+        };
+        ArrayList errors = validate("main.xsd", resolver, false);
+        assertTrue(errors.size() > 0);
+        
+        // the grammar with errors was not shared
+        assertEquals(new ArrayList(), resolver.getResult());
+        assertEquals(2, fCache.getMissCount());
+        assertEquals(0, fCache.getHitCount());
+        assertEquals(1, fCache.size());
+        
+        assertEquals(new ArrayList(), validate("main.xsd", null, false));
+        assertEquals(1, fCache.getHitCount());
+    }
+    
+    public void testFullCheckingErrors() throws Exception {
+        ArrayList errors = validate("ambiguous.xsd", null, true);
+        assertEquals(errors.toString(), 1, errors.size());
+        assertTrue(errors.get(0).toString(), errors.get(0).toString().startsWith("cos-nonambig"));
+        assertEquals(0, fCache.size());
+        
+        // the grammar is loaded and checked again
+        assertEquals(errors, validate("ambiguous.xsd", null, true));
+        assertEquals(2, fCache.getMissCount());
+        assertEquals(0, fCache.getHitCount());
+        assertEquals(0, fCache.size());
+        
+        // without full checking the grammar is cached
+        fCache.clear();
+        assertEquals(new ArrayList(), validate("ambiguous.xsd", null, false));
+        assertEquals(new ArrayList(), validate("ambiguous.xsd", null, false));
+        assertEquals(1, fCache.getMissCount());
+        assertEquals(1, fCache.getHitCount());
+        assertEquals(1, fCache.size());
+    }
+    
+    public void testEviction() throws Exception {
+        fCache.setMaxSize(3);
+        for (int i = 0; i < 5; i++) {
+            validate("schema" + i + ".xsd", null, false);
+        }
+        assertEquals(3, fCache.size());
+        assertEquals(5, fCache.getMissCount());
+        
+        // schema2 becomes the most recently used entry
+        validate("schema2.xsd", null, false);
+        assertEquals(1, fCache.getHitCount());
+        
+        // drops schema3, the least recently used entry
+        fCache.setMaxSize(2);
+        assertEquals(2, fCache.size());
+        validate("schema4.xsd", null, false);
+        validate("schema2.xsd", null, false);
+        assertEquals(3, fCache.getHitCount());
+        assertEquals(5, fCache.getMissCount());
+        validate("schema3.xsd", null, false);
+        assertEquals(6, fCache.getMissCount());
+        assertEquals(2, fCache.size());
+        
+        // drops schema4
+        validate("schema2.xsd", null, false);
+        assertEquals(4, fCache.getHitCount());
+        validate("schema4.xsd", null, false);
+        assertEquals(7, fCache.getMissCount());
+        
+        fCache.setMaxSize(0);
+        assertEquals(0, fCache.size());
+        validate("schema4.xsd", null, false);
+        assertEquals(0, fCache.size());
+        assertEquals(8, fCache.getMissCount());
+    }
+    
+    /**
+     * Validates a document whose root element refers to the given schema
+     * document, returning the keys of the errors reported.
+     */
+    private ArrayList validate(String schema, XMLEntityResolver resolver, 
+            boolean fullChecking) throws IOException {
+        final ArrayList errors = new ArrayList();
+        XMLParserConfiguration config = new XIncludeAwareParserConfiguration();
+        config.setFeature(VALIDATION, true);
+        config.setFeature(SCHEMA_VALIDATION, true);
+        config.setFeature(SCHEMA_FULL_CHECKING, fullChecking);
+        config.setProperty(SCHEMA_LOCATION_CACHE, fCache);
+        if (resolver != null) {
+            config.setProperty(ENTITY_RESOLVER, resolver);
+        }
+        config.setErrorHandler(new XMLErrorHandler() {
+            public void warning(String domain, String key, XMLParseException exception) throws XNIException {
+                errors.add(key);
+            }
+            public void error(String domain, String key, XMLParseException exception) throws XNIException {
+                errors.add(key);
+            }
+            public void fatalError(String domain, String key, XMLParseException exception) throws XNIException {
+                throw exception;
+            }
+        });
+        String document = "<root xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'" +
+            " xsi:noNamespaceSchemaLocation='" + schema + "'>" +
+            "<item>1</item><item>2</item></root>";
+        String systemId = new File(fDirectory, "document.xml").toURI().toString();
+        config.parse(new XMLInputSource(null, systemId, null, new StringReader(document), null));
+        return errors;
+    }
+    
+    private void write(String name, String content) throws IOException {
+        File file = new File(fDirectory, name);
+        fFiles.add(file);
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        }
+        finally {
+            writer.close();
+        }
+    }
+    
+    /**
+     * An entity resolver which, the first time it is asked for the schema
+     * document included by main.xsd, starts another validation of the same
+     * document and gives it time to wait for the grammar being loaded,
+     * before letting the load continue with the result of 
+     * <code>firstResolve</code>.
+     */
+    private abstract class DelayedResolver implements XMLEntityResolver {
+        
+        private boolean fFirst = true;
+        private Thread fThread;
+        private Object fResult;
+        
+        public XMLInputSource resolveEntity(XMLResourceIdentifier resourceIdentifier) 
+            throws XNIException, IOException {
+            if (!"included.xsd".equals(resourceIdentifier.getLiteralSystemId())) {
+                return null;
+            }
+            synchronized (this) {
+                if (!fFirst) {
+                    return null;
+                }
+                fFirst = false;
+            }
+            fThread = new Thread() {
+                public void run() {
+                    Object result;
+                    try {
+                        result = validate("main.xsd", DelayedResolver.this, false);
+                    }
+                    catch (Exception e) {
+                        result = e;
+                    }
+                    synchronized (DelayedResolver.this) {
+                        fResult = result;
+                    }
+                }
+            };
+            fThread.start();
+            try {
+                Thread.sleep(LOAD_DELAY);
+            }
+            catch (InterruptedException e) {
+            }
+            return firstResolve();
+        }
+        
+        /** Resolves the included schema document for the first load. */
+        abstract XMLInputSource firstResolve();
+        
+        /** Waits for the other validation, returning its errors. */
+        Object getResult() throws InterruptedException {
+            fThread.join();
+            synchronized (this) {
+                return fResult;
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package util;
+
+import java.util.Enumeration;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.xerces.util.IndexedNamespaceSupport;
+import org.apache.xerces.util.NamespaceSupport;
+import org.apache.xerces.util.SymbolTable;
+import org.apache.xerces.util.XMLSymbols;
+import org.apache.xerces.xni.NamespaceContext;
+
+/**
+ * Tests prefix resolution in IndexedNamespaceSupport, both directly
+ * and by comparing it with NamespaceSupport over random sequences
+ * of declarations and context changes.
+ * 
+ * @version $Id$
+ */
+public class IndexedNamespaceSupportTest extends TestCase {
+    
+    private SymbolTable fSymbolTable;
+    
+    private IndexedNamespaceSupport fContext;
+    
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(IndexedNamespaceSupportTest.class);
+    }
+    
+    public IndexedNamespaceSupportTest(String name) {
+        super(name);
+    }
+    
+    protected void setUp() throws Exception {
+        super.setUp();
+        fSymbolTable = new SymbolTable();
+        fContext = new IndexedNamespaceSupport();
+        fContext.reset();
+    }
+    
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        fSymbolTable = null;
+        fContext = null;
+    }
+    
+    public void testBuiltInPrefixes() {
+        assertSame(NamespaceContext.XML_URI, fContext.getURI(XMLSymbols.PREFIX_XML));
+        assertSame(NamespaceContext.XMLNS_URI, fContext.getURI(XMLSymbols.PREFIX_XMLNS));
+        assertFalse(fContext.declarePrefix(XMLSymbols.PREFIX_XML, symbol("urn:x")));
+        assertFalse(fContext.declarePrefix(XMLSymbols.PREFIX_XMLNS, symbol("urn:x")));
+        assertSame(NamespaceContext.XML_URI, fContext.getURI(XMLSymbols.PREFIX_XML));
+        assertNull(fContext.getURI(symbol("p")));
+        assertFalse(fContext.containsPrefix(symbol("p")));
+    }
+    
+    public void testDeclareAndUndeclare() {
+        final String p = symbol("p");
+        final String uri = symbol("urn:p");
+        fContext.pushContext();
+        assertTrue(fContext.declarePrefix(p, uri));
+        assertSame(uri, fContext.getURI(p));
+        assertSame(p, fContext.getPrefix(uri));
+        assertTrue(fContext.containsPrefix(p));
+        
+        // undeclaring a prefix binds it to null
+        fContext.pushContext();
+        assertTrue(fContext.declarePrefix(p, null));
+        assertNull(fContext.getURI(p));
+        assertNull(fContext.getPrefix(uri));
+        assertTrue(fContext.containsPrefix(p));
+        
+        fContext.popContext();
+        assertSame(uri, fContext.getURI(p));
+        fContext.popContext();
+        assertNull(fContext.getURI(p));
+        assertFalse(fContext.containsPrefix(p));
+    }
+    
+    public void testDefaultNamespace() {
+        final String uri = symbol("urn:default");
+        fContext.pushContext();
+        fContext.declarePrefix(XMLSymbols.EMPTY_STRING, uri);
+        fContext.declarePrefix(null, uri);
+        assertSame(uri, fContext.getURI(XMLSymbols.EMPTY_STRING));
+        assertSame(uri, fContext.getURI(null));
+        fContext.pushContext();
+        fContext.declarePrefix(null, null);
+        assertNull(fContext.getURI(null));
+        assertSame(uri, fContext.getURI(XMLSymbols.EMPTY_STRING));
+        fContext.popContext();
+        assertSame(uri, fContext.getURI(null));
+        fContext.popContext();
+        assertNull(fContext.getURI(null));
+        assertFalse(fContext.containsPrefix(null));
+    }
+    
+    public void testShadowing() {
+        final String p = symbol("p");
+        final String q = symbol("q");
+        final String uri1 = symbol("urn:1");
+        final String uri2 = symbol("urn:2");
+        final String uri3 = symbol("urn:3");
+        fContext.pushContext();
+        fContext.declarePrefix(p, uri1);
+        fContext.declarePrefix(q, uri1);
+        
+        fContext.pushContext();
+        fContext.declarePrefix(p, uri2);
+        assertSame(uri2, fContext.getURI(p));
+        assertSame(uri1, fContext.getURI(q));
+        // only q is still bound to the first URI
+        assertSame(q, fContext.getPrefix(uri1));
+        
+        // a redeclaration in the same context replaces the binding
+        fContext.declarePrefix(p, uri3);
+        assertSame(uri3, fContext.getURI(p));
+        assertEquals(1, fContext.getDeclaredPrefixCount());
+        
+        // an empty context changes nothing
+        fContext.pushContext();
+        assertSame(uri3, fContext.getURI(p));
+        assertEquals(0, fContext.getDeclaredPrefixCount());
+        fContext.popContext();
+        
+        fContext.popContext();
+        assertSame(uri1, fContext.getURI(p));
+        assertSame(uri1, fContext.getURI(q));
+        assertEquals(2, fContext.getDeclaredPrefixCount());
+    }
+    
+    public void testDeclaredPrefixOrder() {
+        final String[] prefixes = { symbol("c"), symbol("a"), symbol("b") };
+        fContext.pushContext();
+        for (int i = 0; i < prefixes.length; ++i) {
+            fContext.declarePrefix(prefixes[i], symbol("urn:" + i));
+        }
+        fContext.pushContext();
+        fContext.declarePrefix(prefixes[1], symbol("urn:inner"));
+        fContext.declarePrefix(symbol("d"), symbol("urn:d"));
+        
+        assertEquals(2, fContext.getDeclaredPrefixCount());
+        assertSame(prefixes[1], fContext.getDeclaredPrefixAt(0));
+        assertSame(symbol("d"), fContext.getDeclaredPrefixAt(1));
+        
+        // each prefix is listed once, in the order of its first declaration
+        assertEquals("c a b d", toString(fContext.getAllPrefixes()));
+        
+        fContext.popContext();
+        assertEquals(3, fContext.getDeclaredPrefixCount());
+        for (int i = 0; i < prefixes.length; ++i) {
+            assertSame(prefixes[i], fContext.getDeclaredPrefixAt(i));
+        }
+        assertEquals("c a b", toString(fContext.getAllPrefixes()));
+    }
+    
+    public void testGrowth() {
+        // many more prefixes than the initial capacity of the tables
+        final int count = 200;
+        fContext.pushContext();
+        for (int i = 0; i < count; ++i) {
+            fContext.declarePrefix(symbol("p" + i), symbol("urn:outer" + i));
+        }
+        for (int depth = 0; depth < 50; ++depth) {
+            fContext.pushContext();
+            fContext.declarePrefix(symbol("p" + depth), symbol("urn:inner" + depth));
+            fContext.declarePrefix(symbol("n" + depth), symbol("urn:new" + depth));
+        }
+        for (int i = 0; i < count; ++i) {
+            String expected = (i < 50) ? "urn:inner" : "urn:outer";
+            assertSame(symbol(expected + i), fContext.getURI(symbol("p" + i)));
+        }
+        for (int depth = 49; depth >= 0; --depth) {
+            assertSame(symbol("urn:new" + depth), fContext.getURI(symbol("n" + depth)));
+            fContext.popContext();
+            assertNull(fContext.getURI(symbol("n" + depth)));
+            assertSame(symbol("urn:outer" + depth), fContext.getURI(symbol("p" + depth)));
+        }
+        fContext.popContext();
+        for (int i = 0; i < count; ++i) {
+            assertNull(fContext.getURI(symbol("p" + i)));
+        }
+        
+        // prefixes of previous contexts do not fill the tables
+        for (int round = 0; round < 20; ++round) {
+            fContext.pushContext();
+            for (int i = 0; i < 20; ++i) {
+                fContext.declarePrefix(symbol("r" + round + "_" + i), symbol("urn:r" + i));
+            }
+            assertSame(symbol("urn:r7"), fContext.getURI(symbol("r" + round + "_7")));
+            fContext.popContext();
+        }
+        assertSame(NamespaceContext.XML_URI, fContext.getURI(XMLSymbols.PREFIX_XML));
+    }
+    
+    public void testReset() {
+        fContext.pushContext();
+        fContext.declarePrefix(symbol("p"), symbol("urn:p"));
+        fContext.declarePrefix(null, symbol("urn:default"));
+        fContext.reset();
+        assertNull(fContext.getURI(symbol("p")));
+        assertNull(fContext.getURI(null));
+        assertSame(NamespaceContext.XMLNS_URI, fContext.getURI(XMLSymbols.PREFIX_XMLNS));
+    }
+    
+    public void testSameAsNamespaceSupport() {
+        final NamespaceSupport reference = new NamespaceSupport();
+        final String[] prefixes = new String[40];
+        for (int i = 0; i < prefixes.length; ++i) {
+            prefixes[i] = (i == 0) ? null : symbol("p" + i);
+        }
+        final String[] uris = { null, symbol("urn:a"), symbol("urn:b"), symbol("urn:c") };
+        final Random random = new Random(7);
+        for (int run = 0; run < 20; ++run) {
+            reference.reset();
+            fContext.reset();
+            int depth = 0;
+            for (int step = 0; step < 2000; ++step) {
+                int action = random.nextInt(10);
+                if (action < 2 || (action < 4 && depth == 0)) {
+                    reference.pushContext();
+                    fContext.pushContext();
+                    ++depth;
+                }
+                else if (action < 4) {
+                    reference.popContext();
+                    fContext.popContext();
+                    --depth;
+                }
+                else {
+                    String prefix = prefixes[random.nextInt(prefixes.length)];
+                    String uri = uris[random.nextInt(uris.length)];
+                    assertEquals(reference.declarePrefix(prefix, uri), 
+                            fContext.declarePrefix(prefix, uri));
+                }
+                for (int i = 0; i < prefixes.length; ++i) {
+                    assertSame(reference.getURI(prefixes[i]), fContext.getURI(prefixes[i]));
+                    assertEquals(reference.containsPrefix(prefixes[i]), 
+                            fContext.containsPrefix(prefixes[i]));
+                }
+                for (int i = 1; i < uris.length; ++i) {
+                    assertSame(reference.getPrefix(uris[i]), fContext.getPrefix(uris[i]));
+                }
+                assertEquals(reference.getDeclaredPrefixCount(), fContext.getDeclaredPrefixCount());
+            }
+        }
+    }
+    
+    private String symbol(String s) {
+        return fSymbolTable.addSymbol(s);
+    }
+    
+    private static String toString(Enumeration prefixes) {
+        StringBuffer buffer = new StringBuffer();
+        while (prefixes.hasMoreElements()) {
+            if (buffer.length() > 0) {
+                buffer.append(' ');
+            }
+            buffer.append(prefixes.nextElement());
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package util;
+
+import junit.framework.TestCase;
+
+import org.apache.xerces.util.SymbolTable;
+import org.apache.xerces.util.XMLAttributesImpl;
+import org.apache.xerces.util.XMLSymbols;
+import org.apache.xerces.xni.QName;
+
+/**
+ * Tests duplicate attribute detection and attribute removal in
+ * XMLAttributesImpl, for lists which are searched directly and
+ * for lists which are large enough to be searched through the
+ * index tables.
+ * 
+ * @version $Id$
+ */
+public class XMLAttributesImplTest extends TestCase {
+    
+    /** 
+     * Attribute counts around the number of attributes up to 
+     * which a list is searched directly.
+     */
+    private static final int[] COUNTS = { 1, 2, 7, 8, 9, 10, 20, 100 };
+    
+    private static final String URI = "http://example.org/ns";
+    
+    private SymbolTable fSymbolTable;
+    
+    private XMLAttributesImpl fAttributes;
+    
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(XMLAttributesImplTest.class);
+    }
+    
+    public XMLAttributesImplTest(String name) {
+        super(name);
+    }
+    
+    protected void setUp() throws Exception {
+        super.setUp();
+        fSymbolTable = new SymbolTable();
+        fAttributes = new XMLAttributesImpl();
+    }
+    
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        fSymbolTable = null;
+        fAttributes = null;
+    }
+    
+    public void testDuplicateQName() {
+        for (int c = 0; c < COUNTS.length; ++c) {
+            final int count = COUNTS[c];
+            for (int dup = 0; dup < count; ++dup) {
+                fAttributes.removeAllAttributes();
+                addAttributes(count, null);
+                int index = fAttributes.addAttribute(name(null, "a" + dup, null), 
+                        XMLSymbols.fCDATASymbol, "new");
+                assertEquals("index of duplicate in " + count, dup, index);
+                assertEquals("length with duplicate", count, fAttributes.getLength());
+                assertEquals("replaced value", "new", fAttributes.getValue(dup));
+                assertIndexes(count, null);
+            }
+        }
+    }
+    
+    public void testDuplicateExpandedName() {
+        for (int c = 0; c < COUNTS.length; ++c) {
+            final int count = COUNTS[c];
+            for (int dup = 0; dup < count; ++dup) {
+                fAttributes.removeAllAttributes();
+                addAttributes(count, "p");
+                // same local part and namespace name, different prefix
+                int index = fAttributes.addAttribute(name("q", "a" + dup, URI), 
+                        XMLSymbols.fCDATASymbol, "new");
+                assertEquals("index of duplicate in " + count, dup, index);
+                assertEquals("length with duplicate", count, fAttributes.getLength());
+                assertEquals("replaced name", "q:a" + dup, fAttributes.getQName(dup));
+                assertIndexes(count, "p", dup);
+            }
+        }
+    }
+    
+    public void testCheckDuplicatesNS() {
+        for (int c = 0; c < COUNTS.length; ++c) {
+            final int count = COUNTS[c];
+            fAttributes.removeAllAttributes();
+            for (int i = 0; i < count; ++i) {
+                fAttributes.addAttributeNS(name("p", "a" + i, URI), XMLSymbols.fCDATASymbol, "v" + i);
+            }
+            assertNull("duplicate among " + count, fAttributes.checkDuplicatesNS());
+            for (int dup = 0; dup < count; ++dup) {
+                fAttributes.removeAllAttributes();
+                for (int i = 0; i < count; ++i) {
+                    fAttributes.addAttributeNS(name("p", "a" + i, URI), XMLSymbols.fCDATASymbol, "v" + i);
+                }
+                fAttributes.addAttributeNS(name("q", "a" + dup, URI), XMLSymbols.fCDATASymbol, "new");
+                QName duplicate = fAttributes.checkDuplicatesNS();
+                assertNotNull("duplicate of " + dup + " among " + count, duplicate);
+                assertEquals("duplicate local part", "a" + dup, duplicate.localpart);
+                assertEquals("duplicate namespace name", URI, duplicate.uri);
+            }
+            // same local part in different namespaces is not a duplicate
+            fAttributes.removeAllAttributes();
+            for (int i = 0; i < count; ++i) {
+                fAttributes.addAttributeNS(name("p", "a" + i, URI), XMLSymbols.fCDATASymbol, "v" + i);
+                fAttributes.addAttributeNS(name(null, "a" + i, null), XMLSymbols.fCDATASymbol, "v" + i);
+            }
+            assertNull("duplicate among " + (count * 2), fAttributes.checkDuplicatesNS());
+        }
+    }
+    
+    public void testRemoveAttributeAt() {
+        for (int c = 0; c < COUNTS.length; ++c) {
+            final int count = COUNTS[c];
+            for (int removed = 0; removed < count; ++removed) {
+                fAttributes.removeAllAttributes();
+                addAttributes(count, "p");
+                fAttributes.removeAttributeAt(removed);
+                assertEquals("length after removal", count - 1, fAttributes.getLength());
+                for (int i = 0; i < count; ++i) {
+                    final String localpart = "a" + i;
+                    final int expected = (i < removed) ? i : (i == removed) ? -1 : i - 1;
+                    assertEquals("index by qname of " + localpart, expected, 
+                            fAttributes.getIndex("p:" + localpart));
+                    assertEquals("index by expanded name of " + localpart, expected, 
+                            fAttributes.getIndex(URI, localpart));
+                    assertEquals("fast index of " + localpart, expected, 
+                            fAttributes.getIndexFast(fSymbolTable.addSymbol("p:" + localpart)));
+                }
+                // the removed attribute is added again at the end
+                int index = fAttributes.addAttribute(name("p", "a" + removed, URI), 
+                        XMLSymbols.fCDATASymbol, "again");
+                assertEquals("index of attribute added again", count - 1, index);
+                assertEquals("length after adding again", count, fAttributes.getLength());
+                assertEquals("value of attribute added again", "again", 
+                        fAttributes.getValue(URI, "a" + removed));
+            }
+        }
+    }
+    
+    private void addAttributes(int count, String prefix) {
+        final String uri = (prefix != null) ? URI : null;
+        for (int i = 0; i < count; ++i) {
+            int index = fAttributes.addAttribute(name(prefix, "a" + i, uri), 
+                    XMLSymbols.fCDATASymbol, "v" + i);
+            assertEquals("index of new attribute", i, index);
+        }
+        assertEquals("length", count, fAttributes.getLength());
+    }
+    
+    private void assertIndexes(int count, String prefix) {
+        assertIndexes(count, prefix, -1);
+    }
+    
+    /** 
+     * Checks the lookups of the attributes, which have the given prefix
+     * except the one at the given position, which has the prefix "q".
+     */
+    private void assertIndexes(int count, String prefix, int renamed) {
+        for (int i = 0; i < count; ++i) {
+            final String localpart = "a" + i;
+            final String p = (i == renamed) ? "q" : prefix;
+            final String qname = (p != null) ? p + ':' + localpart : localpart;
+            // symbols are compared by reference, other strings by value
+            assertEquals("fast index of " + qname, i, 
+                    fAttributes.getIndexFast(fSymbolTable.addSymbol(qname)));
+            assertEquals("index of " + qname, i, fAttributes.getIndex(new String(qname)));
+            if (p != null) {
+                assertEquals("index of {" + URI + "}" + localpart, i, 
+                        fAttributes.getIndex(new String(URI), new String(localpart)));
+            }
+        }
+        if (renamed != -1) {
+            assertEquals("index of replaced name", -1, 
+                    fAttributes.getIndex(prefix + ":a" + renamed));
+        }
+    }
+    
+    private QName name(String prefix, String localpart, String uri) {
+        prefix = (prefix != null) ? fSymbolTable.addSymbol(prefix) : null;
+        localpart = fSymbolTable.addSymbol(localpart);
+        String rawname = (prefix != null) ? 
+                fSymbolTable.addSymbol(prefix + ':' + localpart) : localpart;
+        uri = (uri != null) ? fSymbolTable.addSymbol(uri) : null;
+        return new QName(prefix, localpart, rawname, uri);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package xinclude;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import junit.framework.TestCase;
+
+import org.apache.xerces.parsers.DOMParser;
+import org.apache.xerces.xinclude.XIncludeCache;
+import org.w3c.dom.Document;
+
+/**
+ * Tests the reuse of XInclude results through the XInclude cache,
+ * and their invalidation.
+ * 
+ * @version $Id$
+ */
+public class CacheTest extends TestCase {
+    
+    /** Feature identifier: XInclude processing. */
+    private static final String XINCLUDE_FEATURE =
+        "http://apache.org/xml/features/xinclude";
+    
+    /** Property identifier: XInclude cache. */
+    private static final String XINCLUDE_CACHE =
+        "http://apache.org/xml/properties/xinclude/cache";
+    
+    private File fDirectory;
+    private File fDocument;
+    private File fIncluded;
+    private XIncludeCache fCache;
+    
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(CacheTest.class);
+    }
+    
+    public CacheTest(String name) {
+        super(name);
+    }
+    
+    protected void setUp() throws Exception {
+        super.setUp();
+        fDirectory = File.createTempFile("xinclude", "");
+        fDirectory.delete();
+        fDirectory.mkdir();
+        fDocument = new File(fDirectory, "document.xml");
+        fIncluded = new File(fDirectory, "included.xml");
+        write(fDocument,
+                "<doc xmlns:xi='http://www.w3.org/2001/XInclude'>" +
+                "<first><xi:include href='included.xml'/></first>" +
+                "<second><xi:include href='included.xml'/></second>" +
+                "<text><xi:include href='included.xml' parse='text'/></text>" +
+                "</doc>");
+        write(fIncluded, "<included>one</included>");
+        fCache = new XIncludeCache();
+    }
+    
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        fDocument.delete();
+        fIncluded.delete();
+        fDirectory.delete();
+        fCache = null;
+    }
+    
+    public void testCacheHit() throws Exception {
+        String expected = "oneone<included>one</included>";
+        assertEquals(expected, parse());
+        // the second include of the same resource in the same
+        // context reuses the result of the first one
+        assertEquals(2, fCache.size());
+        assertEquals(1, fCache.getHitCount());
+        assertEquals(2, fCache.getMissCount());
+        
+        assertEquals(expected, parse());
+        assertEquals(2, fCache.size());
+        assertEquals(4, fCache.getHitCount());
+        assertEquals(2, fCache.getMissCount());
+    }
+    
+    public void testCheckModified() throws Exception {
+        fCache.setCheckModified(true);
+        assertEquals("oneone<included>one</included>", parse());
+        
+        modify();
+        assertEquals("twotwo<included>two</included>", parse());
+        assertEquals(2, fCache.getHitCount());
+        assertEquals(4, fCache.getMissCount());
+        
+        assertEquals("twotwo<included>two</included>", parse());
+        assertEquals(5, fCache.getHitCount());
+        assertEquals(4, fCache.getMissCount());
+    }
+    
+    public void testModifiedNotChecked() throws Exception {
+        assertEquals("oneone<included>one</included>", parse());
+        
+        // modifications are only noticed when they are checked for
+        modify();
+        assertEquals("oneone<included>one</included>", parse());
+        assertEquals(4, fCache.getHitCount());
+    }
+    
+    public void testClear() throws Exception {
+        assertEquals("oneone<included>one</included>", parse());
+        
+        modify();
+        fCache.clear();
+        assertEquals(0, fCache.size());
+        assertEquals(0, fCache.getHitCount());
+        assertEquals(0, fCache.getMissCount());
+        assertEquals("twotwo<included>two</included>", parse());
+        assertEquals(1, fCache.getHitCount());
+        assertEquals(2, fCache.getMissCount());
+    }
+    
+    public void testNoEntries() throws Exception {
+        fCache.setMaxEntries(0);
+        assertEquals("oneone<included>one</included>", parse());
+        assertEquals("oneone<included>one</included>", parse());
+        assertEquals(0, fCache.size());
+        assertEquals(0, fCache.getHitCount());
+        assertEquals(6, fCache.getMissCount());
+    }
+    
+    private String parse() throws Exception {
+        DOMParser parser = new DOMParser();
+        parser.setFeature(XINCLUDE_FEATURE, true);
+        parser.setProperty(XINCLUDE_CACHE, fCache);
+        parser.parse(fDocument.toURI().toString());
+        Document document = parser.getDocument();
+        return document.getDocumentElement().getTextContent();
+    }
+    
+    private void modify() throws IOException {
+        long lastModified = fIncluded.lastModified();
+        write(fIncluded, "<included>two</included>");
+        // make sure the change is visible at the resolution
+        // of the file system
+        fIncluded.setLastModified(lastModified + 10000);
+    }
+    
+    private static void write(File file, String content) throws IOException {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        }
+        finally {
+            writer.close();
+        }
+    }
+}